@@ -42,6 +42,7 @@ import org.opentrafficsim.core.gtu.GtuType;
 import org.opentrafficsim.core.network.LinkWeight;
 import org.opentrafficsim.core.network.Node;
 import org.opentrafficsim.core.parameters.ParameterFactoryDefault;
+import org.opentrafficsim.i4driving.messages.CommandsReader;
 import org.opentrafficsim.i4driving.messages.DefaultGson;
 import org.opentrafficsim.i4driving.sim0mq.MixinModel;
 import org.opentrafficsim.i4driving.tactical.CommandsHandler;
@@ -198,10 +199,9 @@ public class ScenarioCutIn extends AbstractSimulationScript
                 new LaneBasedStrategicalRoutePlannerFactory(tacticalFactory, new ParameterFactoryDefault(), routeGenerator);
 
         // Vehicle commands
-        Gson gson = DefaultGson.GSON;
-        new CommandsHandler(network, gson.fromJson(getReader(this.inputVehicle1), DefaultGson.COMMANDS), strategicalFactory);
-        new CommandsHandler(network, gson.fromJson(getReader(this.inputVehicle2), DefaultGson.COMMANDS), strategicalFactory);
-        new CommandsHandler(network, gson.fromJson(getReader(this.inputVehicle3), DefaultGson.COMMANDS), strategicalFactory);
+        new CommandsHandler(network, getCommandsReader(this.inputVehicle1), strategicalFactory);
+        new CommandsHandler(network, getCommandsReader(this.inputVehicle2), strategicalFactory);
+        new CommandsHandler(network, getCommandsReader(this.inputVehicle3), strategicalFactory);
 
         // Sampler
         this.sampler = RoadSampler.build(network).setFrequency(Frequency.instantiateSI(20.0))
@@ -218,6 +218,19 @@ public class ScenarioCutIn extends AbstractSimulationScript
         return network;
     }
 
+    /**
+     * Returns a streaming reader of the commands in a file, after checking that the file can be streamed, i.e. that the GTU id
+     * and generation info precede the commands, and that the commands are in order of time.
+     * @param file file name.
+     * @return streaming reader of the commands in the file.
+     * @throws IOException when the file cannot be read, or cannot be streamed.
+     */
+    private static CommandsReader getCommandsReader(final String file) throws IOException
+    {
+        CommandsReader.validate(getReader(file));
+        return new CommandsReader(getReader(file));
+    }
+
     /**
      * Returns a reader for GSON to read a file.
      * @param file file name.
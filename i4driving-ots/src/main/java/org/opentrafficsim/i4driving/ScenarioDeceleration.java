@@ -45,6 +45,7 @@ import org.opentrafficsim.core.gtu.GtuType;
 import org.opentrafficsim.core.network.LinkWeight;
 import org.opentrafficsim.core.network.Node;
 import org.opentrafficsim.core.parameters.ParameterFactoryDefault;
+import org.opentrafficsim.i4driving.messages.CommandsReader;
 import org.opentrafficsim.i4driving.messages.DefaultGson;
 import org.opentrafficsim.i4driving.sampling.GapData;
 import org.opentrafficsim.i4driving.sampling.SpeedDifferenceData;
@@ -234,65 +235,55 @@ public class ScenarioDeceleration extends AbstractSimulationScript
                 new LaneBasedStrategicalRoutePlannerFactory(tacticalFactory, new ParameterFactoryDefault(), routeGenerator);
 
         // Vehicle commands
-        Gson gson = DefaultGson.GSON;
         if (this.inputVehicle1 != null && !this.inputVehicle1.isBlank())
         {
-            CommandsHandler handler1 = new CommandsHandler(network,
-                    gson.fromJson(getReader(this.inputVehicle1), DefaultGson.COMMANDS), strategicalFactory);
+            CommandsHandler handler1 = new CommandsHandler(network, getCommandsReader(this.inputVehicle1), strategicalFactory);
             this.egoVehicle = handler1.getGtuId();
         }
         if (this.inputVehicle2 != null && !this.inputVehicle2.isBlank())
         {
-            CommandsHandler handler2 = new CommandsHandler(network,
-                    gson.fromJson(getReader(this.inputVehicle2), DefaultGson.COMMANDS), strategicalFactory);
+            CommandsHandler handler2 = new CommandsHandler(network, getCommandsReader(this.inputVehicle2), strategicalFactory);
             this.egoVehicle = handler2.getGtuId();
         }
         if (this.inputVehicle3 != null && !this.inputVehicle3.isBlank())
         {
-            CommandsHandler handler3 = new CommandsHandler(network,
-                    gson.fromJson(getReader(this.inputVehicle3), DefaultGson.COMMANDS), strategicalFactory);
+            CommandsHandler handler3 = new CommandsHandler(network, getCommandsReader(this.inputVehicle3), strategicalFactory);
             this.egoVehicle = handler3.getGtuId();
         }
         if (this.inputVehicle4 != null && !this.inputVehicle4.isBlank())
         {
-            CommandsHandler handler4 = new CommandsHandler(network,
-                    gson.fromJson(getReader(this.inputVehicle4), DefaultGson.COMMANDS), strategicalFactory);
+            CommandsHandler handler4 = new CommandsHandler(network, getCommandsReader(this.inputVehicle4), strategicalFactory);
             this.egoVehicle = handler4.getGtuId();
         }
         if (this.inputVehicle5 != null && !this.inputVehicle5.isBlank())
         {
-            CommandsHandler handler5 = new CommandsHandler(network,
-                    gson.fromJson(getReader(this.inputVehicle5), DefaultGson.COMMANDS), strategicalFactory);
+            CommandsHandler handler5 = new CommandsHandler(network, getCommandsReader(this.inputVehicle5), strategicalFactory);
             this.egoVehicle = handler5.getGtuId();
         }
         if (this.inputVehicle6 != null && !this.inputVehicle6.isBlank())
         {
-            CommandsHandler handler6 = new CommandsHandler(network,
-                    gson.fromJson(getReader(this.inputVehicle6), DefaultGson.COMMANDS), strategicalFactory);
+            CommandsHandler handler6 = new CommandsHandler(network, getCommandsReader(this.inputVehicle6), strategicalFactory);
             this.egoVehicle = handler6.getGtuId();
         }
         if (this.inputVehicle7 != null && !this.inputVehicle7.isBlank())
         {
-            CommandsHandler handler7 = new CommandsHandler(network,
-                    gson.fromJson(getReader(this.inputVehicle7), DefaultGson.COMMANDS), strategicalFactory);
+            CommandsHandler handler7 = new CommandsHandler(network, getCommandsReader(this.inputVehicle7), strategicalFactory);
             this.egoVehicle = handler7.getGtuId();
         }
         if (this.inputVehicle8 != null && !this.inputVehicle8.isBlank())
         {
-            CommandsHandler handler8 = new CommandsHandler(network,
-                    gson.fromJson(getReader(this.inputVehicle8), DefaultGson.COMMANDS), strategicalFactory);
+            CommandsHandler handler8 = new CommandsHandler(network, getCommandsReader(this.inputVehicle8), strategicalFactory);
             this.egoVehicle = handler8.getGtuId();
         }
         if (this.inputVehicle9 != null && !this.inputVehicle9.isBlank())
         {
-            CommandsHandler handler9 = new CommandsHandler(network,
-                    gson.fromJson(getReader(this.inputVehicle9), DefaultGson.COMMANDS), strategicalFactory);
+            CommandsHandler handler9 = new CommandsHandler(network, getCommandsReader(this.inputVehicle9), strategicalFactory);
             this.egoVehicle = handler9.getGtuId();
         }
         if (this.inputVehicle10 != null && !this.inputVehicle10.isBlank())
         {
-            CommandsHandler handler10 = new CommandsHandler(network,
-                    gson.fromJson(getReader(this.inputVehicle10), DefaultGson.COMMANDS), strategicalFactory);
+            CommandsHandler handler10 =
+                    new CommandsHandler(network, getCommandsReader(this.inputVehicle10), strategicalFactory);
             this.egoVehicle = handler10.getGtuId();
         }
 
@@ -315,6 +306,19 @@ public class ScenarioDeceleration extends AbstractSimulationScript
         return network;
     }
 
+    /**
+     * Returns a streaming reader of the commands in a file, after checking that the file can be streamed, i.e. that the GTU id
+     * and generation info precede the commands, and that the commands are in order of time.
+     * @param file file name.
+     * @return streaming reader of the commands in the file.
+     * @throws IOException when the file cannot be read, or cannot be streamed.
+     */
+    private static CommandsReader getCommandsReader(final String file) throws IOException
+    {
+        CommandsReader.validate(getReader(file));
+        return new CommandsReader(getReader(file));
+    }
+
     /**
      * Returns a reader for GSON to read a file.
      * @param file file name.
@@ -37,13 +37,12 @@ public class StopCriterion
         this.simulator = simulator;
         this.network = network;
         this.interval = interval;
-        simulator.scheduleEventAbsTime(startTime, this, "check", null);
+        simulator.scheduleEventAbs(startTime.minus(simulator.getStartTimeAbs()), this::check);
     }
 
     /**
      * Check whether we can stop.
      */
-    @SuppressWarnings("unused")
     private void check()
     {
         Iterator<Gtu> gtus = this.network.getGTUs().iterator();
@@ -58,7 +57,7 @@ public class StopCriterion
         }
         else
         {
-            this.simulator.scheduleEventRel(this.interval, this, "check", null);
+            this.simulator.scheduleEventRel(this.interval, this::check);
         }
     }
 
@@ -57,6 +57,7 @@ import org.opentrafficsim.i4driving.demo.plots.ContourPlotExtendedData;
 import org.opentrafficsim.i4driving.demo.plots.DistributionPlotExtendedData;
 import org.opentrafficsim.i4driving.sampling.TaskSaturationData;
 import org.opentrafficsim.i4driving.tactical.perception.ChannelPerceptionFactory;
+import org.opentrafficsim.i4driving.tactical.perception.ParallelPerception;
 import org.opentrafficsim.i4driving.tactical.perception.mental.channel.ChannelFuller;
 import org.opentrafficsim.i4driving.tactical.perception.mental.channel.ChannelMental;
 import org.opentrafficsim.i4driving.tactical.perception.mental.channel.ChannelTask;
@@ -118,6 +119,7 @@ import org.opentrafficsim.trafficcontrol.FixedTimeController.SignalGroup;
 import nl.tudelft.simulation.dsol.swing.gui.TablePanel;
 import nl.tudelft.simulation.jstats.distributions.DistContinuous;
 import nl.tudelft.simulation.jstats.streams.StreamInterface;
+import picocli.CommandLine.Option;
 
 /**
  * Demo of attention in an urban setting.
@@ -152,6 +154,12 @@ public class AttentionDemoUrban extends AbstractSimulationScript
     /** Intersection radius. */
     private final double intersection = 15.0;
 
+    /** Number of threads for parallel perception of GTUs that move at the same instant, 0 for serial perception. */
+    @Option(names = {"--parallelPerception"},
+            description = "Number of threads for parallel perception of GTUs moving at the same instant, 0 for serial.",
+            defaultValue = "0")
+    private int parallelPerception = 0;
+
     /**
      * Constructor.
      */
@@ -374,7 +382,8 @@ public class AttentionDemoUrban extends AbstractSimulationScript
                 return getStream().nextDouble() <= fractionUnder ? -error : error;
             }
         });
-        PerceptionFactory perceptionFactory = new ChannelPerceptionFactory();
+        PerceptionFactory perceptionFactory = new ChannelPerceptionFactory(
+                this.parallelPerception > 0 ? new ParallelPerception(sim, this.parallelPerception) : null);
         OdOptions options = new OdOptions();
         CarFollowingModelFactory<IdmPlus> cfFactory = new IdmPlusFactory(stream);
         AbstractLaneBasedTacticalPlannerFactory<Lmrs> lmrsFactory =
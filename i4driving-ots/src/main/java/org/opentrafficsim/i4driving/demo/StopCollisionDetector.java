@@ -1,14 +1,13 @@
 package org.opentrafficsim.i4driving.demo;
 
-import java.lang.reflect.Method;
 import java.util.Iterator;
 
 import org.djunits.value.vdouble.scalar.Duration;
-import org.opentrafficsim.core.gtu.Gtu;
 import org.opentrafficsim.core.gtu.GtuException;
 import org.opentrafficsim.core.gtu.plan.operational.OperationalPlan;
 import org.opentrafficsim.core.gtu.plan.operational.OperationalPlanException;
 import org.opentrafficsim.core.network.Network;
+import org.opentrafficsim.i4driving.tactical.OtsInternals;
 import org.opentrafficsim.road.gtu.lane.AbstractLaneBasedMoveChecker;
 import org.opentrafficsim.road.gtu.lane.LaneBasedGtu;
 import org.opentrafficsim.road.gtu.lane.perception.PerceptionCollectable;
@@ -54,10 +53,8 @@ public class StopCollisionDetector extends AbstractLaneBasedMoveChecker
             if (leader.getDistance().lt0())
             {
                 System.err.println("GTU " + gtu.getId() + " collided with GTU " + leader.getObject().getId());
-                Method method = Gtu.class.getDeclaredMethod("setOperationalPlan", OperationalPlan.class);
-                method.setAccessible(true);
-                method.invoke(gtu, OperationalPlan.standStill(gtu, gtu.getLocation(), gtu.getSimulator().getSimulatorAbsTime(),
-                        Duration.POSITIVE_INFINITY));
+                OtsInternals.setOperationalPlan(gtu, OperationalPlan.standStill(gtu, gtu.getLocation(),
+                        gtu.getSimulator().getSimulatorAbsTime(), Duration.POSITIVE_INFINITY));
                 gtu.getSimulator().cancelEvent(gtu.getNextMoveEvent());
             }
         }
@@ -5,15 +5,19 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
+import org.djunits.value.vdouble.scalar.Acceleration;
+import org.djunits.value.vdouble.scalar.Duration;
 import org.djunits.value.vdouble.scalar.Length;
 import org.djunits.value.vdouble.scalar.Speed;
 import org.djunits.value.vdouble.scalar.Time;
 import org.djutils.exceptions.Throw;
+import org.djutils.exceptions.Try;
 import org.djutils.immutablecollections.Immutable;
 import org.djutils.immutablecollections.ImmutableArrayList;
 import org.djutils.immutablecollections.ImmutableLinkedHashMap;
 import org.djutils.immutablecollections.ImmutableList;
 import org.djutils.immutablecollections.ImmutableMap;
+import org.opentrafficsim.core.network.LateralDirectionality;
 
 /**
  * Class containing information for scenario control over GTUs.
@@ -241,6 +245,54 @@ public class Commands
             Throw.when(this.data == null || !this.data.containsKey(field), NoSuchFieldException.class, "No field %s.", field);
             return this.data.get(field);
         }
+
+        /**
+         * Parses the scalar value of the command from its data, e.g. speed, acceleration or indicator duration.
+         * @return scalar value of the command in SI units, {@code NaN} if the type of command has no scalar value
+         * @throws RuntimeException when a field is missing or its value cannot be parsed
+         */
+        public double parseValue()
+        {
+            switch (this.type)
+            {
+                case SET_DESIRED_SPEED:
+                    return Speed.valueOf(
+                            Try.assign(() -> getData("speed"), "Field 'speed' not found for setDesiredSpeed command.")).si;
+                case SET_ACCELERATION:
+                    return Acceleration.valueOf(Try.assign(() -> getData("acceleration"),
+                            "Field 'acceleration' not found for setAcceleration command.")).si;
+                case SET_INDICATOR:
+                    return Duration.valueOf(Try.assign(() -> getData("duration"), "Field 'duration' not found.")).si;
+                default:
+                    return Double.NaN;
+            }
+        }
+
+        /**
+         * Parses the argument of the command from its data that is not a scalar value, i.e. the parameter name and value as a
+         * {@code String[]}, or the {@code LateralDirectionality} of a lane change or indicator.
+         * @return argument of the command, {@code null} if the type of command has no such argument
+         * @throws RuntimeException when a field is missing or its value cannot be parsed
+         */
+        public Object parseArgument()
+        {
+            switch (this.type)
+            {
+                case SET_PARAMETER:
+                    String parameter =
+                            Try.assign(() -> getData("parameter"), "Field 'parameter' not found for setParameter command.");
+                    String value = Try.assign(() -> getData("value"), "Field 'value' not found for setParameter command.");
+                    return new String[] {parameter, value};
+                case CHANGE_LANE:
+                    return LateralDirectionality.valueOf(
+                            Try.assign(() -> getData("direction"), "Field 'direction' not found for changeLane command."));
+                case SET_INDICATOR:
+                    return LateralDirectionality.valueOf(
+                            Try.assign(() -> getData("direction"), "Field 'direction' not found for setIndicator command."));
+                default:
+                    return null;
+            }
+        }
     }
 
     /**
@@ -0,0 +1,234 @@
+package org.opentrafficsim.i4driving.messages;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.djutils.exceptions.Throw;
+import org.opentrafficsim.i4driving.messages.Commands.Command;
+import org.opentrafficsim.i4driving.messages.Commands.GenerationInfo;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * Streaming reader of a JSON file in the format of {@code Commands}. The GTU id and generation info are read on construction,
+ * after which the commands are given one by one as they are read from the file. This allows files with many commands to be
+ * used without ever holding all commands in memory. The fields {@code gtuId} and {@code generationInfo} should therefore
+ * precede the field {@code commands}. The underlying reader is closed when all commands have been read.
+ * @author wjschakel
+ */
+public class CommandsReader implements Iterator<Command>, Closeable
+{
+
+    /** JSON reader. */
+    private final JsonReader json;
+
+    /** Adapter for commands. */
+    private final TypeAdapter<Command> commandAdapter;
+
+    /** GTU id. */
+    private String gtuId;
+
+    /** Generation information. */
+    private GenerationInfo generationInfo;
+
+    /** Whether the reader is at a command. */
+    private boolean inCommands;
+
+    /**
+     * Constructor using {@code DefaultGson.GSON}.
+     * @param reader reader of the JSON file
+     * @throws IOException when the file cannot be read, or is not in the format of {@code Commands}
+     */
+    public CommandsReader(final Reader reader) throws IOException
+    {
+        this(reader, DefaultGson.GSON);
+    }
+
+    /**
+     * Constructor.
+     * @param reader reader of the JSON file
+     * @param gson Gson with adapters for the values in commands and generation info
+     * @throws IOException when the file cannot be read, or is not in the format of {@code Commands}
+     */
+    public CommandsReader(final Reader reader, final Gson gson) throws IOException
+    {
+        Throw.whenNull(reader, "reader");
+        this.json = new JsonReader(reader);
+        this.commandAdapter = gson.getAdapter(Command.class);
+        this.json.beginObject();
+        while (this.json.hasNext())
+        {
+            String name = this.json.nextName();
+            if ("gtuId".equals(name))
+            {
+                this.gtuId = this.json.nextString();
+            }
+            else if ("generationInfo".equals(name))
+            {
+                this.generationInfo = gson.getAdapter(GenerationInfo.class).read(this.json);
+            }
+            else if ("commands".equals(name))
+            {
+                this.json.beginArray();
+                this.inCommands = true;
+                return;
+            }
+            else
+            {
+                this.json.skipValue();
+            }
+        }
+        finish();
+    }
+
+    /**
+     * Reads a JSON file in the format of {@code Commands} using {@code DefaultGson.GSON}, and checks that it can be read by
+     * this class, i.e. that fields {@code gtuId} and {@code generationInfo} precede field {@code commands}, that the
+     * commands are in order of time, and that the data of each command can be parsed. The commands are not kept. This allows a
+     * file to be rejected when it is loaded, rather than when the simulation reaches the offending command. The reader is
+     * closed.
+     * @param reader reader of the JSON file
+     * @throws IOException when the file cannot be read, is not in the format of {@code Commands}, or cannot be read by this
+     *             class
+     */
+    public static void validate(final Reader reader) throws IOException
+    {
+        validate(reader, DefaultGson.GSON);
+    }
+
+    /**
+     * Reads a JSON file in the format of {@code Commands}, and checks that it can be read by this class, i.e. that fields
+     * {@code gtuId} and {@code generationInfo} precede field {@code commands}, that the commands are in order of time, and
+     * that the data of each command can be parsed, as {@code Command.parseValue()} and {@code parseArgument()} do when the
+     * commands are loaded in a timeline. The commands are not kept. This allows a file to be rejected when it is loaded, rather
+     * than when the simulation reaches the offending command. The reader is closed.
+     * @param reader reader of the JSON file
+     * @param gson Gson with adapters for the values in commands and generation info
+     * @throws IOException when the file cannot be read, is not in the format of {@code Commands}, or cannot be read by this
+     *             class
+     */
+    public static void validate(final Reader reader, final Gson gson) throws IOException
+    {
+        try (CommandsReader commands = new CommandsReader(reader, gson))
+        {
+            Command previous = null;
+            while (commands.hasNext())
+            {
+                Command command = commands.next();
+                if (previous != null && command.time().lt(previous.time()))
+                {
+                    throw new IOException("Command at " + command.time() + " is given after a command at " + previous.time()
+                            + ", commands should be in order of time.");
+                }
+                try
+                {
+                    command.parseValue();
+                    command.parseArgument();
+                }
+                catch (RuntimeException ex)
+                {
+                    throw new IOException("Command " + command.type().printValue() + " at " + command.time()
+                            + " has invalid data: " + ex.getMessage(), ex);
+                }
+                previous = command;
+            }
+        }
+        catch (UncheckedIOException ex)
+        {
+            throw ex.getCause();
+        }
+    }
+
+    /**
+     * Returns the GTU id.
+     * @return GTU id.
+     */
+    public String getGtuId()
+    {
+        return this.gtuId;
+    }
+
+    /**
+     * Returns the generation info.
+     * @return generation info, {@code null} if GTU should be found from another source.
+     */
+    public GenerationInfo getGenerationInfo()
+    {
+        return this.generationInfo;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean hasNext()
+    {
+        if (!this.inCommands)
+        {
+            return false;
+        }
+        try
+        {
+            if (this.json.peek() == JsonToken.END_ARRAY)
+            {
+                this.json.endArray();
+                this.inCommands = false;
+                while (this.json.hasNext())
+                {
+                    String name = this.json.nextName();
+                    if ("gtuId".equals(name) || "generationInfo".equals(name))
+                    {
+                        throw new IOException("Field " + name + " should precede field commands.");
+                    }
+                    this.json.skipValue();
+                }
+                finish();
+                return false;
+            }
+            return true;
+        }
+        catch (IOException ex)
+        {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Command next()
+    {
+        Throw.when(!hasNext(), NoSuchElementException.class, "No more commands.");
+        try
+        {
+            return this.commandAdapter.read(this.json);
+        }
+        catch (IOException ex)
+        {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Ends the JSON object and closes the reader.
+     * @throws IOException when the file cannot be read, or is not in the format of {@code Commands}
+     */
+    private void finish() throws IOException
+    {
+        this.json.endObject();
+        close();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() throws IOException
+    {
+        this.inCommands = false;
+        this.json.close();
+    }
+
+}
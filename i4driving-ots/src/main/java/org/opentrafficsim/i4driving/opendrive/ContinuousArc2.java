@@ -1,21 +1,30 @@
 package org.opentrafficsim.i4driving.opendrive;
 
-import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-
-import org.djunits.value.vdouble.scalar.Angle;
 import org.djutils.draw.point.OrientedPoint2d;
 import org.djutils.draw.point.Point2d;
 import org.opentrafficsim.core.geometry.ContinuousArc;
+import org.opentrafficsim.core.geometry.FractionalLengthData;
 
 /**
- * Overrides ContinuousArc to fix bug in endPoint() method.
+ * Overrides ContinuousArc to fix bug in endPoint() method. This class also gives direct access to points and directions along
+ * the arc, using the same formulas as ContinuousArc.
  * @author wjschakel
  */
 public class ContinuousArc2 extends ContinuousArc
 {
 
+    /** Radius. */
+    private final double radius;
+
+    /** Sign, 1.0 for left and -1.0 for right. */
+    private final double sign;
+
+    /** Angle of the arc. */
+    private final double angle;
+
+    /** Center point of the arc. */
+    private final Point2d center;
+
     /**
      * Define arc by starting point, radius, curve direction, and length.
      * @param startPoint OrientedPoint2d; starting point.
@@ -26,34 +35,71 @@ public class ContinuousArc2 extends ContinuousArc
     public ContinuousArc2(OrientedPoint2d startPoint, double radius, boolean left, double length)
     {
         super(startPoint, radius, left, length);
+        this.radius = radius;
+        this.sign = left ? 1.0 : -1.0;
+        this.angle = length / radius;
+        double dx = Math.cos(startPoint.dirZ) * this.sign * radius;
+        double dy = Math.sin(startPoint.dirZ) * this.sign * radius;
+        this.center = new Point2d(startPoint.x - dy, startPoint.y + dx);
     }
 
     @Override
     public OrientedPoint2d getEndPoint()
     {
-        try
-        {
-            Method method = ContinuousArc.class.getDeclaredMethod("getPoint", double.class, double.class);
-            method.setAccessible(true);
-            Point2d point = (Point2d) method.invoke(this, 1.0, 0.0); // getPoint(1.0, 0.0);
-
-            Field signField = ContinuousArc.class.getDeclaredField("sign");
-            signField.setAccessible(true);
-            double sign = signField.getDouble(this); // this.sign
+        Point2d point = getPoint(1.0, 0.0);
+        return new OrientedPoint2d(point.x, point.y, getDirection(1.0)); // parent does not normalize direction
+    }
 
-            Field angleField = ContinuousArc.class.getDeclaredField("angle");
-            angleField.setAccessible(true);
-            Angle angle = (Angle) angleField.get(this); // this.angle
+    /**
+     * Returns the point at given fraction and lateral offset.
+     * @param fraction fraction along the arc
+     * @param offset lateral offset, positive to the left
+     * @return point at given fraction and lateral offset
+     */
+    public Point2d getPoint(final double fraction, final double offset)
+    {
+        double r = this.radius - this.sign * offset;
+        double a = getStartPoint().dirZ + this.sign * this.angle * fraction;
+        double dx = this.sign * Math.cos(a) * r;
+        double dy = this.sign * Math.sin(a) * r;
+        return new Point2d(this.center.x + dy, this.center.y - dx);
+    }
 
-            double dirZ = getStartPoint().dirZ + sign * angle.si;
-            dirZ = dirZ > Math.PI ? dirZ - 2.0 * Math.PI : (dirZ < -Math.PI ? dirZ + 2.0 * Math.PI : dirZ); // bug in parent
-            return new OrientedPoint2d(point.x, point.y, dirZ);
+    /**
+     * Returns the direction at given fraction, in the range [-&pi;, &pi;].
+     * @param fraction fraction along the arc
+     * @return direction at given fraction
+     */
+    public double getDirection(final double fraction)
+    {
+        double phi = getStartPoint().dirZ + this.sign * this.angle * fraction;
+        while (phi > Math.PI)
+        {
+            phi -= 2.0 * Math.PI;
         }
-        catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException | NoSuchFieldException
-                | SecurityException ex)
+        while (phi < -Math.PI)
         {
-            throw new RuntimeException("Unable to create endPoint for ContinuousArc");
+            phi += 2.0 * Math.PI;
         }
+        return phi;
+    }
+
+    /**
+     * Returns the direction at given fraction of a line with offsets from the arc.
+     * @param fraction fraction along the arc
+     * @param offsets offsets
+     * @return direction at given fraction of a line with offsets from the arc
+     */
+    public double getDirection(final double fraction, final FractionalLengthData offsets)
+    {
+        double phi = getStartPoint().dirZ + this.sign * (this.angle * fraction - Math.PI / 2.0);
+        double sinPhi = Math.sin(phi);
+        double cosPhi = Math.cos(phi);
+        double offset = this.sign * offsets.get(fraction);
+        double derivative = offsets.getDerivative(fraction) / this.angle;
+        double dx = -sinPhi * (this.radius - offset) - cosPhi * derivative;
+        double dy = cosPhi * (this.radius - offset) - sinPhi * derivative;
+        return Math.atan2(this.sign * dy, this.sign * dx);
     }
 
 }
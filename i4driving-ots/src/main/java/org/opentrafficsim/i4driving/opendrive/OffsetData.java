@@ -3,36 +3,75 @@ package org.opentrafficsim.i4driving.opendrive;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.DoubleConsumer;
+import java.util.function.IntConsumer;
 
 import org.djunits.value.vdouble.scalar.Length;
+import org.djutils.exceptions.Throw;
 import org.opentrafficsim.core.geometry.FractionalLengthData;
 import org.opentrafficsim.i4driving.opendrive.generated.TRoadLanesLaneOffset;
 
 /**
  * Constructs FractionalLengthData based on a list of TRoadLanesLaneOffset. For constant sections 1 values is stored, for linear
- * sections 2 values are stored, and for curved sections 100 segments are stored.
+ * sections 2 values are stored, and curved sections are subdivided until linear interpolation between the stored values is
+ * within a lateral tolerance of the polynomial.
  * @author wjschakel
  */
 public class OffsetData extends FractionalLengthData
 {
 
+    /** Default lateral tolerance for curved sections [m]. */
+    public static final double DEFAULT_TOLERANCE = 0.01;
+
+    /** Maximum number of times an interval of a curved section is halved, i.e. at most 1024 segments per section. */
+    private static final int MAX_DEPTH = 10;
+
     /**
-     * Constructor.
+     * Constructor with default tolerance.
      * @param offset list of offset elements
      * @param length length of road
      */
     public OffsetData(final List<TRoadLanesLaneOffset> offset, final Length length)
     {
-        super(toMap(offset, length));
+        this(offset, length, DEFAULT_TOLERANCE);
+    }
+
+    /**
+     * Constructor.
+     * @param offset list of offset elements
+     * @param length length of road
+     * @param tolerance lateral tolerance for curved sections [m]
+     */
+    public OffsetData(final List<TRoadLanesLaneOffset> offset, final Length length, final double tolerance)
+    {
+        this(offset, length, tolerance, (n) ->
+        {
+        });
+    }
+
+    /**
+     * Constructor which reports the number of samples of each curved section.
+     * @param offset list of offset elements
+     * @param length length of road
+     * @param tolerance lateral tolerance for curved sections [m]
+     * @param sampled consumer of the number of samples of each curved section
+     */
+    OffsetData(final List<TRoadLanesLaneOffset> offset, final Length length, final double tolerance,
+            final IntConsumer sampled)
+    {
+        super(toMap(offset, length, tolerance, sampled));
     }
 
     /**
      * Converts offset sections to map of offset data.
      * @param offset offset sections
      * @param length length of road
+     * @param tolerance lateral tolerance for curved sections [m]
+     * @param sampled consumer of the number of samples of each curved section
      * @return map of offset data
      */
-    private static Map<Double, Double> toMap(final List<TRoadLanesLaneOffset> offset, final Length length)
+    private static Map<Double, Double> toMap(final List<TRoadLanesLaneOffset> offset, final Length length,
+            final double tolerance, final IntConsumer sampled)
     {
         Map<Double, Double> map = new LinkedHashMap<>();
         for (int i = 0; i < offset.size(); i++)
@@ -52,14 +91,13 @@ public class OffsetData extends FractionalLengthData
             }
             else
             {
-                // curve, sample 100 length segments
+                // curve, subdivide until within tolerance
                 double sectionLength = (i == offset.size() - 1 ? length.si : offset.get(i + 1).getS()) - section.getS();
-                for (int j = 0; j <= 100; j++)
+                sampled.accept(sampleCubic(section.getC(), section.getD(), 0.0, sectionLength, tolerance, (ds) ->
                 {
-                    double ds = sectionLength * ((double) j) / 100.0;
                     double f = (section.getS() + ds) / length.si;
                     map.put(f, section.getA() + section.getB() * ds + section.getC() * ds * ds + section.getD() * ds * ds * ds);
-                }
+                }));
             }
         }
         if (map.isEmpty())
@@ -69,6 +107,54 @@ public class OffsetData extends FractionalLengthData
         return map;
     }
 
+    /**
+     * Samples the cubic polynomial {@code a + b*ds + c*ds^2 + d*ds^3} between two positions, such that linear interpolation
+     * between consecutive samples deviates at most the tolerance from the polynomial. An interval is halved while the deviation
+     * bound {@code h^2 / 8 * max|p''|} exceeds the tolerance, where {@code h} is the interval length. As {@code p''} is linear,
+     * its maximum absolute value is at either end of the interval. Hence, only coefficients {@code c} and {@code d} are needed.
+     * Samples are given in increasing order, including both ends.
+     * @param c coefficient c
+     * @param d coefficient d
+     * @param dsFrom from position, relative to the start of the polynomial
+     * @param dsTo to position, relative to the start of the polynomial
+     * @param tolerance lateral tolerance [m]
+     * @param samples consumer of the positions of the samples
+     * @return number of samples
+     */
+    static int sampleCubic(final double c, final double d, final double dsFrom, final double dsTo, final double tolerance,
+            final DoubleConsumer samples)
+    {
+        Throw.when(tolerance <= 0.0, IllegalArgumentException.class, "Tolerance should be positive.");
+        samples.accept(dsFrom);
+        return 1 + subdivide(c, d, dsFrom, dsTo, tolerance, MAX_DEPTH, samples);
+    }
+
+    /**
+     * Adds the end of an interval to the samples if the interval is within tolerance, or subdivides the interval otherwise.
+     * @param c coefficient c
+     * @param d coefficient d
+     * @param dsFrom from position of the interval
+     * @param dsTo to position of the interval
+     * @param tolerance lateral tolerance [m]
+     * @param depth remaining number of times the interval may be halved
+     * @param samples consumer of the positions of the samples
+     * @return number of samples added
+     */
+    private static int subdivide(final double c, final double d, final double dsFrom, final double dsTo,
+            final double tolerance, final int depth, final DoubleConsumer samples)
+    {
+        double h = dsTo - dsFrom;
+        double maxSecondDerivative = Math.max(Math.abs(2.0 * c + 6.0 * d * dsFrom), Math.abs(2.0 * c + 6.0 * d * dsTo));
+        if (depth == 0 || h * h * maxSecondDerivative / 8.0 <= tolerance)
+        {
+            samples.accept(dsTo);
+            return 1;
+        }
+        double dsMid = 0.5 * (dsFrom + dsTo);
+        return subdivide(c, d, dsFrom, dsMid, tolerance, depth - 1, samples)
+                + subdivide(c, d, dsMid, dsTo, tolerance, depth - 1, samples);
+    }
+
     /**
      * Returns subset of the FractionalLengthData, with fraction rescaled to the range [0...1].
      * @param offsets original FractionalLengthData
@@ -0,0 +1,169 @@
+package org.opentrafficsim.i4driving.opendrive;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import org.djutils.draw.DrawRuntimeException;
+import org.djutils.draw.bounds.Bounds2d;
+import org.djutils.logger.CategoryLogger;
+import org.opentrafficsim.core.dsol.OtsSimulatorInterface;
+import org.opentrafficsim.core.geometry.OtsGeometryException;
+import org.opentrafficsim.core.geometry.OtsLine2d;
+import org.opentrafficsim.core.network.NetworkException;
+import org.opentrafficsim.i4driving.tactical.OtsInternals;
+import org.opentrafficsim.road.network.lane.Lane;
+import org.opentrafficsim.road.network.lane.conflict.ConflictBuilder.WidthGenerator;
+
+/**
+ * Builds conflicts between the lanes of an OpenDRIVE network. Where {@code ConflictBuilder.buildConflicts(network, ...)}
+ * evaluates all combinations of lanes, this class only considers pairs of lanes of which the bounding boxes of the contours
+ * overlap. These are found by sorting the bounding boxes on their minimum x-coordinate, and sweeping over them. When the
+ * network has junctions, at least one lane of a pair should be on a connecting road of a junction, as other roads may cross
+ * on different levels and elevation is not considered. Lanes on the same link are never paired.
+ * <p>
+ * The geometry is computed in parallel: whether the contours of the candidate pairs intersect, and the left and right edges
+ * of the conflict areas of the lanes in the intersecting pairs. The pairwise {@code ConflictBuilder.buildConflicts(...)}
+ * computes these edges again for every pair, which takes most of its time. The conflicts themselves are then built for the
+ * intersecting pairs one at a time, in the order in which the lanes were created, as this adds them to the lanes and the
+ * network, such that the resulting conflicts do not depend on thread scheduling. Pairs for which the conflict geometry is
+ * degenerate are skipped with a warning.
+ * @author wjschakel
+ */
+final class OpenDriveConflictBuilder
+{
+
+    /**
+     * Constructor.
+     */
+    private OpenDriveConflictBuilder()
+    {
+        //
+    }
+
+    /**
+     * Builds the conflicts between lanes.
+     * @param lanes all lanes, in the order in which they were created
+     * @param junctionLanes lanes on connecting roads of junctions, if empty all pairs of lanes are considered
+     * @param simulator simulator
+     * @param widthGenerator width generator for the conflict areas
+     * @param parallelism number of threads with which the geometry of the conflicts is computed
+     * @throws OtsGeometryException when a conflict cannot be built
+     * @throws NetworkException when a conflict cannot be built
+     */
+    static void buildConflicts(final List<Lane> lanes, final Set<Lane> junctionLanes, final OtsSimulatorInterface simulator,
+            final WidthGenerator widthGenerator, final int parallelism) throws OtsGeometryException, NetworkException
+    {
+        List<LanePair> candidates = getCandidates(lanes, junctionLanes);
+        List<LanePair> intersecting = OpenDriveParser.runParallel(parallelism,
+                () -> candidates.parallelStream().filter((pair) -> lanes.get(pair.index1()).getContour()
+                        .intersects(lanes.get(pair.index2()).getContour())).toList());
+        List<Lane> edgeLanes = intersecting.stream().flatMapToInt((pair) -> IntStream.of(pair.index1(), pair.index2()))
+                .distinct().sorted().mapToObj(lanes::get).toList();
+        List<Edges> edges = OpenDriveParser.runParallel(parallelism,
+                () -> edgeLanes.parallelStream().map((lane) -> getEdges(lane, widthGenerator)).toList());
+        Map<Lane, OtsLine2d> leftEdges = new LinkedHashMap<>();
+        Map<Lane, OtsLine2d> rightEdges = new LinkedHashMap<>();
+        for (int i = 0; i < edgeLanes.size(); i++)
+        {
+            if (edges.get(i) != null)
+            {
+                leftEdges.put(edgeLanes.get(i), edges.get(i).left());
+                rightEdges.put(edgeLanes.get(i), edges.get(i).right());
+            }
+        }
+        for (LanePair pair : intersecting)
+        {
+            Lane lane1 = lanes.get(pair.index1());
+            Lane lane2 = lanes.get(pair.index2());
+            try
+            {
+                OtsInternals.buildConflicts(lane1, lane2, simulator, widthGenerator, leftEdges, rightEdges);
+            }
+            catch (DrawRuntimeException ex)
+            {
+                // degenerate conflict geometry, e.g. where lanes only touch at the end of consecutive links
+                CategoryLogger.always().warn("Unable to build conflicts between lanes {} and {}: {}", lane1.getFullId(),
+                        lane2.getFullId(), ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Returns the left and right edges of the conflict areas of a lane, as {@code ConflictBuilder} computes them.
+     * @param lane lane
+     * @param widthGenerator width generator for the conflict areas
+     * @return left and right edges of the conflict areas, {@code null} if these cannot be computed, in which case
+     *         {@code ConflictBuilder} computes them again and reports the failure for the pair of lanes being built
+     */
+    private static Edges getEdges(final Lane lane, final WidthGenerator widthGenerator)
+    {
+        OtsLine2d centerLine = lane.getCenterLine();
+        double start = widthGenerator.getWidth(lane, 0.0) / 2.0;
+        double end = widthGenerator.getWidth(lane, 1.0) / 2.0;
+        try
+        {
+            return new Edges(centerLine.offsetLine(start, end), centerLine.offsetLine(-start, -end));
+        }
+        catch (DrawRuntimeException ex)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Returns all pairs of lanes of which the bounding boxes of the contours overlap, sorted by the first and then the second
+     * index.
+     * @param lanes all lanes, in the order in which they were created
+     * @param junctionLanes lanes on connecting roads of junctions, if empty all pairs of lanes are considered
+     * @return pairs of lanes of which the bounding boxes of the contours overlap
+     */
+    private static List<LanePair> getCandidates(final List<Lane> lanes, final Set<Lane> junctionLanes)
+    {
+        Bounds2d[] bounds = lanes.stream().map((lane) -> lane.getContour().getBounds()).toArray(Bounds2d[]::new);
+        int[] order = IntStream.range(0, bounds.length).boxed()
+                .sorted(Comparator.comparingDouble((Integer i) -> bounds[i].getMinX())).mapToInt(Integer::intValue).toArray();
+        List<LanePair> candidates = new ArrayList<>();
+        for (int k = 0; k < order.length; k++)
+        {
+            int i = order[k];
+            Lane lane1 = lanes.get(i);
+            boolean onJunction = junctionLanes.isEmpty() || junctionLanes.contains(lane1);
+            for (int m = k + 1; m < order.length && bounds[order[m]].getMinX() <= bounds[i].getMaxX(); m++)
+            {
+                int j = order[m];
+                Lane lane2 = lanes.get(j);
+                if (bounds[j].getMinY() <= bounds[i].getMaxY() && bounds[i].getMinY() <= bounds[j].getMaxY()
+                        && (onJunction || junctionLanes.contains(lane2)) && !lane1.getLink().equals(lane2.getLink()))
+                {
+                    candidates.add(i < j ? new LanePair(i, j) : new LanePair(j, i));
+                }
+            }
+        }
+        candidates.sort(Comparator.comparingInt(LanePair::index1).thenComparingInt(LanePair::index2));
+        return candidates;
+    }
+
+    /**
+     * Pair of lanes, by their index in the list of all lanes.
+     * @param index1 index of the first lane, which is lower than the index of the second lane
+     * @param index2 index of the second lane
+     */
+    private record LanePair(int index1, int index2)
+    {
+    }
+
+    /**
+     * Left and right edges of the conflict areas of a lane.
+     * @param left left edge
+     * @param right right edge
+     */
+    private record Edges(OtsLine2d left, OtsLine2d right)
+    {
+    }
+
+}
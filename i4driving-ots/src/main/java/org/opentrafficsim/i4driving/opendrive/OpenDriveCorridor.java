@@ -0,0 +1,449 @@
+package org.opentrafficsim.i4driving.opendrive;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.djutils.draw.line.Polygon2d;
+import org.opentrafficsim.i4driving.opendrive.OpenDriveParser.ElementGeometry;
+import org.opentrafficsim.i4driving.opendrive.OpenDriveParser.ElementKind;
+import org.opentrafficsim.i4driving.opendrive.OpenDriveParser.LinkGeometry;
+import org.opentrafficsim.i4driving.opendrive.OpenDriveParser.RoadGeometry;
+import org.opentrafficsim.i4driving.opendrive.OpenDriveParser.RoadLink;
+import org.opentrafficsim.i4driving.opendrive.OpenDriveParser.SectionGeometry;
+import org.opentrafficsim.i4driving.opendrive.generated.EContactPoint;
+import org.opentrafficsim.i4driving.opendrive.generated.ERoadLinkElementType;
+
+/**
+ * Selection of the roads of an OpenDRIVE network that are built, when only a corridor of the network is required. The
+ * selection starts from seed roads, which are roads with a given id (or name when it identifies origins and destinations), and
+ * roads of which a lane intersects a given region. For routes of which only the first and last road are given, the roads on
+ * the shortest path between these roads, along the driving direction, are seed roads as well. From the seed roads, links to
+ * other roads are followed outward up to a given depth. A link is either a direct link between two roads, or a connection
+ * through a junction. The connecting roads on a junction are not counted in the depth; they are selected when the roads they
+ * connect are selected. A seed road on a junction seeds the roads it connects instead. Roads of which the predecessor or
+ * successor is not selected are cut there, i.e. they obtain an origin and destination as if the road had no predecessor or
+ * successor.
+ * @author wjschakel
+ */
+final class OpenDriveCorridor
+{
+
+    /** Ids of all roads. */
+    private final Set<String> allRoads = new LinkedHashSet<>();
+
+    /** Ids of the selected roads. */
+    private final Set<String> selectedRoads = new LinkedHashSet<>();
+
+    /** Selected connecting roads per junction id. */
+    private final Map<String, List<RoadGeometry>> selectedJunctionRoads = new LinkedHashMap<>();
+
+    /**
+     * Constructor.
+     * @param roads geometry of all roads
+     * @param roadIds ids of seed roads, may be {@code null}
+     * @param routes routes of which the roads on the shortest path from the first to the last road are seed roads, may be
+     *            {@code null}
+     * @param region region in which roads are seed roads, may be {@code null}
+     * @param depth number of links that is followed outward from the seed roads
+     * @param odRoadIdentifier identifier of roads by which origins and destinations are identified
+     */
+    OpenDriveCorridor(final List<RoadGeometry> roads, final Collection<String> roadIds,
+            final Collection<? extends List<String>> routes, final Polygon2d region, final int depth,
+            final Function<RoadGeometry, String> odRoadIdentifier)
+    {
+        Map<String, RoadGeometry> roadMap = new LinkedHashMap<>();
+        roads.forEach((road) -> roadMap.put(road.id(), road));
+        this.allRoads.addAll(roadMap.keySet());
+
+        // graph of roads not on a junction, where roads connected through a junction are neighbors
+        Map<String, Set<String>> neighbors = new LinkedHashMap<>();
+        for (RoadGeometry road : roads)
+        {
+            if (road.onJunction())
+            {
+                String predecessor = getLinkedRoad(road.predecessor(), roadMap);
+                String successor = getLinkedRoad(road.successor(), roadMap);
+                if (predecessor != null && successor != null)
+                {
+                    addNeighbors(neighbors, predecessor, successor);
+                }
+            }
+            else
+            {
+                for (RoadLink link : new RoadLink[] {road.predecessor(), road.successor()})
+                {
+                    String other = getLinkedRoad(link, roadMap);
+                    if (other != null)
+                    {
+                        addNeighbors(neighbors, road.id(), other);
+                    }
+                }
+            }
+        }
+
+        // seed roads
+        Deque<String> queue = new ArrayDeque<>();
+        for (RoadGeometry road : roads)
+        {
+            if ((roadIds != null && (roadIds.contains(road.id()) || roadIds.contains(odRoadIdentifier.apply(road))))
+                    || (region != null && intersects(road, region)))
+            {
+                if (road.onJunction())
+                {
+                    for (RoadLink link : new RoadLink[] {road.predecessor(), road.successor()})
+                    {
+                        String other = getLinkedRoad(link, roadMap);
+                        if (other != null && this.selectedRoads.add(other))
+                        {
+                            queue.add(other);
+                        }
+                    }
+                }
+                else if (this.selectedRoads.add(road.id()))
+                {
+                    queue.add(road.id());
+                }
+            }
+        }
+        if (routes != null)
+        {
+            for (List<String> route : routes)
+            {
+                for (String id : getShortestPath(roads, roadMap, route.getFirst(), route.getLast(), odRoadIdentifier))
+                {
+                    // connecting roads on the path are selected when the roads they connect are
+                    if (!roadMap.get(id).onJunction() && this.selectedRoads.add(id))
+                    {
+                        queue.add(id);
+                    }
+                }
+            }
+        }
+
+        // follow links outward, breadth-first such that each depth is completed before the next
+        for (int d = 0; d < depth && !queue.isEmpty(); d++)
+        {
+            Deque<String> next = new ArrayDeque<>();
+            for (String id : queue)
+            {
+                for (String other : neighbors.getOrDefault(id, Set.of()))
+                {
+                    if (this.selectedRoads.add(other))
+                    {
+                        next.add(other);
+                    }
+                }
+            }
+            queue = next;
+        }
+
+        // connecting roads on junctions between selected roads
+        List<RoadGeometry> connectingRoads = new ArrayList<>();
+        for (RoadGeometry road : roads)
+        {
+            if (road.onJunction() && isSelected(road.predecessor(), roadMap) && isSelected(road.successor(), roadMap)
+                    && (this.selectedRoads.contains(getLinkedRoad(road.predecessor(), roadMap))
+                            || this.selectedRoads.contains(getLinkedRoad(road.successor(), roadMap))))
+            {
+                connectingRoads.add(road);
+            }
+        }
+        for (RoadGeometry road : connectingRoads)
+        {
+            this.selectedRoads.add(road.id());
+            this.selectedJunctionRoads.computeIfAbsent(road.junction(), (j) -> new ArrayList<>()).add(road);
+        }
+    }
+
+    /**
+     * Returns the roads on the shortest path from a road to another road, along the driving direction of the roads. Roads are
+     * identified by their id, or by the identifier by which origins and destinations are identified.
+     * @param roads geometry of all roads
+     * @param roadMap all roads by id
+     * @param from id of the first road
+     * @param to id of the last road
+     * @param odRoadIdentifier identifier of roads by which origins and destinations are identified
+     * @return ids of the roads on the shortest path, including the first and last road, empty if there is no path
+     */
+    private static List<String> getShortestPath(final List<RoadGeometry> roads, final Map<String, RoadGeometry> roadMap,
+            final String from, final String to, final Function<RoadGeometry, String> odRoadIdentifier)
+    {
+        Map<String, List<RoadGeometry>> junctionRoads = new LinkedHashMap<>();
+        roads.stream().filter(RoadGeometry::onJunction)
+                .forEach((road) -> junctionRoads.computeIfAbsent(road.junction(), (j) -> new ArrayList<>()).add(road));
+        Map<DirectedRoad, Double> distances = new LinkedHashMap<>();
+        Map<DirectedRoad, DirectedRoad> previous = new LinkedHashMap<>();
+        PriorityQueue<PathCandidate> queue = new PriorityQueue<>(Comparator.comparingDouble(PathCandidate::distance));
+        for (RoadGeometry road : roads)
+        {
+            if (road.id().equals(from) || from.equals(odRoadIdentifier.apply(road)))
+            {
+                for (boolean forward : new boolean[] {true, false})
+                {
+                    DirectedRoad directedRoad = new DirectedRoad(road.id(), forward);
+                    if (directedRoad.exists(roadMap))
+                    {
+                        distances.put(directedRoad, 0.0);
+                        queue.add(new PathCandidate(directedRoad, 0.0));
+                    }
+                }
+            }
+        }
+        while (!queue.isEmpty())
+        {
+            PathCandidate candidate = queue.poll();
+            DirectedRoad directedRoad = candidate.road();
+            if (candidate.distance() > distances.get(directedRoad))
+            {
+                continue; // a shorter path to this road was found after this candidate was added
+            }
+            if (directedRoad.id().equals(to) || to.equals(odRoadIdentifier.apply(roadMap.get(directedRoad.id()))))
+            {
+                List<String> path = new ArrayList<>();
+                for (DirectedRoad onPath = directedRoad; onPath != null; onPath = previous.get(onPath))
+                {
+                    path.add(0, onPath.id());
+                }
+                return path;
+            }
+            for (DirectedRoad next : getNextRoads(directedRoad, roadMap, junctionRoads))
+            {
+                double distance = candidate.distance() + getLength(roadMap.get(next.id()));
+                if (distance < distances.getOrDefault(next, Double.POSITIVE_INFINITY))
+                {
+                    distances.put(next, distance);
+                    previous.put(next, directedRoad);
+                    queue.add(new PathCandidate(next, distance));
+                }
+            }
+        }
+        return List.of();
+    }
+
+    /**
+     * Returns the roads, in their direction of travel, that traffic can enter at the end of a road in its direction of travel.
+     * @param directedRoad road in direction of travel
+     * @param roadMap all roads by id
+     * @param junctionRoads connecting roads per junction id
+     * @return roads, in their direction of travel, that traffic can enter at the end of the road
+     */
+    private static List<DirectedRoad> getNextRoads(final DirectedRoad directedRoad, final Map<String, RoadGeometry> roadMap,
+            final Map<String, List<RoadGeometry>> junctionRoads)
+    {
+        RoadGeometry road = roadMap.get(directedRoad.id());
+        RoadLink link = directedRoad.forward() ? road.successor() : road.predecessor();
+        List<DirectedRoad> nextRoads = new ArrayList<>();
+        if (link == null)
+        {
+            return nextRoads;
+        }
+        if (ERoadLinkElementType.ROAD.equals(link.elementType()))
+        {
+            RoadGeometry other = roadMap.get(link.elementId());
+            if (other != null)
+            {
+                nextRoads.add(new DirectedRoad(other.id(), !EContactPoint.END.equals(link.contactPoint())));
+            }
+        }
+        else
+        {
+            for (RoadGeometry connectingRoad : junctionRoads.getOrDefault(link.elementId(), List.of()))
+            {
+                if (links(connectingRoad.predecessor(), road))
+                {
+                    nextRoads.add(new DirectedRoad(connectingRoad.id(), true));
+                }
+                if (links(connectingRoad.successor(), road))
+                {
+                    nextRoads.add(new DirectedRoad(connectingRoad.id(), false));
+                }
+            }
+        }
+        nextRoads.removeIf((next) -> !next.exists(roadMap));
+        return nextRoads;
+    }
+
+    /**
+     * Returns the length of a road, as the length of the design lines of its links.
+     * @param road geometry of the road
+     * @return length of the road
+     */
+    private static double getLength(final RoadGeometry road)
+    {
+        double length = 0.0;
+        for (SectionGeometry section : road.sections())
+        {
+            LinkGeometry link = section.forwardLink() != null ? section.forwardLink() : section.backwardLink();
+            length += link == null ? 0.0 : link.designLine().getLength().si;
+        }
+        return length;
+    }
+
+    /**
+     * Returns the id of the road that a link refers to, if it is a road not on a junction.
+     * @param link link, may be {@code null}
+     * @param roadMap all roads by id
+     * @return id of the road that a link refers to, {@code null} if the link does not refer to a road not on a junction
+     */
+    private static String getLinkedRoad(final RoadLink link, final Map<String, RoadGeometry> roadMap)
+    {
+        if (link == null || !ERoadLinkElementType.ROAD.equals(link.elementType()))
+        {
+            return null;
+        }
+        RoadGeometry other = roadMap.get(link.elementId());
+        return other == null || other.onJunction() ? null : other.id();
+    }
+
+    /**
+     * Adds two roads as neighbors of each other.
+     * @param neighbors graph of neighbors
+     * @param id1 id of first road
+     * @param id2 id of second road
+     */
+    private static void addNeighbors(final Map<String, Set<String>> neighbors, final String id1, final String id2)
+    {
+        neighbors.computeIfAbsent(id1, (id) -> new LinkedHashSet<>()).add(id2);
+        neighbors.computeIfAbsent(id2, (id) -> new LinkedHashSet<>()).add(id1);
+    }
+
+    /**
+     * Returns whether a link of a connecting road on a junction refers to a selected road, or to no existing road.
+     * @param link link, may be {@code null}
+     * @param roadMap all roads by id
+     * @return whether the link refers to a selected road, or to no existing road
+     */
+    private boolean isSelected(final RoadLink link, final Map<String, RoadGeometry> roadMap)
+    {
+        if (link == null || !ERoadLinkElementType.ROAD.equals(link.elementType()))
+        {
+            return true;
+        }
+        RoadGeometry other = roadMap.get(link.elementId());
+        return other == null || (!other.onJunction() && this.selectedRoads.contains(other.id()));
+    }
+
+    /**
+     * Returns whether any lane of the road intersects the region.
+     * @param road geometry of the road
+     * @param region region
+     * @return whether any lane of the road intersects the region
+     */
+    private static boolean intersects(final RoadGeometry road, final Polygon2d region)
+    {
+        for (SectionGeometry section : road.sections())
+        {
+            for (LinkGeometry link : new LinkGeometry[] {section.forwardLink(), section.backwardLink()})
+            {
+                if (link != null)
+                {
+                    for (ElementGeometry element : link.elements())
+                    {
+                        if (element.kind() == ElementKind.LANE && element.contour().intersects(region))
+                        {
+                            return true;
+                        }
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether the road is selected.
+     * @param road geometry of the road
+     * @return whether the road is selected
+     */
+    boolean contains(final RoadGeometry road)
+    {
+        return this.selectedRoads.contains(road.id());
+    }
+
+    /**
+     * Returns the number of selected roads.
+     * @return number of selected roads
+     */
+    int size()
+    {
+        return this.selectedRoads.size();
+    }
+
+    /**
+     * Returns whether a selected road is cut at its start or end, i.e. whether the road it links to is not selected. For a
+     * link to a junction this is the case when none of the selected connecting roads on the junction links to the road.
+     * @param road geometry of the road
+     * @param start whether to consider the start of the road, or the end
+     * @return whether the road is cut at its start or end
+     */
+    boolean isCut(final RoadGeometry road, final boolean start)
+    {
+        RoadLink link = start ? road.predecessor() : road.successor();
+        if (link == null)
+        {
+            return false;
+        }
+        if (ERoadLinkElementType.ROAD.equals(link.elementType()))
+        {
+            return this.allRoads.contains(link.elementId()) && !this.selectedRoads.contains(link.elementId());
+        }
+        for (RoadGeometry connectingRoad : this.selectedJunctionRoads.getOrDefault(link.elementId(), List.of()))
+        {
+            if (links(connectingRoad.predecessor(), road) || links(connectingRoad.successor(), road))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether a link refers to the road.
+     * @param link link, may be {@code null}
+     * @param road geometry of the road
+     * @return whether the link refers to the road
+     */
+    private static boolean links(final RoadLink link, final RoadGeometry road)
+    {
+        return link != null && ERoadLinkElementType.ROAD.equals(link.elementType()) && link.elementId().equals(road.id());
+    }
+
+    /**
+     * Road in a direction of travel.
+     * @param id id of the road
+     * @param forward whether the direction of travel is along the road
+     */
+    private record DirectedRoad(String id, boolean forward)
+    {
+        /**
+         * Returns whether the road exists and has lanes in the direction of travel.
+         * @param roadMap all roads by id
+         * @return whether the road exists and has lanes in the direction of travel
+         */
+        boolean exists(final Map<String, RoadGeometry> roadMap)
+        {
+            RoadGeometry road = roadMap.get(this.id);
+            return road != null && (this.forward ? road.forward() : road.backward());
+        }
+    }
+
+    /**
+     * Candidate in the search of the shortest path.
+     * @param road road in direction of travel
+     * @param distance distance from the first road to the end of this road
+     */
+    private record PathCandidate(DirectedRoad road, double distance)
+    {
+    }
+
+}
@@ -0,0 +1,646 @@
+package org.opentrafficsim.i4driving.opendrive;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.djunits.value.vdouble.scalar.Length;
+import org.djunits.value.vdouble.scalar.Speed;
+import org.djutils.draw.line.PolyLine2d;
+import org.djutils.draw.line.Polygon2d;
+import org.djutils.draw.point.OrientedPoint2d;
+import org.djutils.draw.point.Point2d;
+import org.djutils.exceptions.Throw;
+import org.djutils.logger.CategoryLogger;
+import org.opentrafficsim.core.geometry.OtsLine2d;
+import org.opentrafficsim.i4driving.opendrive.OpenDriveParser.ElementGeometry;
+import org.opentrafficsim.i4driving.opendrive.OpenDriveParser.ElementKind;
+import org.opentrafficsim.i4driving.opendrive.OpenDriveParser.LinkGeometry;
+import org.opentrafficsim.i4driving.opendrive.OpenDriveParser.RoadGeometry;
+import org.opentrafficsim.i4driving.opendrive.OpenDriveParser.RoadLink;
+import org.opentrafficsim.i4driving.opendrive.OpenDriveParser.SectionGeometry;
+import org.opentrafficsim.i4driving.opendrive.generated.EContactPoint;
+import org.opentrafficsim.i4driving.opendrive.generated.ERoadLinkElementType;
+import org.opentrafficsim.road.network.lane.CrossSectionSlice;
+import org.opentrafficsim.road.network.lane.Stripe;
+import org.opentrafficsim.road.network.lane.changing.LaneKeepingPolicy;
+
+/**
+ * Cache of OpenDRIVE networks, keyed by a hash of the OpenDRIVE content. The cache holds the derived geometry of all roads, which
+ * is all that is needed to assemble a network. A parser obtained from the cache for known content thus skips XML parsing and
+ * geometry derivation, and only creates the nodes, links, lanes, shoulders and stripes in the network it builds. The geometry
+ * of the most recently used networks is kept in memory. Optionally it is also stored in a directory, from which it is read
+ * through a memory-mapped file, such that it survives between runs. The offset tolerance with which geometry is derived is
+ * part of the key, such that the same content derived with another tolerance is cached separately.
+ * <p>
+ * The cache may be shared by threads. Content that is not yet cached is loaded once, by the first thread that asks for it.
+ * Other threads asking for the same content wait for that result, while threads asking for other content are not blocked.
+ * </p>
+ * @author wjschakel
+ */
+public final class OpenDriveNetworkCache
+{
+
+    /** File format identifier. */
+    private static final int MAGIC = 0x4F444E43;
+
+    /** File format version, to be increased when the format or the derived geometry changes. */
+    private static final int VERSION = 2;
+
+    /** File extension. */
+    private static final String EXTENSION = ".odnc";
+
+    /** Default number of networks kept in memory. */
+    private static final int DEFAULT_CAPACITY = 4;
+
+    /** Directory to store networks in, may be {@code null}. */
+    private final Path directory;
+
+    /** Geometry of recently used networks by key, in access order. Access is synchronized on the map. */
+    private final Map<String, List<RoadGeometry>> memory;
+
+    /** Networks that are being loaded by key, as read from file or derived from the OpenDRIVE content. */
+    private final ConcurrentHashMap<String, CompletableFuture<List<RoadGeometry>>> loading = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor for a cache in memory only.
+     */
+    public OpenDriveNetworkCache()
+    {
+        this(null);
+    }
+
+    /**
+     * Constructor.
+     * @param directory directory to store networks in, may be {@code null} to cache in memory only
+     */
+    public OpenDriveNetworkCache(final Path directory)
+    {
+        this(directory, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor.
+     * @param directory directory to store networks in, may be {@code null} to cache in memory only
+     * @param capacity number of networks kept in memory
+     */
+    public OpenDriveNetworkCache(final Path directory, final int capacity)
+    {
+        Throw.when(capacity < 1, IllegalArgumentException.class, "Capacity should be at least 1.");
+        this.directory = directory;
+        this.memory = new LinkedHashMap<>(16, 0.75f, true)
+        {
+            /** */
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, List<RoadGeometry>> eldest)
+            {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns a parser for the OpenDRIVE string, with geometry derived with the default offset tolerance of the parser.
+     * @param openDrive OpenDRIVE string
+     * @param parallelism number of threads with which the geometry of roads is derived, if it is not cached
+     * @return parser, which can build a single network
+     * @throws XMLStreamException when the reading fails
+     */
+    public OpenDriveParser getParser(final String openDrive, final int parallelism) throws XMLStreamException
+    {
+        return getParser(openDrive, parallelism, OffsetData.DEFAULT_TOLERANCE);
+    }
+
+    /**
+     * Returns a parser for the OpenDRIVE string. If the content is in the cache for the given offset tolerance, the parser uses
+     * the cached geometry. Otherwise the string is read with the streaming reader, and its geometry is derived and stored in
+     * the cache. When another thread is already loading the same content, this method waits for its result.
+     * @param openDrive OpenDRIVE string
+     * @param parallelism number of threads with which the geometry of roads is derived, if it is not cached
+     * @param offsetTolerance lateral tolerance with which lane offset, width and border polynomials are sampled [m]
+     * @return parser, which can build a single network
+     * @throws XMLStreamException when the reading fails
+     */
+    public OpenDriveParser getParser(final String openDrive, final int parallelism, final double offsetTolerance)
+            throws XMLStreamException
+    {
+        Throw.when(parallelism < 1, IllegalArgumentException.class, "Parallelism should be at least 1.");
+        Throw.when(offsetTolerance <= 0.0, IllegalArgumentException.class, "Offset tolerance should be positive.");
+        String key = hash(openDrive, offsetTolerance);
+        List<RoadGeometry> roads = fromMemory(key);
+        if (roads != null)
+        {
+            CategoryLogger.always().debug("OpenDRIVE network {} found in memory cache", key);
+            return new OpenDriveParser(roads, offsetTolerance);
+        }
+        CompletableFuture<List<RoadGeometry>> created = new CompletableFuture<>();
+        CompletableFuture<List<RoadGeometry>> future = this.loading.computeIfAbsent(key, (k) -> created);
+        if (future != created)
+        {
+            CategoryLogger.always().debug("Waiting for OpenDRIVE network {} that is being loaded", key);
+            return new OpenDriveParser(await(future), offsetTolerance);
+        }
+        try
+        {
+            roads = load(key, openDrive, parallelism, offsetTolerance);
+            synchronized (this.memory)
+            {
+                this.memory.put(key, roads);
+            }
+            created.complete(roads);
+            return new OpenDriveParser(roads, offsetTolerance);
+        }
+        catch (XMLStreamException | RuntimeException ex)
+        {
+            created.completeExceptionally(ex);
+            throw ex;
+        }
+        finally
+        {
+            this.loading.remove(key);
+        }
+    }
+
+    /**
+     * Returns network geometry from memory.
+     * @param key key of content and offset tolerance
+     * @return geometry of all roads, {@code null} if not in memory
+     */
+    private List<RoadGeometry> fromMemory(final String key)
+    {
+        synchronized (this.memory)
+        {
+            return this.memory.get(key);
+        }
+    }
+
+    /**
+     * Loads network geometry that was not found in memory. It may have been put in memory since by another thread, otherwise
+     * it is read from the cache directory, or derived from the OpenDRIVE string.
+     * @param key key of content and offset tolerance
+     * @param openDrive OpenDRIVE string
+     * @param parallelism number of threads with which the geometry of roads is derived
+     * @param offsetTolerance lateral tolerance with which lane offset, width and border polynomials are sampled [m]
+     * @return geometry of all roads
+     * @throws XMLStreamException when the reading fails
+     */
+    private List<RoadGeometry> load(final String key, final String openDrive, final int parallelism,
+            final double offsetTolerance) throws XMLStreamException
+    {
+        List<RoadGeometry> roads = fromMemory(key);
+        if (roads != null)
+        {
+            CategoryLogger.always().debug("OpenDRIVE network {} found in memory cache", key);
+            return roads;
+        }
+        if (this.directory != null && (roads = read(key)) != null)
+        {
+            CategoryLogger.always().debug("OpenDRIVE network {} found in cache directory", key);
+            return roads;
+        }
+        roads = OpenDriveParser.readFileString(openDrive).setParallelism(parallelism).setOffsetTolerance(offsetTolerance)
+                .getRoadGeometries();
+        if (this.directory != null)
+        {
+            write(key, roads);
+        }
+        return roads;
+    }
+
+    /**
+     * Waits for network geometry that is loaded by another thread.
+     * @param future result of the other thread
+     * @return geometry of all roads
+     * @throws XMLStreamException when the reading by the other thread failed
+     */
+    private static List<RoadGeometry> await(final CompletableFuture<List<RoadGeometry>> future) throws XMLStreamException
+    {
+        try
+        {
+            return future.join();
+        }
+        catch (CompletionException ex)
+        {
+            if (ex.getCause() instanceof XMLStreamException xmlException)
+            {
+                throw xmlException;
+            }
+            if (ex.getCause() instanceof RuntimeException runtimeException)
+            {
+                throw runtimeException;
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Returns the SHA-256 hash of the string in UTF-8 followed by the offset tolerance, as hexadecimal string.
+     * @param openDrive OpenDRIVE string
+     * @param offsetTolerance lateral tolerance with which lane offset, width and border polynomials are sampled [m]
+     * @return SHA-256 hash of the string and offset tolerance
+     */
+    private static String hash(final String openDrive, final double offsetTolerance)
+    {
+        try
+        {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(openDrive.getBytes(StandardCharsets.UTF_8));
+            digest.update(ByteBuffer.allocate(Double.BYTES).putDouble(offsetTolerance).array());
+            return HexFormat.of().formatHex(digest.digest());
+        }
+        catch (NoSuchAlgorithmException ex)
+        {
+            throw new RuntimeException(ex); // every Java platform supports SHA-256
+        }
+    }
+
+    /**
+     * Returns the file of a network.
+     * @param key key of content and offset tolerance
+     * @return file of the network
+     */
+    private Path file(final String key)
+    {
+        return this.directory.resolve(key + EXTENSION);
+    }
+
+    /**
+     * Reads network geometry from the cache directory.
+     * @param key key of content and offset tolerance
+     * @return geometry of all roads, {@code null} if not available or not readable
+     */
+    private List<RoadGeometry> read(final String key)
+    {
+        Path file = file(key);
+        if (!Files.isRegularFile(file))
+        {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION)
+            {
+                CategoryLogger.always().debug("Ignoring cached OpenDRIVE network {} of other format version", key);
+                return null;
+            }
+            int n = buffer.getInt();
+            List<RoadGeometry> roads = new ArrayList<>(n);
+            for (int i = 0; i < n; i++)
+            {
+                roads.add(readRoad(buffer));
+            }
+            return List.copyOf(roads);
+        }
+        catch (IOException | RuntimeException ex)
+        {
+            CategoryLogger.always().warn("Unable to read cached OpenDRIVE network {}: {}", key, ex.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Writes network geometry to the cache directory. The file is first written under a temporary name, and then moved, such
+     * that other processes never read a partially written file.
+     * @param key key of content and offset tolerance
+     * @param roads geometry of all roads
+     */
+    private void write(final String key, final List<RoadGeometry> roads)
+    {
+        Path file = file(key);
+        Path temp = null;
+        try
+        {
+            Files.createDirectories(this.directory);
+            temp = Files.createTempFile(this.directory, key, ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16)))
+            {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(roads.size());
+                for (RoadGeometry road : roads)
+                {
+                    writeRoad(out, road);
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (IOException ex)
+        {
+            CategoryLogger.always().warn("Unable to store OpenDRIVE network {} in cache directory: {}", key, ex.getMessage());
+            if (temp != null)
+            {
+                try
+                {
+                    Files.deleteIfExists(temp);
+                }
+                catch (IOException ex2)
+                {
+                    // ignore, leave temporary file
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes road geometry.
+     * @param out output
+     * @param road road geometry
+     * @throws IOException on I/O error
+     */
+    private static void writeRoad(final DataOutputStream out, final RoadGeometry road) throws IOException
+    {
+        writeString(out, road.id());
+        writeString(out, road.name());
+        writeString(out, road.junction());
+        writeRoadLink(out, road.predecessor());
+        writeRoadLink(out, road.successor());
+        out.writeBoolean(road.forward());
+        out.writeBoolean(road.backward());
+        out.writeBoolean(road.multipleLinks());
+        writeOrientedPoint(out, road.startPoint());
+        out.writeInt(road.sections().size());
+        for (SectionGeometry section : road.sections())
+        {
+            writeString(out, section.roadTypeId());
+            writeOrientedPoint(out, section.endPoint());
+            out.writeBoolean(section.last());
+            writeLink(out, section.forwardLink());
+            writeLink(out, section.backwardLink());
+        }
+    }
+
+    /**
+     * Reads road geometry.
+     * @param in input
+     * @return road geometry
+     */
+    private static RoadGeometry readRoad(final ByteBuffer in)
+    {
+        String id = readString(in);
+        String name = readString(in);
+        String junction = readString(in);
+        RoadLink predecessor = readRoadLink(in);
+        RoadLink successor = readRoadLink(in);
+        boolean forward = readBoolean(in);
+        boolean backward = readBoolean(in);
+        boolean multipleLinks = readBoolean(in);
+        OrientedPoint2d startPoint = readOrientedPoint(in);
+        int n = in.getInt();
+        List<SectionGeometry> sections = new ArrayList<>(n);
+        for (int i = 0; i < n; i++)
+        {
+            sections.add(new SectionGeometry(readString(in), readOrientedPoint(in), readBoolean(in), readLink(in),
+                    readLink(in)));
+        }
+        return new RoadGeometry(id, name, junction, predecessor, successor, forward, backward, multipleLinks, startPoint,
+                List.copyOf(sections));
+    }
+
+    /**
+     * Writes road link.
+     * @param out output
+     * @param roadLink road link, may be {@code null}
+     * @throws IOException on I/O error
+     */
+    private static void writeRoadLink(final DataOutputStream out, final RoadLink roadLink) throws IOException
+    {
+        out.writeBoolean(roadLink != null);
+        if (roadLink != null)
+        {
+            writeString(out, roadLink.elementId());
+            writeEnum(out, roadLink.elementType());
+            writeEnum(out, roadLink.contactPoint());
+        }
+    }
+
+    /**
+     * Reads road link.
+     * @param in input
+     * @return road link, may be {@code null}
+     */
+    private static RoadLink readRoadLink(final ByteBuffer in)
+    {
+        if (!readBoolean(in))
+        {
+            return null;
+        }
+        return new RoadLink(readString(in), readEnum(in, ERoadLinkElementType.class), readEnum(in, EContactPoint.class));
+    }
+
+    /**
+     * Writes link geometry.
+     * @param out output
+     * @param link link geometry, may be {@code null}
+     * @throws IOException on I/O error
+     */
+    private static void writeLink(final DataOutputStream out, final LinkGeometry link) throws IOException
+    {
+        out.writeBoolean(link != null);
+        if (link == null)
+        {
+            return;
+        }
+        writePoints(out, link.designLine().getPoints());
+        writeEnum(out, link.laneKeeping());
+        out.writeInt(link.elements().size());
+        for (ElementGeometry element : link.elements())
+        {
+            writeEnum(out, element.kind());
+            writeString(out, element.id());
+            writeEnum(out, element.stripeType());
+            writePoints(out, element.centerLine().getPoints());
+            writePoints(out, element.contour().getPointList().toArray(new Point2d[0]));
+            out.writeInt(element.slices().size());
+            for (CrossSectionSlice slice : element.slices())
+            {
+                out.writeDouble(slice.getRelativeLength().si);
+                out.writeDouble(slice.getOffset().si);
+                out.writeDouble(slice.getWidth().si);
+            }
+            out.writeDouble(element.speed() == null ? Double.NaN : element.speed().si);
+        }
+    }
+
+    /**
+     * Reads link geometry.
+     * @param in input
+     * @return link geometry, may be {@code null}
+     */
+    private static LinkGeometry readLink(final ByteBuffer in)
+    {
+        if (!readBoolean(in))
+        {
+            return null;
+        }
+        OtsLine2d designLine = new OtsLine2d(new PolyLine2d(readPoints(in)));
+        LaneKeepingPolicy laneKeeping = readEnum(in, LaneKeepingPolicy.class);
+        int n = in.getInt();
+        List<ElementGeometry> elements = new ArrayList<>(n);
+        for (int i = 0; i < n; i++)
+        {
+            ElementKind kind = readEnum(in, ElementKind.class);
+            String id = readString(in);
+            Stripe.Type stripeType = readEnum(in, Stripe.Type.class);
+            OtsLine2d centerLine = new OtsLine2d(new PolyLine2d(readPoints(in)));
+            Polygon2d contour = new Polygon2d(readPoints(in));
+            int m = in.getInt();
+            List<CrossSectionSlice> slices = new ArrayList<>(m);
+            for (int j = 0; j < m; j++)
+            {
+                slices.add(new CrossSectionSlice(Length.instantiateSI(in.getDouble()), Length.instantiateSI(in.getDouble()),
+                        Length.instantiateSI(in.getDouble())));
+            }
+            double speed = in.getDouble();
+            elements.add(new ElementGeometry(kind, id, stripeType, centerLine, contour, List.copyOf(slices),
+                    Double.isNaN(speed) ? null : Speed.instantiateSI(speed)));
+        }
+        return new LinkGeometry(designLine, laneKeeping, List.copyOf(elements));
+    }
+
+    /**
+     * Writes oriented point.
+     * @param out output
+     * @param point oriented point
+     * @throws IOException on I/O error
+     */
+    private static void writeOrientedPoint(final DataOutputStream out, final OrientedPoint2d point) throws IOException
+    {
+        out.writeDouble(point.x);
+        out.writeDouble(point.y);
+        out.writeDouble(point.dirZ);
+    }
+
+    /**
+     * Reads oriented point.
+     * @param in input
+     * @return oriented point
+     */
+    private static OrientedPoint2d readOrientedPoint(final ByteBuffer in)
+    {
+        return new OrientedPoint2d(in.getDouble(), in.getDouble(), in.getDouble());
+    }
+
+    /**
+     * Writes points.
+     * @param out output
+     * @param points points
+     * @throws IOException on I/O error
+     */
+    private static void writePoints(final DataOutputStream out, final Point2d[] points) throws IOException
+    {
+        out.writeInt(points.length);
+        for (Point2d point : points)
+        {
+            out.writeDouble(point.x);
+            out.writeDouble(point.y);
+        }
+    }
+
+    /**
+     * Reads points.
+     * @param in input
+     * @return points
+     */
+    private static Point2d[] readPoints(final ByteBuffer in)
+    {
+        Point2d[] points = new Point2d[in.getInt()];
+        for (int i = 0; i < points.length; i++)
+        {
+            points[i] = new Point2d(in.getDouble(), in.getDouble());
+        }
+        return points;
+    }
+
+    /**
+     * Writes enum value by name, such that the file does not depend on the order of enum values.
+     * @param out output
+     * @param value enum value, may be {@code null}
+     * @throws IOException on I/O error
+     */
+    private static void writeEnum(final DataOutputStream out, final Enum<?> value) throws IOException
+    {
+        writeString(out, value == null ? null : value.name());
+    }
+
+    /**
+     * Reads enum value by name.
+     * @param <E> enum type
+     * @param in input
+     * @param clazz enum class
+     * @return enum value, may be {@code null}
+     */
+    private static <E extends Enum<E>> E readEnum(final ByteBuffer in, final Class<E> clazz)
+    {
+        String name = readString(in);
+        return name == null ? null : Enum.valueOf(clazz, name);
+    }
+
+    /**
+     * Writes string as length and UTF-8 bytes, or length -1 for {@code null}.
+     * @param out output
+     * @param string string, may be {@code null}
+     * @throws IOException on I/O error
+     */
+    private static void writeString(final DataOutputStream out, final String string) throws IOException
+    {
+        if (string == null)
+        {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Reads string.
+     * @param in input
+     * @return string, may be {@code null}
+     */
+    private static String readString(final ByteBuffer in)
+    {
+        int length = in.getInt();
+        if (length < 0)
+        {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads boolean as written by {@link DataOutputStream#writeBoolean(boolean)}.
+     * @param in input
+     * @return boolean
+     */
+    private static boolean readBoolean(final ByteBuffer in)
+    {
+        return in.get() != 0;
+    }
+
+}
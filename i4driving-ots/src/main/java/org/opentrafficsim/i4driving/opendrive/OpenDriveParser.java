@@ -1,13 +1,16 @@
 package org.opentrafficsim.i4driving.opendrive;
 
+import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -22,7 +25,12 @@ import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Function;
+import java.util.function.IntConsumer;
 import java.util.function.Supplier;
 
 import javax.xml.bind.JAXBContext;
@@ -30,6 +38,7 @@ import javax.xml.bind.JAXBException;
 import javax.xml.bind.Unmarshaller;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParserFactory;
+import javax.xml.stream.XMLStreamException;
 import javax.xml.transform.sax.SAXSource;
 
 import org.djunits.value.vdouble.scalar.Length;
@@ -39,7 +48,9 @@ import org.djutils.draw.line.Polygon2d;
 import org.djutils.draw.line.Ray2d;
 import org.djutils.draw.point.OrientedPoint2d;
 import org.djutils.draw.point.Point2d;
+import org.djutils.exceptions.Throw;
 import org.djutils.exceptions.Try;
+import org.djutils.logger.CategoryLogger;
 import org.opentrafficsim.core.definitions.DefaultsNl;
 import org.opentrafficsim.core.geometry.ContinuousPolyLine;
 import org.opentrafficsim.core.geometry.Flattener;
@@ -82,6 +93,8 @@ import org.opentrafficsim.road.network.lane.LaneType;
 import org.opentrafficsim.road.network.lane.Shoulder;
 import org.opentrafficsim.road.network.lane.Stripe;
 import org.opentrafficsim.road.network.lane.changing.LaneKeepingPolicy;
+import org.opentrafficsim.road.network.lane.conflict.ConflictBuilder.RelativeWidthGenerator;
+import org.opentrafficsim.road.network.lane.conflict.ConflictBuilder.WidthGenerator;
 import org.opentrafficsim.road.network.lane.object.detector.SinkDetector;
 import org.xml.sax.Attributes;
 import org.xml.sax.InputSource;
@@ -142,6 +155,9 @@ public final class OpenDriveParser
         LINK_TYPES.put("TOWN_PLAY_STREET", DefaultsNl.RESIDENTIAL);
     };
 
+    /** JAXB context, created on first use as it is expensive to create. */
+    private static JAXBContext jaxbContext;
+
     /** Node id generator. */
     private final AlphabeticIdGenerator nodeIdGenerator = new AlphabeticIdGenerator("Node");
 
@@ -166,6 +182,42 @@ public final class OpenDriveParser
     /** Whether to use the road name. */
     private boolean useRoadName = false;
 
+    /** Number of threads to derive road geometry with. */
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    /** Lateral tolerance with which lane offset, width and border polynomials are sampled. */
+    private double offsetTolerance = OffsetData.DEFAULT_TOLERANCE;
+
+    /** Whether to build conflicts. */
+    private boolean buildConflicts = true;
+
+    /** Width generator for conflicts. */
+    private WidthGenerator conflictWidthGenerator = new RelativeWidthGenerator(0.7);
+
+    /** Ids (or names when used to identify origins and destinations) of roads around which a corridor is built. */
+    private Set<String> corridorRoads;
+
+    /** Routes of which the roads on the shortest path from the first to the last road are in the corridor. */
+    private List<List<String>> corridorRoutes;
+
+    /** Region around which a corridor is built. */
+    private Polygon2d corridorRegion;
+
+    /** Number of links that is followed outward from the corridor roads and region. */
+    private int corridorDepth = 1;
+
+    /** Selected roads when only a corridor is built, {@code null} when all roads are built. */
+    private OpenDriveCorridor corridor;
+
+    /** All lanes in the order in which they are created, used to build conflicts. */
+    private final List<Lane> lanes = new ArrayList<>();
+
+    /** Lanes on connecting roads of junctions. */
+    private final Set<Lane> junctionLanes = new LinkedHashSet<>();
+
+    /** Derived geometry of all roads, {@code null} until derived. */
+    private List<RoadGeometry> roadGeometries;
+
     /** Origin nodes by their road id. */
     private Map<String, Map<Boolean, Node>> origins = new LinkedHashMap<>();
 
@@ -181,6 +233,19 @@ public final class OpenDriveParser
         this.openDrive = openDrive;
     }
 
+    /**
+     * Constructor for a parser of which the geometry of all roads was derived before, e.g. by another parser of the same
+     * OpenDRIVE content.
+     * @param roadGeometries derived geometry of all roads
+     * @param offsetTolerance lateral tolerance with which the lane offset, width and border polynomials were sampled [m]
+     */
+    OpenDriveParser(final List<RoadGeometry> roadGeometries, final double offsetTolerance)
+    {
+        this.openDrive = null;
+        this.roadGeometries = roadGeometries;
+        this.offsetTolerance = offsetTolerance;
+    }
+
     /**
      * Sets whether to use the road name to identify origins and destinations.
      * @param useRoadName whether to use the road name to identify origins and destinations
@@ -192,6 +257,115 @@ public final class OpenDriveParser
         return this;
     }
 
+    /**
+     * Sets the number of threads with which the geometry of roads is derived. With 1, all geometry is derived on the calling
+     * thread. The default is the number of available processors.
+     * @param parallelism number of threads with which the geometry of roads is derived
+     * @return parser for method chaining
+     */
+    public OpenDriveParser setParallelism(final int parallelism)
+    {
+        Throw.when(parallelism < 1, IllegalArgumentException.class, "Parallelism should be at least 1.");
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Sets the lateral tolerance with which lane offset, width and border polynomials are sampled. Curved polynomials are
+     * subdivided until linear interpolation between samples is within this tolerance. The default is 0.01m. The tolerance
+     * cannot be changed once the geometry is derived, which is the case for parsers obtained from a network cache.
+     * @param offsetTolerance lateral tolerance with which lane offset, width and border polynomials are sampled [m]
+     * @return parser for method chaining
+     * @throws IllegalStateException when the geometry was already derived with another tolerance
+     */
+    public OpenDriveParser setOffsetTolerance(final double offsetTolerance)
+    {
+        Throw.when(offsetTolerance <= 0.0, IllegalArgumentException.class, "Offset tolerance should be positive.");
+        Throw.when(this.roadGeometries != null && offsetTolerance != this.offsetTolerance, IllegalStateException.class,
+                "Offset tolerance cannot be changed after the geometry was derived with tolerance %s.", this.offsetTolerance);
+        this.offsetTolerance = offsetTolerance;
+        return this;
+    }
+
+    /**
+     * Sets whether to build conflicts between lanes. Conflicts are built by default. When the network has junctions, only
+     * conflicts with lanes on connecting roads of junctions are built, as elevation is not considered and other roads may cross
+     * on different levels.
+     * @param buildConflicts whether to build conflicts between lanes
+     * @return parser for method chaining
+     */
+    public OpenDriveParser setBuildConflicts(final boolean buildConflicts)
+    {
+        this.buildConflicts = buildConflicts;
+        return this;
+    }
+
+    /**
+     * Sets the width generator for conflicts. The default is a relative width of 0.7.
+     * @param conflictWidthGenerator width generator for conflicts
+     * @return parser for method chaining
+     */
+    public OpenDriveParser setConflictWidthGenerator(final WidthGenerator conflictWidthGenerator)
+    {
+        Throw.whenNull(conflictWidthGenerator, "Width generator may not be null.");
+        this.conflictWidthGenerator = conflictWidthGenerator;
+        return this;
+    }
+
+    /**
+     * Sets the roads around which a corridor of the network is built, rather than the entire network. Roads of which the id,
+     * or name when it identifies origins and destinations, is in the set are built, together with the roads within the
+     * corridor depth. Roads on the corridor boundary obtain origins, destinations and sink detectors where they are cut.
+     * @param corridorRoads ids (or names) of roads around which a corridor is built, {@code null} to build all roads
+     * @return parser for method chaining
+     */
+    public OpenDriveParser setCorridorRoads(final Collection<String> corridorRoads)
+    {
+        this.corridorRoads = corridorRoads == null ? null : new LinkedHashSet<>(corridorRoads);
+        return this;
+    }
+
+    /**
+     * Sets routes of which only the first and last road are given, for which the roads on the shortest path from the first to
+     * the last road are built, together with the roads within the corridor depth. The path follows the driving direction of
+     * the roads, with the road length as cost. This may be combined with corridor roads and region.
+     * @param corridorRoutes routes, each by the ids (or names) of at least its first and last road, {@code null} for none
+     * @return parser for method chaining
+     */
+    public OpenDriveParser setCorridorRoutes(final Collection<? extends List<String>> corridorRoutes)
+    {
+        Throw.when(corridorRoutes != null && corridorRoutes.stream().anyMatch(List::isEmpty), IllegalArgumentException.class,
+                "Corridor routes should have at least one road.");
+        this.corridorRoutes = corridorRoutes == null ? null : corridorRoutes.stream().map(List::copyOf).toList();
+        return this;
+    }
+
+    /**
+     * Sets the region around which a corridor of the network is built, rather than the entire network. Roads with a lane that
+     * intersects the region are built, together with the roads within the corridor depth. This may be combined with
+     * corridor roads.
+     * @param corridorRegion region around which a corridor is built, {@code null} to not select roads by region
+     * @return parser for method chaining
+     */
+    public OpenDriveParser setCorridorRegion(final Polygon2d corridorRegion)
+    {
+        this.corridorRegion = corridorRegion;
+        return this;
+    }
+
+    /**
+     * Sets the number of links that is followed outward from the corridor roads and region. A link is either a direct link
+     * between two roads, or a connection through a junction. The default is 1.
+     * @param corridorDepth number of links that is followed outward from the corridor roads and region
+     * @return parser for method chaining
+     */
+    public OpenDriveParser setCorridorDepth(final int corridorDepth)
+    {
+        Throw.when(corridorDepth < 0, IllegalArgumentException.class, "Corridor depth should be at least 0.");
+        this.corridorDepth = corridorDepth;
+        return this;
+    }
+
     /**
      * Parse OpenDrive XML (.xodr) input file and build OpenDRIVE object.
      * @param filename file name, including path.
@@ -250,8 +424,7 @@ public final class OpenDriveParser
     {
         Locale locale = Locale.getDefault();
         Locale.setDefault(Locale.US);
-        JAXBContext jc = JAXBContext.newInstance(OpenDRIVE.class);
-        Unmarshaller unmarshaller = jc.createUnmarshaller();
+        Unmarshaller unmarshaller = getJaxbContext().createUnmarshaller();
         SAXParserFactory spf = SAXParserFactory.newInstance();
         spf.setXIncludeAware(false);
         spf.setNamespaceAware(true);
@@ -265,6 +438,61 @@ public final class OpenDriveParser
         return new OpenDriveParser(result);
     }
 
+    /**
+     * Returns the JAXB context for OpenDRIVE, which is created on first use.
+     * @return JAXB context for OpenDRIVE
+     * @throws JAXBException when the context cannot be created
+     */
+    private static synchronized JAXBContext getJaxbContext() throws JAXBException
+    {
+        if (jaxbContext == null)
+        {
+            jaxbContext = JAXBContext.newInstance(OpenDRIVE.class);
+        }
+        return jaxbContext;
+    }
+
+    /**
+     * Read OpenDrive XML (.xodr) input file with a streaming reader. Contrary to {@code parseXodr()}, only the information
+     * required to build the network is read, while objects, signals and other elements are skipped. This requires much less
+     * time and memory for large files.
+     * @param filename file name, including path.
+     * @return parser
+     * @throws XMLStreamException when the reading fails
+     * @throws IOException if the file does no exist or is not accessible
+     */
+    public static OpenDriveParser readXodr(final String filename) throws XMLStreamException, IOException
+    {
+        try (InputStream stream = new BufferedInputStream(new FileInputStream(filename)))
+        {
+            return readStream(stream);
+        }
+    }
+
+    /**
+     * Read OpenDrive XML (.xodr) string with a streaming reader using UTF-8 character encoding. Contrary to
+     * {@code parseFileString()}, only the information required to build the network is read.
+     * @param string the xml string
+     * @return parser
+     * @throws XMLStreamException when the reading fails
+     */
+    public static OpenDriveParser readFileString(final String string) throws XMLStreamException
+    {
+        return readStream(new ByteArrayInputStream(string.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Read OpenDrive XML (.xodr) input stream with a streaming reader. Contrary to {@code parseStream()}, only the information
+     * required to build the network is read, while objects, signals and other elements are skipped.
+     * @param xmlStream the xml stream
+     * @return parser
+     * @throws XMLStreamException when the reading fails
+     */
+    public static OpenDriveParser readStream(final InputStream xmlStream) throws XMLStreamException
+    {
+        return new OpenDriveParser(OpenDriveStreamReader.read(xmlStream));
+    }
+
     /**
      * This class adds name space to elements, so .xodr that do not include the name space can still be parsed.
      */
@@ -312,12 +540,6 @@ public final class OpenDriveParser
             throws NetworkException, OtsGeometryException
     {
         this.net = network;
-        this.roadMap.clear();
-        this.junctionMap.clear();
-
-        this.openDrive.getRoad().forEach((road) -> this.roadMap.put(road.getId(), road));
-        this.openDrive.getJunction().forEach((junction) -> this.junctionMap.put(junction.getId(), junction));
-
         buildNetwork(linkTypeFunction);
     }
 
@@ -356,186 +578,407 @@ public final class OpenDriveParser
 
     /**
      * Returns the identifier for the road by which origins and destinations are identified.
-     * @param road road tag
+     * @param road road geometry
      * @return the identifier for the road by which origins and destinations are identified
      */
-    private String odRoadIdentifier(final TRoad road)
+    private String odRoadIdentifier(final RoadGeometry road)
     {
-        return this.useRoadName && road.getName() != null && !road.getName().isBlank() ? road.getName() : road.getId();
+        return this.useRoadName && road.name() != null && !road.name().isBlank() ? road.name() : road.id();
     }
 
     /**
-     * Build the nodes, links and lanes in the network.
+     * Build the nodes, links and lanes in the network. This happens in two phases. First the geometry of all roads is derived,
+     * in parallel over the roads. Second, the network is assembled from this geometry in road order, such that node and link
+     * ids do not depend on the order in which the geometry of the roads was derived. When corridor roads, routes or a region
+     * are set, only the roads in the corridor are assembled.
      * @param linkTypeFunction produces link types for OpenDRIVE link types
      * @throws NetworkException on error
      * @throws OTSGeometryException on error
      */
     private void buildNetwork(final Function<String, LinkType> linkTypeFunction) throws NetworkException, OtsGeometryException
     {
-        for (Entry<String, TRoad> roadEntry : this.roadMap.entrySet())
+        List<RoadGeometry> roads = getRoadGeometries();
+        this.corridor = this.corridorRoads == null && this.corridorRoutes == null && this.corridorRegion == null ? null
+                : new OpenDriveCorridor(roads, this.corridorRoads, this.corridorRoutes, this.corridorRegion, this.corridorDepth,
+                        this::odRoadIdentifier);
+        for (RoadGeometry road : roads)
         {
-            TRoad road = roadEntry.getValue();
-
-            // gather discontinuities
-            NavigableMap<Double, TRoadLanesLaneSection> laneSections = new TreeMap<>();
-            NavigableMap<Double, TRoadType> roadTypes = new TreeMap<>();
-            List<Boolean> directions = new ArrayList<>();
-            NavigableSet<Double> discontinuities = getDiscontinuities(road, laneSections, roadTypes, directions);
-            boolean forward = directions.get(0);
-            boolean backward = directions.get(1);
-
-            // id supplier
-            Supplier<String> id;
-            if (road.getId() != null && !road.getId().isBlank())
+            if (this.corridor == null || this.corridor.contains(road))
             {
-                id = discontinuities.size() > 1 || (forward && backward) ? new AlphabeticIdGenerator(road.getId() + "_")
-                        : () -> road.getId(); // just '1', or '1A', '1B', etc. when multiple links from this road
-            }
-            else
-            {
-                id = this.linkIdGenerator;
+                assembleRoad(road, linkTypeFunction);
             }
+        }
+        if (this.buildConflicts)
+        {
+            OpenDriveConflictBuilder.buildConflicts(this.lanes, this.junctionLanes, this.net.getSimulator(),
+                    this.conflictWidthGenerator, this.parallelism);
+        }
+    }
 
-            // design line of the entire road
-            SegmentedLine roadDesignLine = new SegmentedLine(road.getPlanView().getGeometry(), road.getLength());
-            PolyLine2d roadCenterLine = roadDesignLine.flatten(FLATTENER);
-            FractionalLengthData roadOffset = new OffsetData(road.getLanes().getLaneOffset(), road.getLength());
-            double lengthFactor = roadCenterLine.getLength() / road.getLength().si;
-
-            // gather nodes at start and end of road (these may be the same as on other roads)
-            Node startNodeForward = null;
-            Node startNodeBackward = null;
-            Node endNodeForward = null;
-            Node endNodeBackward = null;
-            Ray2d startRay = roadCenterLine.getLocationFraction(0.0);
-            OrientedPoint2d startPointForward =
-                    new OrientedPoint2d(startRay.x, startRay.y, roadDesignLine.getStartDirection().si);
-            OrientedPoint2d startPointBackward = startPointForward.rotate(Math.PI);
-            if (forward)
+    /**
+     * Returns the OpenDRIVE content as read by JAXB or the streaming reader.
+     * @return OpenDRIVE content, {@code null} for a parser that was created with derived geometry
+     */
+    OpenDRIVE getOpenDrive()
+    {
+        return this.openDrive;
+    }
+
+    /**
+     * Returns the geometry of all roads. The geometry is derived on the first call, after which it is immutable. It may thus
+     * be shared with other parsers of the same OpenDRIVE content.
+     * @return geometry of all roads, in the order of the roads
+     */
+    List<RoadGeometry> getRoadGeometries()
+    {
+        if (this.roadGeometries == null)
+        {
+            this.roadMap.clear();
+            this.junctionMap.clear();
+            this.openDrive.getRoad().forEach((road) -> this.roadMap.put(road.getId(), road));
+            this.openDrive.getJunction().forEach((junction) -> this.junctionMap.put(junction.getId(), junction));
+            SampleCount sampleCount = new SampleCount();
+            this.roadGeometries = deriveRoadGeometries(sampleCount);
+            logSampling(this.roadGeometries, sampleCount);
+        }
+        return this.roadGeometries;
+    }
+
+    /**
+     * Logs the number of points in the derived lane, shoulder and stripe geometry, and the number of samples of the curved lane
+     * offset, width and border polynomials as counted during derivation, against the 101 samples per polynomial of fixed
+     * sampling. A polynomial that spans several links, or both directions of a road, is counted for each of them.
+     * @param geometries derived geometry of all roads
+     * @param sampleCount count of curved polynomials and their samples during derivation
+     */
+    private static void logSampling(final List<RoadGeometry> geometries, final SampleCount sampleCount)
+    {
+        int points = 0;
+        for (RoadGeometry road : geometries)
+        {
+            for (SectionGeometry section : road.sections())
             {
-                Connection startConnectionForward = getConnection(road, true, true);
-                OrientedPoint2d p = startPointForward; // effectively final
-                startNodeForward = this.nodeMap.computeIfAbsent(startConnectionForward,
-                        (c) -> createNode(this.net, this.nodeIdGenerator.get(), p));
-                if (road.getLink() == null || road.getLink().getPredecessor() == null)
+                for (LinkGeometry link : new LinkGeometry[] {section.forwardLink(), section.backwardLink()})
                 {
-                    this.origins.computeIfAbsent(odRoadIdentifier(road), (s) -> new LinkedHashMap<>()).put(true,
-                            startNodeForward);
+                    if (link != null)
+                    {
+                        for (ElementGeometry element : link.elements())
+                        {
+                            points += element.centerLine().size() + element.contour().size();
+                        }
+                    }
                 }
             }
-            if (backward)
+        }
+        long polynomials = sampleCount.polynomials.sum();
+        CategoryLogger.always().info(
+                "Derived {} points of lane, shoulder and stripe geometry; {} curved offset, width and border polynomials "
+                        + "sampled at {} points ({} at fixed sampling of 101 points per polynomial)",
+                points, polynomials, sampleCount.samples.sum(), 101 * polynomials);
+    }
+
+    /**
+     * Counts curved polynomials and their samples while road geometry is derived, possibly by several threads.
+     */
+    private static final class SampleCount implements IntConsumer
+    {
+        /** Number of sampled curved polynomials. */
+        private final LongAdder polynomials = new LongAdder();
+
+        /** Number of samples. */
+        private final LongAdder samples = new LongAdder();
+
+        /** {@inheritDoc} */
+        @Override
+        public void accept(final int n)
+        {
+            this.polynomials.increment();
+            this.samples.add(n);
+        }
+    }
+
+    /**
+     * Derives the geometry of all roads. When the parallelism is larger than 1, this is done on a dedicated fork-join pool.
+     * @param sampleCount count of curved polynomials and their samples
+     * @return geometry of all roads, in the order of the roads
+     */
+    private List<RoadGeometry> deriveRoadGeometries(final SampleCount sampleCount)
+    {
+        List<TRoad> roads = new ArrayList<>(this.roadMap.values());
+        if (this.parallelism <= 1 || roads.size() < 2)
+        {
+            return roads.stream().map((road) -> getRoadGeometry(road, this.offsetTolerance, sampleCount)).toList();
+        }
+        return runParallel(this.parallelism, () -> roads.parallelStream()
+                .map((road) -> getRoadGeometry(road, this.offsetTolerance, sampleCount)).toList());
+    }
+
+    /**
+     * Runs a task on a dedicated fork-join pool, such that parallel streams in the task use the given number of threads.
+     * @param parallelism number of threads
+     * @param task task
+     * @param <T> result type
+     * @return result of the task
+     */
+    static <T> T runParallel(final int parallelism, final Callable<T> task)
+    {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try
+        {
+            return pool.submit(task).get();
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while running parallel task.", ex);
+        }
+        catch (ExecutionException ex)
+        {
+            if (ex.getCause() instanceof RuntimeException runtimeException)
             {
-                Connection startConnectionBackward = getConnection(road, true, false);
-                OrientedPoint2d p = startPointBackward; // effectively final
-                startNodeBackward = this.nodeMap.computeIfAbsent(startConnectionBackward,
-                        (c) -> createNode(this.net, this.nodeIdGenerator.get(), p));
-                if (road.getLink() == null || road.getLink().getPredecessor() == null)
-                {
-                    this.destinations.computeIfAbsent(odRoadIdentifier(road), (s) -> new LinkedHashMap<>()).put(false,
-                            startNodeBackward);
-                }
+                throw runtimeException;
             }
+            throw new RuntimeException(ex.getCause());
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
 
-            // loop sections on road to create individual links
-            boolean last = false;
-            for (double sFrom : discontinuities)
+    /**
+     * Derives the geometry of the links, lanes, shoulders and stripes of a road. This method does not depend on, nor changes,
+     * the state of the parser or the network. It can therefore run in parallel for different roads.
+     * @param road road tag
+     * @param offsetTolerance lateral tolerance with which lane offset, width and border polynomials are sampled [m]
+     * @param sampled consumer of the number of samples of each sampled curved polynomial
+     * @return geometry of the road
+     */
+    private static RoadGeometry getRoadGeometry(final TRoad road, final double offsetTolerance, final IntConsumer sampled)
+    {
+        // gather discontinuities
+        NavigableMap<Double, TRoadLanesLaneSection> laneSections = new TreeMap<>();
+        NavigableMap<Double, TRoadType> roadTypes = new TreeMap<>();
+        List<Boolean> directions = new ArrayList<>();
+        NavigableSet<Double> discontinuities = getDiscontinuities(road, laneSections, roadTypes, directions);
+        boolean forward = directions.get(0);
+        boolean backward = directions.get(1);
+
+        // design line of the entire road
+        SegmentedLine roadDesignLine = new SegmentedLine(road.getPlanView().getGeometry(), road.getLength());
+        PolyLine2d roadCenterLine = roadDesignLine.flatten(FLATTENER);
+        FractionalLengthData roadOffset =
+                new OffsetData(road.getLanes().getLaneOffset(), road.getLength(), offsetTolerance, sampled);
+        double lengthFactor = roadCenterLine.getLength() / road.getLength().si;
+
+        // point at start of road (a node may already exist there from other roads)
+        Ray2d startRay = roadCenterLine.getLocationFraction(0.0);
+        OrientedPoint2d startPoint = new OrientedPoint2d(startRay.x, startRay.y, roadDesignLine.getStartDirection().si);
+
+        // loop sections on road to derive geometry of individual links
+        List<SectionGeometry> sections = new ArrayList<>();
+        OrientedPoint2d startPointForward = startPoint;
+        boolean last = false;
+        for (double sFrom : discontinuities)
+        {
+            // get elements in section
+            TRoadLanesLaneSection laneSection = laneSections.floorEntry(sFrom).getValue();
+            Double sEndLaneSection = laneSections.higherKey(sFrom);
+            if (sEndLaneSection == null)
             {
-                // get elements in section
-                TRoadLanesLaneSection laneSection = laneSections.floorEntry(sFrom).getValue();
-                Double sEndLaneSection = laneSections.higherKey(sFrom);
-                if (sEndLaneSection == null)
-                {
-                    sEndLaneSection = road.getLength().si;
-                }
-                TRoadType roadType = roadTypes.floorEntry(sFrom).getValue();
-                String roadTypeId = roadType.getCountry() == null ? roadType.getType().name()
-                        : roadType.getCountry() + "." + roadType.getType().name();
-                LinkType linkType = linkTypeFunction.apply(roadTypeId);
-                Speed roadSpeed = roadType.getSpeed() == null ? null
-                        : getSpeed(roadType.getSpeed().getMax(), roadType.getSpeed().getUnit());
-
-                // subtract geometry from road
-                Double sTo = discontinuities.higher(sFrom);
-                if (sTo == null)
-                {
-                    last = true;
-                    sTo = road.getLength().si;
-                }
-                List<Point2d> points = roadCenterLine
-                        .extract(sFrom * lengthFactor, last ? roadCenterLine.getLength() : sTo * lengthFactor).getPointList();
-                removePointsOnStraight(points);
-                PolyLine2d flatLinkLine = new PolyLine2d(points);
-                Ray2d endRay = flatLinkLine.getLocationFraction(1.0);
-                OrientedPoint2d endPointForward =
-                        last ? roadDesignLine.getEndPoint() : new OrientedPoint2d(endRay.x, endRay.y, endRay.phi);
-                OrientedPoint2d endPointBackward = endPointForward.rotate(Math.PI);
-
-                // continuous definition from flat segment, with directions possibly overridden at road end points
-                ContinuousPolyLine linkDesignLine =
-                        new ContinuousPolyLine(flatLinkLine, sFrom == 0.0 ? roadDesignLine.getStartPoint() : startPointForward,
-                                last ? roadDesignLine.getEndPoint() : endPointForward);
-
-                // make link and the lanes and stripes on it
-                LinkData linkData = new LinkData(road, id, linkType, roadTypeId, roadSpeed, roadOffset, linkDesignLine, sFrom,
-                        sTo, sEndLaneSection, laneSection);
-                if (forward)
-                {
-                    endNodeForward = makeLink(linkData, startNodeForward, endPointForward, true);
-                }
-                if (backward)
-                {
-                    endNodeBackward = makeLink(linkData, startNodeBackward, endPointBackward, false);
-                }
-                startPointForward = endPointForward;
-                startPointBackward = endPointBackward;
-                startNodeForward = endNodeForward;
-                startNodeBackward = endNodeBackward;
+                sEndLaneSection = road.getLength().si;
             }
+            TRoadType roadType = roadTypes.floorEntry(sFrom).getValue();
+            String roadTypeId = roadType.getCountry() == null ? roadType.getType().name()
+                    : roadType.getCountry() + "." + roadType.getType().name();
+            Speed roadSpeed =
+                    roadType.getSpeed() == null ? null : getSpeed(roadType.getSpeed().getMax(), roadType.getSpeed().getUnit());
+
+            // subtract geometry from road
+            Double sTo = discontinuities.higher(sFrom);
+            if (sTo == null)
+            {
+                last = true;
+                sTo = road.getLength().si;
+            }
+            List<Point2d> points = roadCenterLine
+                    .extract(sFrom * lengthFactor, last ? roadCenterLine.getLength() : sTo * lengthFactor).getPointList();
+            removePointsOnStraight(points);
+            PolyLine2d flatLinkLine = new PolyLine2d(points);
+            Ray2d endRay = flatLinkLine.getLocationFraction(1.0);
+            OrientedPoint2d endPointForward =
+                    last ? roadDesignLine.getEndPoint() : new OrientedPoint2d(endRay.x, endRay.y, endRay.phi);
+
+            // continuous definition from flat segment, with directions possibly overridden at road end points
+            ContinuousPolyLine linkDesignLine =
+                    new ContinuousPolyLine(flatLinkLine, sFrom == 0.0 ? roadDesignLine.getStartPoint() : startPointForward,
+                            last ? roadDesignLine.getEndPoint() : endPointForward);
+
+            // geometry of link and the lanes and stripes on it
+            LinkData linkData = new LinkData(road, roadTypeId, roadSpeed, roadOffset, linkDesignLine, sFrom, sTo,
+                    sEndLaneSection, laneSection, offsetTolerance, sampled);
+            sections.add(new SectionGeometry(roadTypeId, endPointForward, last,
+                    forward ? getLinkGeometry(linkData, true) : null, backward ? getLinkGeometry(linkData, false) : null));
+            startPointForward = endPointForward;
+        }
+        TRoadLinkPredecessorSuccessor predecessor = road.getLink() == null ? null : road.getLink().getPredecessor();
+        TRoadLinkPredecessorSuccessor successor = road.getLink() == null ? null : road.getLink().getSuccessor();
+        return new RoadGeometry(road.getId(), road.getName(), road.getJunction(), RoadLink.of(predecessor),
+                RoadLink.of(successor), forward, backward, discontinuities.size() > 1 || (forward && backward), startPoint,
+                List.copyOf(sections));
+    }
+
+    /**
+     * Assembles the nodes, links, lanes, shoulders and stripes of a road in the network, from previously derived geometry.
+     * @param road geometry of the road
+     * @param linkTypeFunction produces link types for OpenDRIVE link types
+     * @throws NetworkException on error
+     */
+    private void assembleRoad(final RoadGeometry road, final Function<String, LinkType> linkTypeFunction)
+            throws NetworkException
+    {
+        boolean forward = road.forward();
+        boolean backward = road.backward();
 
-            if (forward && (road.getLink() == null || road.getLink().getSuccessor() == null))
+        // id supplier
+        Supplier<String> id;
+        if (road.id() != null && !road.id().isBlank())
+        {
+            // just '1', or '1A', '1B', etc. when multiple links from this road
+            id = road.multipleLinks() ? new AlphabeticIdGenerator(road.id() + "_") : () -> road.id();
+        }
+        else
+        {
+            id = this.linkIdGenerator;
+        }
+
+        // gather nodes at start and end of road (these may be the same as on other roads)
+        Node startNodeForward = null;
+        Node startNodeBackward = null;
+        Node endNodeForward = null;
+        Node endNodeBackward = null;
+        Node destinationBackward = null;
+        OrientedPoint2d startPointForward = road.startPoint();
+        OrientedPoint2d startPointBackward = startPointForward.rotate(Math.PI);
+        if (forward)
+        {
+            Connection startConnectionForward = getConnection(road, true, true);
+            startNodeForward = this.nodeMap.computeIfAbsent(startConnectionForward,
+                    (c) -> createNode(this.net, this.nodeIdGenerator.get(), startPointForward));
+            if (isOpenEnd(road, true))
             {
-                this.destinations.computeIfAbsent(odRoadIdentifier(road), (s) -> new LinkedHashMap<>()).put(true,
-                        endNodeForward);
-                for (Link link : endNodeForward.getLinks())
-                {
-                    if (link.getEndNode().equals(endNodeForward) && link instanceof CrossSectionLink cLink)
-                    {
-                        for (Lane lane : cLink.getLanes())
-                        {
-                            Length pos = Length.max(Length.ZERO, lane.getLength().minus(Length.instantiateSI(20.0)));
-                            new SinkDetector(lane, pos, link.getSimulator(), DefaultsRoadNl.ROAD_USERS);
-                        }
-                    }
-                }
+                this.origins.computeIfAbsent(odRoadIdentifier(road), (s) -> new LinkedHashMap<>()).put(true,
+                        startNodeForward);
             }
-            if (backward && (road.getLink() == null || road.getLink().getSuccessor() == null))
+        }
+        if (backward)
+        {
+            Connection startConnectionBackward = getConnection(road, true, false);
+            startNodeBackward = this.nodeMap.computeIfAbsent(startConnectionBackward,
+                    (c) -> createNode(this.net, this.nodeIdGenerator.get(), startPointBackward));
+            if (isOpenEnd(road, true))
             {
-                this.origins.computeIfAbsent(odRoadIdentifier(road), (s) -> new LinkedHashMap<>()).put(false, endNodeBackward);
+                this.destinations.computeIfAbsent(odRoadIdentifier(road), (s) -> new LinkedHashMap<>()).put(false,
+                        startNodeBackward);
+                destinationBackward = startNodeBackward;
             }
         }
+
+        // loop sections on road to create individual links
+        for (SectionGeometry section : road.sections())
+        {
+            LinkType linkType = linkTypeFunction.apply(section.roadTypeId());
+            OrientedPoint2d endPointForward = section.endPoint();
+            OrientedPoint2d endPointBackward = endPointForward.rotate(Math.PI);
+            if (forward)
+            {
+                endNodeForward = makeLink(road, id, linkType, section.forwardLink(), startNodeForward, endPointForward,
+                        section.last(), true);
+            }
+            if (backward)
+            {
+                endNodeBackward = makeLink(road, id, linkType, section.backwardLink(), startNodeBackward, endPointBackward,
+                        section.last(), false);
+            }
+            startNodeForward = endNodeForward;
+            startNodeBackward = endNodeBackward;
+        }
+
+        if (forward && isOpenEnd(road, false))
+        {
+            this.destinations.computeIfAbsent(odRoadIdentifier(road), (s) -> new LinkedHashMap<>()).put(true, endNodeForward);
+            addSinkDetectors(endNodeForward);
+        }
+        if (backward && isOpenEnd(road, false))
+        {
+            this.origins.computeIfAbsent(odRoadIdentifier(road), (s) -> new LinkedHashMap<>()).put(false, endNodeBackward);
+        }
+        if (destinationBackward != null && this.corridor != null)
+        {
+            // only in a corridor, where traffic may also leave against the road direction at a cut
+            addSinkDetectors(destinationBackward);
+        }
     }
 
     /**
-     * Create link.
-     * @param linkData relevant data for the link
+     * Places sink detectors 20m before the end of all lanes on links that end at a destination node.
+     * @param destination destination node
+     * @throws NetworkException on error
+     */
+    private static void addSinkDetectors(final Node destination) throws NetworkException
+    {
+        for (Link link : destination.getLinks())
+        {
+            if (link.getEndNode().equals(destination) && link instanceof CrossSectionLink cLink)
+            {
+                for (Lane lane : cLink.getLanes())
+                {
+                    Length pos = Length.max(Length.ZERO, lane.getLength().minus(Length.instantiateSI(20.0)));
+                    new SinkDetector(lane, pos, link.getSimulator(), DefaultsRoadNl.ROAD_USERS);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns whether traffic can enter or exit the network at the start or end of the road. This is the case when the road
+     * has no predecessor or successor there, or when the road is cut there at the boundary of the corridor.
+     * @param road geometry of the road
+     * @param start whether to consider the start of the road, or the end
+     * @return whether traffic can enter or exit the network at the start or end of the road
+     */
+    private boolean isOpenEnd(final RoadGeometry road, final boolean start)
+    {
+        return (start ? road.predecessor() : road.successor()) == null
+                || (this.corridor != null && this.corridor.isCut(road, start));
+    }
+
+    /**
+     * Create link, and the lanes, shoulders and stripes on it.
+     * @param road road geometry
+     * @param id link id supplier
+     * @param linkType link type
+     * @param linkGeometry geometry of the link
      * @param startNode start node
      * @param endPoint end point
+     * @param last whether this is the last link on the road
      * @param forward whether the link is in the forward direction
      * @return node used or created at the end of the link
      * @throws NetworkException network exception
      */
-    private Node makeLink(final LinkData linkData, final Node startNode, final OrientedPoint2d endPoint, final boolean forward)
-            throws NetworkException
+    private Node makeLink(final RoadGeometry road, final Supplier<String> id, final LinkType linkType,
+            final LinkGeometry linkGeometry, final Node startNode, final OrientedPoint2d endPoint, final boolean last,
+            final boolean forward) throws NetworkException
     {
         // end node
         Node endNode;
-        if (linkData.sTo != linkData.road.getLength().si)
+        if (!last)
         {
             endNode = new Node(this.net, this.nodeIdGenerator.get(), endPoint);
         }
         else
         {
-            Connection endConnection = getConnection(linkData.road, false, forward);
+            Connection endConnection = getConnection(road, false, forward);
             endNode = this.nodeMap.computeIfAbsent(endConnection,
                     (c) -> createNode(this.net, this.nodeIdGenerator.get(), endPoint));
         }
@@ -543,11 +986,49 @@ public final class OpenDriveParser
         // link
         // TODO elevation road.getElevationProfile()
         FractionalLengthData elevation = FractionalLengthData.of(0.0, 0.0);
+        CrossSectionLink link = new CrossSectionLink(this.net, id.get(), forward ? startNode : endNode,
+                forward ? endNode : startNode, linkType, linkGeometry.designLine(), elevation, linkGeometry.laneKeeping());
+
+        // lanes, shoulders and stripes
+        for (ElementGeometry element : linkGeometry.elements())
+        {
+            switch (element.kind())
+            {
+                case LANE:
+                    // TODO Use mapper from roadTypeId & lane.getType() to lane type
+                    // TODO In case of restriction, create child lane type following standard name addition: FREEWAY_DENY_BUS
+                    Map<GtuType, Speed> laneSpeeds = element.speed() == null ? Collections.emptyMap()
+                            : Map.of(DefaultsNl.ROAD_USER, element.speed());
+                    Lane lane = new Lane(link, element.id(), element.centerLine(), element.contour(), element.slices(),
+                            DefaultsRoadNl.FREEWAY, laneSpeeds);
+                    this.lanes.add(lane);
+                    if (road.onJunction())
+                    {
+                        this.junctionLanes.add(lane);
+                    }
+                    break;
+                case SHOULDER:
+                    new Shoulder(link, element.id(), element.centerLine(), element.contour(), element.slices(), SHOULDER);
+                    break;
+                default:
+                    new Stripe(element.stripeType(), link, element.centerLine(), element.contour(), element.slices());
+            }
+        }
+        return endNode;
+    }
+
+    /**
+     * Derives the geometry of a link, and of the lanes, shoulders and stripes on it.
+     * @param linkData relevant data for the link
+     * @param forward whether the link is in the forward direction
+     * @return geometry of the link
+     */
+    private static LinkGeometry getLinkGeometry(final LinkData linkData, final boolean forward)
+    {
         PolyLine2d linkLine = forward ? linkData.linkDesignLine.flatten() : linkData.linkDesignLine.flatten().reverse();
         // OpenDRIVE standard: if "rule" not given in <road>, then RHT is assumed
         LaneKeepingPolicy laneKeeping = linkData.road.getRule() == null ? LaneKeepingPolicy.KEEPRIGHT : linkData.road.getRule();
-        CrossSectionLink link = new CrossSectionLink(this.net, linkData.id.get(), forward ? startNode : endNode,
-                forward ? endNode : startNode, linkData.linkType, new OtsLine2d(linkLine), elevation, laneKeeping);
+        List<ElementGeometry> elements = new ArrayList<>();
 
         // center mark
         FractionalLengthData roadOffset = OffsetData.sub(linkData.roadOffset, linkData.sFrom / linkData.road.getLength().si,
@@ -556,7 +1037,8 @@ public final class OpenDriveParser
         double offsetSign = forward ? -1.0 : 1.0;
         FractionalLengthData prevEdgeOffset =
                 getEdgeOffset(linkData.laneSection.getCenter().getLane().get(0).getBorderOrWidth(), linkData.sFrom,
-                        linkData.sTo, linkData.laneSection.getS(), linkData.sEndLaneSection, roadOffset, offsetSign);
+                        linkData.sTo, linkData.laneSection.getS(), linkData.sEndLaneSection, roadOffset, offsetSign,
+                        linkData.offsetTolerance, linkData.sampled);
         PolyLine2d prevEdge = forward ? linkData.linkDesignLine.flattenOffset(prevEdgeOffset, FLATTENER)
                 : linkData.linkDesignLine.flattenOffset(prevEdgeOffset, FLATTENER).reverse();
         TRoadLanesLaneSectionLcrLaneRoadMark centerMark =
@@ -575,7 +1057,7 @@ public final class OpenDriveParser
             // only solid when stripe type is null, if not on a junction and the first lane has a valid lane type
             boolean solidWhenNull = !(linkData.road.getJunction() != null && !linkData.road.getJunction().isBlank()
                     && !linkData.road.getJunction().strip().equals("-1")) && !SHOULDER_TYPES.contains(lanes.get(0).getType());
-            makeStripe(linkData.linkDesignLine, link, prevEdgeOffset, prevEdge, centerMark, solidWhenNull, forward);
+            addStripeGeometry(linkData.linkDesignLine, prevEdgeOffset, prevEdge, centerMark, solidWhenNull, forward, elements);
         }
 
         // lanes
@@ -584,24 +1066,24 @@ public final class OpenDriveParser
             String id = forward ? ((TRoadLanesLaneSectionRightLane) lane).getId().toString()
                     : ((TRoadLanesLaneSectionLeftLane) lane).getId().toString();
             FractionalLengthData nextEdgeOffset = getEdgeOffset(lane.getBorderOrWidth(), linkData.sFrom, linkData.sTo,
-                    linkData.laneSection.getS(), linkData.sEndLaneSection, prevEdgeOffset, offsetSign);
-            PolyLine2d nextEdge = makeLane(lane, id, link, linkData, prevEdgeOffset, prevEdge, nextEdgeOffset, forward);
+                    linkData.laneSection.getS(), linkData.sEndLaneSection, prevEdgeOffset, offsetSign,
+                    linkData.offsetTolerance, linkData.sampled);
+            PolyLine2d nextEdge =
+                    addLaneGeometry(lane, id, linkData, prevEdgeOffset, prevEdge, nextEdgeOffset, forward, elements);
 
             TRoadLanesLaneSectionLcrLaneRoadMark mark =
                     getLaneProperty(linkData.laneSection, lane, linkData.sFrom, lane.getRoadMark(), (rm) -> rm.getSOffset());
-            makeStripe(linkData.linkDesignLine, link, nextEdgeOffset, nextEdge, mark, false, forward);
+            addStripeGeometry(linkData.linkDesignLine, nextEdgeOffset, nextEdge, mark, false, forward, elements);
 
             prevEdgeOffset = nextEdgeOffset;
             prevEdge = nextEdge;
         }
-        return endNode;
+        return new LinkGeometry(new OtsLine2d(linkLine), laneKeeping, List.copyOf(elements));
     }
 
     /**
-     * Record that holds data for makeLane.
+     * Record that holds data to derive the geometry of a link and its lanes.
      * @param road road tag
-     * @param id link id supplier
-     * @param linkType link type
      * @param roadTypeId e.g. DE.URBAN or MOTORWAY
      * @param roadSpeed speed on road
      * @param roadOffset offset on road level
@@ -610,28 +1092,128 @@ public final class OpenDriveParser
      * @param sTo link to distance on road
      * @param sEndLaneSection fraction on road where the lane section stops (can be &gt; sTo due to other discontinuities)
      * @param laneSection lane section on road
+     * @param offsetTolerance lateral tolerance with which lane width and border polynomials are sampled [m]
+     * @param sampled consumer of the number of samples of each sampled curved polynomial
+     */
+    private record LinkData(TRoad road, String roadTypeId, Speed roadSpeed, FractionalLengthData roadOffset,
+            ContinuousPolyLine linkDesignLine, double sFrom, Double sTo, double sEndLaneSection,
+            TRoadLanesLaneSection laneSection, double offsetTolerance, IntConsumer sampled)
+    {
+    }
+
+    /**
+     * Record that holds the derived geometry of a road, and the road information needed to connect it to other roads.
+     * @param id road id
+     * @param name road name, may be {@code null}
+     * @param junction junction id, may be {@code null}
+     * @param predecessor predecessor, {@code null} if none
+     * @param successor successor, {@code null} if none
+     * @param forward whether the positive road direction is included
+     * @param backward whether the negative road direction is included
+     * @param multipleLinks whether the road results in more than one link
+     * @param startPoint start point of the road in the forward direction
+     * @param sections geometry per section between discontinuities along the road
+     */
+    record RoadGeometry(String id, String name, String junction, RoadLink predecessor, RoadLink successor, boolean forward,
+            boolean backward, boolean multipleLinks, OrientedPoint2d startPoint, List<SectionGeometry> sections)
+    {
+        /**
+         * Returns whether the road is a connecting road on a junction.
+         * @return whether the road is a connecting road on a junction
+         */
+        boolean onJunction()
+        {
+            return this.junction != null && !this.junction.isBlank() && !this.junction.equals("-1");
+        }
+    }
+
+    /**
+     * Record that holds the link of a road to a predecessor or successor.
+     * @param elementId id of road or junction
+     * @param elementType road or junction
+     * @param contactPoint contact point on the other road, may be {@code null}
+     */
+    record RoadLink(String elementId, ERoadLinkElementType elementType, EContactPoint contactPoint)
+    {
+        /**
+         * Returns the road link from a predecessor or successor tag.
+         * @param tag predecessor or successor tag, may be {@code null}
+         * @return road link, {@code null} if the tag is {@code null}
+         */
+        static RoadLink of(final TRoadLinkPredecessorSuccessor tag)
+        {
+            return tag == null ? null : new RoadLink(tag.getElementId(), tag.getElementType(), tag.getContactPoint());
+        }
+    }
+
+    /**
+     * Record that holds the derived geometry of a section between discontinuities along a road.
+     * @param roadTypeId e.g. DE.URBAN or MOTORWAY
+     * @param endPoint end point of the section in the forward direction
+     * @param last whether this is the last section on the road
+     * @param forwardLink geometry of the link in the forward direction, {@code null} if the direction is not included
+     * @param backwardLink geometry of the link in the backward direction, {@code null} if the direction is not included
+     */
+    record SectionGeometry(String roadTypeId, OrientedPoint2d endPoint, boolean last, LinkGeometry forwardLink,
+            LinkGeometry backwardLink)
+    {
+    }
+
+    /**
+     * Record that holds the derived geometry of a link.
+     * @param designLine design line of the link, in the direction of the link
+     * @param laneKeeping lane keeping policy
+     * @param elements lanes, shoulders and stripes in the order they are created
      */
-    private record LinkData(TRoad road, Supplier<String> id, LinkType linkType, String roadTypeId, Speed roadSpeed,
-            FractionalLengthData roadOffset, ContinuousPolyLine linkDesignLine, double sFrom, Double sTo,
-            double sEndLaneSection, TRoadLanesLaneSection laneSection)
+    record LinkGeometry(OtsLine2d designLine, LaneKeepingPolicy laneKeeping, List<ElementGeometry> elements)
     {
     }
 
     /**
-     * Creates a lane, or shoulder, based on a lane tag.
+     * Record that holds the derived geometry of a lane, shoulder or stripe.
+     * @param kind kind of element
+     * @param id id, {@code null} for stripes
+     * @param stripeType stripe type, {@code null} for lanes and shoulders
+     * @param centerLine center line
+     * @param contour contour
+     * @param slices cross-section slices
+     * @param speed speed limit for road users, {@code null} if not defined and for shoulders and stripes
+     */
+    record ElementGeometry(ElementKind kind, String id, Stripe.Type stripeType, OtsLine2d centerLine, Polygon2d contour,
+            List<CrossSectionSlice> slices, Speed speed)
+    {
+    }
+
+    /**
+     * Kinds of cross-section elements.
+     */
+    enum ElementKind
+    {
+        /** Lane. */
+        LANE,
+
+        /** Shoulder. */
+        SHOULDER,
+
+        /** Stripe. */
+        STRIPE;
+    }
+
+    /**
+     * Derives the geometry of a lane, or shoulder, based on a lane tag.
      * @param lane lane tag
      * @param id lane id
-     * @param link link
      * @param linkData linkdata
      * @param prevEdgeOffset offsets of previous edge
      * @param prevEdge previous edge
      * @param nextEdgeOffset offsets of next edge
+     * @param forward direction of design line
+     * @param elements list to add the geometry of the lane or shoulder to
      * @return next edge
-     * @throws NetworkException when no cross-section slice is defined
      */
-    private static PolyLine2d makeLane(final TRoadLanesLaneSectionLrLane lane, final String id, final CrossSectionLink link,
+    private static PolyLine2d addLaneGeometry(final TRoadLanesLaneSectionLrLane lane, final String id,
             final LinkData linkData, final FractionalLengthData prevEdgeOffset, final PolyLine2d prevEdge,
-            final FractionalLengthData nextEdgeOffset, final boolean forward) throws NetworkException
+            final FractionalLengthData nextEdgeOffset, final boolean forward, final List<ElementGeometry> elements)
     {
 
         // TODO lane type and speed map
@@ -643,8 +1225,7 @@ public final class OpenDriveParser
         ELaneType laneType = lane.getType();
         String roadTypeId = linkData.roadTypeId(); // ERoadType with possible country before it
 
-        Map<GtuType, Speed> laneSpeeds = speed == null ? Collections.emptyMap()
-                : Map.of(DefaultsNl.ROAD_USER, new Speed(speed.getMax(), speed.getUnit()));
+        Speed laneSpeed = speed == null ? null : new Speed(speed.getMax(), speed.getUnit());
         Speed roadSpeed = linkData.roadSpeed;
 
         PolyLine2d nextEdge = id.startsWith("-") ? linkData.linkDesignLine.flattenOffset(nextEdgeOffset, FLATTENER)
@@ -659,13 +1240,13 @@ public final class OpenDriveParser
                     getSlices(prevEdgeOffset, nextEdgeOffset, Length.instantiateSI(laneCenterLine.getLength()), forward);
             if (SHOULDER_TYPES.contains(lane.getType()))
             {
-                new Shoulder(link, id, new OtsLine2d(laneCenterLine), contour, slices, SHOULDER);
+                elements.add(new ElementGeometry(ElementKind.SHOULDER, id, null, new OtsLine2d(laneCenterLine), contour,
+                        slices, null));
             }
             else
             {
-                // TODO Use mapper from linkData.roadTypeId & lane.getType() to lane type
-                // TODO In case of restriction, create child lane type following standard name addition: FREEWAY_DENY_BUS
-                new Lane(link, id, new OtsLine2d(laneCenterLine), contour, slices, DefaultsRoadNl.FREEWAY, laneSpeeds);
+                elements.add(new ElementGeometry(ElementKind.LANE, id, null, new OtsLine2d(laneCenterLine), contour, slices,
+                        laneSpeed));
             }
         }
         return nextEdge;
@@ -677,7 +1258,7 @@ public final class OpenDriveParser
      * @param unit unit
      * @return speed value
      */
-    private Speed getSpeed(final String max, final EUnitSpeed unit)
+    private static Speed getSpeed(final String max, final EUnitSpeed unit)
     {
         if (max.equals("undefined"))
         {
@@ -694,20 +1275,18 @@ public final class OpenDriveParser
     }
 
     /**
-     * Creates a stripe based on a road mark.
+     * Derives the geometry of a stripe based on a road mark.
      * @param linkDesignLine design line of link
-     * @param link link
      * @param centerOffsetData offset data of stripe center line
      * @param centerLine flattened center line
      * @param mark mark tag
      * @param solidWhenNull draw solid line when mark or mark's type is null, as this is sometimes omitted for median lines
      * @param forward direction of design line
-     * @throws NetworkException when no cross-section slice is defined
+     * @param elements list to add the geometry of the stripe to
      */
-    private static void makeStripe(final ContinuousPolyLine linkDesignLine, final CrossSectionLink link,
-            final FractionalLengthData centerOffsetData, final PolyLine2d centerLine,
-            final TRoadLanesLaneSectionLcrLaneRoadMark mark, final boolean solidWhenNull, final boolean forward)
-            throws NetworkException
+    private static void addStripeGeometry(final ContinuousPolyLine linkDesignLine, final FractionalLengthData centerOffsetData,
+            final PolyLine2d centerLine, final TRoadLanesLaneSectionLcrLaneRoadMark mark, final boolean solidWhenNull,
+            final boolean forward, final List<ElementGeometry> elements)
     {
         if ((mark != null && mark.getRoadMarkType() != null) || solidWhenNull)
         {
@@ -722,7 +1301,8 @@ public final class OpenDriveParser
             Polygon2d markContour = LaneGeometryUtil.getContour(prevLine, nextLine);
             List<CrossSectionSlice> markSlices =
                     getSlices(prevOffset, nextOffset, Length.instantiateSI(centerLine.getLength()), forward);
-            new Stripe(type, link, new OtsLine2d(centerLine), markContour, markSlices);
+            elements.add(new ElementGeometry(ElementKind.STRIPE, null, type, new OtsLine2d(centerLine), markContour,
+                    markSlices, null));
         }
     }
 
@@ -889,13 +1469,15 @@ public final class OpenDriveParser
      * @param sEndLaneSection offset at end of current lane section, to which poly's are defined
      * @param soFar offsets so far (regarding more inner lanes)
      * @param sign -1 or 1
+     * @param tolerance lateral tolerance with which curved borders and widths are sampled [m]
+     * @param sampled consumer of the number of samples of each sampled curved border or width
      * @return cumulative edge offset data, fractions normalized [0...1] between sFrom and sTo
      */
     private static FractionalLengthData getEdgeOffset(final List<OpenDriveElement> borderOrWidth, final double sFrom,
             final double sTo, final double sOffsetLaneSection, final double sEndLaneSection, final FractionalLengthData soFar,
-            final double sign)
+            final double sign, final double tolerance, final IntConsumer sampled)
     {
-        SortedMap<Double, Double> map = new TreeMap<>();
+        NavigableMap<Double, Double> map = new TreeMap<>();
         double length = sTo - sFrom;
         for (int i = 0; i < borderOrWidth.size(); i++)
         {
@@ -937,7 +1519,6 @@ public final class OpenDriveParser
                 d = width.getD();
                 isWidth = true;
             }
-            double borderOrWidthLength = sBorderOrWidthMax - sBorderOrWidthMin;
             Set<Double> s = new TreeSet<>();
             // by incorporating all soFar fractions, we obtain any granularity needed due to possible earlier curves
             soFar.getFractionalLengths().forEach((f) ->
@@ -961,16 +1542,10 @@ public final class OpenDriveParser
             }
             else
             {
-                // curve, add 100 parts to cover the curve
-                for (int j = 0; j <= 100; j++)
-                {
-                    double f = ((double) j) / 100.0;
-                    double ds = sBorderOrWidthMin + f * borderOrWidthLength;
-                    if (sFrom <= ds && ds <= sTo)
-                    {
-                        s.add(ds);
-                    }
-                }
+                // curve, subdivide the part between sFrom and sTo until within tolerance
+                sampled.accept(OffsetData.sampleCubic(c, d, Math.max(sFrom, sBorderOrWidthMin) - sBorderOrWidthMin,
+                        Math.min(sTo, sBorderOrWidthMax) - sBorderOrWidthMin, tolerance,
+                        (ds) -> s.add(sBorderOrWidthMin + ds)));
             }
             for (double sValue : s)
             {
@@ -986,7 +1561,7 @@ public final class OpenDriveParser
                 break;
             }
         }
-        map = map.subMap(0.0, 1.0);
+        map = map.subMap(0.0, true, 1.0, true);
         if (map.isEmpty())
         {
             return soFar;
@@ -1105,29 +1680,26 @@ public final class OpenDriveParser
      * <li>If both end-points are START or END, it is defined by the road with lower id.</li>
      * <li>Else it is defined by the road with START end-point.</li>
      * </ul>
-     * @param road road we are considering
+     * @param road geometry of the road we are considering
      * @param start start of design line of considered road (end otherwise)
      * @param forward whether we are considering the design line direction of the considered road
      * @return connection
      */
-    private Connection getConnection(final TRoad road, final boolean start, final boolean forward)
+    private Connection getConnection(final RoadGeometry road, final boolean start, final boolean forward)
     {
         EContactPoint contactPoint = start ? EContactPoint.START : EContactPoint.END;
-        TRoadLinkPredecessorSuccessor other =
-                road.getLink() == null ? null : (start ? road.getLink().getPredecessor() : road.getLink().getSuccessor());
-        boolean isOnJunction = road.getJunction() != null && !road.getJunction().isBlank() && !road.getJunction().equals("-1");
-        if (!isOnJunction
-                && (road.getLink() == null || other == null || other.getElementType().equals(ERoadLinkElementType.JUNCTION)
-                        || (start && other.getContactPoint().equals(EContactPoint.END))
-                        || (other.getContactPoint().equals(contactPoint) && other.getElementId().compareTo(road.getId()) > 0)))
+        RoadLink other = start ? road.predecessor() : road.successor();
+        if (!road.onJunction() && (other == null || other.elementType().equals(ERoadLinkElementType.JUNCTION)
+                || (start && other.contactPoint().equals(EContactPoint.END))
+                || (other.contactPoint().equals(contactPoint) && other.elementId().compareTo(road.id()) > 0)))
         {
-            return new Connection(road.getId(), contactPoint, forward);
+            return new Connection(road.id(), contactPoint, forward);
         }
-        boolean forwardOnOtherRoad = (forward && ((start && other.getContactPoint().equals(EContactPoint.END))
-                || (!start && other.getContactPoint().equals(EContactPoint.START))))
-                || (!forward && ((start && other.getContactPoint().equals(EContactPoint.START))
-                        || (!start && other.getContactPoint().equals(EContactPoint.END))));
-        return new Connection(other.getElementId(), other.getContactPoint(), forwardOnOtherRoad);
+        boolean forwardOnOtherRoad = (forward && ((start && other.contactPoint().equals(EContactPoint.END))
+                || (!start && other.contactPoint().equals(EContactPoint.START))))
+                || (!forward && ((start && other.contactPoint().equals(EContactPoint.START))
+                        || (!start && other.contactPoint().equals(EContactPoint.END))));
+        return new Connection(other.elementId(), other.contactPoint(), forwardOnOtherRoad);
     }
 
 }
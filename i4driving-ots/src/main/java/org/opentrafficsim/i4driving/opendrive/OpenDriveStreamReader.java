@@ -0,0 +1,685 @@
+package org.opentrafficsim.i4driving.opendrive;
+
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.util.function.Function;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.opentrafficsim.i4driving.opendrive.bindings.ContactPointAdapter;
+import org.opentrafficsim.i4driving.opendrive.bindings.LaneKeepingPolicyAdapter;
+import org.opentrafficsim.i4driving.opendrive.bindings.LengthAdapter;
+import org.opentrafficsim.i4driving.opendrive.bindings.RoadLinkTypeAdapter;
+import org.opentrafficsim.i4driving.opendrive.bindings.SpeedUnitAdapter;
+import org.opentrafficsim.i4driving.opendrive.bindings.StripeTypeAdapter;
+import org.opentrafficsim.i4driving.opendrive.generated.EAccessRestrictionType;
+import org.opentrafficsim.i4driving.opendrive.generated.EJunctionType;
+import org.opentrafficsim.i4driving.opendrive.generated.ELaneType;
+import org.opentrafficsim.i4driving.opendrive.generated.EParamPoly3PRange;
+import org.opentrafficsim.i4driving.opendrive.generated.ERoadLanesLaneSectionLrLaneAccessRule;
+import org.opentrafficsim.i4driving.opendrive.generated.ERoadMarkType;
+import org.opentrafficsim.i4driving.opendrive.generated.ERoadType;
+import org.opentrafficsim.i4driving.opendrive.generated.ETrafficRule;
+import org.opentrafficsim.i4driving.opendrive.generated.EUnitSpeed;
+import org.opentrafficsim.i4driving.opendrive.generated.OpenDRIVE;
+import org.opentrafficsim.i4driving.opendrive.generated.TBool;
+import org.opentrafficsim.i4driving.opendrive.generated.TJunction;
+import org.opentrafficsim.i4driving.opendrive.generated.TJunctionConnection;
+import org.opentrafficsim.i4driving.opendrive.generated.TJunctionConnectionLaneLink;
+import org.opentrafficsim.i4driving.opendrive.generated.TRoad;
+import org.opentrafficsim.i4driving.opendrive.generated.TRoadLanes;
+import org.opentrafficsim.i4driving.opendrive.generated.TRoadLanesLaneOffset;
+import org.opentrafficsim.i4driving.opendrive.generated.TRoadLanesLaneSection;
+import org.opentrafficsim.i4driving.opendrive.generated.TRoadLanesLaneSectionCenter;
+import org.opentrafficsim.i4driving.opendrive.generated.TRoadLanesLaneSectionCenterLane;
+import org.opentrafficsim.i4driving.opendrive.generated.TRoadLanesLaneSectionLcrLaneLink;
+import org.opentrafficsim.i4driving.opendrive.generated.TRoadLanesLaneSectionLcrLaneLinkPredecessorSuccessor;
+import org.opentrafficsim.i4driving.opendrive.generated.TRoadLanesLaneSectionLcrLaneRoadMark;
+import org.opentrafficsim.i4driving.opendrive.generated.TRoadLanesLaneSectionLeft;
+import org.opentrafficsim.i4driving.opendrive.generated.TRoadLanesLaneSectionLeftLane;
+import org.opentrafficsim.i4driving.opendrive.generated.TRoadLanesLaneSectionLrLane;
+import org.opentrafficsim.i4driving.opendrive.generated.TRoadLanesLaneSectionLrLaneAccess;
+import org.opentrafficsim.i4driving.opendrive.generated.TRoadLanesLaneSectionLrLaneBorder;
+import org.opentrafficsim.i4driving.opendrive.generated.TRoadLanesLaneSectionLrLaneSpeed;
+import org.opentrafficsim.i4driving.opendrive.generated.TRoadLanesLaneSectionLrLaneWidth;
+import org.opentrafficsim.i4driving.opendrive.generated.TRoadLanesLaneSectionRight;
+import org.opentrafficsim.i4driving.opendrive.generated.TRoadLanesLaneSectionRightLane;
+import org.opentrafficsim.i4driving.opendrive.generated.TRoadLink;
+import org.opentrafficsim.i4driving.opendrive.generated.TRoadLinkPredecessorSuccessor;
+import org.opentrafficsim.i4driving.opendrive.generated.TRoadPlanView;
+import org.opentrafficsim.i4driving.opendrive.generated.TRoadPlanViewGeometry;
+import org.opentrafficsim.i4driving.opendrive.generated.TRoadPlanViewGeometryArc;
+import org.opentrafficsim.i4driving.opendrive.generated.TRoadPlanViewGeometryLine;
+import org.opentrafficsim.i4driving.opendrive.generated.TRoadPlanViewGeometryParamPoly3;
+import org.opentrafficsim.i4driving.opendrive.generated.TRoadPlanViewGeometryPoly3;
+import org.opentrafficsim.i4driving.opendrive.generated.TRoadPlanViewGeometrySpiral;
+import org.opentrafficsim.i4driving.opendrive.generated.TRoadType;
+import org.opentrafficsim.i4driving.opendrive.generated.TRoadTypeSpeed;
+
+/**
+ * Streaming reader of OpenDRIVE XML (.xodr) that only reads the information required to build a network: road links, road
+ * types, plan view geometry, lane offset, lane sections and junctions. All other elements, such as objects, signals,
+ * elevation and surface, are skipped without creating any objects. The information is stored in the generated classes as
+ * unmarshalled by JAXB, such that the network is built by the same logic. Values are interpreted as JAXB would, using the
+ * same adapters. Name spaces are ignored.
+ * @author wjschakel
+ */
+final class OpenDriveStreamReader
+{
+
+    /** Length adapter. */
+    private static final LengthAdapter LENGTH_ADAPTER = new LengthAdapter();
+
+    /** Lane keeping policy adapter. */
+    private static final LaneKeepingPolicyAdapter LANE_KEEPING_ADAPTER = new LaneKeepingPolicyAdapter();
+
+    /** Road link type adapter. */
+    private static final RoadLinkTypeAdapter ROAD_LINK_TYPE_ADAPTER = new RoadLinkTypeAdapter();
+
+    /** Contact point adapter. */
+    private static final ContactPointAdapter CONTACT_POINT_ADAPTER = new ContactPointAdapter();
+
+    /** Stripe type adapter. */
+    private static final StripeTypeAdapter STRIPE_TYPE_ADAPTER = new StripeTypeAdapter();
+
+    /** Speed unit adapter. */
+    private static final SpeedUnitAdapter SPEED_UNIT_ADAPTER = new SpeedUnitAdapter();
+
+    /** XML stream reader. */
+    private final XMLStreamReader reader;
+
+    /**
+     * Constructor.
+     * @param reader XML stream reader
+     */
+    private OpenDriveStreamReader(final XMLStreamReader reader)
+    {
+        this.reader = reader;
+    }
+
+    /**
+     * Reads the OpenDRIVE tag from the input stream. The stream is not closed.
+     * @param xmlStream the xml stream
+     * @return OpenDRIVE tag with only the information required to build a network
+     * @throws XMLStreamException when the xml cannot be read, or the root element is not OpenDRIVE
+     */
+    static OpenDRIVE read(final InputStream xmlStream) throws XMLStreamException
+    {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        XMLStreamReader xmlReader = factory.createXMLStreamReader(xmlStream);
+        try
+        {
+            xmlReader.nextTag();
+            if (!"OpenDRIVE".equals(xmlReader.getLocalName()))
+            {
+                throw new XMLStreamException("Root element is " + xmlReader.getLocalName() + ", expected OpenDRIVE.",
+                        xmlReader.getLocation());
+            }
+            return new OpenDriveStreamReader(xmlReader).readOpenDrive();
+        }
+        finally
+        {
+            xmlReader.close();
+        }
+    }
+
+    /**
+     * Reads the OpenDRIVE tag.
+     * @return OpenDRIVE tag
+     * @throws XMLStreamException on error in the xml
+     */
+    private OpenDRIVE readOpenDrive() throws XMLStreamException
+    {
+        OpenDRIVE openDrive = new OpenDRIVE();
+        while (nextChild())
+        {
+            switch (this.reader.getLocalName())
+            {
+                case "road":
+                    openDrive.getRoad().add(readRoad());
+                    break;
+                case "junction":
+                    openDrive.getJunction().add(readJunction());
+                    break;
+                default:
+                    skip();
+            }
+        }
+        return openDrive;
+    }
+
+    /**
+     * Reads a road tag.
+     * @return road tag
+     * @throws XMLStreamException on error in the xml
+     */
+    private TRoad readRoad() throws XMLStreamException
+    {
+        TRoad road = new TRoad();
+        road.setName(attribute("name"));
+        road.setLength(attribute("length", LENGTH_ADAPTER::unmarshal));
+        road.setId(attribute("id"));
+        road.setJunction(attribute("junction"));
+        if (attribute("rule") != null)
+        {
+            road.setRule(LANE_KEEPING_ADAPTER.unmarshal(attribute("rule", ETrafficRule::fromValue)));
+        }
+        while (nextChild())
+        {
+            switch (this.reader.getLocalName())
+            {
+                case "link":
+                    road.setLink(readRoadLink());
+                    break;
+                case "type":
+                    road.getType().add(readRoadType());
+                    break;
+                case "planView":
+                    road.setPlanView(readPlanView());
+                    break;
+                case "lanes":
+                    road.setLanes(readLanes());
+                    break;
+                default:
+                    skip();
+            }
+        }
+        return road;
+    }
+
+    /**
+     * Reads a road link tag.
+     * @return road link tag
+     * @throws XMLStreamException on error in the xml
+     */
+    private TRoadLink readRoadLink() throws XMLStreamException
+    {
+        TRoadLink link = new TRoadLink();
+        while (nextChild())
+        {
+            switch (this.reader.getLocalName())
+            {
+                case "predecessor":
+                    link.setPredecessor(readPredecessorSuccessor());
+                    break;
+                case "successor":
+                    link.setSuccessor(readPredecessorSuccessor());
+                    break;
+                default:
+                    skip();
+            }
+        }
+        return link;
+    }
+
+    /**
+     * Reads a road link predecessor or successor tag.
+     * @return road link predecessor or successor tag
+     * @throws XMLStreamException on error in the xml
+     */
+    private TRoadLinkPredecessorSuccessor readPredecessorSuccessor() throws XMLStreamException
+    {
+        TRoadLinkPredecessorSuccessor element = new TRoadLinkPredecessorSuccessor();
+        element.setElementId(attribute("elementId"));
+        element.setElementType(attribute("elementType", ROAD_LINK_TYPE_ADAPTER::unmarshal));
+        element.setContactPoint(attribute("contactPoint", CONTACT_POINT_ADAPTER::unmarshal));
+        element.setElementS(attribute("elementS", Double::valueOf));
+        element.setElementDir(attribute("elementDir"));
+        skip();
+        return element;
+    }
+
+    /**
+     * Reads a road type tag.
+     * @return road type tag
+     * @throws XMLStreamException on error in the xml
+     */
+    private TRoadType readRoadType() throws XMLStreamException
+    {
+        TRoadType type = new TRoadType();
+        type.setS(doubleAttribute("s"));
+        type.setType(attribute("type", ERoadType::fromValue));
+        type.setCountry(attribute("country"));
+        while (nextChild())
+        {
+            if ("speed".equals(this.reader.getLocalName()))
+            {
+                TRoadTypeSpeed speed = new TRoadTypeSpeed();
+                speed.setMax(attribute("max"));
+                speed.setUnit(attribute("unit", EUnitSpeed::fromValue));
+                type.setSpeed(speed);
+            }
+            skip();
+        }
+        return type;
+    }
+
+    /**
+     * Reads a plan view tag.
+     * @return plan view tag
+     * @throws XMLStreamException on error in the xml
+     */
+    private TRoadPlanView readPlanView() throws XMLStreamException
+    {
+        TRoadPlanView planView = new TRoadPlanView();
+        while (nextChild())
+        {
+            if ("geometry".equals(this.reader.getLocalName()))
+            {
+                planView.getGeometry().add(readGeometry());
+            }
+            else
+            {
+                skip();
+            }
+        }
+        return planView;
+    }
+
+    /**
+     * Reads a plan view geometry tag.
+     * @return plan view geometry tag
+     * @throws XMLStreamException on error in the xml
+     */
+    private TRoadPlanViewGeometry readGeometry() throws XMLStreamException
+    {
+        TRoadPlanViewGeometry geometry = new TRoadPlanViewGeometry();
+        geometry.setS(doubleAttribute("s"));
+        geometry.setX(doubleAttribute("x"));
+        geometry.setY(doubleAttribute("y"));
+        geometry.setHdg(doubleAttribute("hdg"));
+        geometry.setLength(attribute("length", LENGTH_ADAPTER::unmarshal));
+        while (nextChild())
+        {
+            switch (this.reader.getLocalName())
+            {
+                case "line":
+                    geometry.setLine(new TRoadPlanViewGeometryLine());
+                    break;
+                case "spiral":
+                    TRoadPlanViewGeometrySpiral spiral = new TRoadPlanViewGeometrySpiral();
+                    spiral.setCurvStart(doubleAttribute("curvStart"));
+                    spiral.setCurvEnd(doubleAttribute("curvEnd"));
+                    geometry.setSpiral(spiral);
+                    break;
+                case "arc":
+                    TRoadPlanViewGeometryArc arc = new TRoadPlanViewGeometryArc();
+                    arc.setCurvature(doubleAttribute("curvature"));
+                    geometry.setArc(arc);
+                    break;
+                case "poly3":
+                    TRoadPlanViewGeometryPoly3 poly3 = new TRoadPlanViewGeometryPoly3();
+                    poly3.setA(doubleAttribute("a"));
+                    poly3.setB(doubleAttribute("b"));
+                    poly3.setC(doubleAttribute("c"));
+                    poly3.setD(doubleAttribute("d"));
+                    geometry.setPoly3(poly3);
+                    break;
+                case "paramPoly3":
+                    TRoadPlanViewGeometryParamPoly3 paramPoly3 = new TRoadPlanViewGeometryParamPoly3();
+                    paramPoly3.setAU(doubleAttribute("aU"));
+                    paramPoly3.setBU(doubleAttribute("bU"));
+                    paramPoly3.setCU(doubleAttribute("cU"));
+                    paramPoly3.setDU(doubleAttribute("dU"));
+                    paramPoly3.setAV(doubleAttribute("aV"));
+                    paramPoly3.setBV(doubleAttribute("bV"));
+                    paramPoly3.setCV(doubleAttribute("cV"));
+                    paramPoly3.setDV(doubleAttribute("dV"));
+                    paramPoly3.setPRange(attribute("pRange", EParamPoly3PRange::fromValue));
+                    geometry.setParamPoly3(paramPoly3);
+                    break;
+                default:
+                    // nothing to read
+            }
+            skip();
+        }
+        return geometry;
+    }
+
+    /**
+     * Reads a lanes tag.
+     * @return lanes tag
+     * @throws XMLStreamException on error in the xml
+     */
+    private TRoadLanes readLanes() throws XMLStreamException
+    {
+        TRoadLanes lanes = new TRoadLanes();
+        while (nextChild())
+        {
+            switch (this.reader.getLocalName())
+            {
+                case "laneOffset":
+                    TRoadLanesLaneOffset laneOffset = new TRoadLanesLaneOffset();
+                    laneOffset.setS(doubleAttribute("s"));
+                    laneOffset.setA(doubleAttribute("a"));
+                    laneOffset.setB(doubleAttribute("b"));
+                    laneOffset.setC(doubleAttribute("c"));
+                    laneOffset.setD(doubleAttribute("d"));
+                    lanes.getLaneOffset().add(laneOffset);
+                    skip();
+                    break;
+                case "laneSection":
+                    lanes.getLaneSection().add(readLaneSection());
+                    break;
+                default:
+                    skip();
+            }
+        }
+        return lanes;
+    }
+
+    /**
+     * Reads a lane section tag.
+     * @return lane section tag
+     * @throws XMLStreamException on error in the xml
+     */
+    private TRoadLanesLaneSection readLaneSection() throws XMLStreamException
+    {
+        TRoadLanesLaneSection laneSection = new TRoadLanesLaneSection();
+        laneSection.setS(doubleAttribute("s"));
+        laneSection.setSingleSide(attribute("singleSide", TBool::fromValue));
+        while (nextChild())
+        {
+            switch (this.reader.getLocalName())
+            {
+                case "left":
+                    TRoadLanesLaneSectionLeft left = new TRoadLanesLaneSectionLeft();
+                    while (nextChild())
+                    {
+                        if ("lane".equals(this.reader.getLocalName()))
+                        {
+                            TRoadLanesLaneSectionLeftLane lane = new TRoadLanesLaneSectionLeftLane();
+                            lane.setId(attribute("id", BigInteger::new));
+                            left.getLane().add(readLane(lane));
+                        }
+                        else
+                        {
+                            skip();
+                        }
+                    }
+                    laneSection.setLeft(left);
+                    break;
+                case "center":
+                    TRoadLanesLaneSectionCenter center = new TRoadLanesLaneSectionCenter();
+                    while (nextChild())
+                    {
+                        if ("lane".equals(this.reader.getLocalName()))
+                        {
+                            TRoadLanesLaneSectionCenterLane lane = new TRoadLanesLaneSectionCenterLane();
+                            lane.setId(attribute("id", BigInteger::new));
+                            center.getLane().add(readLane(lane));
+                        }
+                        else
+                        {
+                            skip();
+                        }
+                    }
+                    laneSection.setCenter(center);
+                    break;
+                case "right":
+                    TRoadLanesLaneSectionRight right = new TRoadLanesLaneSectionRight();
+                    while (nextChild())
+                    {
+                        if ("lane".equals(this.reader.getLocalName()))
+                        {
+                            TRoadLanesLaneSectionRightLane lane = new TRoadLanesLaneSectionRightLane();
+                            lane.setId(attribute("id", BigInteger::new));
+                            right.getLane().add(readLane(lane));
+                        }
+                        else
+                        {
+                            skip();
+                        }
+                    }
+                    laneSection.setRight(right);
+                    break;
+                default:
+                    skip();
+            }
+        }
+        return laneSection;
+    }
+
+    /**
+     * Reads the attributes and content of a lane tag, common to left, center and right lanes.
+     * @param lane lane of which the id is already set
+     * @param <L> lane type
+     * @return the input lane
+     * @throws XMLStreamException on error in the xml
+     */
+    private <L extends TRoadLanesLaneSectionLrLane> L readLane(final L lane) throws XMLStreamException
+    {
+        lane.setType(attribute("type", ELaneType::fromValue));
+        lane.setLevel(attribute("level", TBool::fromValue));
+        while (nextChild())
+        {
+            switch (this.reader.getLocalName())
+            {
+                case "border":
+                    TRoadLanesLaneSectionLrLaneBorder border = new TRoadLanesLaneSectionLrLaneBorder();
+                    border.setSOffset(doubleAttribute("sOffset"));
+                    border.setA(doubleAttribute("a"));
+                    border.setB(doubleAttribute("b"));
+                    border.setC(doubleAttribute("c"));
+                    border.setD(doubleAttribute("d"));
+                    lane.getBorderOrWidth().add(border);
+                    break;
+                case "width":
+                    TRoadLanesLaneSectionLrLaneWidth width = new TRoadLanesLaneSectionLrLaneWidth();
+                    width.setSOffset(doubleAttribute("sOffset"));
+                    width.setA(doubleAttribute("a"));
+                    width.setB(doubleAttribute("b"));
+                    width.setC(doubleAttribute("c"));
+                    width.setD(doubleAttribute("d"));
+                    lane.getBorderOrWidth().add(width);
+                    break;
+                case "roadMark":
+                    TRoadLanesLaneSectionLcrLaneRoadMark roadMark = new TRoadLanesLaneSectionLcrLaneRoadMark();
+                    roadMark.setSOffset(doubleAttribute("sOffset"));
+                    roadMark.setRoadMarkType(
+                            attribute("type", (v) -> STRIPE_TYPE_ADAPTER.unmarshal(ERoadMarkType.fromValue(v))));
+                    roadMark.setWidth(attribute("width", Double::valueOf));
+                    lane.getRoadMark().add(roadMark);
+                    break;
+                case "access":
+                    TRoadLanesLaneSectionLrLaneAccess access = new TRoadLanesLaneSectionLrLaneAccess();
+                    access.setSOffset(doubleAttribute("sOffset"));
+                    access.setRule(attribute("rule", ERoadLanesLaneSectionLrLaneAccessRule::fromValue));
+                    access.setRestriction(attribute("restriction", EAccessRestrictionType::fromValue));
+                    lane.getAccess().add(access);
+                    break;
+                case "speed":
+                    TRoadLanesLaneSectionLrLaneSpeed speed = new TRoadLanesLaneSectionLrLaneSpeed();
+                    speed.setSOffset(doubleAttribute("sOffset"));
+                    speed.setMax(doubleAttribute("max"));
+                    speed.setUnit(attribute("unit", (v) -> SPEED_UNIT_ADAPTER.unmarshal(EUnitSpeed.fromValue(v))));
+                    lane.getSpeed().add(speed);
+                    break;
+                case "link":
+                    lane.setLink(readLaneLink());
+                    continue; // end of link tag was read
+                default:
+                    // nothing to read
+            }
+            skip();
+        }
+        return lane;
+    }
+
+    /**
+     * Reads a lane link tag.
+     * @return lane link tag
+     * @throws XMLStreamException on error in the xml
+     */
+    private TRoadLanesLaneSectionLcrLaneLink readLaneLink() throws XMLStreamException
+    {
+        TRoadLanesLaneSectionLcrLaneLink link = new TRoadLanesLaneSectionLcrLaneLink();
+        while (nextChild())
+        {
+            switch (this.reader.getLocalName())
+            {
+                case "predecessor":
+                    link.getPredecessor().add(readLaneLinkPredecessorSuccessor());
+                    break;
+                case "successor":
+                    link.getSuccessor().add(readLaneLinkPredecessorSuccessor());
+                    break;
+                default:
+                    skip();
+            }
+        }
+        return link;
+    }
+
+    /**
+     * Reads a lane link predecessor or successor tag.
+     * @return lane link predecessor or successor tag
+     * @throws XMLStreamException on error in the xml
+     */
+    private TRoadLanesLaneSectionLcrLaneLinkPredecessorSuccessor readLaneLinkPredecessorSuccessor() throws XMLStreamException
+    {
+        TRoadLanesLaneSectionLcrLaneLinkPredecessorSuccessor element =
+                new TRoadLanesLaneSectionLcrLaneLinkPredecessorSuccessor();
+        element.setId(attribute("id", BigInteger::new));
+        skip();
+        return element;
+    }
+
+    /**
+     * Reads a junction tag.
+     * @return junction tag
+     * @throws XMLStreamException on error in the xml
+     */
+    private TJunction readJunction() throws XMLStreamException
+    {
+        TJunction junction = new TJunction();
+        junction.setName(attribute("name"));
+        junction.setId(attribute("id"));
+        junction.setType(attribute("type", EJunctionType::fromValue));
+        while (nextChild())
+        {
+            if ("connection".equals(this.reader.getLocalName()))
+            {
+                TJunctionConnection connection = new TJunctionConnection();
+                connection.setId(attribute("id"));
+                connection.setType(attribute("type", EJunctionType::fromValue));
+                connection.setIncomingRoad(attribute("incomingRoad"));
+                connection.setConnectingRoad(attribute("connectingRoad"));
+                connection.setContactPoint(attribute("contactPoint", CONTACT_POINT_ADAPTER::unmarshal));
+                while (nextChild())
+                {
+                    if ("laneLink".equals(this.reader.getLocalName()))
+                    {
+                        TJunctionConnectionLaneLink laneLink = new TJunctionConnectionLaneLink();
+                        laneLink.setFrom(attribute("from", BigInteger::new));
+                        laneLink.setTo(attribute("to", BigInteger::new));
+                        connection.getLaneLink().add(laneLink);
+                    }
+                    skip();
+                }
+                junction.getConnection().add(connection);
+            }
+            else
+            {
+                skip();
+            }
+        }
+        return junction;
+    }
+
+    /**
+     * Moves to the next child element of the current element. If there is none, the reader is left at the end of the current
+     * element. Text and comments are ignored.
+     * @return whether the reader is at the start of a child element
+     * @throws XMLStreamException on error in the xml
+     */
+    private boolean nextChild() throws XMLStreamException
+    {
+        while (this.reader.hasNext())
+        {
+            int event = this.reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT)
+            {
+                return true;
+            }
+            if (event == XMLStreamConstants.END_ELEMENT)
+            {
+                return false;
+            }
+        }
+        throw new XMLStreamException("Unexpected end of document.", this.reader.getLocation());
+    }
+
+    /**
+     * Skips the remainder of the current element, including all its children, leaving the reader at the end of the element.
+     * @throws XMLStreamException on error in the xml
+     */
+    private void skip() throws XMLStreamException
+    {
+        int depth = 1;
+        while (depth > 0)
+        {
+            int event = this.reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT)
+            {
+                depth++;
+            }
+            else if (event == XMLStreamConstants.END_ELEMENT)
+            {
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * Returns the attribute value of the current element as is.
+     * @param name attribute name
+     * @return attribute value, {@code null} if not present
+     */
+    private String attribute(final String name)
+    {
+        return this.reader.getAttributeValue(null, name);
+    }
+
+    /**
+     * Returns the attribute value of the current element, converted with the given function. Like JAXB, a value that cannot
+     * be converted results in {@code null}.
+     * @param name attribute name
+     * @param converter converter from stripped string value
+     * @param <T> value type
+     * @return converted attribute value, {@code null} if not present or it could not be converted
+     */
+    private <T> T attribute(final String name, final Function<String, T> converter)
+    {
+        String value = attribute(name);
+        if (value == null)
+        {
+            return null;
+        }
+        try
+        {
+            return converter.apply(value.strip());
+        }
+        catch (RuntimeException ex)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the attribute value of the current element as double. Like JAXB, a missing or invalid value results in 0.0.
+     * @param name attribute name
+     * @return attribute value as double, 0.0 if not present or invalid
+     */
+    private double doubleAttribute(final String name)
+    {
+        Double value = attribute(name, Double::valueOf);
+        return value == null ? 0.0 : value;
+    }
+
+}
@@ -1,5 +1,6 @@
 package org.opentrafficsim.i4driving.opendrive;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map.Entry;
 import java.util.NavigableMap;
@@ -7,10 +8,8 @@ import java.util.TreeMap;
 
 import org.djunits.value.vdouble.scalar.Length;
 import org.djutils.draw.line.PolyLine2d;
-import org.djutils.draw.line.Ray2d;
 import org.djutils.draw.point.OrientedPoint2d;
 import org.djutils.draw.point.Point2d;
-import org.opentrafficsim.core.geometry.ContinuousArc;
 import org.opentrafficsim.core.geometry.ContinuousClothoid;
 import org.opentrafficsim.core.geometry.ContinuousLine;
 import org.opentrafficsim.core.geometry.ContinuousStraight;
@@ -23,14 +22,18 @@ import org.opentrafficsim.i4driving.opendrive.generated.TRoadPlanViewGeometryPar
 
 /**
  * Design line definition, as a string of segments defined each as a straight line, arc, spiral (clothoid) or parameterized 3rd
- * degree polynomial.
+ * degree polynomial. Points and directions are evaluated directly on the segments. The segment of a fraction is found by
+ * binary search in an array of segment start fractions.
  * @author wjschakel
  */
 public class SegmentedLine implements ContinuousLine
 {
 
+    /** Fraction at which each segment starts, in ascending order. */
+    private final double[] starts;
+
     /** Design line segments, where each is a continuous line. */
-    private NavigableMap<Double, ContinuousLine> segments = new TreeMap<>();
+    private final ContinuousLine[] segments;
 
     /**
      * Constructor.
@@ -39,6 +42,7 @@ public class SegmentedLine implements ContinuousLine
      */
     public SegmentedLine(final List<TRoadPlanViewGeometry> geometry, final Length roadLength)
     {
+        NavigableMap<Double, ContinuousLine> segmentMap = new TreeMap<>();
         for (TRoadPlanViewGeometry geom : geometry)
         {
             ContinuousLine line;
@@ -54,8 +58,18 @@ public class SegmentedLine implements ContinuousLine
             }
             else if (geom.getSpiral() != null)
             {
-                line = ContinuousClothoid.withLength(start, geom.getLength().si, geom.getSpiral().getCurvStart(),
-                        geom.getSpiral().getCurvEnd());
+                double curvStart = geom.getSpiral().getCurvStart();
+                double curvEnd = geom.getSpiral().getCurvEnd();
+                if (curvStart == curvEnd)
+                {
+                    // ContinuousClothoid would internally be a straight or arc
+                    line = curvStart == 0.0 ? new ContinuousStraight(start, geom.getLength().si)
+                            : new ContinuousArc2(start, 1.0 / Math.abs(curvStart), curvStart > 0.0, geom.getLength().si);
+                }
+                else
+                {
+                    line = ContinuousClothoid.withLength(start, geom.getLength().si, curvStart, curvEnd);
+                }
             }
             else if (geom.getPoly3() != null)
             {
@@ -70,144 +84,243 @@ public class SegmentedLine implements ContinuousLine
             {
                 throw new UnsupportedOperationException("TRoadPlanViewGeometry missing all shape tags.");
             }
-            this.segments.put(geom.getS() / roadLength.si, line);
+            segmentMap.put(geom.getS() / roadLength.si, line);
+        }
+        this.starts = new double[segmentMap.size()];
+        this.segments = new ContinuousLine[segmentMap.size()];
+        int i = 0;
+        for (Entry<Double, ContinuousLine> entry : segmentMap.entrySet())
+        {
+            this.starts[i] = entry.getKey();
+            this.segments[i] = entry.getValue();
+            i++;
         }
     }
 
     @Override
     public OrientedPoint2d getStartPoint()
     {
-        return this.segments.firstEntry().getValue().getStartPoint();
+        return this.segments[0].getStartPoint();
     }
 
     @Override
     public OrientedPoint2d getEndPoint()
     {
-        return this.segments.lastEntry().getValue().getEndPoint();
+        return this.segments[this.segments.length - 1].getEndPoint();
     }
 
     @Override
     public double getStartCurvature()
     {
-        return this.segments.firstEntry().getValue().getStartCurvature();
+        return this.segments[0].getStartCurvature();
     }
 
     @Override
     public double getEndCurvature()
     {
-        return this.segments.lastEntry().getValue().getEndCurvature();
+        return this.segments[this.segments.length - 1].getEndCurvature();
     }
 
     @Override
     public PolyLine2d flatten(final Flattener flattener)
     {
-        return flattener.flatten(new FlattableLine()
+        FlattableLine[] lines = new FlattableLine[this.segments.length];
+        for (int i = 0; i < lines.length; i++)
         {
-            @Override
-            public Point2d get(final double fraction)
-            {
-                Entry<Double, ContinuousLine> entry = SegmentedLine.this.segments.floorEntry(fraction);
-                Double next = SegmentedLine.this.segments.higherKey(entry.getKey());
-                if (next == null)
-                {
-                    next = 1.0;
-                }
-                double f = (fraction - entry.getKey()) / (next - entry.getKey());
-                if (entry.getValue() instanceof ContinuousStraight)
-                {
-                    // ContinuousStraight does not use flattener internally, obtain point from 2-point polyline
-                    Ray2d ray = entry.getValue().flatten(null).getLocationFraction(f);
-                    return new Point2d(ray.x, ray.y);
-                }
-                PointDirectionFlattener flattener = new PointDirectionFlattener(f);
-                entry.getValue().flatten(flattener); // internally obtains point at fraction
-                return flattener.getPoint();
-            }
-
-            @Override
-            public double getDirection(final double fraction)
-            {
-                Entry<Double, ContinuousLine> entry = SegmentedLine.this.segments.floorEntry(fraction);
-                Double next = SegmentedLine.this.segments.higherKey(entry.getKey());
-                if (next == null)
-                {
-                    next = 1.0;
-                }
-                double f = (fraction - entry.getKey()) / (next - entry.getKey());
-                if (entry.getValue() instanceof ContinuousStraight)
-                {
-                    // ContinuousStraight does not use flattener internally, obtain direction from 2-point polyline
-                    return entry.getValue().flatten(null).getLocationFraction(f).phi;
-                }
-                PointDirectionFlattener flattener = new PointDirectionFlattener(f);
-                entry.getValue().flatten(flattener); // internally obtains direction at fraction
-                return flattener.getDirection();
-            }
-        });
+            lines[i] = getFlattableLine(this.segments[i], null);
+        }
+        return flattener.flatten(new SegmentedFlattableLine(lines));
     }
 
     @Override
     public PolyLine2d flattenOffset(final FractionalLengthData offsets, final Flattener flattener)
     {
         // Split offsets for segments
-        NavigableMap<Double, FractionalLengthData> partialOffsets = new TreeMap<>();
-        for (double from : this.segments.keySet())
+        FlattableLine[] lines = new FlattableLine[this.segments.length];
+        for (int i = 0; i < lines.length; i++)
         {
-            Double next = this.segments.higherKey(from);
-            double to = next == null ? 1.0 : next;
-            partialOffsets.put(from, OffsetData.sub(offsets, from, to));
+            lines[i] = getFlattableLine(this.segments[i], OffsetData.sub(offsets, this.starts[i], getEnd(i)));
         }
-        return flattener.flatten(new FlattableLine()
+        return flattener.flatten(new SegmentedFlattableLine(lines));
+    }
+
+    /**
+     * Returns the fraction at which the segment at given index ends.
+     * @param index segment index
+     * @return fraction at which the segment at given index ends
+     */
+    private double getEnd(final int index)
+    {
+        return index < this.starts.length - 1 ? this.starts[index + 1] : 1.0;
+    }
+
+    /**
+     * Returns a flattable line that evaluates points and directions directly on the segment, optionally with offsets.
+     * Straights, arcs and parameterized 3rd degree polynomials are evaluated in closed form here. A clothoid evaluates itself
+     * in closed form, but keeps its state private. The flattable line it gives its flattener is therefore obtained once and
+     * evaluated directly.
+     * @param segment segment
+     * @param offsets offsets, may be {@code null} for no offsets
+     * @return flattable line that evaluates points and directions directly on the segment
+     */
+    private static FlattableLine getFlattableLine(final ContinuousLine segment, final FractionalLengthData offsets)
+    {
+        if (segment instanceof ContinuousStraight straight)
         {
-            @Override
-            public Point2d get(final double fraction)
+            OrientedPoint2d start = straight.getStartPoint();
+            OrientedPoint2d end = straight.getEndPoint();
+            double dx = end.x - start.x;
+            double dy = end.y - start.y;
+            double length = straight.getLength();
+            if (offsets == null)
             {
-                Entry<Double, ContinuousLine> entry = SegmentedLine.this.segments.floorEntry(fraction);
-                Double next = SegmentedLine.this.segments.higherKey(entry.getKey());
-                if (next == null)
+                // same rounding as interpolation on a 2-point PolyLine2d, as flattening is sensitive to tiny deviations
+                double lineLength = Math.hypot(dx, dy);
+                return new FlattableLine()
                 {
-                    next = 1.0;
+                    @Override
+                    public Point2d get(final double fraction)
+                    {
+                        double position = fraction * lineLength;
+                        if (position >= lineLength)
+                        {
+                            return new Point2d(end.x, end.y);
+                        }
+                        double f = position / lineLength;
+                        return new Point2d(start.x + f * dx, start.y + f * dy);
+                    }
+
+                    @Override
+                    public double getDirection(final double fraction)
+                    {
+                        return start.dirZ;
+                    }
+                };
+            }
+            double cos = Math.cos(start.dirZ);
+            double sin = Math.sin(start.dirZ);
+            return new FlattableLine()
+            {
+                @Override
+                public Point2d get(final double fraction)
+                {
+                    double offset = offsets.get(fraction);
+                    return new Point2d(start.x + fraction * dx - offset * sin, start.y + fraction * dy + offset * cos);
                 }
-                FractionalLengthData partialOffset = partialOffsets.floorEntry(fraction).getValue();
-                double f = (fraction - entry.getKey()) / (next - entry.getKey());
-                if (entry.getValue() instanceof ContinuousStraight)
+
+                @Override
+                public double getDirection(final double fraction)
                 {
-                    // ContinuousStraight does not use flattener internally, obtain point from 2-point polyline
-                    Ray2d ray = entry.getValue().flattenOffset(partialOffset, null).getLocationFraction(f);
-                    return new Point2d(ray.x, ray.y);
+                    return start.dirZ + Math.atan(offsets.getDerivative(fraction) / length);
                 }
-                PointDirectionFlattener flattener = new PointDirectionFlattener(f);
-                entry.getValue().flattenOffset(partialOffset, flattener); // internally obtains point at fraction
-                return flattener.getPoint();
+            };
+        }
+        if (segment instanceof ContinuousArc2 arc)
+        {
+            if (offsets == null)
+            {
+                return new FlattableLine()
+                {
+                    @Override
+                    public Point2d get(final double fraction)
+                    {
+                        return arc.getPoint(fraction, 0.0);
+                    }
+
+                    @Override
+                    public double getDirection(final double fraction)
+                    {
+                        return arc.getDirection(fraction);
+                    }
+                };
             }
-
-            @Override
-            public double getDirection(final double fraction)
+            return new FlattableLine()
             {
-                Entry<Double, ContinuousLine> entry = SegmentedLine.this.segments.floorEntry(fraction);
-                Double next = SegmentedLine.this.segments.higherKey(entry.getKey());
-                if (next == null)
+                @Override
+                public Point2d get(final double fraction)
                 {
-                    next = 1.0;
+                    return arc.getPoint(fraction, offsets.get(fraction));
                 }
-                FractionalLengthData partialOffset = partialOffsets.floorEntry(fraction).getValue();
-                double f = (fraction - entry.getKey()) / (next - entry.getKey());
-                if (entry.getValue() instanceof ContinuousStraight)
+
+                @Override
+                public double getDirection(final double fraction)
                 {
-                    // ContinuousStraight does not use flattener internally, obtain direction from 2-point polyline
-                    return entry.getValue().flattenOffset(partialOffset, null).getLocationFraction(f).phi;
+                    return arc.getDirection(fraction, offsets);
                 }
-                PointDirectionFlattener flattener = new PointDirectionFlattener(f);
-                entry.getValue().flattenOffset(partialOffset, flattener); // internally obtains direction at fraction
-                return flattener.getDirection();
-            }
-        });
+            };
+        }
+        // ParamPoly3 and ContinuousClothoid
+        FlattableLineCapture capture = new FlattableLineCapture();
+        if (offsets == null)
+        {
+            segment.flatten(capture);
+        }
+        else
+        {
+            segment.flattenOffset(offsets, capture);
+        }
+        return capture.getLine();
     }
 
     @Override
     public double getLength()
     {
-        return this.segments.lastKey() + this.segments.lastEntry().getValue().getLength();
+        return this.starts[this.starts.length - 1] + this.segments[this.segments.length - 1].getLength();
+    }
+
+    /**
+     * Flattable line of the entire segmented line, that delegates to the flattable line of the segment at each fraction.
+     */
+    private final class SegmentedFlattableLine implements FlattableLine
+    {
+        /** Flattable line of each segment. */
+        private final FlattableLine[] lines;
+
+        /**
+         * Constructor.
+         * @param lines flattable line of each segment
+         */
+        private SegmentedFlattableLine(final FlattableLine[] lines)
+        {
+            this.lines = lines;
+        }
+
+        @Override
+        public Point2d get(final double fraction)
+        {
+            int index = getIndex(fraction);
+            return this.lines[index].get(getSegmentFraction(index, fraction));
+        }
+
+        @Override
+        public double getDirection(final double fraction)
+        {
+            int index = getIndex(fraction);
+            return this.lines[index].getDirection(getSegmentFraction(index, fraction));
+        }
+
+        /**
+         * Returns the index of the segment that contains the fraction.
+         * @param fraction fraction along the segmented line
+         * @return index of the segment that contains the fraction
+         */
+        private int getIndex(final double fraction)
+        {
+            int index = Arrays.binarySearch(SegmentedLine.this.starts, fraction);
+            return index >= 0 ? index : Math.max(0, -index - 2);
+        }
+
+        /**
+         * Returns the fraction along the segment.
+         * @param index segment index
+         * @param fraction fraction along the segmented line
+         * @return fraction along the segment
+         */
+        private double getSegmentFraction(final int index, final double fraction)
+        {
+            double start = SegmentedLine.this.starts[index];
+            return (fraction - start) / (getEnd(index) - start);
+        }
     }
 
     /**
@@ -374,58 +487,32 @@ public class SegmentedLine implements ContinuousLine
     }
 
     /**
-     * Flattener that is used to extract a point and direction from a continuous line that represents itself as FlattableLine.
+     * Flattener that stores the flattable line with which a continuous line represents itself, rather than flattening it.
      */
-    private static final class PointDirectionFlattener implements Flattener
+    private static final class FlattableLineCapture implements Flattener
     {
-        /** Obtained point. */
-        private Point2d point;
-
-        /** Direction. */
-        private double direction;
-
-        /** Fraction to obtain point at. */
-        private final double fraction;
-
-        /**
-         * Constructor.
-         * @param fraction fraction to obtain point at
-         */
-        private PointDirectionFlattener(final double fraction)
-        {
-            this.fraction = fraction;
-        }
+        /** Captured flattable line. */
+        private FlattableLine line;
 
         /**
-         * Obtains point and direction from flattable line at fraction that is given to this flattener, stores them, and returns
-         * null.
-         * @param line flattable line
+         * Stores the flattable line and returns null.
+         * @param flattableLine flattable line
          * @return {@code null} always
          */
         @Override
-        public PolyLine2d flatten(final FlattableLine line)
+        public PolyLine2d flatten(final FlattableLine flattableLine)
         {
-            this.point = line.get(this.fraction);
-            this.direction = line.getDirection(fraction);
+            this.line = flattableLine;
             return null;
         }
 
         /**
-         * Return point.
-         * @return point
-         */
-        public Point2d getPoint()
-        {
-            return this.point;
-        }
-
-        /**
-         * Returns direction.
-         * @return direction
+         * Returns the captured flattable line.
+         * @return captured flattable line
          */
-        public double getDirection()
+        public FlattableLine getLine()
         {
-            return this.direction;
+            return this.line;
         }
     }
 
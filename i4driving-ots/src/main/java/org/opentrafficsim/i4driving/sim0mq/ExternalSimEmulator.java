@@ -10,6 +10,7 @@ import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.djunits.unit.SpeedUnit;
 import org.djunits.value.vdouble.scalar.Acceleration;
@@ -18,6 +19,10 @@ import org.djunits.value.vdouble.scalar.Duration;
 import org.djunits.value.vdouble.scalar.Frequency;
 import org.djunits.value.vdouble.scalar.Length;
 import org.djunits.value.vdouble.scalar.Speed;
+import org.djunits.value.vfloat.vector.FloatAccelerationVector;
+import org.djunits.value.vfloat.vector.FloatDirectionVector;
+import org.djunits.value.vfloat.vector.FloatLengthVector;
+import org.djunits.value.vfloat.vector.FloatSpeedVector;
 import org.djutils.cli.CliUtil;
 import org.djutils.logger.CategoryLogger;
 import org.djutils.serialization.SerializationException;
@@ -52,9 +57,6 @@ public final class ExternalSimEmulator
     /** Endianness. */
     private static final boolean BIG_ENDIAN = false;
 
-    /** Port number. */
-    private static final int PORT = 5556;
-
     /** Trajectory update frequecy. */
     private static final Frequency EXTERNAL_FREQUENCY = Frequency.instantiateSI(30);
 
@@ -73,6 +75,15 @@ public final class ExternalSimEmulator
     /** Network file. */
     private static String networkFile;
 
+    /** Port number. */
+    private static int port;
+
+    /** Memory-mapped file to exchange messages through, {@code null} to use the port. */
+    private static Path sharedMemory;
+
+    /** Whether to send updates of all externally controlled vehicles in EXTERNAL_BATCH messages. */
+    private static boolean batch;
+
     /** Demo command line argument. */
     @Option(names = "--demo", description = "Use demo network", defaultValue = "true", negatable = true)
     private boolean demoCla;
@@ -94,6 +105,19 @@ public final class ExternalSimEmulator
             defaultValue = "/opendrive/examples/i4Driving_scenario01_urban-straight.xodr")
     private String networkFileCla;
 
+    /** Port number command line argument. */
+    @Option(names = "--port", description = "Port number", defaultValue = "5556")
+    private int portCla;
+
+    /** Shared memory command line argument. */
+    @Option(names = "--sharedMemory", description = "Memory-mapped file to exchange messages through, instead of the port")
+    private Path sharedMemoryCla;
+
+    /** Batch command line argument. */
+    @Option(names = "--batch", description = "Send updates of all external vehicles in EXTERNAL_BATCH messages",
+            defaultValue = "false", negatable = true)
+    private boolean batchCla;
+
     /**
      * Constructor.
      */
@@ -115,6 +139,9 @@ public final class ExternalSimEmulator
         odFile = sim.odFileCla;
         routeFile = sim.routeFileCla;
         networkFile = sim.networkFileCla;
+        port = sim.portCla;
+        sharedMemory = sim.sharedMemoryCla;
+        batch = sim.batchCla;
         new Worker().start();
     }
 
@@ -136,12 +163,24 @@ public final class ExternalSimEmulator
         /** the socket. */
         private ZMQ.Socket responder;
 
-        /** Message id. */
-        private int messageId = 0;
+        /** Shared memory channel, {@code null} when messages are exchanged through the socket. */
+        private SharedMemoryChannel channel;
+
+        /** Message id, which the trajectory and batch senders also take. */
+        private final AtomicInteger messageId = new AtomicInteger();
+
+        /** Lock of the socket or shared memory channel, which the trajectory and batch senders also send on. */
+        private final Object socketLock = new Object();
 
         /** Ego vehicle control. */
         private Map<String, TrajectorySender> trajectorySenders = new LinkedHashMap<>();
 
+        /** Latest x, y, direction, speed and acceleration per GTU that are not yet sent in batch mode. */
+        private final Map<String, float[]> batchUpdates = new LinkedHashMap<>();
+
+        /** Sender of EXTERNAL_BATCH messages in batch mode, {@code null} if not running. */
+        private BatchSender batchSender;
+
         /** Step for PROGRESS message. */
         private final Duration step = Duration.instantiateSI(3.0);
 
@@ -152,41 +191,48 @@ public final class ExternalSimEmulator
         @Override
         public void run()
         {
-            this.context = new ZContext(1);
-            this.responder = this.context.createSocket(SocketType.PAIR);
-            this.responder.connect("tcp://*:" + PORT);
             CategoryLogger.setAllLogLevel(Level.DEBUG);
             CategoryLogger.setAllLogMessageFormat("[{date: YYYY-MM-dd HH:mm:ss.SSS}] {level}: {message}");
+            if (sharedMemory == null)
+            {
+                this.context = new ZContext(1);
+                this.responder = this.context.createSocket(SocketType.PAIR);
+                this.responder.connect("tcp://*:" + port);
+            }
             CategoryLogger.always().debug("ExternalSim is running");
 
             try
             {
+                if (sharedMemory != null)
+                {
+                    this.channel = SharedMemoryChannel.open(sharedMemory, 30000);
+                }
                 byte[] encodedMessage;
 
                 Set<Integer> awaiting = new LinkedHashSet<>();
-                int msgId = this.messageId++;
+                int msgId = this.messageId.getAndIncrement();
                 awaiting.add(msgId);
                 String jsonOd = Files.readString(getPath(demoNetwork, "/od/OdMatrix.json", odFile));
                 encodedMessage = Sim0MQMessage.encodeUTF8(BIG_ENDIAN, FEDERATION, EXTERNAL_SIM, OTS, "ODMATRIX", msgId,
                         new Object[] {jsonOd});
-                this.responder.send(encodedMessage, ZMQ.DONTWAIT);
+                send(encodedMessage);
                 CategoryLogger.always().debug("ExternalSim sent ODMATRIX message");
 
-                msgId = this.messageId++;
+                msgId = this.messageId.getAndIncrement();
                 awaiting.add(msgId);
                 String jsonRoutes = Files.readString(getPath(demoNetwork, "/route/Routes.json", routeFile));
                 encodedMessage = Sim0MQMessage.encodeUTF8(BIG_ENDIAN, FEDERATION, EXTERNAL_SIM, OTS, "ROUTES", msgId,
                         new Object[] {jsonRoutes});
-                this.responder.send(encodedMessage, ZMQ.DONTWAIT);
+                send(encodedMessage);
                 CategoryLogger.always().debug("ExternalSim sent ROUTES message");
 
-                msgId = this.messageId++;
+                msgId = this.messageId.getAndIncrement();
                 awaiting.add(msgId);
                 Object[] networkPayload =
                         demoNetwork ? new Object[] {} : new Object[] {Files.readString(getPath(false, "N/A", networkFile))};
                 encodedMessage =
                         Sim0MQMessage.encodeUTF8(BIG_ENDIAN, FEDERATION, EXTERNAL_SIM, OTS, "NETWORK", msgId, networkPayload);
-                this.responder.send(encodedMessage, ZMQ.DONTWAIT);
+                send(encodedMessage);
                 CategoryLogger.always().debug("ExternalSim sent NETWORK message");
 
                 Speed gtuSpeed = new Speed(50, SpeedUnit.KM_PER_HOUR);
@@ -202,7 +248,7 @@ public final class ExternalSimEmulator
                 while (!Thread.currentThread().isInterrupted())
                 {
                     // Wait for next message from the server
-                    byte[] request = this.responder.recv(ZMQ.DONTWAIT);
+                    byte[] request = receive(false);
                     while (request == null)
                     {
                         // Hard-coded reset, stop, terminate
@@ -210,16 +256,7 @@ public final class ExternalSimEmulator
                         {
                             break;
                         }
-                        try
-                        {
-                            // In order to allow resources to go to other processes, we sleep before checking again
-                            Thread.sleep(3);
-                        }
-                        catch (InterruptedException e)
-                        {
-
-                        }
-                        request = this.responder.recv(ZMQ.DONTWAIT);
+                        request = receive(true);
                     }
                     if (request == null)
                     {
@@ -234,6 +271,13 @@ public final class ExternalSimEmulator
                         String id = (String) payload[8];
                         CategoryLogger.always().debug("ExternalSim received PLAN message for GTU " + id);
                     }
+                    else if ("PLANS".equals(message.getMessageTypeId()))
+                    {
+                        // int n, n x String id, ...
+                        Object[] payload = message.createObjectArray();
+                        int n = (int) payload[8];
+                        CategoryLogger.always().debug("ExternalSim received PLANS message for {} GTUs", n);
+                    }
                     else if ("DELETE".equals(message.getMessageTypeId()))
                     {
                         // String id
@@ -270,7 +314,7 @@ public final class ExternalSimEmulator
                             if (realTime)
                             {
                                 encodedMessage = Sim0MQMessage.encodeUTF8(BIG_ENDIAN, FEDERATION, EXTERNAL_SIM, OTS, "START",
-                                        this.messageId++, new Object[] {});
+                                        this.messageId.getAndIncrement(), new Object[] {});
                                 messageType = "START";
                             }
                             else
@@ -281,14 +325,19 @@ public final class ExternalSimEmulator
                                     break;
                                 }
                                 encodedMessage = Sim0MQMessage.encodeUTF8(BIG_ENDIAN, FEDERATION, EXTERNAL_SIM, OTS, "PROGRESS",
-                                        this.messageId++, new Object[] {until});
+                                        this.messageId.getAndIncrement(), new Object[] {until});
                                 messageType = "PROGRESS";
                             }
-                            this.responder.send(encodedMessage, 0);
+                            send(encodedMessage);
 
                             if (start == null)
                             {
                                 this.trajectorySenders.values().forEach((ts) -> ts.start());
+                                if (batch)
+                                {
+                                    this.batchSender = new BatchSender(EXTERNAL_FREQUENCY);
+                                    this.batchSender.start();
+                                }
                             }
 
                             CategoryLogger.always().debug("ExternalSim sent {} message", messageType);
@@ -306,13 +355,68 @@ public final class ExternalSimEmulator
             }
 
             terminateTrajectories();
-            this.responder.close();
-            this.context.destroy();
-            this.context.close();
+            if (this.channel != null)
+            {
+                this.channel.close();
+            }
+            else if (this.responder != null)
+            {
+                this.responder.close();
+                this.context.destroy();
+                this.context.close();
+            }
             CategoryLogger.always().debug("ExternalSim terminated");
             System.exit(0);
         }
 
+        /**
+         * Sends a message to OTS, through the socket or the shared memory channel.
+         * @param message message
+         */
+        private void send(final byte[] message)
+        {
+            synchronized (this.socketLock)
+            {
+                if (this.channel != null)
+                {
+                    this.channel.send(message);
+                }
+                else
+                {
+                    this.responder.send(message, ZMQ.DONTWAIT);
+                }
+            }
+        }
+
+        /**
+         * Receives a message from OTS, through the socket or the shared memory channel.
+         * @param wait whether to wait shortly for a message, allowing resources to go to other processes
+         * @return message, {@code null} if no message was received
+         */
+        private byte[] receive(final boolean wait)
+        {
+            if (this.channel != null)
+            {
+                long deadline = System.nanoTime() + 3_000_000L;
+                return wait ? this.channel.receive(() -> System.nanoTime() > deadline) : this.channel.poll();
+            }
+            if (wait)
+            {
+                try
+                {
+                    Thread.sleep(3);
+                }
+                catch (InterruptedException e)
+                {
+
+                }
+            }
+            synchronized (this.socketLock)
+            {
+                return this.responder.recv(ZMQ.DONTWAIT); // a ZeroMQ socket may not be used by several threads at once
+            }
+        }
+
         /**
          * Execute external events such as reset, stop and terminate.
          * @param awaiting set of message ids that need to be processed before we start
@@ -333,11 +437,11 @@ public final class ExternalSimEmulator
             {
                 // Reset
                 terminateTrajectories();
-                msgId = this.messageId++;
+                msgId = this.messageId.getAndIncrement();
                 awaiting.add(msgId);
                 encodedMessage =
                         Sim0MQMessage.encodeUTF8(BIG_ENDIAN, FEDERATION, EXTERNAL_SIM, OTS, "RESET", msgId, new Object[] {});
-                this.responder.send(encodedMessage, 0);
+                send(encodedMessage);
                 events[0] = Long.MAX_VALUE;
                 CategoryLogger.always().debug("ExternalSim sent RESET message");
             }
@@ -345,9 +449,9 @@ public final class ExternalSimEmulator
             {
                 // Stop
                 terminateTrajectories();
-                encodedMessage = Sim0MQMessage.encodeUTF8(BIG_ENDIAN, FEDERATION, EXTERNAL_SIM, OTS, "STOP", this.messageId++,
+                encodedMessage = Sim0MQMessage.encodeUTF8(BIG_ENDIAN, FEDERATION, EXTERNAL_SIM, OTS, "STOP", this.messageId.getAndIncrement(),
                         new Object[] {});
-                this.responder.send(encodedMessage, 0);
+                send(encodedMessage);
                 events[1] = Long.MAX_VALUE;
                 CategoryLogger.always().debug("ExternalSim sent STOP message");
             }
@@ -355,8 +459,8 @@ public final class ExternalSimEmulator
             {
                 // Terminate
                 encodedMessage = Sim0MQMessage.encodeUTF8(BIG_ENDIAN, FEDERATION, EXTERNAL_SIM, OTS, "TERMINATE",
-                        this.messageId++, new Object[] {});
-                this.responder.send(encodedMessage, 0);
+                        this.messageId.getAndIncrement(), new Object[] {});
+                send(encodedMessage);
                 CategoryLogger.always().debug("ExternalSim sent TERMINATE message");
                 terminate = true;
             }
@@ -366,8 +470,8 @@ public final class ExternalSimEmulator
                 String json = "{ \"time\": \"0.0 s\", \"type\": \"setIndicator\", "
                         + "\"data\": {\"direction\": \"RIGHT\", \"duration\": \"5.0 s\"} }";
                 encodedMessage = Sim0MQMessage.encodeUTF8(BIG_ENDIAN, FEDERATION, EXTERNAL_SIM, OTS, "COMMAND",
-                        this.messageId++, new Object[] {"Ego 2", json});
-                this.responder.send(encodedMessage, 0);
+                        this.messageId.getAndIncrement(), new Object[] {"Ego 2", json});
+                send(encodedMessage);
                 events[3] = Long.MAX_VALUE;
                 CategoryLogger.always().debug("ExternalSim sent COMMAND message");
             }
@@ -377,8 +481,8 @@ public final class ExternalSimEmulator
                 Object[] payload = new Object[] {"Florian", "Hybrid", Length.instantiateSI(0.152921),
                         Length.instantiateSI(1.75338), Direction.instantiateSI(-0.0399514), Speed.instantiateSI(5.0), "CAR",
                         Length.instantiateSI(4.74), Length.instantiateSI(1.75), Length.instantiateSI(0.89), 0, "A-B"};
-                this.responder.send(Sim0MQMessage.encodeUTF8(BIG_ENDIAN, FEDERATION, OTS, EXTERNAL_SIM, "VEHICLE",
-                        this.messageId++, payload), ZMQ.DONTWAIT);
+                send(Sim0MQMessage.encodeUTF8(BIG_ENDIAN, FEDERATION, OTS, EXTERNAL_SIM, "VEHICLE", this.messageId.getAndIncrement(),
+                        payload));
                 events[4] = Long.MAX_VALUE;
                 CategoryLogger.always().debug("ExternalSim sent VEHICLE message TEST FLORIAN");
             }
@@ -389,9 +493,9 @@ public final class ExternalSimEmulator
                 Length y = Length.instantiateSI(-1.0);
                 Speed v = Speed.instantiateSI(1.0);
                 encodedMessage = Sim0MQMessage.encodeUTF8(BIG_ENDIAN, FEDERATION, EXTERNAL_SIM, OTS, "VEHICLE",
-                        this.messageId++, new Object[] {"Pedestrian", "Active", x, y, Direction.instantiateSI(Math.PI / 2.0), v,
+                        this.messageId.getAndIncrement(), new Object[] {"Pedestrian", "Active", x, y, Direction.instantiateSI(Math.PI / 2.0), v,
                                 "", Length.ZERO, Length.ZERO, Length.ZERO, 0, ""});
-                this.responder.send(encodedMessage, 0);
+                send(encodedMessage);
                 events[5] = Long.MAX_VALUE;
                 CategoryLogger.always().debug("ExternalSim sent ACTIVE vehicle message");
                 TrajectorySender ts =
@@ -409,6 +513,11 @@ public final class ExternalSimEmulator
         {
             this.trajectorySenders.values().forEach((ts) -> ts.terminate());
             this.trajectorySenders.clear();
+            if (this.batchSender != null)
+            {
+                this.batchSender.terminate();
+                this.batchSender = null;
+            }
         }
 
         /**
@@ -434,37 +543,33 @@ public final class ExternalSimEmulator
                         new Object[] {"Fellow 1", "Ots", Length.instantiateSI(20.0), Length.instantiateSI(1.75), Direction.ZERO,
                                 gtuSpeed, "CAR", length, width, refToNose, 1, "a", Acceleration.instantiateSI(1.0), "A-B"};
 
-                msgId = this.messageId++;
+                msgId = this.messageId.getAndIncrement();
                 awaiting.add(msgId);
-                Worker.this.responder.send(
-                        Sim0MQMessage.encodeUTF8(BIG_ENDIAN, FEDERATION, OTS, EXTERNAL_SIM, "VEHICLE", msgId, payload),
-                        ZMQ.DONTWAIT);
+                Worker.this.send(
+                        Sim0MQMessage.encodeUTF8(BIG_ENDIAN, FEDERATION, OTS, EXTERNAL_SIM, "VEHICLE", msgId, payload));
                 CategoryLogger.always().debug("ExternalSim sent VEHICLE message for Fellow 1");
                 payload = new Object[] {"Fellow 2", "Ots", Length.instantiateSI(10.0), Length.instantiateSI(1.75),
                         Direction.ZERO, gtuSpeed, "CAR", length, width, refToNose, 1, "--fullerImplementation", "NONE", "A-B"};
-                msgId = this.messageId++;
+                msgId = this.messageId.getAndIncrement();
                 awaiting.add(msgId);
-                Worker.this.responder.send(
-                        Sim0MQMessage.encodeUTF8(BIG_ENDIAN, FEDERATION, OTS, EXTERNAL_SIM, "VEHICLE", msgId, payload),
-                        ZMQ.DONTWAIT);
+                Worker.this.send(
+                        Sim0MQMessage.encodeUTF8(BIG_ENDIAN, FEDERATION, OTS, EXTERNAL_SIM, "VEHICLE", msgId, payload));
                 CategoryLogger.always().debug("ExternalSim sent VEHICLE message for Fellow 2");
 
                 // Ego
                 payload = new Object[] {"Ego 1", "Hybrid", startX1, startY1, Direction.ZERO, gtuSpeed, "CAR", length, width,
                         refToNose, 0, "A-B"};
-                msgId = this.messageId++;
+                msgId = this.messageId.getAndIncrement();
                 awaiting.add(msgId);
-                Worker.this.responder.send(
-                        Sim0MQMessage.encodeUTF8(BIG_ENDIAN, FEDERATION, OTS, EXTERNAL_SIM, "VEHICLE", msgId, payload),
-                        ZMQ.DONTWAIT);
+                Worker.this.send(
+                        Sim0MQMessage.encodeUTF8(BIG_ENDIAN, FEDERATION, OTS, EXTERNAL_SIM, "VEHICLE", msgId, payload));
                 CategoryLogger.always().debug("ExternalSim sent VEHICLE message for Ego 1");
                 payload = new Object[] {"Ego 2", "Hybrid", startX2, startY2, Direction.ZERO, gtuSpeed, "CAR", length, width,
                         refToNose, 0, "A-B"};
-                msgId = this.messageId++;
+                msgId = this.messageId.getAndIncrement();
                 awaiting.add(msgId);
-                Worker.this.responder.send(
-                        Sim0MQMessage.encodeUTF8(BIG_ENDIAN, FEDERATION, OTS, EXTERNAL_SIM, "VEHICLE", msgId, payload),
-                        ZMQ.DONTWAIT);
+                Worker.this.send(
+                        Sim0MQMessage.encodeUTF8(BIG_ENDIAN, FEDERATION, OTS, EXTERNAL_SIM, "VEHICLE", msgId, payload));
                 CategoryLogger.always().debug("ExternalSim sent VEHICLE message for Ego 2");
             }
             catch (Sim0MQException | SerializationException ex)
@@ -588,8 +693,8 @@ public final class ExternalSimEmulator
                             {
                                 CategoryLogger.always().debug("ExternalSim sent MODE message for " + this.gtuId);
                                 Object[] payload = new Object[] {this.gtuId, "Ots"};
-                                Worker.this.responder.send(Sim0MQMessage.encodeUTF8(BIG_ENDIAN, FEDERATION, OTS, EXTERNAL_SIM,
-                                        "MODE", Worker.this.messageId++, payload), ZMQ.DONTWAIT);
+                                Worker.this.send(Sim0MQMessage.encodeUTF8(BIG_ENDIAN, FEDERATION, OTS, EXTERNAL_SIM,
+                                        "MODE", Worker.this.messageId.getAndIncrement(), payload));
                                 this.active = false;
                                 break;
                             }
@@ -651,23 +756,114 @@ public final class ExternalSimEmulator
                         }
 
                         // Sent update
+                        if (batch)
+                        {
+                            synchronized (Worker.this.batchUpdates)
+                            {
+                                Worker.this.batchUpdates.put(this.gtuId, new float[] {(float) positionX.si,
+                                        (float) positionY.si, (float) dir.si, (float) speed.si, (float) accel.si});
+                            }
+                        }
+                        else
+                        {
+                            try
+                            {
+                                Object[] payload = new Object[] {this.gtuId, positionX, positionY, dir, speed, accel};
+                                Worker.this.send(Sim0MQMessage.encodeUTF8(BIG_ENDIAN, FEDERATION, OTS, EXTERNAL_SIM,
+                                        "EXTERNAL", Worker.this.messageId.getAndIncrement(), payload));
+                                CategoryLogger.always().debug("ExternalSim sent EXTERNAL message for GTU " + this.gtuId);
+                            }
+                            catch (Sim0MQException | SerializationException e)
+                            {
+                                System.err
+                                        .println("Stopping trajectory sender for GTU " + this.gtuId + " due to exception:");
+                                e.printStackTrace();
+                                this.active = false;
+                            }
+                        }
+                    }
+
+                    // Wait for next execution
+                    long wait = this.executionTime - System.currentTimeMillis() + this.interval;
+                    if (wait > 0)
+                    {
                         try
                         {
-                            Object[] payload = new Object[] {this.gtuId, positionX, positionY, dir, speed, accel};
-                            Worker.this.responder.send(Sim0MQMessage.encodeUTF8(BIG_ENDIAN, FEDERATION, OTS, EXTERNAL_SIM,
-                                    "EXTERNAL", Worker.this.messageId++, payload), ZMQ.DONTWAIT);
-                            CategoryLogger.always().debug("ExternalSim sent EXTERNAL message for GTU " + this.gtuId);
+                            Thread.sleep(wait);
                         }
-                        catch (Sim0MQException | SerializationException e)
+                        catch (InterruptedException e)
                         {
                             System.err.println("Stopping trajectory sender for GTU " + this.gtuId + " due to exception:");
                             e.printStackTrace();
                             this.active = false;
                         }
                     }
+                }
+            }
+
+            /**
+             * Terminates sending trajectory updates.
+             */
+            public void terminate()
+            {
+                this.active = false;
+            }
+
+        }
+
+        /**
+         * Class that the Worker thread uses in batch mode to sent the latest updates of all trajectory senders in a single
+         * EXTERNAL_BATCH message.
+         */
+        protected class BatchSender extends Thread
+        {
+            /** Disables the sender from sending more messages. */
+            private volatile boolean active = true;
+
+            /** Interval between batches. */
+            private final long interval;
+
+            /**
+             * Constructor.
+             * @param frequency frequency of batches
+             */
+            BatchSender(final Frequency frequency)
+            {
+                this.interval = (long) (1000.0 / frequency.si);
+            }
+
+            /** {@inheritDoc} */
+            @Override
+            public void run()
+            {
+                while (this.active)
+                {
+                    long executionTime = System.currentTimeMillis();
+                    Map<String, float[]> updates;
+                    synchronized (Worker.this.batchUpdates)
+                    {
+                        updates = new LinkedHashMap<>(Worker.this.batchUpdates);
+                        Worker.this.batchUpdates.clear();
+                    }
+                    if (!updates.isEmpty())
+                    {
+                        try
+                        {
+                            Worker.this.send(Sim0MQMessage.encodeUTF8(BIG_ENDIAN, FEDERATION, OTS, EXTERNAL_SIM,
+                                    "EXTERNAL_BATCH", Worker.this.messageId.getAndIncrement(), batchPayload(updates)));
+                            CategoryLogger.always().debug("ExternalSim sent EXTERNAL_BATCH message for {} GTUs",
+                                    updates.size());
+                        }
+                        catch (Sim0MQException | SerializationException e)
+                        {
+                            System.err.println("Stopping batch sender due to exception:");
+                            e.printStackTrace();
+                            this.active = false;
+                        }
+                    }
 
                     // Wait for next execution
-                    long wait = this.executionTime - System.currentTimeMillis() + this.interval;
+                    long wait = executionTime - System.currentTimeMillis() + this.interval;
                     if (wait > 0)
                     {
                         try
@@ -676,7 +872,7 @@ public final class ExternalSimEmulator
                         }
                         catch (InterruptedException e)
                         {
-                            System.err.println("Stopping trajectory sender for GTU " + this.gtuId + " due to exception:");
+                            System.err.println("Stopping batch sender due to exception:");
                             e.printStackTrace();
                             this.active = false;
                         }
@@ -685,7 +881,7 @@ public final class ExternalSimEmulator
             }
 
             /**
-             * Terminates sending trajectory updates.
+             * Terminates sending batches.
              */
             public void terminate()
             {
@@ -696,4 +892,34 @@ public final class ExternalSimEmulator
 
     }
 
+    /**
+     * Creates the payload of an EXTERNAL_BATCH message: int n, n x String id, and vectors for x, y, direction, speed and
+     * acceleration.
+     * @param updates x, y, direction, speed and acceleration per GTU id
+     * @return payload of an EXTERNAL_BATCH message
+     */
+    static Object[] batchPayload(final Map<String, float[]> updates)
+    {
+        int n = updates.size();
+        Object[] payload = new Object[n + 6];
+        float[][] values = new float[5][n];
+        payload[0] = n;
+        int i = 0;
+        for (Map.Entry<String, float[]> entry : updates.entrySet())
+        {
+            payload[i + 1] = entry.getKey();
+            for (int j = 0; j < 5; j++)
+            {
+                values[j][i] = entry.getValue()[j];
+            }
+            i++;
+        }
+        payload[n + 1] = new FloatLengthVector(values[0]);
+        payload[n + 2] = new FloatLengthVector(values[1]);
+        payload[n + 3] = new FloatDirectionVector(values[2]);
+        payload[n + 4] = new FloatSpeedVector(values[3]);
+        payload[n + 5] = new FloatAccelerationVector(values[4]);
+        return payload;
+    }
+
 }
@@ -10,7 +10,7 @@ import org.opentrafficsim.core.gtu.GtuException;
 import org.opentrafficsim.core.gtu.GtuType;
 import org.opentrafficsim.core.network.NetworkException;
 import org.opentrafficsim.core.network.route.Route;
-import org.opentrafficsim.i4driving.tactical.NetworkUtil;
+import org.opentrafficsim.i4driving.tactical.LaneIndex;
 import org.opentrafficsim.road.gtu.generator.GtuSpawner;
 import org.opentrafficsim.road.gtu.generator.characteristics.LaneBasedGtuCharacteristics;
 import org.opentrafficsim.road.gtu.generator.characteristics.LaneBasedGtuCharacteristicsGeneratorOd;
@@ -31,6 +31,9 @@ public class GtuSpawnerOd
     /** Network. */
     private final RoadNetwork network;
 
+    /** Lane index of the network, to find spawn positions. */
+    private final LaneIndex laneIndex;
+
     /** GTU characteristics generator from simulation. */
     private final LaneBasedGtuCharacteristicsGeneratorOd characteristicsGenerator;
 
@@ -40,9 +43,17 @@ public class GtuSpawnerOd
     /** Stored categories. */
     private final MultiKeyMap<Category> categories = new MultiKeyMap<>(GtuType.class, Route.class);
 
-    public GtuSpawnerOd(final RoadNetwork network, final LaneBasedGtuCharacteristicsGeneratorOd characteristicsGenerator)
+    /**
+     * Constructor.
+     * @param network network
+     * @param laneIndex lane index of the network
+     * @param characteristicsGenerator GTU characteristics generator from simulation
+     */
+    public GtuSpawnerOd(final RoadNetwork network, final LaneIndex laneIndex,
+            final LaneBasedGtuCharacteristicsGeneratorOd characteristicsGenerator)
     {
         this.network = network;
+        this.laneIndex = laneIndex;
         this.characteristicsGenerator = characteristicsGenerator;
     }
 
@@ -74,7 +85,7 @@ public class GtuSpawnerOd
         LaneBasedGtuCharacteristics templateGtuType = new LaneBasedGtuCharacteristics(overwrittenBaseCharacteristics,
                 standardTemplate.getStrategicalPlannerFactory(), route, standardTemplate.getOrigin(),
                 standardTemplate.getDestination(), standardTemplate.getVehicleModel());
-        this.gtuSpawner.spawnGtu(id, templateGtuType, this.network, speed, NetworkUtil.getLanePosition(this.network, position));
+        this.gtuSpawner.spawnGtu(id, templateGtuType, this.network, speed, this.laneIndex.getLanePosition(position));
     }
 
     /**
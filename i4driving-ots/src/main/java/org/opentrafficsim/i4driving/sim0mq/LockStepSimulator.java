@@ -0,0 +1,174 @@
+package org.opentrafficsim.i4driving.sim0mq;
+
+import java.io.Serializable;
+import java.rmi.RemoteException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.djunits.value.vdouble.scalar.Duration;
+import org.opentrafficsim.core.dsol.OtsAnimator;
+import org.opentrafficsim.core.dsol.OtsSimulator;
+import org.opentrafficsim.core.dsol.OtsSimulatorInterface;
+
+import nl.tudelft.simulation.dsol.SimRuntimeException;
+import nl.tudelft.simulation.dsol.experiment.Replication;
+import nl.tudelft.simulation.dsol.formalisms.eventscheduling.SimEventInterface;
+import nl.tudelft.simulation.dsol.simulators.ReplicationState;
+
+/**
+ * Simulator that can be advanced on the calling thread, for lock-step PROGRESS messages. Events are taken from the event list
+ * directly. There is no hand-off to the simulator worker thread, no speed factor and no START/STOP event per executed event.
+ * Exceptions thrown by events are propagated to the caller.
+ * @author wjschakel
+ */
+interface LockStepSimulator extends OtsSimulatorInterface
+{
+
+    /**
+     * Executes all events up to and including the given time, or up to and including the end time of the replication. When the
+     * given time is at or beyond the end time, the replication is ended after the last event. A running simulator is stopped
+     * first.
+     * @param until time up to which events are executed
+     * @throws SimRuntimeException when an event fails, or when waiting for the simulator to stop is interrupted
+     */
+    default void advanceTo(final Duration until) throws SimRuntimeException
+    {
+        if (isStartingOrRunning())
+        {
+            stop();
+            while (isStartingOrRunning())
+            {
+                try
+                {
+                    // the simulator worker thread finishes its current event
+                    Thread.sleep(1);
+                }
+                catch (InterruptedException ex)
+                {
+                    Thread.currentThread().interrupt();
+                    throw new SimRuntimeException("Interrupted while stopping simulator for lock-step progress.", ex);
+                }
+            }
+        }
+        Duration endTime = getReplication().getEndTime();
+        Duration last = until.lt(endTime) ? until : endTime;
+        while (!isReplicationEnded() && !getEventList().isEmpty()
+                && getEventList().first().getAbsoluteExecutionTime().le(last))
+        {
+            executeNext();
+        }
+        if (!until.lt(endTime) && !isReplicationEnded())
+        {
+            if (getSimulatorTime().lt(endTime))
+            {
+                // move the simulator time to the end time, as the replication ends there
+                scheduleEventAbs(endTime, () ->
+                {
+                });
+                executeNext();
+            }
+            endReplication();
+        }
+    }
+
+    /**
+     * Returns whether the replication is ending or has ended, either by reaching the end time or by a model event.
+     * @return whether the replication is ending or has ended
+     */
+    default boolean isReplicationEnded()
+    {
+        return getReplicationState() == ReplicationState.ENDING || getReplicationState() == ReplicationState.ENDED;
+    }
+
+    /**
+     * Removes the first event from the event list, moves the simulator time to the time of the event, and executes it.
+     * @throws SimRuntimeException when the event fails
+     */
+    void executeNext() throws SimRuntimeException;
+
+    /**
+     * Implementation of {@code executeNext()} shared by the headless and animated simulator. The protected state of the
+     * simulator is accessed through the given semaphore, getter and setters.
+     * @param simulator simulator
+     * @param semaphore semaphore of the simulator
+     * @param replicationState supplier of the replication state of the simulator
+     * @param replicationStateSetter setter of the replication state of the simulator
+     * @param simulatorTimeSetter setter of the simulator time
+     * @throws SimRuntimeException when the event fails
+     */
+    static void executeNext(final LockStepSimulator simulator, final Object semaphore,
+            final Supplier<ReplicationState> replicationState, final Consumer<ReplicationState> replicationStateSetter,
+            final Consumer<Duration> simulatorTimeSetter) throws SimRuntimeException
+    {
+        synchronized (semaphore)
+        {
+            try
+            {
+                if (replicationState.get() == ReplicationState.INITIALIZED)
+                {
+                    simulator.fireTimedEvent(Replication.START_REPLICATION_EVENT, null, simulator.getSimulatorTime());
+                    replicationStateSetter.accept(ReplicationState.STARTED);
+                }
+                SimEventInterface<Duration> event = simulator.getEventList().removeFirst();
+                simulator.fireUnverifiedTimedEvent(TIME_CHANGED_EVENT, null, event.getAbsoluteExecutionTime());
+                simulatorTimeSetter.accept(event.getAbsoluteExecutionTime());
+                event.execute();
+            }
+            catch (RemoteException ex)
+            {
+                throw new SimRuntimeException(ex);
+            }
+        }
+    }
+
+    /**
+     * Headless lock-step simulator.
+     */
+    class Headless extends OtsSimulator implements LockStepSimulator
+    {
+        /** */
+        private static final long serialVersionUID = 20261017L;
+
+        /**
+         * Constructor.
+         * @param simulatorId id of the simulator
+         */
+        Headless(final Serializable simulatorId)
+        {
+            super(simulatorId);
+        }
+
+        @Override
+        public void executeNext() throws SimRuntimeException
+        {
+            LockStepSimulator.executeNext(this, this.semaphore, () -> this.replicationState,
+                    (state) -> this.replicationState = state, (time) -> this.simulatorTime = time);
+        }
+    }
+
+    /**
+     * Lock-step animator, which can also run in real-time in between lock-step progress.
+     */
+    class Animated extends OtsAnimator implements LockStepSimulator
+    {
+        /** */
+        private static final long serialVersionUID = 20261017L;
+
+        /**
+         * Constructor.
+         * @param simulatorId id of the simulator
+         */
+        Animated(final Serializable simulatorId)
+        {
+            super(simulatorId);
+        }
+
+        @Override
+        public void executeNext() throws SimRuntimeException
+        {
+            LockStepSimulator.executeNext(this, this.semaphore, () -> this.replicationState,
+                    (state) -> this.replicationState = state, (time) -> this.simulatorTime = time);
+        }
+    }
+
+}
@@ -0,0 +1,150 @@
+package org.opentrafficsim.i4driving.sim0mq;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records all frames that are received and sent by the transceiver in a binary log file, such that a co-simulation session can
+ * be replayed without the external simulator by {@code MessageReplay}. The file starts with a magic number, a version and the
+ * wall-clock time at which recording started in ms since the epoch. Each frame is then stored as:
+ * <ul>
+ * <li>byte: 0 for an inbound frame, 1 for an outbound frame</li>
+ * <li>long: time since recording started [ns]</li>
+ * <li>double: simulation time [s], {@code NaN} if there is no simulation</li>
+ * <li>int: length of the frame</li>
+ * <li>bytes of the frame</li>
+ * </ul>
+ * All values are big-endian. The recorder is not thread-safe, it is only to be used from the worker thread of a session.
+ * @author wjschakel
+ */
+public final class MessageRecorder implements AutoCloseable
+{
+
+    /** Magic number at the start of the file. */
+    private static final int MAGIC = 0x4F545352;
+
+    /** Version of the file format. */
+    private static final int VERSION = 1;
+
+    /** Stream to write to. */
+    private final DataOutputStream out;
+
+    /** System time at which recording started [ns]. */
+    private final long startTime = System.nanoTime();
+
+    /** Whether frames were written since the last flush. */
+    private boolean dirty;
+
+    /**
+     * Constructor, which replaces any existing file.
+     * @param file file to record in
+     * @throws IOException when the file cannot be created
+     */
+    public MessageRecorder(final Path file) throws IOException
+    {
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16));
+        this.out.writeInt(MAGIC);
+        this.out.writeInt(VERSION);
+        this.out.writeLong(System.currentTimeMillis());
+    }
+
+    /**
+     * Records a frame.
+     * @param outbound whether the frame is sent by OTS, or received
+     * @param simulationTime simulation time [s], {@code NaN} if there is no simulation
+     * @param frame frame
+     * @throws IOException when the frame cannot be written
+     */
+    public void record(final boolean outbound, final double simulationTime, final byte[] frame) throws IOException
+    {
+        this.out.writeByte(outbound ? 1 : 0);
+        this.out.writeLong(System.nanoTime() - this.startTime);
+        this.out.writeDouble(simulationTime);
+        this.out.writeInt(frame.length);
+        this.out.write(frame);
+        this.dirty = true;
+    }
+
+    /**
+     * Writes recorded frames to the file, such that they are not lost when the process is killed. This is invoked when the
+     * worker thread is about to wait for messages, and does nothing when no frames were recorded since the last flush.
+     * @throws IOException when the frames cannot be written
+     */
+    public void flush() throws IOException
+    {
+        if (this.dirty)
+        {
+            this.out.flush();
+            this.dirty = false;
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() throws IOException
+    {
+        this.out.close();
+    }
+
+    /**
+     * Reads all frames from a file.
+     * @param file file
+     * @return recorded frames in the order in which they were recorded
+     * @throws IOException when the file cannot be read, or is not a recording
+     */
+    public static List<RecordedFrame> read(final Path file) throws IOException
+    {
+        List<RecordedFrame> frames = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16)))
+        {
+            if (in.readInt() != MAGIC)
+            {
+                throw new IOException("File " + file + " is not a message recording.");
+            }
+            int version = in.readInt();
+            if (version != VERSION)
+            {
+                throw new IOException("Message recording " + file + " has unsupported version " + version + ".");
+            }
+            in.readLong(); // start of recording
+            while (true)
+            {
+                int direction = in.read();
+                if (direction < 0)
+                {
+                    break;
+                }
+                long time = in.readLong();
+                double simulationTime = in.readDouble();
+                byte[] frame = new byte[in.readInt()];
+                in.readFully(frame);
+                frames.add(new RecordedFrame(direction == 1, time, simulationTime, frame));
+            }
+        }
+        catch (EOFException ex)
+        {
+            // the recording was interrupted while writing the last frame, which is ignored
+        }
+        return frames;
+    }
+
+    /**
+     * Recorded frame.
+     * @param outbound whether the frame was sent by OTS, or received
+     * @param time time since recording started [ns]
+     * @param simulationTime simulation time [s], {@code NaN} if there was no simulation
+     * @param frame frame
+     */
+    public record RecordedFrame(boolean outbound, long time, double simulationTime, byte[] frame)
+    {
+    }
+
+}
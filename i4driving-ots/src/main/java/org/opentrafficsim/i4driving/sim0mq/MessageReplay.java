@@ -0,0 +1,248 @@
+package org.opentrafficsim.i4driving.sim0mq;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+import org.djutils.cli.CliUtil;
+import org.djutils.logger.CategoryLogger;
+import org.djutils.serialization.SerializationException;
+import org.opentrafficsim.i4driving.sim0mq.MessageRecorder.RecordedFrame;
+import org.pmw.tinylog.Level;
+import org.zeromq.SocketType;
+import org.zeromq.ZContext;
+import org.zeromq.ZMQ;
+
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+/**
+ * Replays a co-simulation session that was recorded by {@code OtsTransceiver --record}, in place of the external simulator.
+ * The recorded inbound frames are sent to OTS in order. Before each inbound frame, the outbound frames that were recorded
+ * before it are awaited, such that the replay follows the causality of the recording. Received frames are verified against
+ * the recorded outbound frames, byte for byte. Inbound frames are sent as fast as possible, or at the pace of the recording.
+ * At the end, the number of verified frames and the throughput are reported.
+ * <p>
+ * A replay is only byte-identical when OTS behaves deterministically on the recorded inbound frames, e.g. with PROGRESS
+ * messages in lock-step or headless mode. In real-time mode the timing of outbound frames, and thus their order and content,
+ * may differ from the recording.
+ * </p>
+ * @author wjschakel
+ */
+@Command(description = "Replays a recorded co-simulation session", name = "MessageReplay", mixinStandardHelpOptions = true,
+        showDefaultValues = true, version = "20250619")
+public final class MessageReplay
+{
+
+    /** Maximum number of mismatching frames that are logged. */
+    private static final int MAX_LOGGED_MISMATCHES = 10;
+
+    /** Recording. */
+    @Option(names = "--file", description = "Message recording of OtsTransceiver --record", required = true)
+    private Path file;
+
+    /** Port number. */
+    @Option(names = "--port", description = "Port number", defaultValue = "5556")
+    private int port;
+
+    /** Memory-mapped file to exchange messages through, {@code null} to use the port. */
+    @Option(names = "--sharedMemory", description = "Memory-mapped file to exchange messages through, instead of the port")
+    private Path sharedMemory;
+
+    /** Whether to send inbound frames at the pace of the recording. */
+    @Option(names = "--recordedPace", description = "Send inbound frames at the pace of the recording, rather than as fast "
+            + "as possible", defaultValue = "false")
+    private boolean recordedPace;
+
+    /** Time to wait for each outbound frame. */
+    @Option(names = "--timeout", description = "Time to wait for each outbound frame [ms]", defaultValue = "10000")
+    private long timeout;
+
+    /** Context of the socket. */
+    private ZContext context;
+
+    /** Socket, {@code null} when messages are exchanged through the shared memory channel. */
+    private ZMQ.Socket socket;
+
+    /** Shared memory channel, {@code null} when messages are exchanged through the socket. */
+    private SharedMemoryChannel channel;
+
+    /** Codec to obtain the type and id of mismatching frames. */
+    private final Sim0mqCodec codec = new Sim0mqCodec(false, "", "", "");
+
+    /**
+     * Constructor.
+     */
+    private MessageReplay()
+    {
+        //
+    }
+
+    /**
+     * Main method.
+     * @param args command line arguments.
+     * @throws IOException when the recording cannot be read, or the shared memory channel cannot be opened
+     */
+    public static void main(final String... args) throws IOException
+    {
+        MessageReplay replay = new MessageReplay();
+        CliUtil.execute(replay, args);
+        CategoryLogger.setAllLogLevel(Level.DEBUG);
+        CategoryLogger.setAllLogMessageFormat("[{date: YYYY-MM-dd HH:mm:ss.SSS}] {level}: {message}");
+        replay.replay();
+        System.exit(0);
+    }
+
+    /**
+     * Replays the recording.
+     * @throws IOException when the recording cannot be read, or the shared memory channel cannot be opened
+     */
+    private void replay() throws IOException
+    {
+        List<RecordedFrame> frames = MessageRecorder.read(this.file);
+        CategoryLogger.always().info("Replaying {} frames from {}", frames.size(), this.file);
+        if (this.sharedMemory == null)
+        {
+            this.context = new ZContext(1);
+            this.socket = this.context.createSocket(SocketType.PAIR);
+            this.socket.connect("tcp://localhost:" + this.port);
+        }
+        else
+        {
+            this.channel = SharedMemoryChannel.open(this.sharedMemory, this.timeout);
+        }
+
+        int sent = 0;
+        long sentBytes = 0;
+        int matched = 0;
+        int mismatched = 0;
+        int missing = 0;
+        long receivedBytes = 0;
+        long start = System.nanoTime();
+        long firstInbound = frames.stream().filter((f) -> !f.outbound()).mapToLong(RecordedFrame::time).findFirst().orElse(0);
+        for (RecordedFrame frame : frames)
+        {
+            if (frame.outbound())
+            {
+                byte[] received = missing > 0 ? null : receive(this.timeout);
+                if (received == null)
+                {
+                    if (missing++ == 0)
+                    {
+                        CategoryLogger.always().error("No frame received within {} ms, expected {}", this.timeout,
+                                describe(frame.frame()));
+                    }
+                    continue;
+                }
+                receivedBytes += received.length;
+                if (Arrays.equals(received, frame.frame()))
+                {
+                    matched++;
+                }
+                else if (mismatched++ < MAX_LOGGED_MISMATCHES)
+                {
+                    CategoryLogger.always().warn("Frame at t={}s differs, expected {}, received {}", frame.simulationTime(),
+                            describe(frame.frame()), describe(received));
+                }
+            }
+            else
+            {
+                if (this.recordedPace)
+                {
+                    long wait = start + frame.time() - firstInbound - System.nanoTime();
+                    if (wait > 0)
+                    {
+                        LockSupport.parkNanos(wait);
+                    }
+                }
+                send(frame.frame());
+                sent++;
+                sentBytes += frame.frame().length;
+            }
+        }
+        double elapsed = (System.nanoTime() - start) / 1.0e9;
+        int extra = 0;
+        byte[] received = missing > 0 ? null : receive(1000);
+        while (received != null)
+        {
+            if (extra++ < MAX_LOGGED_MISMATCHES)
+            {
+                CategoryLogger.always().warn("Frame received that is not in the recording: {}", describe(received));
+            }
+            received = receive(1000);
+        }
+
+        long recordedOutbound = frames.stream().filter(RecordedFrame::outbound).count();
+        double recorded = frames.isEmpty() ? 0.0 : (frames.get(frames.size() - 1).time() - firstInbound) / 1.0e9;
+        CategoryLogger.always().info("Outbound frames: {} recorded, {} matched, {} differ, {} missing, {} not recorded",
+                recordedOutbound, matched, mismatched, missing, extra);
+        CategoryLogger.always().info(String.format(
+                "Replayed in %.3f s (recorded %.3f s): %d frames sent (%.1f/s, %.3f MB/s), %d received (%.1f/s, %.3f MB/s)",
+                elapsed, recorded, sent, sent / elapsed, sentBytes / elapsed / 1.0e6, matched + mismatched,
+                (matched + mismatched) / elapsed, receivedBytes / elapsed / 1.0e6));
+
+        if (this.channel != null)
+        {
+            this.channel.close();
+        }
+        else
+        {
+            this.socket.close();
+            this.context.destroy();
+            this.context.close();
+        }
+    }
+
+    /**
+     * Sends a frame to OTS.
+     * @param frame frame
+     */
+    private void send(final byte[] frame)
+    {
+        if (this.channel != null)
+        {
+            this.channel.send(frame);
+        }
+        else
+        {
+            this.socket.send(frame, 0);
+        }
+    }
+
+    /**
+     * Receives a frame from OTS.
+     * @param wait maximum time to wait [ms]
+     * @return frame, {@code null} if no frame was received in time
+     */
+    private byte[] receive(final long wait)
+    {
+        if (this.channel != null)
+        {
+            long deadline = System.nanoTime() + wait * 1_000_000L;
+            return this.channel.receive(() -> System.nanoTime() > deadline);
+        }
+        this.socket.setReceiveTimeOut((int) wait);
+        return this.socket.recv(0);
+    }
+
+    /**
+     * Returns a description of a frame, with its message type and id.
+     * @param frame frame
+     * @return description of the frame
+     */
+    private String describe(final byte[] frame)
+    {
+        try
+        {
+            String type = this.codec.decode(frame);
+            return String.format("%s (%d, %d bytes)", type, this.codec.getMessageId(), frame.length);
+        }
+        catch (SerializationException | RuntimeException ex)
+        {
+            return "invalid frame (" + frame.length + " bytes)";
+        }
+    }
+
+}
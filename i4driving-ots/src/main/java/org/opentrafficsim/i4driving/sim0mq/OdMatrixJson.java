@@ -4,8 +4,10 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.function.BiFunction;
 
@@ -117,6 +119,21 @@ public class OdMatrixJson
     {
     }
 
+    /**
+     * Returns the ids of all origins and destinations.
+     * @return ids of all origins and destinations
+     */
+    public Set<String> getOriginsAndDestinations()
+    {
+        Set<String> ids = new LinkedHashSet<>();
+        for (DemandJson demand0 : this.demand)
+        {
+            ids.add(demand0.origin);
+            ids.add(demand0.destination);
+        }
+        return ids;
+    }
+
     /**
      * Returns an {@code OdMatrix} representation of the data in this {@code OdMatrix0mq}.
      * @param network network
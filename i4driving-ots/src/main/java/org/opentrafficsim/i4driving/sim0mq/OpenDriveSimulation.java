@@ -1,10 +1,11 @@
 package org.opentrafficsim.i4driving.sim0mq;
 
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
-import javax.xml.bind.JAXBException;
-import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamException;
 
 import org.djunits.unit.SpeedUnit;
 import org.djunits.value.vdouble.scalar.Speed;
@@ -18,6 +19,7 @@ import org.opentrafficsim.core.gtu.GtuType;
 import org.opentrafficsim.core.network.NetworkException;
 import org.opentrafficsim.core.network.Node;
 import org.opentrafficsim.core.network.route.Route;
+import org.opentrafficsim.i4driving.opendrive.OpenDriveNetworkCache;
 import org.opentrafficsim.i4driving.opendrive.OpenDriveParser;
 import org.opentrafficsim.i4driving.tactical.ScenarioTacticalPlannerFactory;
 import org.opentrafficsim.road.gtu.generator.characteristics.LaneBasedGtuCharacteristics;
@@ -27,7 +29,6 @@ import org.opentrafficsim.road.gtu.lane.tactical.util.lmrs.LmrsParameters;
 import org.opentrafficsim.road.gtu.strategical.LaneBasedStrategicalRoutePlannerFactory;
 import org.opentrafficsim.road.network.RoadNetwork;
 import org.opentrafficsim.road.od.Category;
-import org.xml.sax.SAXException;
 
 import nl.tudelft.simulation.jstats.streams.StreamInterface;
 
@@ -59,18 +60,30 @@ public class OpenDriveSimulation implements Sim0mqSimulation
      * @param tacticalFactory tactical planner factory
      * @param networkString OpenDRIVE string
      * @param useRoadName whether to use the road name to identify origins and destinations
-     * @throws JAXBException
-     * @throws SAXException
-     * @throws ParserConfigurationException
+     * @param networkCache cache of OpenDRIVE networks, may be {@code null} to parse the network string without cache
+     * @param corridorRoads roads around which a corridor of the network is built, {@code null} to build the entire network
+     * @param corridorRoutes shortest routes by their first and last road, of which the roads are in the corridor, may be
+     *            {@code null}
+     * @param corridorDepth number of links followed outward from the corridor roads
+     * @param parallelism number of threads to derive the network and conflicts with
+     * @throws XMLStreamException
      * @throws NetworkException
      * @throws OtsGeometryException
      * @throws GtuException
      */
     public OpenDriveSimulation(final OtsSimulatorInterface simulator, final ScenarioTacticalPlannerFactory tacticalFactory,
-            final String networkString, final boolean useRoadName) throws JAXBException, SAXException,
-            ParserConfigurationException, NetworkException, OtsGeometryException, GtuException
+            final String networkString, final boolean useRoadName, final OpenDriveNetworkCache networkCache,
+            final Set<String> corridorRoads, final List<List<String>> corridorRoutes, final int corridorDepth,
+            final int parallelism)
+            throws XMLStreamException, NetworkException, OtsGeometryException, GtuException
     {
-        this.parser = OpenDriveParser.parseFileString(networkString).setUseRoadName(useRoadName);
+        OpenDriveParser openDriveParser = networkCache == null ? OpenDriveParser.readFileString(networkString)
+                : networkCache.getParser(networkString, parallelism);
+        this.parser = openDriveParser.setUseRoadName(useRoadName).setParallelism(parallelism);
+        if (corridorRoads != null)
+        {
+            this.parser.setCorridorRoads(corridorRoads).setCorridorRoutes(corridorRoutes).setCorridorDepth(corridorDepth);
+        }
         this.network = new RoadNetwork("OtsOpenDriveNetwork", simulator);
         this.parser.build(this.network);
 
@@ -81,9 +94,13 @@ public class OpenDriveSimulation implements Sim0mqSimulation
         this.parameterFactory = new ParameterFactorySim0mq();
         this.parameterFactory.addParameter(DefaultsNl.CAR, LmrsParameters.VGAIN, new Speed(35.0, SpeedUnit.KM_PER_HOUR));
 
-        // GTU characteristics generator
-        GtuType.registerTemplateSupplier(DefaultsNl.CAR, Defaults.NL);
-        GtuCharacteristics gtucharacteristicsCar = GtuType.defaultCharacteristics(DefaultsNl.CAR, this.network, stream);
+        // GTU characteristics generator (templates are stored statically, shared by all sessions in the JVM)
+        GtuCharacteristics gtucharacteristicsCar;
+        synchronized (GtuType.class)
+        {
+            GtuType.registerTemplateSupplier(DefaultsNl.CAR, Defaults.NL);
+            gtucharacteristicsCar = GtuType.defaultCharacteristics(DefaultsNl.CAR, this.network, stream);
+        }
         this.registeredGtuTypes.put(DefaultsNl.CAR, gtucharacteristicsCar);
         LaneBasedStrategicalRoutePlannerFactory stratFactory =
                 new LaneBasedStrategicalRoutePlannerFactory(tacticalFactory, this.parameterFactory);
@@ -97,9 +114,12 @@ public class OpenDriveSimulation implements Sim0mqSimulation
                         category.getCategorization().entails(GtuType.class) ? category.get(GtuType.class) : DefaultsNl.CAR;
                 if (!OpenDriveSimulation.this.registeredGtuTypes.containsKey(gtuType))
                 {
-                    GtuType.registerTemplateSupplier(gtuType, Defaults.NL);
-                    OpenDriveSimulation.this.registeredGtuTypes.put(gtuType,
-                            GtuType.defaultCharacteristics(DefaultsNl.CAR, OpenDriveSimulation.this.network, stream));
+                    synchronized (GtuType.class)
+                    {
+                        GtuType.registerTemplateSupplier(gtuType, Defaults.NL);
+                        OpenDriveSimulation.this.registeredGtuTypes.put(gtuType,
+                                GtuType.defaultCharacteristics(DefaultsNl.CAR, OpenDriveSimulation.this.network, stream));
+                    }
                 }
                 GtuCharacteristics gtucharacteristics = OpenDriveSimulation.this.registeredGtuTypes.get(gtuType);
 
@@ -1,9 +1,10 @@
 package org.opentrafficsim.i4driving.sim0mq;
 
 import java.awt.Dimension;
-import java.lang.reflect.Field;
+import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.nio.file.Path;
 import java.rmi.RemoteException;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -15,11 +16,15 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
 import java.util.function.Function;
 
 import javax.naming.NamingException;
 import javax.xml.bind.JAXBException;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamException;
 
 import org.djunits.unit.SpeedUnit;
 import org.djunits.value.vdouble.scalar.Acceleration;
@@ -28,14 +33,13 @@ import org.djunits.value.vdouble.scalar.Duration;
 import org.djunits.value.vdouble.scalar.Length;
 import org.djunits.value.vdouble.scalar.Speed;
 import org.djunits.value.vdouble.scalar.Time;
-import org.djunits.value.vfloat.vector.FloatAccelerationVector;
-import org.djunits.value.vfloat.vector.FloatDurationVector;
-import org.djunits.value.vfloat.vector.FloatLengthVector;
 import org.djutils.cli.CliUtil;
 import org.djutils.draw.point.OrientedPoint2d;
 import org.djutils.event.Event;
 import org.djutils.event.EventListener;
 import org.djutils.event.EventType;
+import org.djutils.exceptions.Throw;
+import org.djutils.exceptions.Try;
 import org.djutils.immutablecollections.ImmutableList;
 import org.djutils.logger.CategoryLogger;
 import org.djutils.metadata.MetaData;
@@ -43,6 +47,8 @@ import org.djutils.serialization.EndianUtil;
 import org.djutils.serialization.SerializationException;
 import org.djutils.serialization.TypedMessage;
 import org.djutils.serialization.serializers.Serializer;
+import org.djutils.stats.summarizers.Tally;
+import org.djutils.stats.summarizers.quantileaccumulator.TDigestAccumulator;
 import org.opentrafficsim.animation.colorer.SynchronizationColorer;
 import org.opentrafficsim.animation.gtu.colorer.AccelerationGtuColorer;
 import org.opentrafficsim.animation.gtu.colorer.GtuColorer;
@@ -72,8 +78,11 @@ import org.opentrafficsim.draw.OtsDrawingException;
 import org.opentrafficsim.i4driving.messages.Commands;
 import org.opentrafficsim.i4driving.messages.DefaultGson;
 import org.opentrafficsim.i4driving.object.ActiveModeCrossing;
+import org.opentrafficsim.i4driving.opendrive.OpenDriveNetworkCache;
+import org.opentrafficsim.i4driving.sim0mq.Sim0mqCodec.Quantity;
 import org.opentrafficsim.i4driving.tactical.CommandsHandler;
-import org.opentrafficsim.i4driving.tactical.NetworkUtil;
+import org.opentrafficsim.i4driving.tactical.LaneIndex;
+import org.opentrafficsim.i4driving.tactical.OtsInternals;
 import org.opentrafficsim.i4driving.tactical.ScenarioTacticalPlanner;
 import org.opentrafficsim.i4driving.tactical.ScenarioTacticalPlannerFactory;
 import org.opentrafficsim.road.definitions.DefaultsRoadNl;
@@ -132,6 +141,31 @@ public class OtsTransceiver
     @Option(names = "--port", description = "Port number", defaultValue = "5556")
     private int port;
 
+    /** Memory-mapped file to exchange messages through, instead of the port. */
+    @Option(names = "--sharedMemory",
+            description = "Exchange messages through this memory-mapped file with a client on the same host, instead of on "
+                    + "the port. With multiple sessions the port of the session is appended to the file name.")
+    private Path sharedMemory;
+
+    /** File to record all received and sent messages in. */
+    @Option(names = "--record",
+            description = "Record all received and sent messages in this file, for replay by MessageReplay. With multiple "
+                    + "sessions the port of the session is appended to the file name.")
+    private Path record;
+
+    /** Number of sessions. */
+    @Option(names = "--sessions",
+            description = "Number of isolated co-simulation sessions, each on its own port counting up from --port.",
+            defaultValue = "1")
+    private int sessions;
+
+    /** Number of threads per session to derive OpenDRIVE networks and conflicts with. */
+    @Option(names = "--parserThreads",
+            description = "Number of threads per session to derive OpenDRIVE networks and conflicts with. "
+                    + "With 0 the available processors are divided over the sessions.",
+            defaultValue = "0")
+    private int parserThreads;
+
     /** Show GUI. */
     @Option(names = "--no-gui", description = "Whether to show GUI", defaultValue = "false", negatable = true) // false=default
     private boolean showGui;
@@ -145,6 +179,41 @@ public class OtsTransceiver
             defaultValue = "false")
     private boolean useRoadName;
 
+    /** Whether to execute PROGRESS steps synchronously on the worker thread. */
+    @Option(names = "--lockStep", description = "Execute PROGRESS steps synchronously on the worker thread.",
+            defaultValue = "false")
+    private boolean lockStep;
+
+    /** Whether to run on a non-animated simulator, executing PROGRESS steps directly on the worker thread. */
+    @Option(names = "--headless",
+            description = "Run on a non-animated simulator, executing PROGRESS steps directly on the worker thread. "
+                    + "This excludes the GUI and real-time START messages.",
+            defaultValue = "false")
+    private boolean headless;
+
+    /** Whether to send all plans of a PROGRESS step in a single PLANS message. */
+    @Option(names = "--batchPlans", description = "Send all plans of a PROGRESS step in a single PLANS message.",
+            defaultValue = "false")
+    private boolean batchPlans;
+
+    /** Directory to store compiled OpenDRIVE networks in. */
+    @Option(names = "--networkCacheDir",
+            description = "Directory to store compiled OpenDRIVE networks in, next to keeping them in memory.")
+    private Path networkCacheDir;
+
+    /** Number of links followed outward from the roads in ROUTES and ODMATRIX messages, negative for the entire network. */
+    @Option(names = "--corridorDepth",
+            description = "Only build the OpenDRIVE roads within this number of links from the roads in ROUTES and ODMATRIX "
+                    + "messages. Negative values build the entire network.",
+            defaultValue = "-1")
+    private int corridorDepth;
+
+    /** Cache of compiled OpenDRIVE networks, such that NETWORK and RESET messages do not parse the same network again. */
+    private OpenDriveNetworkCache networkCache;
+
+    /** Number of sessions that have not terminated. */
+    private final AtomicInteger activeSessions = new AtomicInteger();
+
     /** Mixed in model arguments. */
     @Mixin
     private ScenarioTacticalPlannerFactory tacticalFactory = new ScenarioTacticalPlannerFactory();
@@ -157,6 +226,11 @@ public class OtsTransceiver
     protected OtsTransceiver(final String... args) throws Exception
     {
         CliUtil.execute(this, args);
+        OtsInternals.verify();
+        Throw.when(this.headless && this.showGui, IllegalArgumentException.class, "A GUI cannot be shown in headless mode.");
+        Throw.when(this.sessions < 1, IllegalArgumentException.class, "Number of sessions should be at least 1.");
+        Throw.when(this.parserThreads < 0, IllegalArgumentException.class, "Number of parser threads may not be negative.");
+        this.networkCache = new OpenDriveNetworkCache(this.networkCacheDir);
     }
 
     /**
@@ -170,11 +244,40 @@ public class OtsTransceiver
     }
 
     /**
-     * Starts worker thread.
+     * Starts a worker thread for each session. Sessions share the cache of OpenDRIVE networks, but nothing else.
      */
     private void start()
     {
-        new Worker().start();
+        CategoryLogger.setAllLogLevel(Level.DEBUG);
+        CategoryLogger.setAllLogMessageFormat("[{date: YYYY-MM-dd HH:mm:ss.SSS}] " + (this.sessions > 1 ? "{thread} " : "")
+                + "{level}: {message}");
+        this.activeSessions.set(this.sessions);
+        for (int session = 0; session < this.sessions; session++)
+        {
+            new Worker(this.port + session).start();
+        }
+    }
+
+    /**
+     * Returns the number of threads per session to derive OpenDRIVE networks and conflicts with.
+     * @return number of threads per session to derive OpenDRIVE networks and conflicts with
+     */
+    private int getParserThreads()
+    {
+        return this.parserThreads > 0 ? this.parserThreads
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / this.sessions);
+    }
+
+    /**
+     * Returns the file of a session, which is the given file with the port of the session appended when there are multiple
+     * sessions.
+     * @param file file from the command line
+     * @param sessionPort port of the session
+     * @return file of the session
+     */
+    private Path getSessionFile(final Path file, final int sessionPort)
+    {
+        return this.sessions == 1 ? file : file.resolveSibling(file.getFileName() + "." + sessionPort);
     }
 
     /**
@@ -192,15 +295,50 @@ public class OtsTransceiver
         /** */
         private static final long serialVersionUID = 20241210L;
 
+        /** Port of the session. */
+        private final int port;
+
+        /** Tactical planner factory of the session, with the settings from the command line. */
+        private final ScenarioTacticalPlannerFactory tacticalFactory = OtsTransceiver.this.tacticalFactory.copy();
+
         /** */
         private ZContext context;
 
         /** the socket. */
         private ZMQ.Socket responder;
 
+        /** Socket on which the worker thread is woken up when a message is queued. */
+        private ZMQ.Socket wakeReceiver;
+
+        /** Socket to wake up the worker thread from the simulator thread, access synchronized on itself. */
+        private ZMQ.Socket wakeSender;
+
+        /** Shared memory channel, {@code null} when messages are exchanged through the responder socket. */
+        private SharedMemoryChannel channel;
+
+        /** Recorder of received and sent messages, {@code null} when messages are not recorded. */
+        private MessageRecorder recorder;
+
+        /** Condition to stop waiting for a message on the shared memory channel. */
+        private final BooleanSupplier wakeUp = () -> !this.queue.isEmpty() || isInterrupted();
+
         /** Messages to be sent. */
         private ConcurrentLinkedQueue<QueuedMessage> queue = new ConcurrentLinkedQueue<>();
 
+        /** Latency between receiving a PROGRESS message and sending the READY message, in ms. */
+        private Tally progressLatency = new Tally("PROGRESS request-to-READY latency [ms]", new TDigestAccumulator());
+
+        /** System time in ns at which the last PROGRESS message was received. */
+        private long progressReceivedTime;
+
+        /** Decoder of received messages, only used by this worker thread. */
+        private final Sim0mqCodec decoder = new Sim0mqCodec(OtsTransceiver.this.bigEndian, OtsTransceiver.this.federation,
+                OtsTransceiver.this.ots, OtsTransceiver.this.client);
+
+        /** Encoder of sent messages, per thread as messages are sent from the worker thread and the simulator thread. */
+        private final ThreadLocal<Sim0mqCodec> encoder = ThreadLocal.withInitial(() -> new Sim0mqCodec(
+                OtsTransceiver.this.bigEndian, OtsTransceiver.this.federation, OtsTransceiver.this.ots, OtsTransceiver.this.client));
+
         /** Next message id. */
         private int messageId = 0;
 
@@ -225,8 +363,11 @@ public class OtsTransceiver
         /** GTU spawner. */
         private GtuSpawnerOd gtuSpawner;
 
-        /** Simulator. */
-        private OtsAnimator simulator;
+        /** Lane index of the network. */
+        private LaneIndex laneIndex;
+
+        /** Simulator, an {@code OtsAnimator} unless in headless mode. */
+        private OtsSimulatorInterface simulator;
 
         /** Network. */
         private RoadNetwork network;
@@ -240,6 +381,9 @@ public class OtsTransceiver
         /** Ids of GTUs for which plan messages are sent. */
         private Set<String> planGtuIds = new LinkedHashSet<>();
 
+        /** Plans collected during a PROGRESS step when plans are sent in batch. */
+        private PlanBatch planBatch = new PlanBatch();
+
         /** Ids of GTUs that are externally controlled. */
         private Set<String> externalGtuIds = new LinkedHashSet<>();
 
@@ -261,198 +405,436 @@ public class OtsTransceiver
         /** Message id of the last progress message. */
         private int progressMessageId;
 
+        /**
+         * Constructor.
+         * @param port port of the session
+         */
+        protected Worker(final int port)
+        {
+            super("Ots session " + port);
+            this.port = port;
+        }
+
         /** {@inheritDoc} */
         @Override
         public void run()
         {
-            this.context = new ZContext(1);
-            this.responder = this.context.createSocket(SocketType.PAIR);
-            this.responder.bind("tcp://*:" + port);
-            CategoryLogger.setAllLogLevel(Level.DEBUG);
-            CategoryLogger.setAllLogMessageFormat("[{date: YYYY-MM-dd HH:mm:ss.SSS}] {level}: {message}");
-            CategoryLogger.always().debug("Ots is running");
+            ZMQ.Poller poller = null;
+            int responderIndex = -1;
+            int wakeIndex = -1;
+            if (OtsTransceiver.this.sharedMemory == null)
+            {
+                this.context = new ZContext(1);
+                this.responder = this.context.createSocket(SocketType.PAIR);
+                this.responder.bind("tcp://*:" + this.port);
+                this.wakeReceiver = this.context.createSocket(SocketType.PAIR);
+                this.wakeReceiver.bind(WAKE_ENDPOINT + hashCode());
+                this.wakeSender = this.context.createSocket(SocketType.PAIR);
+                this.wakeSender.connect(WAKE_ENDPOINT + hashCode());
+                poller = this.context.createPoller(2);
+                responderIndex = poller.register(this.responder, ZMQ.Poller.POLLIN);
+                wakeIndex = poller.register(this.wakeReceiver, ZMQ.Poller.POLLIN);
+                CategoryLogger.always().debug("Ots is running on port {}", this.port);
+            }
 
             try
             {
+                if (OtsTransceiver.this.sharedMemory != null)
+                {
+                    Path file = getSessionFile(OtsTransceiver.this.sharedMemory, this.port);
+                    this.channel = SharedMemoryChannel.create(file, SharedMemoryChannel.DEFAULT_CAPACITY);
+                    CategoryLogger.always().debug("Ots is running on shared memory file {}", file);
+                }
+                if (OtsTransceiver.this.record != null)
+                {
+                    Path file = getSessionFile(OtsTransceiver.this.record, this.port);
+                    this.recorder = new MessageRecorder(file);
+                    CategoryLogger.always().debug("Ots is recording messages in {}", file);
+                }
+
                 // Note on synchronicity and possible dead-locks:
                 // OTS is single-threaded. All changes during the simulation should be scheduled in the simulator. All messages
-                // sent back from a notification from simulation, should be queued for the Worker thread in the queue.
+                // sent back from a notification from simulation, should be queued for the Worker thread in the queue. Queuing a
+                // message wakes up the poller through the inproc wake-up socket, or unparks the worker thread when waiting on
+                // the shared memory channel, so no sleep-polling is required.
                 while (!Thread.currentThread().isInterrupted())
                 {
-                    // Wait for next request from the client
-                    byte[] request = null;
-                    request = this.responder.recv(ZMQ.DONTWAIT);
-                    while (request == null)
+                    // Wait for next request from the client, or for queued messages to be sent
+                    if (this.recorder != null)
+                    {
+                        this.recorder.flush();
+                    }
+                    byte[] request;
+                    if (this.channel != null)
                     {
-                        QueuedMessage send = this.queue.poll();
-                        while (send != null)
+                        request = this.channel.receive(this.wakeUp);
+                        sendQueuedMessages();
+                    }
+                    else
+                    {
+                        if (poller.poll(-1) < 0)
                         {
-                            this.responder.send(send.message(), ZMQ.DONTWAIT);
-                            if (send.log() != null)
-                            {
-                                CategoryLogger.always().debug("[q] " + send.log());
-                            }
-                            send = this.queue.poll();
+                            break; // context terminated or thread interrupted
                         }
-
-                        try
+                        if (poller.pollin(wakeIndex))
                         {
-                            // In order to allow resources to go to other processes, we sleep before checking again
-                            Thread.sleep(3);
+                            while (this.wakeReceiver.recv(ZMQ.DONTWAIT) != null)
+                            {
+                                // drain wake-up signals, the queue itself holds the messages
+                            }
                         }
-                        catch (InterruptedException e)
+                        sendQueuedMessages();
+                        if (!poller.pollin(responderIndex))
                         {
+                            continue;
                         }
                         request = this.responder.recv(ZMQ.DONTWAIT);
                     }
-                    // Sim0MQMessage message = Sim0MQMessage.decode(request);
-                    Object[] array = TypedMessage.decode(request, OBJECT_DECODERS,
-                            request[11] == 1 ? EndianUtil.BIG_ENDIAN : EndianUtil.LITTLE_ENDIAN);
-                    Sim0MQMessage message = new Sim0MQMessage(array, array.length - 8, array[5]);
-                    if ("EXTERNAL".equals(message.getMessageTypeId()))
+                    if (request == null)
                     {
-                        Object[] payload = message.createObjectArray();
-                        int index = 8;
-                        String id = (String) payload[index++];
-                        Length x = (Length) payload[index++];
-                        Length y = (Length) payload[index++];
-                        Direction direction = (Direction) payload[index++];
-                        Speed speed = (Speed) payload[index++];
-                        Acceleration acceleration = (Acceleration) payload[index++];
-                        OrientedPoint2d loc = new OrientedPoint2d(x.si, y.si, direction.si);
+                        continue;
+                    }
+                    record(false, request);
+                    // Frequent messages are read directly from the bytes, others are decoded to a Sim0MQMessage
+                    String messageType = this.decoder.decode(request);
+                    if ("EXTERNAL".equals(messageType))
+                    {
+                        String id = this.decoder.readString();
+                        double x = this.decoder.readScalar();
+                        double y = this.decoder.readScalar();
+                        double direction = this.decoder.readScalar();
+                        Speed speed = Speed.instantiateSI(this.decoder.readScalar());
+                        Acceleration acceleration = Acceleration.instantiateSI(this.decoder.readScalar());
+                        OrientedPoint2d loc = new OrientedPoint2d(x, y, direction);
                         if (this.activeIds.containsKey(id))
                         {
-                            this.simulator.scheduleEventNow(this, "updateActiveModeObject", new Object[] {id, loc, speed});
+                            this.simulator.scheduleEventNow(() -> updateActiveModeObject(id, loc, speed));
                         }
                         else
                         {
-                            this.simulator.scheduleEventNow(this, "scheduledDeadReckoning",
-                                    new Object[] {id, loc, speed, acceleration});
+                            this.simulator.scheduleEventNow(() -> scheduledDeadReckoning(id, loc, speed, acceleration));
                         }
                         CategoryLogger.always().debug("Ots received EXTERNAL message for GTU " + id);
                     }
-                    else if ("VEHICLE".equals(message.getMessageTypeId()))
+                    else if ("EXTERNAL_BATCH".equals(messageType))
+                    {
+                        // int n, n x String id, and vectors for x, y, direction, speed and acceleration
+                        int n = this.decoder.readInt();
+                        String[] ids = new String[n];
+                        for (int i = 0; i < n; i++)
+                        {
+                            ids[i] = this.decoder.readString();
+                        }
+                        float[] x = this.decoder.readFloatVector();
+                        float[] y = this.decoder.readFloatVector();
+                        float[] direction = this.decoder.readFloatVector();
+                        float[] speed = this.decoder.readFloatVector();
+                        float[] acceleration = this.decoder.readFloatVector();
+                        this.simulator
+                                .scheduleEventNow(() -> scheduledDeadReckoningBatch(ids, x, y, direction, speed, acceleration));
+                        CategoryLogger.always().debug("Ots received EXTERNAL_BATCH message for {} GTUs", n);
+                    }
+                    else if ("VEHICLE".equals(messageType))
                     {
-                        Object[] payload = message.createObjectArray();
+                        Object[] payload = decodeMessage(request).createObjectArray();
                         int index = 8;
                         String id = (String) payload[index++];
                         CategoryLogger.always().debug("Ots received VEHICLE message for GTU " + id);
                         generateVehicle(payload, true);
                     }
-                    else if ("MODE".equals(message.getMessageTypeId()))
+                    else if ("MODE".equals(messageType))
                     {
-                        Object[] payload = message.createObjectArray();
-                        String id = (String) payload[8];
+                        String id = this.decoder.readString();
                         CategoryLogger.always().debug("Ots received MODE message for GTU " + id);
-                        String mode = (String) payload[9];
-                        this.simulator.scheduleEventNow(this, "scheduledChangeControlMode", new Object[] {id, mode});
+                        String mode = this.decoder.readString();
+                        this.simulator.scheduleEventNow(() -> scheduledChangeControlMode(id, mode));
                     }
-                    else if ("COMMAND".equals(message.getMessageTypeId()))
+                    else if ("COMMAND".equals(messageType))
                     {
-                        Object[] payload = message.createObjectArray();
-                        String id = (String) payload[8];
+                        String id = this.decoder.readString();
                         CategoryLogger.always().debug("Ots received COMMAND message for GTU " + id);
-                        String json = (String) payload[9];
-                        this.simulator.scheduleEventNow(this, "scheduledPerformCommand", new Object[] {id, json});
+                        String json = this.decoder.readString();
+                        this.simulator.scheduleEventNow(() -> scheduledPerformCommand(id, json));
                     }
-                    else if ("DELETE".equals(message.getMessageTypeId()))
+                    else if ("DELETE".equals(messageType))
                     {
-                        Object[] payload = message.createObjectArray();
-                        String id = (String) payload[8];
+                        String id = this.decoder.readString();
                         CategoryLogger.always().debug("Ots received DELETE message for GTU " + id);
                         this.deleteGtuIds.add(id);
-                        this.simulator.scheduleEventNow(this, "scheduledDelete", new Object[] {id});
+                        this.simulator.scheduleEventNow(() -> scheduledDelete(id));
                     }
-                    else if ("ROUTES".equals(message.getMessageTypeId()))
+                    else if ("ROUTES".equals(messageType))
                     {
                         CategoryLogger.always().debug("Ots received ROUTES message");
-                        Object[] payload = message.createObjectArray();
-                        this.lastRoutesJson = DefaultGson.GSON.fromJson((String) payload[8], RoutesJson.class);
-                        sentReadyMessage((int) message.createObjectArray()[6], false);
+                        this.lastRoutesJson = DefaultGson.GSON.fromJson(this.decoder.readString(), RoutesJson.class);
+                        sentReadyMessage(this.decoder.getMessageId(), false);
                     }
-                    else if ("ODMATRIX".equals(message.getMessageTypeId()))
+                    else if ("ODMATRIX".equals(messageType))
                     {
                         CategoryLogger.always().debug("Ots received ODMATRIX message");
-                        Object[] payload = message.createObjectArray();
-                        this.lastOdJson = DefaultGson.GSON.fromJson((String) payload[8], OdMatrixJson.class);
-                        sentReadyMessage((int) message.createObjectArray()[6], false);
+                        this.lastOdJson = DefaultGson.GSON.fromJson(this.decoder.readString(), OdMatrixJson.class);
+                        sentReadyMessage(this.decoder.getMessageId(), false);
                     }
-                    else if ("NETWORK".equals(message.getMessageTypeId()))
+                    else if ("NETWORK".equals(messageType))
                     {
                         CategoryLogger.always().debug("Ots received NETWORK message");
-                        this.lastNetworkMessage = message;
+                        this.lastNetworkMessage = decodeMessage(request);
                         setupSimulation();
-                        sentReadyMessage((int) message.createObjectArray()[6], false);
+                        sentReadyMessage(this.decoder.getMessageId(), false);
                     }
-                    else if ("START".equals(message.getMessageTypeId()))
+                    else if ("START".equals(messageType))
                     {
                         CategoryLogger.always().debug("Ots received START message");
-                        this.simulator.setSpeedFactor(1.0);
-                        if (this.simulator != null && !this.simulator.isStartingOrRunning())
+                        if (this.simulator instanceof OtsAnimator animator)
                         {
-                            this.simulator.start();
+                            animator.setSpeedFactor(1.0);
+                            if (!animator.isStartingOrRunning())
+                            {
+                                animator.start();
+                            }
+                        }
+                        else if (this.simulator != null)
+                        {
+                            CategoryLogger.always().warn("Ignoring START message, headless mode only runs PROGRESS steps.");
                         }
                     }
-                    else if ("STOP".equals(message.getMessageTypeId()))
+                    else if ("STOP".equals(messageType))
                     {
                         CategoryLogger.always().debug("Ots received STOP message");
                         stopSimulation();
                         clearSimulationSetupData();
                     }
-                    else if ("RESET".equals(message.getMessageTypeId()))
+                    else if ("RESET".equals(messageType))
                     {
                         CategoryLogger.always().debug("Ots received RESET message");
                         setupSimulation();
-                        sentReadyMessage((int) message.createObjectArray()[6], false);
+                        sentReadyMessage(this.decoder.getMessageId(), false);
                     }
-                    else if ("TERMINATE".equals(message.getMessageTypeId()))
+                    else if ("TERMINATE".equals(messageType))
                     {
                         CategoryLogger.always().debug("Ots received TERMINATE message");
                         stopSimulation();
                         clearSimulationSetupData();
                         break;
                     }
-                    else if ("PROGRESS".equals(message.getMessageTypeId()))
+                    else if ("PROGRESS".equals(messageType))
                     {
-                        Object[] payload = message.createObjectArray();
-                        Duration until = (Duration) payload[8];
+                        Duration until = Duration.instantiateSI(this.decoder.readScalar());
+                        this.progressReceivedTime = System.nanoTime();
                         CategoryLogger.always().debug("Ots received PROGRESS message until {}", until);
-                        this.simulator.setSpeedFactor(1000.0);
-                        while (this.simulator.isStartingOrRunning())
+                        if (OtsTransceiver.this.lockStep || OtsTransceiver.this.headless)
                         {
+                            // Lock-step: run the simulator on this thread, READY is queued by PROGRESSED_EVENT
+                            this.progressMessageId = this.decoder.getMessageId();
+                            this.runUntil = until;
+                            this.simulator.scheduleEventAbs(until, () -> fireProgressedEvent());
                             try
                             {
-                                // Simulator is still stopping from previous step
-                                System.out.println("Waiting for next PROGRESS");
-                                Thread.sleep(3);
+                                ((LockStepSimulator) this.simulator).advanceTo(until);
+                            }
+                            catch (RuntimeException ex)
+                            {
+                                // as on the simulator thread, a failing event does not end the session
+                                CategoryLogger.always().error(ex, "Event failed during PROGRESS until {}.", until);
                             }
-                            catch (InterruptedException e)
+                            if (this.runUntil != null)
                             {
+                                // replication ended before the PROGRESS time
+                                this.runUntil = null;
+                                sentProgressReadyMessage();
                             }
+                            sendQueuedMessages();
+                        }
+                        else
+                        {
+                            ((OtsAnimator) this.simulator).setSpeedFactor(1000.0);
+                            while (this.simulator.isStartingOrRunning())
+                            {
+                                try
+                                {
+                                    // Simulator is still stopping from previous step
+                                    System.out.println("Waiting for next PROGRESS");
+                                    Thread.sleep(3);
+                                }
+                                catch (InterruptedException e)
+                                {
+                                }
+                            }
+                            this.progressMessageId = this.decoder.getMessageId();
+                            this.runUntil = until;
+                            this.simulator.scheduleEventAbs(until, () -> fireProgressedEvent());
+                            this.simulator.runUpToAndIncluding(until);
                         }
-                        this.simulator.scheduleEventAbs(until, () -> fireProgressedEvent());
-                        this.simulator.runUpToAndIncluding(until);
-                        this.progressMessageId = (int) payload[6];
-                        this.runUntil = until;
                     }
                     else
                     {
-                        System.err.println("Cannot process a " + message.getMessageTypeId() + " message.");
+                        System.err.println("Cannot process a " + messageType + " message.");
                     }
                 }
             }
-            catch (Sim0MQException | SerializationException | NumberFormatException | GtuException | OtsGeometryException
-                    | NetworkException | RemoteException | DsolException | OtsDrawingException | SimRuntimeException
-                    | NamingException | ParameterException | JAXBException | SAXException | ParserConfigurationException
-                    | IllegalAccessException | InvocationTargetException e)
+            catch (Sim0MQException | SerializationException | GtuException | OtsGeometryException | NetworkException
+                    | IOException | DsolException | OtsDrawingException | NamingException | ParameterException | JAXBException
+                    | SAXException | ParserConfigurationException | IllegalAccessException | InvocationTargetException
+                    | RuntimeException e)
             {
                 e.printStackTrace();
             }
-            this.responder.close();
-            this.context.destroy();
-            this.context.close();
-            CategoryLogger.always().debug("Ots terminated");
-            System.exit(0);
+            finally
+            {
+                close(poller);
+            }
+        }
+
+        /**
+         * Closes the resources of the session, and exits when this was the last active session.
+         * @param poller poller of the socket, {@code null} when messages are exchanged through the shared memory channel
+         */
+        private void close(final ZMQ.Poller poller)
+        {
+            reportProgressLatency();
+            if (this.recorder != null)
+            {
+                try
+                {
+                    this.recorder.close();
+                }
+                catch (IOException ex)
+                {
+                    CategoryLogger.always().error(ex, "Unable to close message recording.");
+                }
+            }
+            if (this.channel != null)
+            {
+                this.channel.close();
+            }
+            else if (this.context != null)
+            {
+                poller.close();
+                this.wakeReceiver.close();
+                synchronized (this.wakeSender)
+                {
+                    this.wakeSender.close();
+                }
+                this.responder.close();
+                this.context.destroy();
+                this.context.close();
+            }
+            CategoryLogger.always().debug("Ots terminated on port {}", this.port);
+            if (OtsTransceiver.this.activeSessions.decrementAndGet() == 0)
+            {
+                System.exit(0);
+            }
+        }
+
+        /**
+         * Decodes a message in full, for messages with a payload that is not read directly from the bytes.
+         * @param request message bytes
+         * @return decoded message
+         * @throws Sim0MQException when the message is not a valid Sim0MQ message
+         * @throws SerializationException when the message cannot be deserialized
+         */
+        private Sim0MQMessage decodeMessage(final byte[] request) throws Sim0MQException, SerializationException
+        {
+            Object[] array = TypedMessage.decode(request, OBJECT_DECODERS,
+                    request[11] == 1 ? EndianUtil.BIG_ENDIAN : EndianUtil.LITTLE_ENDIAN);
+            return new Sim0MQMessage(array, array.length - 8, array[5]);
+        }
+
+        /**
+         * Sends a message to the client, through the responder socket or the shared memory channel. This is only to be invoked
+         * from the worker thread, which owns the responder socket.
+         * @param message message
+         */
+        private void send(final byte[] message)
+        {
+            record(true, message);
+            if (this.channel != null)
+            {
+                this.channel.send(message);
+            }
+            else
+            {
+                this.responder.send(message, ZMQ.DONTWAIT);
+            }
+        }
+
+        /**
+         * Records a received or sent message, if messages are recorded. When recording fails, recording is stopped.
+         * @param outbound whether the message is sent, or received
+         * @param message message
+         */
+        private void record(final boolean outbound, final byte[] message)
+        {
+            if (this.recorder != null)
+            {
+                try
+                {
+                    this.recorder.record(outbound, this.simulator == null || this.simulator.getSimulatorTime() == null
+                            ? Double.NaN : this.simulator.getSimulatorTime().si, message);
+                }
+                catch (IOException ex)
+                {
+                    CategoryLogger.always().error(ex, "Unable to record message, recording is stopped.");
+                    this.recorder = null;
+                }
+            }
+        }
+
+        /**
+         * Sends all queued messages. This is only to be invoked from the worker thread, which owns the responder socket.
+         */
+        private void sendQueuedMessages()
+        {
+            QueuedMessage send = this.queue.poll();
+            while (send != null)
+            {
+                send(send.message());
+                if (send.progressReady())
+                {
+                    this.progressLatency.register((System.nanoTime() - this.progressReceivedTime) / 1.0e6);
+                }
+                if (send.log() != null)
+                {
+                    CategoryLogger.always().debug("[q] " + send.log());
+                }
+                send = this.queue.poll();
+            }
+        }
+
+        /**
+         * Queues a message to be sent by the worker thread, and wakes up the worker thread. This may be invoked from any thread.
+         * @param message queued message
+         */
+        private void queueMessage(final QueuedMessage message)
+        {
+            this.queue.add(message);
+            if (this.channel != null)
+            {
+                LockSupport.unpark(this);
+            }
+            else
+            {
+                synchronized (this.wakeSender)
+                {
+                    this.wakeSender.send(WAKE_SIGNAL, ZMQ.DONTWAIT);
+                }
+            }
+        }
+
+        /**
+         * Reports the PROGRESS latency statistics gathered so far, and resets them.
+         */
+        private void reportProgressLatency()
+        {
+            if (this.progressLatency.getN() > 0)
+            {
+                CategoryLogger.always().info(String.format("%s: n=%d, mean=%.3f, p50=%.3f, p90=%.3f, p99=%.3f, max=%.3f",
+                        this.progressLatency.getDescription(), this.progressLatency.getN(),
+                        this.progressLatency.getPopulationMean(), this.progressLatency.getQuantile(0.5),
+                        this.progressLatency.getQuantile(0.9), this.progressLatency.getQuantile(0.99),
+                        this.progressLatency.getMax()));
+                this.progressLatency.initialize();
+            }
         }
 
         /**
@@ -482,7 +864,8 @@ public class OtsTransceiver
             {
                 if (running)
                 {
-                    this.simulator.scheduleEventNow(this, "addActiveModeObject", new Object[] {id, position, initSpeed});
+                    this.simulator.scheduleEventNow(() -> Try.execute(() -> addActiveModeObject(id, position, initSpeed),
+                            "Unable to add active mode object %s.", id));
                 }
                 else
                 {
@@ -507,8 +890,8 @@ public class OtsTransceiver
             this.externallyGeneratedGtuId = id;
             if (running)
             {
-                this.simulator.scheduleEventNow(this, "spawnGtu", new Object[] {id, gtuType, vehicleLength, vehicleWidth,
-                        refToNose, route, initSpeed, position, mode, parameterMap});
+                this.simulator.scheduleEventNow(() -> Try.execute(() -> spawnGtu(id, gtuType, vehicleLength, vehicleWidth,
+                        refToNose, route, initSpeed, position, mode, parameterMap), "Unable to spawn GTU %s.", id));
             }
             else
             {
@@ -556,7 +939,7 @@ public class OtsTransceiver
                 {
                     if (!singleShot)
                     {
-                        OtsTransceiver.this.tacticalFactory.setSingleShotMode();
+                        this.tacticalFactory.setSingleShotMode();
                         singleShot = true;
                     }
                     String methodName = "set" + parameter.substring(2).toLowerCase();
@@ -566,21 +949,21 @@ public class OtsTransceiver
                         {
                             if (method.getParameterTypes()[0].equals(boolean.class))
                             {
-                                method.invoke(OtsTransceiver.this.tacticalFactory, (boolean) value);
+                                method.invoke(this.tacticalFactory, (boolean) value);
                             }
                             else if (method.getParameterTypes()[0].equals(int.class))
                             {
-                                method.invoke(OtsTransceiver.this.tacticalFactory, (int) value);
+                                method.invoke(this.tacticalFactory, (int) value);
                             }
                             else if (method.getParameterTypes()[0].equals(double.class))
                             {
-                                method.invoke(OtsTransceiver.this.tacticalFactory, (double) value);
+                                method.invoke(this.tacticalFactory, (double) value);
                             }
                             else if (method.getParameterTypes()[0].isEnum())
                             {
                                 @SuppressWarnings("unchecked")
                                 Class<T> clazz = (Class<T>) method.getParameterTypes()[0];
-                                method.invoke(OtsTransceiver.this.tacticalFactory, Enum.valueOf(clazz, (String) value));
+                                method.invoke(this.tacticalFactory, Enum.valueOf(clazz, (String) value));
                             }
                             else
                             {
@@ -607,7 +990,7 @@ public class OtsTransceiver
                 this.planGtuIds.add(id);
             }
             this.gtuSpawner.spawnGtu(id, gtuType, vehicleLength, vehicleWidth, refToNose, route, initSpeed, position);
-            OtsTransceiver.this.tacticalFactory.resetMode();
+            this.tacticalFactory.resetMode();
             setParameters.forEach((p) -> this.parameterFactory.clearParameterValue(p));
             scheduledChangeControlMode(id, mode);
         }
@@ -622,7 +1005,7 @@ public class OtsTransceiver
         private void addActiveModeObject(final String id, final OrientedPoint2d location, final Speed speed)
                 throws NetworkException
         {
-            LanePosition position = NetworkUtil.getLanePosition(this.network, location);
+            LanePosition position = this.laneIndex.getLanePosition(location);
             ActiveModeCrossing crossing = new ActiveModeCrossing(position, false);
             this.activeIds.put(id, crossing);
             updateActiveModeObject(id, location, speed);
@@ -662,7 +1045,6 @@ public class OtsTransceiver
          * Scheduled delete running in the simulator.
          * @param id GTU id
          */
-        @SuppressWarnings("unused") // scheduled
         private void scheduledDelete(final String id)
         {
             this.network.getGTU(id).destroy();
@@ -675,7 +1057,6 @@ public class OtsTransceiver
          * @param speed speed
          * @param acceleration acceleration
          */
-        @SuppressWarnings("unused") // scheduled
         private void scheduledDeadReckoning(final String id, final OrientedPoint2d loc, final Speed speed,
                 final Acceleration acceleration)
         {
@@ -686,12 +1067,39 @@ public class OtsTransceiver
             }
         }
 
+        /**
+         * Method that runs scheduled in the simulator to apply dead reckoning for a batch of GTUs, and to update active mode
+         * objects in the batch. All arrays are of equal length, and values are in SI units.
+         * @param ids GTU ids
+         * @param x x coordinates
+         * @param y y coordinates
+         * @param direction directions
+         * @param speed speeds
+         * @param acceleration accelerations
+         */
+        private void scheduledDeadReckoningBatch(final String[] ids, final float[] x, final float[] y,
+                final float[] direction, final float[] speed, final float[] acceleration)
+        {
+            for (int i = 0; i < ids.length; i++)
+            {
+                OrientedPoint2d loc = new OrientedPoint2d(x[i], y[i], direction[i]);
+                if (this.activeIds.containsKey(ids[i]))
+                {
+                    updateActiveModeObject(ids[i], loc, Speed.instantiateSI(speed[i]));
+                }
+                else
+                {
+                    scheduledDeadReckoning(ids[i], loc, Speed.instantiateSI(speed[i]),
+                            Acceleration.instantiateSI(acceleration[i]));
+                }
+            }
+        }
+
         /**
          * Perform command on GTU.
          * @param id GTU id
          * @param json JSON string of command
          */
-        @SuppressWarnings("unused") // scheduled
         private void scheduledPerformCommand(final String id, final String json)
         {
             Commands.Command command = this.gson.fromJson(json, Commands.Command.class);
@@ -750,23 +1158,15 @@ public class OtsTransceiver
          */
         private void sentReadyMessage(final int msgId, final boolean queued) throws RemoteException
         {
-            try
+            byte[] bytes = this.encoder.get().start("READY", this.messageId++).writeInt(msgId).finishToArray();
+            if (queued)
             {
-                byte[] bytes = Sim0MQMessage.encodeUTF8(OtsTransceiver.this.bigEndian, OtsTransceiver.this.federation,
-                        OtsTransceiver.this.ots, OtsTransceiver.this.client, "READY", this.messageId++, new Object[] {msgId});
-                if (queued)
-                {
-                    this.queue.add(new QueuedMessage(bytes, String.format("[%.3fs] Ots sent READY message for PROGRESS (%d)",
-                            this.simulator.getSimulatorTime().si, msgId)));
-                }
-                else
-                {
-                    this.responder.send(bytes, ZMQ.DONTWAIT);
-                }
+                queueMessage(new QueuedMessage(bytes, String.format("[%.3fs] Ots sent READY message for PROGRESS (%d)",
+                        this.simulator.getSimulatorTime().si, msgId), true));
             }
-            catch (Sim0MQException | SerializationException ex)
+            else
             {
-                throw new RemoteException("Exception while sending operational plan.", ex);
+                send(bytes);
             }
         }
 
@@ -790,13 +1190,20 @@ public class OtsTransceiver
          */
         private void stopSimulation()
         {
+            reportProgressLatency();
             if (this.simulator != null && !this.simulator.isStoppingOrStopped())
             {
                 this.simulator.stop();
                 this.simulator = null;
                 this.network = null;
+                this.laneIndex = null;
+            }
+            if (this.tacticalFactory.getParallelPerception() != null)
+            {
+                this.tacticalFactory.getParallelPerception().shutdown();
             }
             this.planGtuIds.clear();
+            this.planBatch.clear();
             this.externalGtuIds.clear();
             this.commandHandlers.clear();
             if (this.app != null)
@@ -818,6 +1225,42 @@ public class OtsTransceiver
             this.preStartVehiclePayloads.clear();
         }
 
+        /**
+         * Returns the roads in the last ROUTES and ODMATRIX messages, around which a corridor of the network is built.
+         * @return roads around which a corridor of the network is built, {@code null} to build the entire network
+         */
+        private Set<String> getCorridorRoads()
+        {
+            if (OtsTransceiver.this.corridorDepth < 0 || (this.lastRoutesJson == null && this.lastOdJson == null))
+            {
+                return null;
+            }
+            Set<String> corridorRoads = new LinkedHashSet<>();
+            if (this.lastRoutesJson != null)
+            {
+                corridorRoads.addAll(this.lastRoutesJson.getObjectIds());
+            }
+            if (this.lastOdJson != null)
+            {
+                corridorRoads.addAll(this.lastOdJson.getOriginsAndDestinations());
+            }
+            return corridorRoads;
+        }
+
+        /**
+         * Returns the shortest routes in the last ROUTES message, of which the roads on the shortest path between the first and
+         * last road are in the corridor of the network.
+         * @return shortest routes by their objects, {@code null} when the entire network is built or there are no routes
+         */
+        private List<List<String>> getCorridorRoutes()
+        {
+            if (OtsTransceiver.this.corridorDepth < 0 || this.lastRoutesJson == null)
+            {
+                return null;
+            }
+            return this.lastRoutesJson.getShortestRouteObjects();
+        }
+
         /**
          * Setup simulation.
          * @throws GtuException exception
@@ -846,7 +1289,8 @@ public class OtsTransceiver
             }
 
             // An animator supports real-time running. No GUI will be shown if no animation panel is created.
-            this.simulator = new OtsAnimator("Test animator");
+            this.simulator = OtsTransceiver.this.headless ? new LockStepSimulator.Headless("Headless simulator")
+                    : new LockStepSimulator.Animated("Test animator");
             // this.simulator.addListener(this, SimulatorInterface.STOP_EVENT);
             this.simulator.addListener(this, PROGRESSED_EVENT);
 
@@ -867,7 +1311,9 @@ public class OtsTransceiver
                 simulationType =
                         (short) payload[7] > 1 ? SimulationType.valueOf((String) payload[9]) : SimulationType.OPEN_DRIVE;
             }
-            CoSimModel model = new CoSimModel(this.simulator, simulationString, simulationType);
+            CoSimModel model =
+                    new CoSimModel(this.simulator, simulationString, simulationType, getCorridorRoads(), getCorridorRoutes(),
+                            this.tacticalFactory);
             Duration runtime = simulationType == null ? Duration.instantiateSI(60.0) : Duration.instantiateSI(36000.0);
             this.simulator.initialize(Time.ZERO, Duration.ZERO, runtime, model);
             this.simulator.getReplication().setHistoryManager(
@@ -875,7 +1321,8 @@ public class OtsTransceiver
             this.network = (RoadNetwork) model.getNetwork();
             this.characteristicsGeneratorOd = model.getSim0mqSimulation().getGtuCharacteristicsGeneratorOd();
             this.parameterFactory = model.getSim0mqSimulation().getParameterFactory();
-            this.gtuSpawner = new GtuSpawnerOd(this.network, this.characteristicsGeneratorOd);
+            this.laneIndex = new LaneIndex(this.network);
+            this.gtuSpawner = new GtuSpawnerOd(this.network, this.laneIndex, this.characteristicsGeneratorOd);
 
             listenToEvents();
 
@@ -886,7 +1333,7 @@ public class OtsTransceiver
                         new AccelerationGtuColorer(Acceleration.instantiateSI(-6.0), Acceleration.instantiateSI(2)),
                         new SynchronizationColorer());
                 OtsAnimationPanel animationPanel = new OtsAnimationPanel(this.network.getExtent(), new Dimension(100, 100),
-                        this.simulator, model, colorer, this.network);
+                        (OtsAnimator) this.simulator, model, colorer, this.network);
                 animationPanel.enableSimulationControlButtons();
                 this.app = new OtsSimulationApplication<AbstractOtsModel>(model, animationPanel);
             }
@@ -927,7 +1374,14 @@ public class OtsTransceiver
                     return;
                 }
                 // TODO check that the GTU is not dead-reckoning as part of the hybrid mode
-                sendOperationalPlanMessage(gtuId);
+                if (OtsTransceiver.this.batchPlans && this.runUntil != null)
+                {
+                    collectOperationalPlan(gtuId);
+                }
+                else
+                {
+                    sendOperationalPlanMessage(gtuId);
+                }
             }
             else if (eventType.equals(Network.GTU_ADD_EVENT))
             {
@@ -935,7 +1389,8 @@ public class OtsTransceiver
                 Gtu gtu = this.network.getGTU(gtuId);
                 if (!gtuId.equals(this.externallyGeneratedGtuId))
                 {
-                    this.simulator.scheduleEventNow(this, "sendVehicleMessage", new Object[] {gtu});
+                    this.simulator.scheduleEventNow(() -> Try.execute(() -> sendVehicleMessage(gtu),
+                            "Unable to send VEHICLE message for GTU %s.", gtuId));
                     this.planGtuIds.add(gtuId);
                     this.externallyGeneratedGtuId = null;
                 }
@@ -947,6 +1402,7 @@ public class OtsTransceiver
                 Gtu gtu = this.network.getGTU(gtuId);
                 gtu.removeListener(this, LaneBasedGtu.LANEBASED_MOVE_EVENT);
                 this.planGtuIds.remove(gtuId);
+                this.planBatch.remove(gtuId);
                 this.externalGtuIds.remove(gtuId);
                 ActiveModeCrossing crossing = this.activeIds.remove(gtuId);
                 if (crossing != null)
@@ -964,7 +1420,7 @@ public class OtsTransceiver
                 if (this.runUntil != null) // && this.simulator.getSimulatorTime().eq(this.runUntil))
                 {
                     this.runUntil = null;
-                    sentReadyMessage(this.progressMessageId, true);
+                    sentProgressReadyMessage();
                 }
                 // if not, stopped for some other reason, perhaps a stop button in the GUI
             }
@@ -975,17 +1431,30 @@ public class OtsTransceiver
                     System.err.println("PROGRESSED_EVENT but no runUntil value");
                 }
                 this.runUntil = null;
-                sentReadyMessage(this.progressMessageId, true);
+                sentProgressReadyMessage();
             }
         }
 
+        /**
+         * Queues the READY message for the last PROGRESS message, preceded by a PLANS message with plans collected during the
+         * step, if any.
+         * @throws RemoteException exception
+         */
+        private void sentProgressReadyMessage() throws RemoteException
+        {
+            if (!this.planBatch.isEmpty())
+            {
+                sendPlansMessage();
+            }
+            sentReadyMessage(this.progressMessageId, true);
+        }
+
         /**
          * Sent VEHICLE message.
          * @param gtu
          * @throws Sim0MQException
          * @throws SerializationException
          */
-        @SuppressWarnings("unused") // scheduled
         private void sendVehicleMessage(final Gtu gtu) throws Sim0MQException, SerializationException
         {
             String gtuId = gtu.getId();
@@ -999,7 +1468,7 @@ public class OtsTransceiver
                     OtsTransceiver.this.ots, OtsTransceiver.this.client, "VEHICLE", this.messageId++, payload);
             String log = String.format("[%.3fs] Ots sent VEHICLE message for GTU %s on route %s",
                     this.simulator.getSimulatorTime().si, gtuId, routeId);
-            this.queue.add(new QueuedMessage(bytes, log));
+            queueMessage(new QueuedMessage(bytes, log, false));
         }
 
         /**
@@ -1016,67 +1485,81 @@ public class OtsTransceiver
                 // Do not sent plan upon a move triggered by external control
                 return;
             }
-            Speed speed = plan.getStartSpeed();
             OtsLine2d line = plan.getPath();
-            float[] x = new float[line.size()];
-            float[] y = new float[line.size()];
-            try
+            ImmutableList<Segment> segments = plan.getOperationalPlanSegmentList();
+            Sim0mqCodec codec = this.encoder.get();
+            codec.start("PLAN", this.messageId++).writeString(gtuId).writeScalar(Quantity.SPEED, plan.getStartSpeed().si);
+            codec.startFloatVector(Quantity.LENGTH, line.size());
+            for (int i = 0; i < line.size(); i++)
             {
-                for (int i = 0; i < line.size(); i++)
-                {
-                    x[i] = (float) line.get(i).x;
-                    y[i] = (float) line.get(i).y;
-                }
+                codec.putFloat((float) line.getLine2d().getX(i));
             }
-            catch (OtsGeometryException ex)
+            codec.startFloatVector(Quantity.LENGTH, line.size());
+            for (int i = 0; i < line.size(); i++)
             {
-                throw new RemoteException("Unable to obtain coordinate from path.", ex);
+                codec.putFloat((float) line.getLine2d().getY(i));
             }
-            ImmutableList<Segment> segments = plan.getOperationalPlanSegmentList();
-            float[] t = new float[segments.size()];
-            float[] a = new float[segments.size()];
+            codec.startFloatVector(Quantity.DURATION, segments.size());
             for (int i = 0; i < segments.size(); i++)
             {
-                t[i] = (float) segments.get(i).duration().si;
-                a[i] = (float) segments.get(i).acceleration().si;
+                codec.putFloat((float) segments.get(i).duration().si);
             }
-
-            Object[] payload = new Object[7];
-            payload[0] = gtuId;
-            payload[1] = speed;
-            payload[2] = new FloatLengthVector(x);
-            payload[3] = new FloatLengthVector(y);
-            payload[4] = new FloatDurationVector(t);
-            payload[5] = new FloatAccelerationVector(a);
-            switch (((LaneBasedGtu) gtu).getTurnIndicatorStatus())
+            codec.startFloatVector(Quantity.ACCELERATION, segments.size());
+            for (int i = 0; i < segments.size(); i++)
             {
-                case LEFT:
-                    payload[6] = "Left";
-                    break;
-                case RIGHT:
-                    payload[6] = "Right";
-                    break;
-                case NONE:
-                    payload[6] = "None";
-                    break;
-                case HAZARD:
-                    payload[6] = "Both";
-                    break;
-                default:
-                    payload[6] = "None";
+                codec.putFloat((float) segments.get(i).acceleration().si);
             }
+            byte[] bytes = codec.writeString(getIndicator((LaneBasedGtu) gtu)).finishToArray();
+            String log = String.format("[%.3fs] Ots sent PLAN message for GTU %s (a=%.3fm/s^2)",
+                    this.simulator.getSimulatorTime().si, gtuId, segments.get(0).acceleration().si);
+            queueMessage(new QueuedMessage(bytes, log, false));
+        }
 
-            try
+        /**
+         * Collects the plan of a GTU, to be sent in a PLANS message at the end of the PROGRESS step.
+         * @param gtuId GTU id
+         */
+        private void collectOperationalPlan(final String gtuId)
+        {
+            Gtu gtu = this.network.getGTU(gtuId);
+            OperationalPlan plan = ((ScenarioTacticalPlanner) gtu.getTacticalPlanner()).pullLastIntendedPlan();
+            if (plan != null)
             {
-                byte[] bytes = Sim0MQMessage.encodeUTF8(OtsTransceiver.this.bigEndian, OtsTransceiver.this.federation,
-                        OtsTransceiver.this.ots, OtsTransceiver.this.client, "PLAN", this.messageId++, payload);
-                String log =
-                        String.format("[%.3fs] Ots sent PLAN message for GTU %s (a=%.3fm/s^2)", this.simulator.getSimulatorTime().si, gtuId, a[0]);
-                this.queue.add(new QueuedMessage(bytes, log));
+                this.planBatch.add(gtuId, plan, getIndicator((LaneBasedGtu) gtu));
             }
-            catch (Sim0MQException | SerializationException ex)
+        }
+
+        /**
+         * Send all collected plans in a single PLANS message.
+         * @throws RemoteException exception
+         */
+        private void sendPlansMessage() throws RemoteException
+        {
+            int n = this.planBatch.size();
+            Sim0mqCodec codec = this.encoder.get().start("PLANS", this.messageId++);
+            this.planBatch.pull(codec);
+            String log = String.format("[%.3fs] Ots sent PLANS message for %d GTUs", this.simulator.getSimulatorTime().si, n);
+            queueMessage(new QueuedMessage(codec.finishToArray(), log, false));
+        }
+
+        /**
+         * Returns the indicator status as used in PLAN and PLANS messages.
+         * @param gtu GTU
+         * @return indicator status, "Left", "Right", "None" or "Both"
+         */
+        private String getIndicator(final LaneBasedGtu gtu)
+        {
+            switch (gtu.getTurnIndicatorStatus())
             {
-                throw new RemoteException("Exception while sending operational plan.", ex);
+                case LEFT:
+                    return "Left";
+                case RIGHT:
+                    return "Right";
+                case HAZARD:
+                    return "Both";
+                case NONE:
+                default:
+                    return "None";
             }
         }
 
@@ -1087,20 +1570,9 @@ public class OtsTransceiver
          */
         private void sendDeleteMessage(final String gtuId) throws RemoteException
         {
-            Object[] payload = new Object[1];
-            payload[0] = gtuId;
-            try
-            {
-                byte[] bytes = Sim0MQMessage.encodeUTF8(OtsTransceiver.this.bigEndian, OtsTransceiver.this.federation,
-                        OtsTransceiver.this.ots, OtsTransceiver.this.client, "DELETE", this.messageId++, payload);
-                String log = String.format("[%.3fs] Ots sent DELETE message for GTU %s", this.simulator.getSimulatorTime().si,
-                        gtuId);
-                this.queue.add(new QueuedMessage(bytes, log));
-            }
-            catch (Sim0MQException | SerializationException ex)
-            {
-                throw new RemoteException("Exception while sending operational plan.", ex);
-            }
+            byte[] bytes = this.encoder.get().start("DELETE", this.messageId++).writeString(gtuId).finishToArray();
+            String log = String.format("[%.3fs] Ots sent DELETE message for GTU %s", this.simulator.getSimulatorTime().si, gtuId);
+            queueMessage(new QueuedMessage(bytes, log, false));
         }
 
         /**
@@ -1118,7 +1590,15 @@ public class OtsTransceiver
          */
         private void fireProgressedEvent()
         {
-            this.simulator.fireEvent(PROGRESSED_EVENT);
+            try
+            {
+                this.simulator.fireEvent(PROGRESSED_EVENT);
+            }
+            catch (RemoteException ex)
+            {
+                // local simulators do not throw this
+                throw new RuntimeException(ex);
+            }
         }
     }
 
@@ -1136,6 +1616,15 @@ public class OtsTransceiver
         /** Network type. */
         private final SimulationType simulationType;
 
+        /** Roads around which a corridor of the network is built, {@code null} to build the entire network. */
+        private final Set<String> corridorRoads;
+
+        /** Shortest routes by their objects, of which the roads are in the corridor, may be {@code null}. */
+        private final List<List<String>> corridorRoutes;
+
+        /** Tactical planner factory. */
+        private final ScenarioTacticalPlannerFactory tacticalFactory;
+
         /** Simulation. */
         private Sim0mqSimulation simulation;
 
@@ -1144,13 +1633,20 @@ public class OtsTransceiver
          * @param simulator simulator
          * @param simulationString network string
          * @param simulationType network type
+         * @param corridorRoads roads around which a corridor of the network is built, {@code null} to build the entire network
+         * @param corridorRoutes shortest routes by their objects, of which the roads are in the corridor, may be {@code null}
+         * @param tacticalFactory tactical planner factory
          */
         private CoSimModel(final OtsSimulatorInterface simulator, final String simulationString,
-                final SimulationType simulationType)
+                final SimulationType simulationType, final Set<String> corridorRoads, final List<List<String>> corridorRoutes,
+                final ScenarioTacticalPlannerFactory tacticalFactory)
         {
             super(simulator);
             this.simulationString = simulationString;
             this.simulationType = simulationType;
+            this.corridorRoads = corridorRoads;
+            this.corridorRoutes = corridorRoutes;
+            this.tacticalFactory = tacticalFactory;
         }
 
         @Override
@@ -1175,15 +1671,17 @@ public class OtsTransceiver
             {
                 if (this.simulationString == null)
                 {
-                    this.simulation = new TwoLaneTestSimulation(getSimulator(), OtsTransceiver.this.tacticalFactory);
+                    this.simulation = new TwoLaneTestSimulation(getSimulator(), this.tacticalFactory);
                 }
                 else
                 {
                     switch (this.simulationType)
                     {
                         case OPEN_DRIVE:
-                            this.simulation = new OpenDriveSimulation(this.simulator, OtsTransceiver.this.tacticalFactory,
-                                    this.simulationString, OtsTransceiver.this.useRoadName);
+                            this.simulation = new OpenDriveSimulation(this.simulator, this.tacticalFactory,
+                                    this.simulationString, OtsTransceiver.this.useRoadName,
+                                    OtsTransceiver.this.networkCache, this.corridorRoads, this.corridorRoutes,
+                                    OtsTransceiver.this.corridorDepth, getParserThreads());
                             break;
                         case FOSIM:
                             // TODO parse Fosim string
@@ -1196,8 +1694,7 @@ public class OtsTransceiver
                     }
                 }
             }
-            catch (GtuException | OtsGeometryException | NetworkException | JAXBException | SAXException
-                    | ParserConfigurationException ex)
+            catch (GtuException | OtsGeometryException | NetworkException | XMLStreamException ex)
             {
                 throw new SimRuntimeException(ex);
             }
@@ -1210,30 +1707,26 @@ public class OtsTransceiver
 
     static
     {
-        try
-        {
-            Field field = TypedMessage.class.getDeclaredField("OBJECT_DECODERS");
-            field.setAccessible(true);
-            @SuppressWarnings("unchecked")
-            Map<Byte, Serializer<?>> map = (Map<Byte, Serializer<?>>) field.get(TypedMessage.class);
-            map.forEach((b, s) ->
-            {
-                OBJECT_DECODERS.put(b, s);
-                OBJECT_DECODERS.put((byte) (b - 128), s);
-            });
-        }
-        catch (NoSuchFieldException | SecurityException | IllegalArgumentException | IllegalAccessException e)
+        OtsInternals.getTypedMessageObjectDecoders().forEach((b, s) ->
         {
-            e.printStackTrace();
-        }
+            OBJECT_DECODERS.put(b, s);
+            OBJECT_DECODERS.put((byte) (b - 128), s);
+        });
     }
 
+    /** Inproc endpoint prefix of the socket pair that wakes up the worker thread. */
+    private static final String WAKE_ENDPOINT = "inproc://ots-wake-";
+
+    /** Content of a wake-up signal. */
+    private static final byte[] WAKE_SIGNAL = new byte[0];
+
     /**
      * Queued messages.
      * @param message bytes of the message
      * @param log log entry to print when the message is sent
+     * @param progressReady whether this is the READY message in response to a PROGRESS message
      */
-    private record QueuedMessage(byte[] message, String log)
+    private record QueuedMessage(byte[] message, String log, boolean progressReady)
     {
     }
 
@@ -0,0 +1,167 @@
+package org.opentrafficsim.i4driving.sim0mq;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.djutils.draw.line.PolyLine2d;
+import org.opentrafficsim.core.gtu.plan.operational.OperationalPlan;
+import org.opentrafficsim.core.gtu.plan.operational.Segment;
+import org.opentrafficsim.i4driving.sim0mq.Sim0mqCodec.Quantity;
+
+/**
+ * Collects the operational plans of GTUs during a PROGRESS step, such that they can be sent in a single PLANS message. Only
+ * the last plan of each GTU is kept. The payload of the PLANS message is columnar:
+ * <ol>
+ * <li>{@code int} number of plans n</li>
+ * <li>n {@code String} GTU ids</li>
+ * <li>n {@code String} indicator status, "Left", "Right", "None" or "Both"</li>
+ * <li>{@code FloatDurationVector} plan start times (n)</li>
+ * <li>{@code FloatSpeedVector} plan start speeds (n)</li>
+ * <li>{@code int[]} path offsets (n + 1), points of plan i are at indices [offset[i], offset[i + 1])</li>
+ * <li>{@code FloatLengthVector} x coordinates of all paths</li>
+ * <li>{@code FloatLengthVector} y coordinates of all paths</li>
+ * <li>{@code int[]} segment offsets (n + 1), segments of plan i are at indices [offset[i], offset[i + 1])</li>
+ * <li>{@code FloatDurationVector} durations of all segments</li>
+ * <li>{@code FloatAccelerationVector} accelerations of all segments</li>
+ * </ol>
+ * @author wjschakel
+ */
+class PlanBatch
+{
+
+    /** Last plan per GTU id. */
+    private final Map<String, BatchedPlan> plans = new LinkedHashMap<>();
+
+    /**
+     * Adds, or replaces, the plan of a GTU.
+     * @param gtuId GTU id
+     * @param plan operational plan
+     * @param indicator indicator status
+     */
+    public void add(final String gtuId, final OperationalPlan plan, final String indicator)
+    {
+        // remove first, so the order is that of the last plan
+        this.plans.remove(gtuId);
+        this.plans.put(gtuId, new BatchedPlan(plan, indicator));
+    }
+
+    /**
+     * Removes the plan of a GTU, e.g. when it is deleted.
+     * @param gtuId GTU id
+     */
+    public void remove(final String gtuId)
+    {
+        this.plans.remove(gtuId);
+    }
+
+    /**
+     * Removes all plans.
+     */
+    public void clear()
+    {
+        this.plans.clear();
+    }
+
+    /**
+     * Returns whether there are no plans.
+     * @return whether there are no plans
+     */
+    public boolean isEmpty()
+    {
+        return this.plans.isEmpty();
+    }
+
+    /**
+     * Returns the number of plans.
+     * @return number of plans
+     */
+    public int size()
+    {
+        return this.plans.size();
+    }
+
+    /**
+     * Writes the payload of a PLANS message from all collected plans in the codec, and clears the plans.
+     * @param codec codec with a started PLANS message
+     */
+    public void pull(final Sim0mqCodec codec)
+    {
+        int n = this.plans.size();
+        int numPoints = 0;
+        int numSegments = 0;
+        int[] pathOffsets = new int[n + 1];
+        int[] segmentOffsets = new int[n + 1];
+        int i = 0;
+        codec.writeInt(n);
+        for (String gtuId : this.plans.keySet())
+        {
+            codec.writeString(gtuId);
+        }
+        for (BatchedPlan batchedPlan : this.plans.values())
+        {
+            codec.writeString(batchedPlan.indicator());
+            numPoints += batchedPlan.plan().getPath().size();
+            numSegments += batchedPlan.plan().getOperationalPlanSegmentList().size();
+            i++;
+            pathOffsets[i] = numPoints;
+            segmentOffsets[i] = numSegments;
+        }
+        codec.startFloatVector(Quantity.DURATION, n);
+        for (BatchedPlan batchedPlan : this.plans.values())
+        {
+            codec.putFloat((float) batchedPlan.plan().getStartTime().si);
+        }
+        codec.startFloatVector(Quantity.SPEED, n);
+        for (BatchedPlan batchedPlan : this.plans.values())
+        {
+            codec.putFloat((float) batchedPlan.plan().getStartSpeed().si);
+        }
+        codec.writeIntArray(pathOffsets, n + 1);
+        codec.startFloatVector(Quantity.LENGTH, numPoints);
+        for (BatchedPlan batchedPlan : this.plans.values())
+        {
+            PolyLine2d line = batchedPlan.plan().getPath().getLine2d();
+            for (int j = 0; j < line.size(); j++)
+            {
+                codec.putFloat((float) line.getX(j));
+            }
+        }
+        codec.startFloatVector(Quantity.LENGTH, numPoints);
+        for (BatchedPlan batchedPlan : this.plans.values())
+        {
+            PolyLine2d line = batchedPlan.plan().getPath().getLine2d();
+            for (int j = 0; j < line.size(); j++)
+            {
+                codec.putFloat((float) line.getY(j));
+            }
+        }
+        codec.writeIntArray(segmentOffsets, n + 1);
+        codec.startFloatVector(Quantity.DURATION, numSegments);
+        for (BatchedPlan batchedPlan : this.plans.values())
+        {
+            for (Segment segment : batchedPlan.plan().getOperationalPlanSegmentList())
+            {
+                codec.putFloat((float) segment.duration().si);
+            }
+        }
+        codec.startFloatVector(Quantity.ACCELERATION, numSegments);
+        for (BatchedPlan batchedPlan : this.plans.values())
+        {
+            for (Segment segment : batchedPlan.plan().getOperationalPlanSegmentList())
+            {
+                codec.putFloat((float) segment.acceleration().si);
+            }
+        }
+        this.plans.clear();
+    }
+
+    /**
+     * Plan with indicator status at the time the plan was made.
+     * @param plan operational plan
+     * @param indicator indicator status
+     */
+    private record BatchedPlan(OperationalPlan plan, String indicator)
+    {
+    }
+
+}
@@ -1,6 +1,8 @@
 package org.opentrafficsim.i4driving.sim0mq;
 
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.djutils.exceptions.Throw;
 import org.opentrafficsim.core.gtu.GtuType;
@@ -34,6 +36,26 @@ public class RoutesJson
         private boolean shortest = false;
     }
 
+    /**
+     * Returns the ids of all objects in the routes.
+     * @return ids of all objects in the routes
+     */
+    public Set<String> getObjectIds()
+    {
+        Set<String> objectIds = new LinkedHashSet<>();
+        this.routes.forEach((routeJson) -> objectIds.addAll(routeJson.objects));
+        return objectIds;
+    }
+
+    /**
+     * Returns the objects of the routes that use the shortest route, of which only the first and last object are used.
+     * @return objects of the routes that use the shortest route
+     */
+    public List<List<String>> getShortestRouteObjects()
+    {
+        return this.routes.stream().filter((routeJson) -> routeJson.shortest).map((routeJson) -> routeJson.objects).toList();
+    }
+
     /**
      * Create routes, which stored in the network.
      * @param network road network
@@ -0,0 +1,414 @@
+package org.opentrafficsim.i4driving.sim0mq;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+import org.djutils.exceptions.Throw;
+import org.djutils.logger.CategoryLogger;
+
+/**
+ * Transport of Sim0MQ frames between two processes on the same host, through a memory-mapped file. The file contains two
+ * single-producer/single-consumer ring buffers, one for each direction. The server (OTS) creates the file, and the client
+ * (the external simulator) opens it. A frame is stored as its length, followed by its bytes, padded to a multiple of 4 bytes.
+ * Frames larger than the ring buffer are streamed through it, i.e. the consumer frees space while the producer is still
+ * writing. The read and write positions of each ring buffer are on separate cache lines, and are only accessed with
+ * acquire/release semantics.
+ * <p>
+ * Waiting for a frame, or for space in a ring buffer, first spins, then yields, and then parks the thread for short periods.
+ * Sending is synchronized such that multiple threads may send, while receiving is only to be done from a single thread. When
+ * the peer has closed the channel, frames that do not fit in the ring buffer are dropped.
+ * </p>
+ * @author wjschakel
+ */
+public final class SharedMemoryChannel implements AutoCloseable
+{
+
+    /** Magic number, set by the server when the file is initialized. */
+    private static final int MAGIC = 0x534D3051;
+
+    /** Default capacity of each ring buffer [bytes]. */
+    public static final int DEFAULT_CAPACITY = 1 << 22;
+
+    /** Position of the magic number. */
+    private static final int MAGIC_POS = 0;
+
+    /** Position of the capacity of each ring buffer. */
+    private static final int CAPACITY_POS = 8;
+
+    /** Position of the closed flags of the server and client. */
+    private static final int CLOSED_POS = 64;
+
+    /** Position of the read position of the first ring buffer, the others follow at {@code LINE} intervals. */
+    private static final int RING_POS = 128;
+
+    /** Distance between positions that are written by different threads, covering adjacent cache line prefetching. */
+    private static final int LINE = 128;
+
+    /** Size of the header of the file [bytes]. */
+    private static final int HEADER = 1024;
+
+    /** Number of spins while waiting, before yielding. Spinning is pointless with a single processor. */
+    private static final int SPINS = Runtime.getRuntime().availableProcessors() > 1 ? 1000 : 0;
+
+    /** Time of spinning and yielding while waiting, before parking [ns]. */
+    private static final long YIELD_NANOS = 1_000_000L;
+
+    /** Time of parking while waiting [ns]. */
+    private static final long PARK_NANOS = 100_000L;
+
+    /** Access to long values in the mapped buffer, with memory ordering. */
+    private static final VarHandle LONG = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    /** Access to int values in the mapped buffer, with memory ordering. */
+    private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+    /** File. */
+    private final Path file;
+
+    /** Whether this is the server side. */
+    private final boolean server;
+
+    /** File channel. */
+    private final FileChannel fileChannel;
+
+    /** Mapped buffer. */
+    private final MappedByteBuffer buffer;
+
+    /** Capacity of each ring buffer, a power of 2. */
+    private final int capacity;
+
+    /** Position of the read position of the ring buffer that is sent on, its write position is at {@code LINE} further. */
+    private final int sendRing;
+
+    /** Position of the data of the ring buffer that is sent on. */
+    private final int sendData;
+
+    /** Position of the read position of the ring buffer that is received on, its write position is at {@code LINE} further. */
+    private final int receiveRing;
+
+    /** Position of the data of the ring buffer that is received on. */
+    private final int receiveData;
+
+    /**
+     * Constructor.
+     * @param file file
+     * @param server whether this is the server side
+     * @param fileChannel file channel
+     * @param buffer mapped buffer
+     * @param capacity capacity of each ring buffer
+     */
+    private SharedMemoryChannel(final Path file, final boolean server, final FileChannel fileChannel,
+            final MappedByteBuffer buffer, final int capacity)
+    {
+        this.file = file;
+        this.server = server;
+        this.fileChannel = fileChannel;
+        this.buffer = buffer;
+        this.capacity = capacity;
+        this.sendRing = RING_POS + (server ? 0 : 2 * LINE);
+        this.sendData = HEADER + (server ? 0 : capacity);
+        this.receiveRing = RING_POS + (server ? 2 * LINE : 0);
+        this.receiveData = HEADER + (server ? capacity : 0);
+    }
+
+    /**
+     * Creates the file of the channel, replacing any existing file, as the server side of the channel.
+     * @param file file
+     * @param capacity capacity of each ring buffer [bytes], a power of 2 of at least 1024
+     * @return server side of the channel
+     * @throws IOException when the file cannot be created or mapped
+     */
+    public static SharedMemoryChannel create(final Path file, final int capacity) throws IOException
+    {
+        Throw.when(capacity < 1024 || Integer.bitCount(capacity) != 1, IllegalArgumentException.class,
+                "Capacity should be a power of 2 of at least 1024, got %d.", capacity);
+        FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        MappedByteBuffer buffer = fileChannel.map(MapMode.READ_WRITE, 0, HEADER + 2L * capacity);
+        INT.setVolatile(buffer, CAPACITY_POS, capacity);
+        INT.setRelease(buffer, MAGIC_POS, MAGIC);
+        return new SharedMemoryChannel(file, true, fileChannel, buffer, capacity);
+    }
+
+    /**
+     * Opens the file of the channel as the client side of the channel. This waits until the server has created the file.
+     * @param file file
+     * @param timeout maximum time to wait for the server [ms]
+     * @return client side of the channel
+     * @throws IOException when the file cannot be mapped, or the server did not create the file in time
+     */
+    public static SharedMemoryChannel open(final Path file, final long timeout) throws IOException
+    {
+        long deadline = System.currentTimeMillis() + timeout;
+        while (!Files.exists(file) || Files.size(file) < HEADER)
+        {
+            waitForServer(file, deadline);
+        }
+        FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer header = fileChannel.map(MapMode.READ_WRITE, 0, HEADER);
+        while ((int) INT.getAcquire(header, MAGIC_POS) != MAGIC)
+        {
+            waitForServer(file, deadline);
+        }
+        int capacity = (int) INT.getVolatile(header, CAPACITY_POS);
+        MappedByteBuffer buffer = fileChannel.map(MapMode.READ_WRITE, 0, HEADER + 2L * capacity);
+        return new SharedMemoryChannel(file, false, fileChannel, buffer, capacity);
+    }
+
+    /**
+     * Sleeps shortly while waiting for the server to create the file.
+     * @param file file
+     * @param deadline time until which is waited [ms]
+     * @throws IOException when the deadline has passed
+     */
+    private static void waitForServer(final Path file, final long deadline) throws IOException
+    {
+        if (System.currentTimeMillis() > deadline)
+        {
+            throw new IOException("Shared memory file " + file + " was not created by the server in time.");
+        }
+        LockSupport.parkNanos(10_000_000L);
+    }
+
+    /**
+     * Sends a frame. This waits while the ring buffer is full, unless the peer has closed the channel.
+     * @param frame frame
+     */
+    public synchronized void send(final byte[] frame)
+    {
+        int writePos = this.sendRing + LINE;
+        long tail = (long) LONG.getVolatile(this.buffer, writePos);
+        long end = tail + align(4 + frame.length);
+        if (!awaitSpace(tail, 4))
+        {
+            return;
+        }
+        INT.set(this.buffer, this.sendData + index(tail), frame.length);
+        tail += 4;
+        int offset = 0;
+        while (offset < frame.length)
+        {
+            long head = (long) LONG.getAcquire(this.buffer, this.sendRing);
+            int n = (int) Math.min(this.capacity - (tail - head), frame.length - offset);
+            if (n == 0)
+            {
+                // publish what is written, such that the consumer can free space for a large frame
+                LONG.setRelease(this.buffer, writePos, tail);
+                if (!awaitSpace(tail, 1))
+                {
+                    return;
+                }
+                continue;
+            }
+            copy(frame, offset, this.sendData, tail, n, true);
+            offset += n;
+            tail += n;
+        }
+        if (end > tail && !awaitSpace(tail, (int) (end - tail)))
+        {
+            return;
+        }
+        LONG.setRelease(this.buffer, writePos, end);
+    }
+
+    /**
+     * Waits until the ring buffer that is sent on has space for the given number of bytes.
+     * @param tail write position
+     * @param bytes number of bytes
+     * @return whether there is space, {@code false} if the peer has closed the channel
+     */
+    private boolean awaitSpace(final long tail, final int bytes)
+    {
+        int idle = 0;
+        long start = System.nanoTime();
+        while (this.capacity - (tail - (long) LONG.getAcquire(this.buffer, this.sendRing)) < bytes)
+        {
+            if (isPeerClosed())
+            {
+                return false;
+            }
+            idle = idle(idle, start);
+        }
+        return true;
+    }
+
+    /**
+     * Returns a frame if one is available.
+     * @return frame, {@code null} if no frame is available
+     */
+    public byte[] poll()
+    {
+        int writePos = this.receiveRing + LINE;
+        long head = (long) LONG.getVolatile(this.buffer, this.receiveRing);
+        long tail = (long) LONG.getAcquire(this.buffer, writePos);
+        if (tail == head)
+        {
+            return null;
+        }
+        byte[] frame = new byte[(int) INT.get(this.buffer, this.receiveData + index(head))];
+        long end = head + align(4 + frame.length);
+        head += 4;
+        int offset = 0;
+        int idle = 0;
+        long start = System.nanoTime();
+        while (offset < frame.length)
+        {
+            int n = (int) Math.min(tail - head, frame.length - offset);
+            if (n == 0)
+            {
+                // a large frame that is still being written, free space for the producer
+                LONG.setRelease(this.buffer, this.receiveRing, head);
+                idle = idle(idle, start);
+                tail = (long) LONG.getAcquire(this.buffer, writePos);
+                continue;
+            }
+            copy(frame, offset, this.receiveData, head, n, false);
+            offset += n;
+            head += n;
+        }
+        while ((long) LONG.getAcquire(this.buffer, writePos) < end)
+        {
+            idle = idle(idle, start);
+        }
+        LONG.setRelease(this.buffer, this.receiveRing, end);
+        return frame;
+    }
+
+    /**
+     * Waits for a frame, or until the wake-up condition is met.
+     * @param wakeUp condition to stop waiting without a frame, evaluated while waiting, e.g. when other work is available
+     * @return frame, {@code null} if the wake-up condition was met before a frame was available
+     */
+    public byte[] receive(final BooleanSupplier wakeUp)
+    {
+        int idle = 0;
+        long start = System.nanoTime();
+        byte[] frame = poll();
+        while (frame == null && !wakeUp.getAsBoolean())
+        {
+            idle = idle(idle, start);
+            frame = poll();
+        }
+        return frame;
+    }
+
+    /**
+     * Waits shortly. This spins, then yields, and then parks, depending on how long has been waited.
+     * @param idle number of times waited so far
+     * @param start system time at which waiting started [ns]
+     * @return number of times waited including this time
+     */
+    private static int idle(final int idle, final long start)
+    {
+        if (idle < SPINS)
+        {
+            Thread.onSpinWait();
+        }
+        else if (System.nanoTime() - start < YIELD_NANOS)
+        {
+            Thread.yield();
+        }
+        else
+        {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+        return idle + 1;
+    }
+
+    /**
+     * Copies bytes between a frame and a ring buffer, where the bytes may wrap around the end of the ring buffer.
+     * @param frame frame
+     * @param offset offset in the frame
+     * @param data position of the data of the ring buffer
+     * @param position position in the ring buffer, not wrapped
+     * @param length number of bytes
+     * @param write whether to write to the ring buffer, or read from it
+     */
+    private void copy(final byte[] frame, final int offset, final int data, final long position, final int length,
+            final boolean write)
+    {
+        int index = index(position);
+        int first = Math.min(length, this.capacity - index);
+        if (write)
+        {
+            this.buffer.put(data + index, frame, offset, first);
+            this.buffer.put(data, frame, offset + first, length - first);
+        }
+        else
+        {
+            this.buffer.get(data + index, frame, offset, first);
+            this.buffer.get(data, frame, offset + first, length - first);
+        }
+    }
+
+    /**
+     * Returns the index in a ring buffer of a position.
+     * @param position position, not wrapped
+     * @return index in a ring buffer of the position
+     */
+    private int index(final long position)
+    {
+        return (int) (position & (this.capacity - 1));
+    }
+
+    /**
+     * Returns the number of bytes rounded up to a multiple of 4, such that the length of a frame never wraps around.
+     * @param bytes number of bytes
+     * @return number of bytes rounded up to a multiple of 4
+     */
+    private static long align(final int bytes)
+    {
+        return (bytes + 3) & ~3L;
+    }
+
+    /**
+     * Returns whether the peer has closed the channel.
+     * @return whether the peer has closed the channel
+     */
+    public boolean isPeerClosed()
+    {
+        return (int) INT.getAcquire(this.buffer, CLOSED_POS + (this.server ? 4 : 0)) != 0;
+    }
+
+    /**
+     * Returns the capacity of each ring buffer.
+     * @return capacity of each ring buffer [bytes]
+     */
+    public int getCapacity()
+    {
+        return this.capacity;
+    }
+
+    /**
+     * Closes this side of the channel. The server deletes the file, which may fail on systems that do not allow deleting a
+     * file that is still mapped, in which case it is replaced when the server creates the channel again.
+     */
+    @Override
+    public void close()
+    {
+        INT.setRelease(this.buffer, CLOSED_POS + (this.server ? 0 : 4), 1);
+        try
+        {
+            this.fileChannel.close();
+            if (this.server)
+            {
+                Files.deleteIfExists(this.file);
+            }
+        }
+        catch (IOException ex)
+        {
+            CategoryLogger.always().warn("Unable to close shared memory file {}: {}", this.file, ex.getMessage());
+        }
+    }
+
+}
@@ -0,0 +1,574 @@
+package org.opentrafficsim.i4driving.sim0mq;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+import org.djunits.unit.AccelerationUnit;
+import org.djunits.unit.DirectionUnit;
+import org.djunits.unit.DurationUnit;
+import org.djunits.unit.LengthUnit;
+import org.djunits.unit.SpeedUnit;
+import org.djunits.unit.Unit;
+import org.djutils.exceptions.Throw;
+import org.djutils.serialization.DisplayType;
+import org.djutils.serialization.FieldTypes;
+import org.djutils.serialization.SerializationException;
+import org.djutils.serialization.SerializationUnits;
+
+/**
+ * Codec for Sim0MQ messages on the hot path of the transceiver. It reads and writes the fields that are used in frequent
+ * messages (ids, SI scalars, float vectors and int arrays) directly from the received bytes, and into a reusable direct
+ * {@code ByteBuffer}. There are no intermediate {@code Object[]} payloads, boxed values or djunits objects. The byte layout
+ * is identical to that of {@code Sim0MQMessage.encodeUTF8()} and {@code TypedMessage.decode()}, so both sides of a connection
+ * can mix this codec with the regular Sim0MQ classes.
+ * <p>
+ * A codec instance is not thread-safe. Use one instance per thread.
+ * </p>
+ * @author wjschakel
+ */
+public class Sim0mqCodec
+{
+
+    /** Magic number of Sim0MQ messages. */
+    private static final String MAGIC = "SIM02";
+
+    /** Initial capacity of the buffers. */
+    private static final int INITIAL_CAPACITY = 1 << 16;
+
+    /** Message types that are returned as constants when decoding, to prevent creating a new string for each message. */
+    private static final String[] MESSAGE_TYPES = {"EXTERNAL", "EXTERNAL_BATCH", "PROGRESS", "PLAN", "PLANS", "READY",
+            "VEHICLE", "MODE", "COMMAND", "DELETE", "ROUTES", "ODMATRIX", "NETWORK", "START", "STOP", "RESET", "TERMINATE"};
+
+    /** UTF-8 bytes of the message types. */
+    private static final byte[][] MESSAGE_TYPE_BYTES = new byte[MESSAGE_TYPES.length][];
+
+    static
+    {
+        for (int i = 0; i < MESSAGE_TYPES.length; i++)
+        {
+            MESSAGE_TYPE_BYTES[i] = MESSAGE_TYPES[i].getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    /** Byte order of encoded messages. */
+    private final ByteOrder byteOrder;
+
+    /** Encoded header fields: magic number, endianness, federation, sender and receiver. */
+    private final byte[] header;
+
+    /** Buffer to encode messages in. */
+    private ByteBuffer out;
+
+    /** Position of the number of fields in the encoded message. */
+    private int fieldCountPosition;
+
+    /** Number of payload fields written in the current message. */
+    private short fieldCount;
+
+    /** Buffer of the message being decoded. */
+    private ByteBuffer decoding;
+
+    /** Message id of the message being decoded. */
+    private int decodedMessageId;
+
+    /** Number of payload fields of the message being decoded. */
+    private int decodedFieldCount;
+
+    /**
+     * Constructor.
+     * @param bigEndian whether to encode messages in big-endian byte order
+     * @param federation federation id
+     * @param sender sender id
+     * @param receiver receiver id
+     */
+    public Sim0mqCodec(final boolean bigEndian, final String federation, final String sender, final String receiver)
+    {
+        this.byteOrder = bigEndian ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+        this.out = ByteBuffer.allocateDirect(INITIAL_CAPACITY).order(this.byteOrder);
+        writeString(MAGIC);
+        this.out.put(FieldTypes.BOOLEAN_8).put((byte) (bigEndian ? 1 : 0));
+        writeString(federation);
+        writeString(sender);
+        writeString(receiver);
+        this.header = new byte[this.out.position()];
+        this.out.flip().get(this.header);
+        this.out.clear();
+    }
+
+    // Encoding
+
+    /**
+     * Starts encoding a new message. The payload fields are to be written next, after which {@code finish()} completes the
+     * message.
+     * @param messageType message type id
+     * @param messageId message id
+     * @return this codec for method chaining
+     */
+    public Sim0mqCodec start(final String messageType, final int messageId)
+    {
+        this.out.clear();
+        this.out.put(this.header);
+        writeString(messageType);
+        writeInt(messageId);
+        ensureCapacity(3);
+        this.out.put(FieldTypes.SHORT_16);
+        this.fieldCountPosition = this.out.position();
+        this.out.putShort((short) 0);
+        this.fieldCount = 0;
+        return this;
+    }
+
+    /**
+     * Writes an int field.
+     * @param value value
+     * @return this codec for method chaining
+     */
+    public Sim0mqCodec writeInt(final int value)
+    {
+        ensureCapacity(5);
+        this.out.put(FieldTypes.INT_32).putInt(value);
+        this.fieldCount++;
+        return this;
+    }
+
+    /**
+     * Writes a UTF-8 string field.
+     * @param value value
+     * @return this codec for method chaining
+     */
+    public Sim0mqCodec writeString(final String value)
+    {
+        int length = utf8Length(value);
+        ensureCapacity(5 + length);
+        this.out.put(FieldTypes.STRING_8).putInt(length);
+        for (int i = 0; i < value.length(); i++)
+        {
+            char c = value.charAt(i);
+            if (c < 0x80)
+            {
+                this.out.put((byte) c);
+            }
+            else if (c < 0x800)
+            {
+                this.out.put((byte) (0xC0 | (c >> 6))).put((byte) (0x80 | (c & 0x3F)));
+            }
+            else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1)))
+            {
+                int cp = Character.toCodePoint(c, value.charAt(++i));
+                this.out.put((byte) (0xF0 | (cp >> 18))).put((byte) (0x80 | ((cp >> 12) & 0x3F)))
+                        .put((byte) (0x80 | ((cp >> 6) & 0x3F))).put((byte) (0x80 | (cp & 0x3F)));
+            }
+            else
+            {
+                this.out.put((byte) (0xE0 | (c >> 12))).put((byte) (0x80 | ((c >> 6) & 0x3F)))
+                        .put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+        this.fieldCount++;
+        return this;
+    }
+
+    /**
+     * Writes a djunits double scalar field.
+     * @param quantity quantity
+     * @param si value in SI unit
+     * @return this codec for method chaining
+     */
+    public Sim0mqCodec writeScalar(final Quantity quantity, final double si)
+    {
+        ensureCapacity(11);
+        this.out.put(FieldTypes.DOUBLE_64_UNIT).put(quantity.unitCode).put(quantity.displayCode).putDouble(si);
+        this.fieldCount++;
+        return this;
+    }
+
+    /**
+     * Writes a djunits float vector field.
+     * @param quantity quantity
+     * @param si values in SI unit
+     * @param length number of values to write from the array
+     * @return this codec for method chaining
+     */
+    public Sim0mqCodec writeFloatVector(final Quantity quantity, final float[] si, final int length)
+    {
+        startFloatVector(quantity, length);
+        for (int i = 0; i < length; i++)
+        {
+            this.out.putFloat(si[i]);
+        }
+        return this;
+    }
+
+    /**
+     * Starts a djunits float vector field, of which exactly {@code size} values should be written next using
+     * {@code putFloat()}.
+     * @param quantity quantity
+     * @param size number of values
+     * @return this codec for method chaining
+     */
+    public Sim0mqCodec startFloatVector(final Quantity quantity, final int size)
+    {
+        ensureCapacity(7 + 4 * size);
+        this.out.put(FieldTypes.FLOAT_32_UNIT_ARRAY).putInt(size).put(quantity.unitCode).put(quantity.displayCode);
+        this.fieldCount++;
+        return this;
+    }
+
+    /**
+     * Puts a value in a float vector field started with {@code startFloatVector()}.
+     * @param si value in SI unit
+     * @return this codec for method chaining
+     */
+    public Sim0mqCodec putFloat(final float si)
+    {
+        this.out.putFloat(si);
+        return this;
+    }
+
+    /**
+     * Writes an int array field.
+     * @param values values
+     * @param length number of values to write from the array
+     * @return this codec for method chaining
+     */
+    public Sim0mqCodec writeIntArray(final int[] values, final int length)
+    {
+        ensureCapacity(5 + 4 * length);
+        this.out.put(FieldTypes.INT_32_ARRAY).putInt(length);
+        for (int i = 0; i < length; i++)
+        {
+            this.out.putInt(values[i]);
+        }
+        this.fieldCount++;
+        return this;
+    }
+
+    /**
+     * Completes the message by setting the number of fields.
+     * @return buffer with the encoded message between position 0 and the limit; valid until the next message is started
+     */
+    public ByteBuffer finish()
+    {
+        this.out.putShort(this.fieldCountPosition, this.fieldCount);
+        this.out.flip();
+        return this.out;
+    }
+
+    /**
+     * Completes the message, and returns a copy of the bytes.
+     * @return encoded message
+     */
+    public byte[] finishToArray()
+    {
+        ByteBuffer buffer = finish();
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Makes sure the output buffer can hold the given number of additional bytes, growing it if required.
+     * @param bytes number of additional bytes
+     */
+    private void ensureCapacity(final int bytes)
+    {
+        if (this.out.remaining() < bytes)
+        {
+            int capacity = Math.max(2 * this.out.capacity(), this.out.position() + bytes);
+            ByteBuffer larger = ByteBuffer.allocateDirect(capacity).order(this.byteOrder);
+            this.out.flip();
+            larger.put(this.out);
+            this.out = larger;
+        }
+    }
+
+    /**
+     * Returns the number of bytes of a string in UTF-8.
+     * @param value string
+     * @return number of bytes of a string in UTF-8
+     */
+    private static int utf8Length(final String value)
+    {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++)
+        {
+            char c = value.charAt(i);
+            if (c < 0x80)
+            {
+                length++;
+            }
+            else if (c < 0x800)
+            {
+                length += 2;
+            }
+            else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1)))
+            {
+                length += 4;
+                i++;
+            }
+            else
+            {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    // Decoding
+
+    /**
+     * Starts decoding a message. The fields are read from the message bytes, which are wrapped rather than copied. The payload
+     * fields are to be read next, in order.
+     * @param message message bytes
+     * @return message type id, the same string instance for each known message type
+     * @throws SerializationException when the message is not a valid Sim0MQ message
+     */
+    public String decode(final byte[] message) throws SerializationException
+    {
+        return decode(ByteBuffer.wrap(message));
+    }
+
+    /**
+     * Starts decoding a message from the position of the buffer. The payload fields are to be read next, in order.
+     * @param message buffer containing the message from its position
+     * @return message type id, the same string instance for each known message type
+     * @throws SerializationException when the message is not a valid Sim0MQ message
+     */
+    public String decode(final ByteBuffer message) throws SerializationException
+    {
+        this.decoding = message;
+        int start = message.position();
+        // endianness is the boolean after the magic number, which is either UTF-8 or UTF-16
+        int endiannessPosition = start + (message.get(start) == FieldTypes.STRING_8 ? 11 : 16);
+        message.order(message.get(endiannessPosition) == 1 ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+        skipString(); // magic
+        message.position(endiannessPosition + 1);
+        skipString(); // federation
+        skipString(); // sender
+        skipString(); // receiver
+        String messageType = readMessageType();
+        this.decodedMessageId = readInt();
+        byte type = readType();
+        Throw.when(type != FieldTypes.SHORT_16, SerializationException.class, "Number of fields is not a short.");
+        this.decodedFieldCount = message.getShort();
+        return messageType;
+    }
+
+    /**
+     * Returns the message id of the message being decoded.
+     * @return message id of the message being decoded
+     */
+    public int getMessageId()
+    {
+        return this.decodedMessageId;
+    }
+
+    /**
+     * Returns the number of payload fields of the message being decoded.
+     * @return number of payload fields of the message being decoded
+     */
+    public int getFieldCount()
+    {
+        return this.decodedFieldCount;
+    }
+
+    /**
+     * Reads an int field.
+     * @return value
+     * @throws SerializationException when the next field is not an int
+     */
+    public int readInt() throws SerializationException
+    {
+        byte type = readType();
+        Throw.when(type != FieldTypes.INT_32, SerializationException.class, "Field of type %d is not an int.", type);
+        return this.decoding.getInt();
+    }
+
+    /**
+     * Reads a string field, in UTF-8 or UTF-16.
+     * @return value
+     * @throws SerializationException when the next field is not a string
+     */
+    public String readString() throws SerializationException
+    {
+        byte type = readType();
+        int length = this.decoding.getInt();
+        if (type == FieldTypes.STRING_8)
+        {
+            byte[] bytes = new byte[length];
+            this.decoding.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        Throw.when(type != FieldTypes.STRING_16, SerializationException.class, "Field of type %d is not a string.", type);
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++)
+        {
+            chars[i] = this.decoding.getChar();
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Reads a scalar field, which may be a djunits double or float scalar, or a plain double or float.
+     * @return value in SI unit
+     * @throws SerializationException when the next field is not a scalar
+     */
+    public double readScalar() throws SerializationException
+    {
+        byte type = readType();
+        switch (type)
+        {
+            case FieldTypes.DOUBLE_64_UNIT:
+                skipUnit();
+                return this.decoding.getDouble();
+            case FieldTypes.FLOAT_32_UNIT:
+                skipUnit();
+                return this.decoding.getFloat();
+            case FieldTypes.DOUBLE_64:
+                return this.decoding.getDouble();
+            case FieldTypes.FLOAT_32:
+                return this.decoding.getFloat();
+            default:
+                throw new SerializationException("Field of type " + type + " is not a scalar.");
+        }
+    }
+
+    /**
+     * Reads a djunits float vector field.
+     * @return values in SI unit
+     * @throws SerializationException when the next field is not a float vector
+     */
+    public float[] readFloatVector() throws SerializationException
+    {
+        byte type = readType();
+        Throw.when(type != FieldTypes.FLOAT_32_UNIT_ARRAY, SerializationException.class,
+                "Field of type %d is not a float vector.", type);
+        float[] values = new float[this.decoding.getInt()];
+        skipUnit();
+        for (int i = 0; i < values.length; i++)
+        {
+            values[i] = this.decoding.getFloat();
+        }
+        return values;
+    }
+
+    /**
+     * Reads the message type, and returns a constant string for known types.
+     * @return message type
+     * @throws SerializationException when the next field is not a string
+     */
+    private String readMessageType() throws SerializationException
+    {
+        int position = this.decoding.position();
+        if (this.decoding.get(position) == FieldTypes.STRING_8)
+        {
+            int length = this.decoding.getInt(position + 1);
+            for (int i = 0; i < MESSAGE_TYPE_BYTES.length; i++)
+            {
+                byte[] bytes = MESSAGE_TYPE_BYTES[i];
+                if (bytes.length == length && matches(position + 5, bytes))
+                {
+                    this.decoding.position(position + 5 + length);
+                    return MESSAGE_TYPES[i];
+                }
+            }
+        }
+        return readString();
+    }
+
+    /**
+     * Returns whether the bytes in the buffer from the given position match the given bytes.
+     * @param position position in the buffer
+     * @param bytes bytes
+     * @return whether the bytes in the buffer from the given position match the given bytes
+     */
+    private boolean matches(final int position, final byte[] bytes)
+    {
+        for (int i = 0; i < bytes.length; i++)
+        {
+            if (this.decoding.get(position + i) != bytes[i])
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Skips a string field.
+     * @throws SerializationException when the next field is not a string
+     */
+    private void skipString() throws SerializationException
+    {
+        byte type = readType();
+        int length = this.decoding.getInt();
+        if (type == FieldTypes.STRING_8)
+        {
+            this.decoding.position(this.decoding.position() + length);
+        }
+        else
+        {
+            Throw.when(type != FieldTypes.STRING_16, SerializationException.class, "Field of type %d is not a string.", type);
+            this.decoding.position(this.decoding.position() + 2 * length);
+        }
+    }
+
+    /**
+     * Reads the type of the next field. Field types with the highest bit set are considered equal to the type without it.
+     * @return type of the next field
+     */
+    private byte readType()
+    {
+        return (byte) (this.decoding.get() & 0x7F);
+    }
+
+    /**
+     * Skips the unit type and display unit of a djunits field. Values are always stored in SI units.
+     */
+    private void skipUnit()
+    {
+        this.decoding.position(this.decoding.position() + 2);
+    }
+
+    /**
+     * Quantities supported by this codec, with their unit type and display unit code.
+     */
+    public enum Quantity
+    {
+        /** Length. */
+        LENGTH(LengthUnit.SI),
+
+        /** Speed. */
+        SPEED(SpeedUnit.SI),
+
+        /** Acceleration. */
+        ACCELERATION(AccelerationUnit.SI),
+
+        /** Duration. */
+        DURATION(DurationUnit.SI),
+
+        /** Direction. */
+        DIRECTION(DirectionUnit.EAST_RADIAN);
+
+        /** Unit type code. */
+        private final byte unitCode;
+
+        /** Display unit code. */
+        private final byte displayCode;
+
+        /**
+         * Constructor.
+         * @param unit SI unit of the quantity
+         * @param <U> unit type
+         */
+        <U extends Unit<U>> Quantity(final U unit)
+        {
+            this.unitCode = SerializationUnits.getUnitCode(unit);
+            this.displayCode = DisplayType.getByteCode(unit);
+        }
+    }
+
+}
@@ -100,9 +100,13 @@ public final class TwoLaneTestSimulation implements Sim0mqSimulation
         this.parameterFactory = new ParameterFactorySim0mq();
         this.parameterFactory.addParameter(DefaultsNl.CAR, LmrsParameters.VGAIN, new Speed(35.0, SpeedUnit.KM_PER_HOUR));
 
-        // GTU characteristics generator
-        GtuType.registerTemplateSupplier(DefaultsNl.CAR, Defaults.NL);
-        GtuCharacteristics gtucharacteristics = GtuType.defaultCharacteristics(DefaultsNl.CAR, this.network, stream);
+        // GTU characteristics generator (templates are stored statically, shared by all sessions in the JVM)
+        GtuCharacteristics gtucharacteristics;
+        synchronized (GtuType.class)
+        {
+            GtuType.registerTemplateSupplier(DefaultsNl.CAR, Defaults.NL);
+            gtucharacteristics = GtuType.defaultCharacteristics(DefaultsNl.CAR, this.network, stream);
+        }
         LaneBasedStrategicalRoutePlannerFactory stratFactory =
                 new LaneBasedStrategicalRoutePlannerFactory(tacticalFactory, this.parameterFactory);
         this.charateristicsGeneratorOd = new LaneBasedGtuCharacteristicsGeneratorOd()
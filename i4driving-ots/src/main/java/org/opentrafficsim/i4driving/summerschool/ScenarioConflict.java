@@ -263,7 +263,7 @@ public class ScenarioConflict extends AbstractSimulationScript
                 if (event.getType().equals(Network.GTU_ADD_EVENT))
                 {
                     // schedule the addition of the GTU to prevent it from not having an operational plan
-                    gtu.getSimulator().scheduleEventNow(ScenarioConflict.this, "animateGTU", new Object[] {gtu});
+                    gtu.getSimulator().scheduleEventNow(() -> animateGTU(gtu));
                     // ScenarioConflict.this.animatedGTUs.put(gtu, new AttentionAnimation(gtu, gtu.getSimulator()));
                 }
                 else if (event.getType().equals(Network.GTU_REMOVE_EVENT))
@@ -286,7 +286,6 @@ public class ScenarioConflict extends AbstractSimulationScript
      * Draw the attention.
      * @param gtu the GTU to draw the attention of
      */
-    @SuppressWarnings("unused") // scheduled
     private void animateGTU(final LaneBasedGtu gtu)
     {
         Renderable2d<ChannelAttention> gtuAnimation = new AttentionAnimation(new ChannelAttention(gtu), gtu.getSimulator());
@@ -426,7 +425,7 @@ public class ScenarioConflict extends AbstractSimulationScript
      */
     private void updateKpis()
     {
-        getSimulator().scheduleEventRel(Duration.instantiateSI(30.0), this, "updateKpis", new Object[] {});
+        getSimulator().scheduleEventRel(Duration.instantiateSI(30.0), this::updateKpis);
         Time time = getSimulator().getSimulatorAbsTime();
         List<TrajectoryGroup<GtuDataRoad>> trajectoryGroups = this.query.getTrajectoryGroups(time);
         int i = 0;
@@ -260,9 +260,9 @@ public class ScenarioDistraction extends AbstractSimulationScript
         OdApplier.applyOd(network, od, options, DefaultsRoadNl.VEHICLES);
 
         // Events
-        getSimulator().scheduleEventAbs(Duration.instantiateSI(20.0), this, "setAcceleration",
-                new Object[] {"1", Acceleration.instantiateSI(-2.0)});
-        getSimulator().scheduleEventAbs(Duration.instantiateSI(35.0), this, "resetAcceleration", new Object[] {"1"});
+        getSimulator().scheduleEventAbs(Duration.instantiateSI(20.0),
+                () -> setAcceleration("1", Acceleration.instantiateSI(-2.0)));
+        getSimulator().scheduleEventAbs(Duration.instantiateSI(35.0), () -> resetAcceleration("1"));
 
         return network;
     }
@@ -272,7 +272,6 @@ public class ScenarioDistraction extends AbstractSimulationScript
      * @param gtuId GTU
      * @param acceleration acceleration
      */
-    @SuppressWarnings("unused") // scheduled
     private void setAcceleration(final String gtuId, final Acceleration acceleration)
     {
         ((ScenarioTacticalPlanner) getNetwork().getGTU(gtuId).getTacticalPlanner()).setAcceleration(acceleration);
@@ -282,7 +281,6 @@ public class ScenarioDistraction extends AbstractSimulationScript
      * Reset acceleration on GTU.
      * @param gtuId GTU
      */
-    @SuppressWarnings("unused") // scheduled
     private void resetAcceleration(final String gtuId)
     {
         ((ScenarioTacticalPlanner) getNetwork().getGTU(gtuId).getTacticalPlanner()).resetAcceleration();
@@ -359,7 +357,7 @@ public class ScenarioDistraction extends AbstractSimulationScript
      */
     private void updateKpis()
     {
-        getSimulator().scheduleEventRel(Duration.instantiateSI(30.0), this, "updateKpis", new Object[] {});
+        getSimulator().scheduleEventRel(Duration.instantiateSI(30.0), this::updateKpis);
         Time time = getSimulator().getSimulatorAbsTime();
         List<TrajectoryGroup<GtuDataRoad>> trajectoryGroups = this.query.getTrajectoryGroups(time);
         int i = 0;
@@ -419,7 +419,7 @@ public class ScenarioRing extends AbstractSimulationScript
      */
     private void updateKpis()
     {
-        getSimulator().scheduleEventRel(Duration.instantiateSI(30.0), this, "updateKpis", new Object[] {});
+        getSimulator().scheduleEventRel(Duration.instantiateSI(30.0), this::updateKpis);
         Time time = getSimulator().getSimulatorAbsTime();
         List<TrajectoryGroup<GtuDataRoad>> trajectoryGroups = this.query.getTrajectoryGroups(time);
         int i = 0;
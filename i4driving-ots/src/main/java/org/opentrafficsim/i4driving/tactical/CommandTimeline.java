@@ -0,0 +1,246 @@
+package org.opentrafficsim.i4driving.tactical;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.djunits.value.vdouble.scalar.Acceleration;
+import org.djunits.value.vdouble.scalar.Duration;
+import org.djunits.value.vdouble.scalar.Speed;
+import org.djunits.value.vdouble.scalar.Time;
+import org.djutils.exceptions.Throw;
+import org.djutils.exceptions.Try;
+import org.opentrafficsim.core.network.LateralDirectionality;
+import org.opentrafficsim.i4driving.messages.Commands.Command;
+import org.opentrafficsim.i4driving.messages.Commands.CommandType;
+
+/**
+ * Compiled timeline of the commands for a single GTU, ordered by time. Commands are stored in primitive arrays of time and
+ * value, with typed arguments for the few commands that need them, rather than as {@code Command} objects with a map of
+ * strings. The data of a command is parsed when the command is loaded into the timeline.
+ * <p>
+ * Commands are loaded in chunks from a source that gives them in order of time, as a cursor moves over the timeline. Executed
+ * commands are dropped when a chunk is loaded, such that a streaming source (e.g. {@code CommandsReader}) is never fully in
+ * memory. Commands can be inserted at any time that is not before the cursor.
+ * </p>
+ * @author wjschakel
+ */
+public class CommandTimeline
+{
+
+    /** Number of commands that is loaded from the source at once. */
+    private static final int CHUNK = 1024;
+
+    /** Source of commands, in order of time. */
+    private final Iterator<Command> source;
+
+    /** Time of the last command loaded from the source [s]. */
+    private double lastSourceTime = Double.NEGATIVE_INFINITY;
+
+    /** Times [s]. */
+    private double[] times = new double[16];
+
+    /** Command types. */
+    private CommandType[] types = new CommandType[16];
+
+    /** Scalar value of the command in SI units, e.g. speed, acceleration or indicator duration. */
+    private double[] values = new double[16];
+
+    /** Arguments that are not a scalar value, e.g. a lateral direction or parameter name and value. */
+    private Object[] arguments = new Object[16];
+
+    /** Index of the next command. */
+    private int cursor;
+
+    /** Number of loaded commands, including executed commands that have not been dropped yet. */
+    private int size;
+
+    /**
+     * Constructor with a source of commands that gives commands in order of time.
+     * @param source source of commands, in order of time
+     */
+    public CommandTimeline(final Iterator<Command> source)
+    {
+        Throw.whenNull(source, "source");
+        this.source = source;
+    }
+
+    /**
+     * Creates a timeline from commands that need not be in order of time. Commands with equal time remain in their order.
+     * @param commands commands
+     * @return timeline of the commands
+     */
+    public static CommandTimeline of(final Collection<Command> commands)
+    {
+        List<Command> sorted = new ArrayList<>(commands);
+        sorted.sort(Comparator.comparing(Command::time)); // stable
+        return new CommandTimeline(sorted.iterator());
+    }
+
+    /**
+     * Returns whether there is a command that has not been executed.
+     * @return whether there is a command that has not been executed
+     */
+    public boolean hasNext()
+    {
+        return this.cursor < this.size || load();
+    }
+
+    /**
+     * Returns the time of the next command.
+     * @return time of the next command
+     * @throws NoSuchElementException when there is no next command
+     */
+    public Time nextTime()
+    {
+        Throw.when(!hasNext(), NoSuchElementException.class, "No next command in timeline.");
+        return Time.instantiateSI(this.times[this.cursor]);
+    }
+
+    /**
+     * Executes the next command on the tactical planner, and moves the cursor.
+     * @param tacticalPlanner tactical planner
+     * @throws NoSuchElementException when there is no next command
+     */
+    public void executeNext(final ScenarioTacticalPlanner tacticalPlanner)
+    {
+        Throw.when(!hasNext(), NoSuchElementException.class, "No next command in timeline.");
+        int index = this.cursor++;
+        double value = this.values[index];
+        Object argument = this.arguments[index];
+        this.arguments[index] = null;
+        switch (this.types[index])
+        {
+            case SET_PARAMETER:
+                String[] parameterValue = (String[]) argument;
+                Try.execute(() -> tacticalPlanner.setParameter(parameterValue[0], parameterValue[1]),
+                        "Parameter value %s for parameter %s is not valid.", parameterValue[1], parameterValue[0]);
+                break;
+            case SET_DESIRED_SPEED:
+                tacticalPlanner.setDesiredSpeed(Speed.instantiateSI(value));
+                break;
+            case RESET_DESIRED_SPEED:
+                tacticalPlanner.resetDesiredSpeed();
+                break;
+            case SET_ACCELERATION:
+                tacticalPlanner.setAcceleration(Acceleration.instantiateSI(value));
+                break;
+            case RESET_ACCELERATION:
+                tacticalPlanner.resetAcceleration();
+                break;
+            case DISABLE_LANE_CHANGES:
+                tacticalPlanner.disableLaneChanges();
+                break;
+            case ENABLE_LANE_CHANGES:
+                tacticalPlanner.enableLaneChanges();
+                break;
+            case CHANGE_LANE:
+                tacticalPlanner.changeLane((LateralDirectionality) argument);
+                break;
+            case SET_INDICATOR:
+                tacticalPlanner.setIndicator((LateralDirectionality) argument, Duration.instantiateSI(value));
+                break;
+            default:
+                throw new RuntimeException("Unknown command type " + this.types[index]);
+        }
+    }
+
+    /**
+     * Inserts a command after all commands with the same or an earlier time.
+     * @param time time of the command, which may differ from the time in the command when that is in the past
+     * @param command command
+     * @throws IllegalArgumentException when the time is before the next command that was already executed
+     */
+    public void insert(final Time time, final Command command)
+    {
+        double t = time.si;
+        // load source until a later command, such that commands that are loaded later come after the inserted command
+        while ((this.cursor == this.size || this.times[this.size - 1] <= t) && load())
+        {
+            //
+        }
+        Throw.when(this.cursor > 0 && this.times[this.cursor - 1] > t, IllegalArgumentException.class,
+                "Command at %s inserted before an executed command.", time);
+        int index = this.size;
+        while (index > this.cursor && this.times[index - 1] > t)
+        {
+            index--;
+        }
+        ensureCapacity(this.size + 1);
+        System.arraycopy(this.times, index, this.times, index + 1, this.size - index);
+        System.arraycopy(this.types, index, this.types, index + 1, this.size - index);
+        System.arraycopy(this.values, index, this.values, index + 1, this.size - index);
+        System.arraycopy(this.arguments, index, this.arguments, index + 1, this.size - index);
+        this.size++;
+        set(index, t, command);
+    }
+
+    /**
+     * Loads the next chunk of commands from the source. Executed commands are dropped first.
+     * @return whether any command was loaded
+     * @throws IllegalArgumentException when the source gives commands out of order of time
+     */
+    private boolean load()
+    {
+        if (!this.source.hasNext())
+        {
+            return false;
+        }
+        // drop executed commands
+        int remaining = this.size - this.cursor;
+        System.arraycopy(this.times, this.cursor, this.times, 0, remaining);
+        System.arraycopy(this.types, this.cursor, this.types, 0, remaining);
+        System.arraycopy(this.values, this.cursor, this.values, 0, remaining);
+        System.arraycopy(this.arguments, this.cursor, this.arguments, 0, remaining);
+        Arrays.fill(this.arguments, remaining, this.size, null);
+        this.size = remaining;
+        this.cursor = 0;
+        for (int i = 0; i < CHUNK && this.source.hasNext(); i++)
+        {
+            Command command = this.source.next();
+            double t = command.time().si;
+            Throw.when(t < this.lastSourceTime, IllegalArgumentException.class,
+                    "Command at %s is given after a command at %ss, commands should be in order of time.", command.time(),
+                    this.lastSourceTime);
+            this.lastSourceTime = t;
+            ensureCapacity(this.size + 1);
+            set(this.size++, t, command);
+        }
+        return true;
+    }
+
+    /**
+     * Grows the arrays when needed.
+     * @param capacity minimum capacity
+     */
+    private void ensureCapacity(final int capacity)
+    {
+        if (capacity > this.times.length)
+        {
+            int length = Math.max(capacity, this.times.length * 2);
+            this.times = Arrays.copyOf(this.times, length);
+            this.types = Arrays.copyOf(this.types, length);
+            this.values = Arrays.copyOf(this.values, length);
+            this.arguments = Arrays.copyOf(this.arguments, length);
+        }
+    }
+
+    /**
+     * Stores a command at the given index, parsing its data.
+     * @param index index
+     * @param time time [s]
+     * @param command command
+     */
+    private void set(final int index, final double time, final Command command)
+    {
+        this.times[index] = time;
+        this.types[index] = command.type();
+        this.values[index] = command.parseValue();
+        this.arguments[index] = command.parseArgument();
+    }
+
+}
@@ -1,21 +1,26 @@
 package org.opentrafficsim.i4driving.tactical;
 
-import org.djunits.value.vdouble.scalar.Acceleration;
+import java.util.List;
+
 import org.djunits.value.vdouble.scalar.Duration;
-import org.djunits.value.vdouble.scalar.Speed;
+import org.djunits.value.vdouble.scalar.Time;
 import org.djutils.exceptions.Throw;
-import org.djutils.exceptions.Try;
 import org.opentrafficsim.core.dsol.OtsSimulatorInterface;
 import org.opentrafficsim.core.gtu.Gtu;
-import org.opentrafficsim.core.network.LateralDirectionality;
 import org.opentrafficsim.i4driving.messages.Commands;
 import org.opentrafficsim.i4driving.messages.Commands.Command;
+import org.opentrafficsim.i4driving.messages.Commands.GenerationInfo;
+import org.opentrafficsim.i4driving.messages.CommandsReader;
 import org.opentrafficsim.road.gtu.strategical.LaneBasedStrategicalRoutePlannerFactory;
 import org.opentrafficsim.road.network.RoadNetwork;
 
+import nl.tudelft.simulation.dsol.formalisms.eventscheduling.SimEventInterface;
+
 /**
  * This class is responsible for handling the commands that should be given to a GTU. One handler should be generated per GTU
- * that should receive commands.
+ * that should receive commands. The commands are kept in a {@code CommandTimeline}, over which a single event per GTU moves
+ * as a cursor. This event executes all commands for the same time within a command transaction of the tactical planner, such
+ * that they trigger only one replan, and then reschedules itself at the time of the next command.
  * @author wjschakel
  */
 public class CommandsHandler extends ScenarioGtuSpawner
@@ -24,6 +29,15 @@ public class CommandsHandler extends ScenarioGtuSpawner
     /** Simulator. */
     private final OtsSimulatorInterface simulator;
 
+    /** Timeline of commands that have not been executed. */
+    private final CommandTimeline timeline;
+
+    /** Cursor event, {@code null} if not scheduled. */
+    private SimEventInterface<Duration> cursorEvent;
+
+    /** Time of the cursor event. */
+    private Time cursorTime;
+
     /**
      * Constructor using commands.
      * @param network network.
@@ -34,89 +48,120 @@ public class CommandsHandler extends ScenarioGtuSpawner
     public CommandsHandler(final RoadNetwork network, final Commands commands,
             final LaneBasedStrategicalRoutePlannerFactory strategicalFactory)
     {
-        super(network, commands.getGtuId(), commands.getGenerationInfo(), strategicalFactory);
+        this(network, commands.getGtuId(), commands.getGenerationInfo(), CommandTimeline.of(commands.getCommands().toList()),
+                strategicalFactory);
+    }
+
+    /**
+     * Constructor using a streaming reader of commands. Commands are read from the reader as simulation time progresses, which
+     * requires the commands to be in order of time.
+     * @param network network.
+     * @param reader reader of commands for a specific GTU, positioned at the first command.
+     * @param strategicalFactory strategical planner, may be {@code null} if no generation info is provided by the reader.
+     */
+    public CommandsHandler(final RoadNetwork network, final CommandsReader reader,
+            final LaneBasedStrategicalRoutePlannerFactory strategicalFactory)
+    {
+        this(network, reader.getGtuId(), reader.getGenerationInfo(), new CommandTimeline(reader), strategicalFactory);
+    }
+
+    /**
+     * Constructor using a timeline.
+     * @param network network.
+     * @param gtuId GTU id.
+     * @param generationInfo generation info, may be {@code null}.
+     * @param timeline timeline of commands.
+     * @param strategicalFactory strategical planner, may be {@code null} if no generation info is provided.
+     */
+    private CommandsHandler(final RoadNetwork network, final String gtuId, final GenerationInfo generationInfo,
+            final CommandTimeline timeline, final LaneBasedStrategicalRoutePlannerFactory strategicalFactory)
+    {
+        super(network, gtuId, generationInfo, strategicalFactory);
         this.simulator = network.getSimulator();
-        if (commands.getGenerationInfo() != null)
-        {
-            for (Command command : commands.getCommands())
-            {
-                Throw.when(command.time().lt(commands.getGenerationInfo().getTime()), IllegalArgumentException.class,
-                        "Command scheduled before GTU %s is generated.", commands.getGtuId());
-            }
-        }
-        for (Command command : commands.getCommands())
+        this.timeline = timeline;
+        if (generationInfo != null && timeline.hasNext())
         {
-            scheduleCommand(command);
+            // commands are in order of time, so checking the first suffices
+            Throw.when(timeline.nextTime().lt(generationInfo.getTime()), IllegalArgumentException.class,
+                    "Command scheduled before GTU %s is generated.", gtuId);
         }
+        scheduleCursor();
     }
 
     /**
-     * Schedules the command. If the time is in the past or now (except at time=0), the command is executed immediately.
+     * Schedules the command. If the time is in the past or now (except at time=0), the command is executed in an event now,
+     * together with all other commands that are scheduled now before that event is executed.
      * @param command command
      */
     public void scheduleCommand(final Command command)
     {
-        if (command.time().le(this.simulator.getSimulatorAbsTime()) && !command.time().eq0())
+        Time now = this.simulator.getSimulatorAbsTime();
+        this.timeline.insert(command.time().le(now) && !command.time().eq0() ? now : command.time(), command);
+        scheduleCursor();
+    }
+
+    /**
+     * Schedules the cursor event at the time of the next command, or now if that time is in the past. An existing cursor event
+     * at a later time is cancelled.
+     */
+    private void scheduleCursor()
+    {
+        if (!this.timeline.hasNext())
         {
-            executeCommand(command);
+            return;
         }
-        else
+        Time time = Time.max(this.timeline.nextTime(), this.simulator.getSimulatorAbsTime());
+        if (this.cursorEvent != null)
         {
-            this.simulator.scheduleEventAbsTime(command.time(), this, "executeCommand", new Object[] {command});
+            if (this.cursorTime.le(time))
+            {
+                return;
+            }
+            this.simulator.cancelEvent(this.cursorEvent);
         }
+        this.cursorTime = time;
+        this.cursorEvent = this.simulator.scheduleEventAbs(time.minus(this.simulator.getStartTimeAbs()), this::executeCommands);
     }
 
     /**
-     * Executes a command immediately.
+     * Executes all commands up to the current time, such that they trigger a single replan, and reschedules the cursor event.
+     */
+    private void executeCommands()
+    {
+        this.cursorEvent = null;
+        Time now = this.simulator.getSimulatorAbsTime();
+        ScenarioTacticalPlanner tacticalPlanner = getTacticalPlanner(getGtu());
+        tacticalPlanner.beginCommands();
+        try
+        {
+            while (this.timeline.hasNext() && this.timeline.nextTime().le(now))
+            {
+                this.timeline.executeNext(tacticalPlanner);
+            }
+        }
+        finally
+        {
+            tacticalPlanner.endCommands();
+        }
+        scheduleCursor();
+    }
+
+    /**
+     * Executes a command immediately, such that it triggers a replan as commands from the timeline do. Commands in the timeline
+     * are not affected.
      * @param command command
      */
     public void executeCommand(final Command command)
     {
-        switch (command.type())
+        ScenarioTacticalPlanner tacticalPlanner = getTacticalPlanner(getGtu());
+        tacticalPlanner.beginCommands();
+        try
+        {
+            CommandTimeline.of(List.of(command)).executeNext(tacticalPlanner);
+        }
+        finally
         {
-            case SET_PARAMETER:
-                String parameter =
-                        Try.assign(() -> command.getData("parameter"), "Field 'parameter' not found for setParameter command.");
-                String value = Try.assign(() -> command.getData("value"), "Field 'value' not found for setParameter command.");
-                Try.execute(() -> getTacticalPlanner(getGtu()).setParameter(parameter, value),
-                        "Parameter value %s for parameter %s is not valid.", value, parameter);
-                break;
-            case SET_DESIRED_SPEED:
-                Speed speed = Speed.valueOf(
-                        Try.assign(() -> command.getData("speed"), "Field 'speed' not found for setDesiredSpeed command."));
-                getTacticalPlanner(getGtu()).setDesiredSpeed(speed);
-                break;
-            case RESET_DESIRED_SPEED:
-                getTacticalPlanner(getGtu()).resetDesiredSpeed();
-                break;
-            case SET_ACCELERATION:
-                Acceleration acceleration = Acceleration.valueOf(Try.assign(() -> command.getData("acceleration"),
-                        "Field 'acceleration' not found for setAcceleration command."));
-                getTacticalPlanner(getGtu()).setAcceleration(acceleration);
-                break;
-            case RESET_ACCELERATION:
-                getTacticalPlanner(getGtu()).resetAcceleration();
-                break;
-            case DISABLE_LANE_CHANGES:
-                getTacticalPlanner(getGtu()).disableLaneChanges();
-                break;
-            case ENABLE_LANE_CHANGES:
-                getTacticalPlanner(getGtu()).enableLaneChanges();
-                break;
-            case CHANGE_LANE:
-                LateralDirectionality laneChangeDirection = LateralDirectionality.valueOf(
-                        Try.assign(() -> command.getData("direction"), "Field 'direction' not found for changeLane command."));
-                getTacticalPlanner(getGtu()).changeLane(laneChangeDirection);
-                break;
-            case SET_INDICATOR:
-                LateralDirectionality indicator = LateralDirectionality.valueOf(Try.assign(() -> command.getData("direction"),
-                        "Field 'direction' not found for setIndicator command."));
-                Duration duration =
-                        Duration.valueOf(Try.assign(() -> command.getData("duration"), "Field 'duration' not found."));
-                getTacticalPlanner(getGtu()).setIndicator(indicator, duration);
-                break;
-            default:
-                throw new RuntimeException("Unknown command type " + command.type());
+            tacticalPlanner.endCommands();
         }
     }
 
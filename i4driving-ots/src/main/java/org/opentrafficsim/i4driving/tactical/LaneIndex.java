@@ -0,0 +1,412 @@
+package org.opentrafficsim.i4driving.tactical;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+import org.djutils.draw.bounds.Bounds2d;
+import org.djutils.draw.point.Point2d;
+import org.opentrafficsim.core.geometry.OtsLine2d.FractionalFallback;
+import org.opentrafficsim.core.network.Link;
+import org.opentrafficsim.road.network.RoadNetwork;
+import org.opentrafficsim.road.network.lane.CrossSectionLink;
+import org.opentrafficsim.road.network.lane.Lane;
+import org.opentrafficsim.road.network.lane.LanePosition;
+
+/**
+ * Spatial index of the lanes and shoulders in a network, to find the lane position closest to a location. For each lane, the
+ * location is projected on the center line using the node headings of the link, and the distance is taken to the point at
+ * that fraction on the extended center line. The lane with the smallest distance is returned, and on equal distance the first
+ * lane in network order.
+ * <p>
+ * The index is a uniform grid over the bounding boxes of the lane center lines. As projections beyond the end points lie on
+ * the extensions of the first and last segment, a lane is in the cells of its bounding box, and in the cells that these
+ * extensions pass. Beyond the grid, extensions are in the border cells that they run along, as locations beyond the grid are
+ * searched in the border cells. A query searches rings of cells around the location, and stops when no unvisited lane can be
+ * closer than the closest lane found. The result is identical to evaluating all lanes.
+ * </p>
+ * <p>
+ * The index reflects the network at the time of construction. It should be rebuilt when links are added or removed.
+ * </p>
+ * @author wjschakel
+ */
+public class LaneIndex
+{
+
+    /** Maximum number of cells per lane, to limit memory on networks with lanes of very different sizes. */
+    private static final int MAX_CELLS_PER_LANE = 4;
+
+    /** Margin on lower bounds of distances, for numerical differences with interpolated points. */
+    private static final double MARGIN = 1e-9;
+
+    /** Lanes, in the order of iteration over the network. */
+    private final Lane[] lanes;
+
+    /** Start point x, start point y, backward unit x, backward unit y, of the extension before the start, per lane. */
+    private final double[][] startRays;
+
+    /** End point x, end point y, forward unit x, forward unit y, of the extension beyond the end, per lane. */
+    private final double[][] endRays;
+
+    /** Minimum x coordinate of the center line per lane. */
+    private final double[] laneMinX;
+
+    /** Minimum y coordinate of the center line per lane. */
+    private final double[] laneMinY;
+
+    /** Maximum x coordinate of the center line per lane. */
+    private final double[] laneMaxX;
+
+    /** Maximum y coordinate of the center line per lane. */
+    private final double[] laneMaxY;
+
+    /** Minimum x coordinate of the grid. */
+    private final double minX;
+
+    /** Minimum y coordinate of the grid. */
+    private final double minY;
+
+    /** Cell size. */
+    private final double cellSize;
+
+    /** Number of cells in x direction. */
+    private final int nx;
+
+    /** Number of cells in y direction. */
+    private final int ny;
+
+    /** Lane indices per cell, cell (i, j) at index j * nx + i. */
+    private final int[][] cells;
+
+    /** Query stamp per lane, to visit each lane at most once per query. */
+    private final int[] visited;
+
+    /** Current query stamp. */
+    private int stamp = 0;
+
+    /**
+     * Constructor.
+     * @param network network
+     */
+    public LaneIndex(final RoadNetwork network)
+    {
+        List<Lane> laneList = new ArrayList<>();
+        for (Link link : network.getLinkMap().values())
+        {
+            if (link instanceof CrossSectionLink roadLink)
+            {
+                laneList.addAll(roadLink.getLanesAndShoulders());
+            }
+        }
+        int n = laneList.size();
+        this.lanes = laneList.toArray(new Lane[n]);
+        this.laneMinX = new double[n];
+        this.laneMinY = new double[n];
+        this.laneMaxX = new double[n];
+        this.laneMaxY = new double[n];
+        this.visited = new int[n];
+        this.startRays = new double[n][];
+        this.endRays = new double[n][];
+        double gridMinX = Double.POSITIVE_INFINITY;
+        double gridMinY = Double.POSITIVE_INFINITY;
+        double gridMaxX = Double.NEGATIVE_INFINITY;
+        double gridMaxY = Double.NEGATIVE_INFINITY;
+        double sumSize = 0.0;
+        for (int k = 0; k < n; k++)
+        {
+            Bounds2d envelope = this.lanes[k].getCenterLine().getEnvelope();
+            this.laneMinX[k] = envelope.getMinX();
+            this.laneMinY[k] = envelope.getMinY();
+            this.laneMaxX[k] = envelope.getMaxX();
+            this.laneMaxY[k] = envelope.getMaxY();
+            gridMinX = Math.min(gridMinX, envelope.getMinX());
+            gridMinY = Math.min(gridMinY, envelope.getMinY());
+            gridMaxX = Math.max(gridMaxX, envelope.getMaxX());
+            gridMaxY = Math.max(gridMaxY, envelope.getMaxY());
+            sumSize += Math.max(envelope.getDeltaX(), envelope.getDeltaY());
+            Point2d[] points = this.lanes[k].getCenterLine().getPoints();
+            this.startRays[k] = ray(points[0], points[1]);
+            this.endRays[k] = ray(points[points.length - 1], points[points.length - 2]);
+        }
+        if (n == 0)
+        {
+            gridMinX = 0.0;
+            gridMinY = 0.0;
+            gridMaxX = 0.0;
+            gridMaxY = 0.0;
+        }
+        this.minX = gridMinX;
+        this.minY = gridMinY;
+
+        // cells of the average lane size, but not more cells than a few per lane
+        double size = Math.max(n == 0 ? 1.0 : sumSize / n, 1.0);
+        double width = gridMaxX - gridMinX;
+        double height = gridMaxY - gridMinY;
+        size = Math.max(size, Math.sqrt(width * height / Math.max(1, MAX_CELLS_PER_LANE * n)));
+        this.cellSize = size;
+        this.nx = Math.max(1, (int) Math.ceil(width / size));
+        this.ny = Math.max(1, (int) Math.ceil(height / size));
+
+        int[] counts = new int[this.nx * this.ny];
+        int[] marks = new int[counts.length];
+        for (int k = 0; k < n; k++)
+        {
+            forEachCell(k, marks, k + 1, (c) -> counts[c]++);
+        }
+        this.cells = new int[counts.length][];
+        for (int c = 0; c < counts.length; c++)
+        {
+            this.cells[c] = new int[counts[c]];
+            counts[c] = 0;
+        }
+        for (int k = 0; k < n; k++)
+        {
+            int lane = k;
+            forEachCell(k, marks, n + k + 1, (c) -> this.cells[c][counts[c]++] = lane);
+        }
+    }
+
+    /**
+     * Gives each cell of a lane once to an action: the cells of the bounding box of the center line, and the cells that the
+     * extensions of the center line pass.
+     * @param k lane index
+     * @param marks mark per cell, to give each cell once
+     * @param mark mark of this lane, unique for each lane and each pass over all lanes
+     * @param action action to perform with the index of each cell
+     */
+    private void forEachCell(final int k, final int[] marks, final int mark, final IntConsumer action)
+    {
+        IntConsumer once = (c) ->
+        {
+            if (marks[c] != mark)
+            {
+                marks[c] = mark;
+                action.accept(c);
+            }
+        };
+        for (int j = cellY(this.laneMinY[k]); j <= cellY(this.laneMaxY[k]); j++)
+        {
+            for (int i = cellX(this.laneMinX[k]); i <= cellX(this.laneMaxX[k]); i++)
+            {
+                once.accept(j * this.nx + i);
+            }
+        }
+        forEachRayCell(this.startRays[k], once);
+        forEachRayCell(this.endRays[k], once);
+    }
+
+    /**
+     * Gives the cells that a ray passes to an action, by stepping from cell to cell over the unbounded grid. Cells beyond the
+     * grid are clamped to the border cells. Once the ray is beyond the grid in a dimension, the clamped cell no longer changes
+     * in that dimension, and it is not stepped in anymore. Cells may be given more than once.
+     * @param ray ray origin x, origin y, unit x, unit y
+     * @param action action to perform with the index of each cell
+     */
+    private void forEachRayCell(final double[] ray, final IntConsumer action)
+    {
+        int i = (int) Math.floor((ray[0] - this.minX) / this.cellSize);
+        int j = (int) Math.floor((ray[1] - this.minY) / this.cellSize);
+        // a ray of coinciding points has no direction, and is only in the cell of its origin
+        int stepX = ray[2] > 0.0 ? 1 : (ray[2] < 0.0 ? -1 : 0);
+        int stepY = ray[3] > 0.0 ? 1 : (ray[3] < 0.0 ? -1 : 0);
+        double deltaX = stepX == 0 ? Double.POSITIVE_INFINITY : this.cellSize / Math.abs(ray[2]);
+        double deltaY = stepY == 0 ? Double.POSITIVE_INFINITY : this.cellSize / Math.abs(ray[3]);
+        double nextX = stepX == 0 ? Double.POSITIVE_INFINITY
+                : (this.minX + (i + (stepX > 0 ? 1 : 0)) * this.cellSize - ray[0]) / ray[2];
+        double nextY = stepY == 0 ? Double.POSITIVE_INFINITY
+                : (this.minY + (j + (stepY > 0 ? 1 : 0)) * this.cellSize - ray[1]) / ray[3];
+        while (true)
+        {
+            action.accept(Math.min(Math.max(j, 0), this.ny - 1) * this.nx + Math.min(Math.max(i, 0), this.nx - 1));
+            if (stepX < 0 ? i < 0 : i >= this.nx)
+            {
+                nextX = Double.POSITIVE_INFINITY;
+            }
+            if (stepY < 0 ? j < 0 : j >= this.ny)
+            {
+                nextY = Double.POSITIVE_INFINITY;
+            }
+            if (nextX == Double.POSITIVE_INFINITY && nextY == Double.POSITIVE_INFINITY)
+            {
+                return;
+            }
+            if (nextX < nextY)
+            {
+                i += stepX;
+                nextX += deltaX;
+            }
+            else
+            {
+                j += stepY;
+                nextY += deltaY;
+            }
+        }
+    }
+
+    /**
+     * Returns the lane position closest to the given location.
+     * @param position position
+     * @return lane position closest to the given location, {@code null} if the network has no lanes
+     */
+    public synchronized LanePosition getLanePosition(final Point2d position)
+    {
+        this.stamp++;
+        int ci = cellX(position.x);
+        int cj = cellY(position.y);
+        double minDistance = Double.POSITIVE_INFINITY;
+        int closest = -1;
+        double closestFraction = 0.0;
+        int maxRing = Math.max(Math.max(ci, this.nx - 1 - ci), Math.max(cj, this.ny - 1 - cj));
+        for (int ring = 0; ring <= maxRing; ring++)
+        {
+            for (int j = Math.max(cj - ring, 0); j <= Math.min(cj + ring, this.ny - 1); j++)
+            {
+                // on the first and last row of the ring all cells, otherwise only the first and last column
+                boolean fullRow = j == cj - ring || j == cj + ring;
+                int step = fullRow ? 1 : Math.max(2 * ring, 1);
+                for (int i = ci - ring; i <= ci + ring; i += step)
+                {
+                    if (i < 0 || i >= this.nx)
+                    {
+                        continue;
+                    }
+                    for (int k : this.cells[j * this.nx + i])
+                    {
+                        if (this.visited[k] == this.stamp)
+                        {
+                            continue;
+                        }
+                        this.visited[k] = this.stamp;
+                        if (Math.min(boxDistance(k, position), rayDistance(k, position)) - MARGIN > minDistance)
+                        {
+                            continue;
+                        }
+                        double fraction = projectFractional(this.lanes[k], position);
+                        double distance = distance(k, fraction, position);
+                        // on equal distance, the first lane in network order
+                        if (distance < minDistance || (distance == minDistance && k < closest))
+                        {
+                            minDistance = distance;
+                            closest = k;
+                            closestFraction = fraction;
+                        }
+                    }
+                }
+            }
+            // lanes not yet visited, including their extensions, are entirely outside of the searched block of cells
+            double blockMinX = this.minX + (ci - ring) * this.cellSize;
+            double blockMinY = this.minY + (cj - ring) * this.cellSize;
+            double blockMaxX = this.minX + (ci + ring + 1) * this.cellSize;
+            double blockMaxY = this.minY + (cj + ring + 1) * this.cellSize;
+            double exitDistance = Math.min(Math.min(position.x - blockMinX, blockMaxX - position.x),
+                    Math.min(position.y - blockMinY, blockMaxY - position.y));
+            if (exitDistance - MARGIN > minDistance)
+            {
+                break;
+            }
+        }
+        return closest < 0 ? null
+                : new LanePosition(this.lanes[closest], this.lanes[closest].getCenterLine().getLength().times(closestFraction));
+    }
+
+    /**
+     * Returns the fractional projection of a position on the center line of a lane, using the node headings of the link. The
+     * fraction may be outside of the range [0, 1].
+     * @param lane lane
+     * @param position position
+     * @return fractional projection of a position on the center line of a lane
+     */
+    private static double projectFractional(final Lane lane, final Point2d position)
+    {
+        Link link = lane.getLink();
+        return lane.getCenterLine().projectFractional(link.getStartNode().getHeading(), link.getEndNode().getHeading(),
+                position.x, position.y, FractionalFallback.ENDPOINT);
+    }
+
+    /**
+     * Returns the distance from a position to the point at a fraction on the extended center line of a lane.
+     * @param k lane index
+     * @param fraction fraction on the center line
+     * @param position position
+     * @return distance from a position to the point at a fraction on the extended center line of a lane
+     */
+    private double distance(final int k, final double fraction, final Point2d position)
+    {
+        return this.lanes[k].getCenterLine().getLocationFractionExtended(fraction).distance(position);
+    }
+
+    /**
+     * Returns the ray from an end point of a center line, pointing away from the adjacent point.
+     * @param endPoint end point
+     * @param adjacent adjacent point on the center line
+     * @return end point x, end point y, unit x, unit y
+     */
+    private static double[] ray(final Point2d endPoint, final Point2d adjacent)
+    {
+        double dx = endPoint.x - adjacent.x;
+        double dy = endPoint.y - adjacent.y;
+        double length = Math.hypot(dx, dy);
+        return new double[] {endPoint.x, endPoint.y, dx / length, dy / length};
+    }
+
+    /**
+     * Returns the distance from a position to the extensions of the center line of a lane beyond its end points. Together with
+     * the distance to the bounding box, this is a lower bound of the distance to any point on the extended center line.
+     * @param k lane index
+     * @param position position
+     * @return distance from a position to the extensions of the center line of a lane beyond its end points
+     */
+    private double rayDistance(final int k, final Point2d position)
+    {
+        return Math.min(rayDistance(this.startRays[k], position), rayDistance(this.endRays[k], position));
+    }
+
+    /**
+     * Returns the distance from a position to a ray.
+     * @param ray ray origin x, origin y, unit x, unit y
+     * @param position position
+     * @return distance from a position to a ray
+     */
+    private static double rayDistance(final double[] ray, final Point2d position)
+    {
+        double dx = position.x - ray[0];
+        double dy = position.y - ray[1];
+        double along = Math.max(dx * ray[2] + dy * ray[3], 0.0);
+        return Math.hypot(dx - along * ray[2], dy - along * ray[3]);
+    }
+
+    /**
+     * Returns the distance from a position to the bounding box of the center line of a lane. This is a lower bound of the
+     * distance to any point on the center line between its end points.
+     * @param k lane index
+     * @param position position
+     * @return distance from a position to the bounding box of the center line of a lane
+     */
+    private double boxDistance(final int k, final Point2d position)
+    {
+        double dx = Math.max(Math.max(this.laneMinX[k] - position.x, position.x - this.laneMaxX[k]), 0.0);
+        double dy = Math.max(Math.max(this.laneMinY[k] - position.y, position.y - this.laneMaxY[k]), 0.0);
+        return Math.hypot(dx, dy);
+    }
+
+    /**
+     * Returns the cell column of an x coordinate, clamped to the grid.
+     * @param x x coordinate
+     * @return cell column of an x coordinate
+     */
+    private int cellX(final double x)
+    {
+        return Math.min(Math.max((int) Math.floor((x - this.minX) / this.cellSize), 0), this.nx - 1);
+    }
+
+    /**
+     * Returns the cell row of a y coordinate, clamped to the grid.
+     * @param y y coordinate
+     * @return cell row of a y coordinate
+     */
+    private int cellY(final double y)
+    {
+        return Math.min(Math.max((int) Math.floor((y - this.minY) / this.cellSize), 0), this.ny - 1);
+    }
+
+}
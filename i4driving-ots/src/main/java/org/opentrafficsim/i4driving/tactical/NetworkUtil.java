@@ -1,17 +1,15 @@
 package org.opentrafficsim.i4driving.tactical;
 
 import org.djutils.draw.point.Point2d;
-import org.opentrafficsim.core.geometry.OtsLine2d.FractionalFallback;
-import org.opentrafficsim.core.network.Link;
 import org.opentrafficsim.road.network.RoadNetwork;
-import org.opentrafficsim.road.network.lane.CrossSectionLink;
-import org.opentrafficsim.road.network.lane.Lane;
 import org.opentrafficsim.road.network.lane.LanePosition;
 
 /**
  * Network utilities.
  * @author wjschakel
+ * @deprecated use {@code LaneIndex}, which is built once for a network rather than scanning all lanes for each location
  */
+@Deprecated
 public final class NetworkUtil
 {
 
@@ -24,34 +22,17 @@ public final class NetworkUtil
     }
 
     /**
-     * Returns the lane position closest to the given location.
+     * Returns the lane position closest to the given location. This builds a {@code LaneIndex} for each call. For repeated
+     * calls on the same network, keep a {@code LaneIndex} and use {@code LaneIndex.getLanePosition(Point2d)}.
      * @param network network
      * @param position position
-     * @return lane position closest to the given location
+     * @return lane position closest to the given location, {@code null} if the network has no lanes
+     * @deprecated use {@code LaneIndex.getLanePosition(Point2d)}
      */
+    @Deprecated
     public static LanePosition getLanePosition(final RoadNetwork network, final Point2d position)
     {
-        double minDistance = Double.POSITIVE_INFINITY;
-        LanePosition lanePosition = null;
-        for (Link link : network.getLinkMap().values())
-        {
-            if (link instanceof CrossSectionLink roadLink)
-            {
-                for (Lane lane : roadLink.getLanesAndShoulders())
-                {
-                    double fraction = lane.getCenterLine().projectFractional(link.getStartNode().getHeading(),
-                            link.getEndNode().getHeading(), position.x, position.y, FractionalFallback.ENDPOINT);
-                    Point2d pointOnLane = lane.getCenterLine().getLocationFractionExtended(fraction);
-                    double distance = pointOnLane.distance(position);
-                    if (distance < minDistance)
-                    {
-                        minDistance = distance;
-                        lanePosition = new LanePosition(lane, lane.getCenterLine().getLength().times(fraction));
-                    }
-                }
-            }
-        }
-        return lanePosition;
+        return new LaneIndex(network).getLanePosition(position);
     }
 
 }
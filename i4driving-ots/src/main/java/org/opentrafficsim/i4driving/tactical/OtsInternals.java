@@ -0,0 +1,395 @@
+package org.opentrafficsim.i4driving.tactical;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.djunits.value.vdouble.scalar.Time;
+import org.djutils.draw.point.OrientedPoint2d;
+import org.djutils.serialization.TypedMessage;
+import org.djutils.serialization.serializers.Serializer;
+import org.opentrafficsim.core.dsol.OtsSimulatorInterface;
+import org.opentrafficsim.core.geometry.OtsGeometryException;
+import org.opentrafficsim.core.geometry.OtsLine2d;
+import org.opentrafficsim.core.gtu.Gtu;
+import org.opentrafficsim.core.gtu.TurnIndicatorIntent;
+import org.opentrafficsim.core.gtu.perception.AbstractPerception;
+import org.opentrafficsim.core.gtu.perception.AbstractPerceptionCategory;
+import org.opentrafficsim.core.gtu.plan.operational.OperationalPlan;
+import org.opentrafficsim.core.network.LateralDirectionality;
+import org.opentrafficsim.core.network.NetworkException;
+import org.opentrafficsim.road.gtu.lane.LaneBasedGtu;
+import org.opentrafficsim.road.gtu.lane.perception.structure.LaneStructure;
+import org.opentrafficsim.road.gtu.lane.plan.operational.SimpleOperationalPlan;
+import org.opentrafficsim.road.gtu.lane.tactical.following.AbstractCarFollowingModel;
+import org.opentrafficsim.road.gtu.lane.tactical.following.DesiredSpeedModel;
+import org.opentrafficsim.road.network.lane.Lane;
+import org.opentrafficsim.road.network.lane.conflict.ConflictBuilder;
+import org.opentrafficsim.road.network.lane.conflict.ConflictBuilder.WidthGenerator;
+
+/**
+ * Access to non-public members of OTS and its libraries, that scenario based planning, parallel perception and the transceiver
+ * need to change. All members are resolved once into static {@code VarHandle}s and {@code MethodHandle}s when this class is
+ * initialized, rather than looking them up by reflection on every call. When the internals have changed, initialization fails
+ * with an {@code ExceptionInInitializerError} that names the member. Invoke {@code verify()} at startup to fail fast, rather
+ * than during simulation.
+ * @author wjschakel
+ */
+public final class OtsInternals
+{
+
+    /** {@code SimpleOperationalPlan.indicatorIntent}. */
+    private static final VarHandle INDICATOR_INTENT;
+
+    /** Setter of {@code SimpleOperationalPlan.laneChangeDirection}, which is final and thus has no writable VarHandle. */
+    private static final MethodHandle LANE_CHANGE_DIRECTION;
+
+    /** {@code LaneBasedGtu.referenceLaneIndex}. */
+    private static final VarHandle REFERENCE_LANE_INDEX;
+
+    /** {@code LaneBasedGtu.desiredSpeedTime}. */
+    private static final VarHandle DESIRED_SPEED_TIME;
+
+    /** {@code LaneBasedGtu.carFollowingAccelerationTime}. */
+    private static final VarHandle CAR_FOLLOWING_ACCELERATION_TIME;
+
+    /** {@code AbstractCarFollowingModel.desiredSpeedModel}. */
+    private static final VarHandle DESIRED_SPEED_MODEL;
+
+    /** {@code Gtu.move(OrientedPoint2d)}. */
+    private static final MethodHandle MOVE;
+
+    /** {@code Gtu.setOperationalPlan(OperationalPlan)}. */
+    private static final MethodHandle SET_OPERATIONAL_PLAN;
+
+    /** {@code TypedMessage.OBJECT_DECODERS}. */
+    private static final VarHandle OBJECT_DECODERS;
+
+    /** {@code AbstractPerception.perceptionCategories}. */
+    private static final VarHandle PERCEPTION_CATEGORIES;
+
+    /** {@code AbstractPerceptionCategory.cache}. */
+    private static final VarHandle PERCEPTION_CACHE;
+
+    /** {@code Lane.gtuListAtTime}. */
+    private static final VarHandle GTU_LIST_AT_TIME;
+
+    /** {@code Lane.gtuListTime}. */
+    private static final VarHandle GTU_LIST_TIME;
+
+    /** {@code LaneStructure.updated}. */
+    private static final VarHandle LANE_STRUCTURE_UPDATED;
+
+    /** {@code ConflictBuilder.buildConflicts(Lane, Set, Set, Lane, Set, Set, boolean, ...)}, which accepts cached edges. */
+    private static final MethodHandle BUILD_CONFLICTS;
+
+    static
+    {
+        String member = null;
+        try
+        {
+            Lookup lookup = MethodHandles.lookup();
+            member = "SimpleOperationalPlan.indicatorIntent";
+            Lookup plan = MethodHandles.privateLookupIn(SimpleOperationalPlan.class, lookup);
+            INDICATOR_INTENT = plan.findVarHandle(SimpleOperationalPlan.class, "indicatorIntent", TurnIndicatorIntent.class);
+            member = "SimpleOperationalPlan.laneChangeDirection";
+            Field field = SimpleOperationalPlan.class.getDeclaredField("laneChangeDirection");
+            field.setAccessible(true);
+            LANE_CHANGE_DIRECTION = plan.unreflectSetter(field);
+            Lookup gtu = MethodHandles.privateLookupIn(LaneBasedGtu.class, lookup);
+            member = "LaneBasedGtu.referenceLaneIndex";
+            REFERENCE_LANE_INDEX = gtu.findVarHandle(LaneBasedGtu.class, "referenceLaneIndex", int.class);
+            member = "LaneBasedGtu.desiredSpeedTime";
+            DESIRED_SPEED_TIME = gtu.findVarHandle(LaneBasedGtu.class, "desiredSpeedTime", Time.class);
+            member = "LaneBasedGtu.carFollowingAccelerationTime";
+            CAR_FOLLOWING_ACCELERATION_TIME = gtu.findVarHandle(LaneBasedGtu.class, "carFollowingAccelerationTime", Time.class);
+            member = "AbstractCarFollowingModel.desiredSpeedModel";
+            DESIRED_SPEED_MODEL = MethodHandles.privateLookupIn(AbstractCarFollowingModel.class, lookup)
+                    .findVarHandle(AbstractCarFollowingModel.class, "desiredSpeedModel", DesiredSpeedModel.class);
+            Lookup core = MethodHandles.privateLookupIn(Gtu.class, lookup);
+            member = "Gtu.move(OrientedPoint2d)";
+            MOVE = core.findVirtual(Gtu.class, "move", MethodType.methodType(boolean.class, OrientedPoint2d.class));
+            member = "Gtu.setOperationalPlan(OperationalPlan)";
+            SET_OPERATIONAL_PLAN = core.findVirtual(Gtu.class, "setOperationalPlan",
+                    MethodType.methodType(void.class, OperationalPlan.class));
+            member = "TypedMessage.OBJECT_DECODERS";
+            OBJECT_DECODERS = MethodHandles.privateLookupIn(TypedMessage.class, lookup).findStaticVarHandle(TypedMessage.class,
+                    "OBJECT_DECODERS", Map.class);
+            member = "AbstractPerception.perceptionCategories";
+            PERCEPTION_CATEGORIES = MethodHandles.privateLookupIn(AbstractPerception.class, lookup)
+                    .findVarHandle(AbstractPerception.class, "perceptionCategories", Map.class);
+            member = "AbstractPerceptionCategory.cache";
+            PERCEPTION_CACHE = MethodHandles.privateLookupIn(AbstractPerceptionCategory.class, lookup)
+                    .findVarHandle(AbstractPerceptionCategory.class, "cache", Map.class);
+            Lookup lane = MethodHandles.privateLookupIn(Lane.class, lookup);
+            member = "Lane.gtuListAtTime";
+            GTU_LIST_AT_TIME = lane.findVarHandle(Lane.class, "gtuListAtTime", List.class);
+            member = "Lane.gtuListTime";
+            GTU_LIST_TIME = lane.findVarHandle(Lane.class, "gtuListTime", Time.class);
+            member = "LaneStructure.updated";
+            LANE_STRUCTURE_UPDATED = MethodHandles.privateLookupIn(LaneStructure.class, lookup)
+                    .findVarHandle(LaneStructure.class, "updated", Time.class);
+            member = "ConflictBuilder.buildConflicts(Lane, Set, Set, Lane, Set, Set, boolean, ...)";
+            BUILD_CONFLICTS = MethodHandles.privateLookupIn(ConflictBuilder.class, lookup).findStatic(ConflictBuilder.class,
+                    "buildConflicts", MethodType.methodType(void.class, Lane.class, Set.class, Set.class, Lane.class, Set.class,
+                            Set.class, boolean.class, OtsSimulatorInterface.class, WidthGenerator.class, Map.class, Map.class,
+                            boolean.class, String.class));
+        }
+        catch (ReflectiveOperationException | SecurityException ex)
+        {
+            throw new ExceptionInInitializerError(new IllegalStateException(
+                    "Internal member " + member + " of OTS or its libraries is not available, the internals have changed.",
+                    ex));
+        }
+    }
+
+    /**
+     * Constructor.
+     */
+    private OtsInternals()
+    {
+        //
+    }
+
+    /**
+     * Resolves all members, such that changed internals are detected at startup rather than during simulation.
+     * @throws ExceptionInInitializerError when a member is not available
+     */
+    public static void verify()
+    {
+        // resolving is done when this class is initialized, which invoking this method triggers
+    }
+
+    /**
+     * Sets the indicator intent of a plan.
+     * @param plan plan
+     * @param intent indicator intent
+     */
+    public static void setIndicatorIntent(final SimpleOperationalPlan plan, final TurnIndicatorIntent intent)
+    {
+        INDICATOR_INTENT.set(plan, intent);
+    }
+
+    /**
+     * Sets the lane change direction of a plan.
+     * @param plan plan
+     * @param direction lane change direction
+     */
+    public static void setLaneChangeDirection(final SimpleOperationalPlan plan, final LateralDirectionality direction)
+    {
+        try
+        {
+            LANE_CHANGE_DIRECTION.invokeExact(plan, direction);
+        }
+        catch (Throwable ex)
+        {
+            throw rethrow(ex);
+        }
+    }
+
+    /**
+     * Sets the reference lane index of a GTU.
+     * @param gtu GTU
+     * @param index reference lane index
+     */
+    public static void setReferenceLaneIndex(final LaneBasedGtu gtu, final int index)
+    {
+        REFERENCE_LANE_INDEX.set(gtu, index);
+    }
+
+    /**
+     * Clears the times of the cached desired speed and car-following acceleration of a GTU, such that new values are calculated
+     * even if they were already calculated at the current time.
+     * @param gtu GTU
+     */
+    public static void clearCachedDesiredSpeedAndAcceleration(final LaneBasedGtu gtu)
+    {
+        DESIRED_SPEED_TIME.set(gtu, (Time) null);
+        CAR_FOLLOWING_ACCELERATION_TIME.set(gtu, (Time) null);
+    }
+
+    /**
+     * Returns the desired speed model of a car-following model.
+     * @param carFollowingModel car-following model
+     * @return desired speed model
+     */
+    public static DesiredSpeedModel getDesiredSpeedModel(final AbstractCarFollowingModel carFollowingModel)
+    {
+        return (DesiredSpeedModel) DESIRED_SPEED_MODEL.get(carFollowingModel);
+    }
+
+    /**
+     * Sets the desired speed model of a car-following model.
+     * @param carFollowingModel car-following model
+     * @param desiredSpeedModel desired speed model
+     */
+    public static void setDesiredSpeedModel(final AbstractCarFollowingModel carFollowingModel,
+            final DesiredSpeedModel desiredSpeedModel)
+    {
+        DESIRED_SPEED_MODEL.set(carFollowingModel, desiredSpeedModel);
+    }
+
+    /**
+     * Moves a GTU, i.e. it starts a new operational plan from the given location.
+     * @param gtu GTU
+     * @param location location
+     * @return value returned by {@code Gtu.move(OrientedPoint2d)}
+     */
+    public static boolean move(final Gtu gtu, final OrientedPoint2d location)
+    {
+        try
+        {
+            return (boolean) MOVE.invokeExact(gtu, location);
+        }
+        catch (Throwable ex)
+        {
+            throw rethrow(ex);
+        }
+    }
+
+    /**
+     * Sets the operational plan of a GTU.
+     * @param gtu GTU
+     * @param operationalPlan operational plan
+     */
+    public static void setOperationalPlan(final Gtu gtu, final OperationalPlan operationalPlan)
+    {
+        try
+        {
+            SET_OPERATIONAL_PLAN.invokeExact(gtu, operationalPlan);
+        }
+        catch (Throwable ex)
+        {
+            throw rethrow(ex);
+        }
+    }
+
+    /**
+     * Returns the decoders of {@code TypedMessage} that decode into arrays and matrices of Objects, keyed by prefix.
+     * @return decoders of {@code TypedMessage} that decode into arrays and matrices of Objects
+     */
+    @SuppressWarnings("unchecked")
+    public static Map<Byte, Serializer<?>> getTypedMessageObjectDecoders()
+    {
+        return (Map<Byte, Serializer<?>>) OBJECT_DECODERS.get();
+    }
+
+    /**
+     * Clears the data that the perception categories of a perception cached at the current time, such that it is perceived
+     * again even if it was already perceived at the current time.
+     * @param perception perception
+     */
+    public static void clearPerceptionCaches(final AbstractPerception<?> perception)
+    {
+        for (Object category : ((Map<?, ?>) PERCEPTION_CATEGORIES.get(perception)).values())
+        {
+            if (category instanceof AbstractPerceptionCategory<?, ?> abstractCategory)
+            {
+                ((Map<?, ?>) PERCEPTION_CACHE.get(abstractCategory)).clear();
+            }
+        }
+    }
+
+    /**
+     * Returns the GTU list that a lane cached for {@code Lane.getGtuList(Time)}.
+     * @param lane lane
+     * @return cached GTU list, with {@code null} values if nothing is cached
+     */
+    @SuppressWarnings("unchecked")
+    public static GtuListCache getGtuListCache(final Lane lane)
+    {
+        return new GtuListCache((Time) GTU_LIST_TIME.get(lane), (List<LaneBasedGtu>) GTU_LIST_AT_TIME.get(lane));
+    }
+
+    /**
+     * Sets the GTU list that a lane caches for {@code Lane.getGtuList(Time)}, e.g. to restore it.
+     * @param lane lane
+     * @param cache cached GTU list, with {@code null} values if nothing is cached
+     */
+    public static void setGtuListCache(final Lane lane, final GtuListCache cache)
+    {
+        GTU_LIST_TIME.set(lane, cache.time());
+        GTU_LIST_AT_TIME.set(lane, cache.gtus());
+    }
+
+    /**
+     * Returns the time at which a lane structure was last updated.
+     * @param laneStructure lane structure
+     * @return time at which the lane structure was last updated, {@code null} if it was not yet updated
+     */
+    public static Time getLaneStructureUpdateTime(final LaneStructure laneStructure)
+    {
+        return (Time) LANE_STRUCTURE_UPDATED.get(laneStructure);
+    }
+
+    /**
+     * Sets the time at which a lane structure was last updated, e.g. to restore it such that it is updated again.
+     * @param laneStructure lane structure
+     * @param time time at which the lane structure was last updated, {@code null} if it was not yet updated
+     */
+    public static void setLaneStructureUpdateTime(final LaneStructure laneStructure, final Time time)
+    {
+        LANE_STRUCTURE_UPDATED.set(laneStructure, time);
+    }
+
+    /**
+     * Builds the conflicts between two lanes, as {@code ConflictBuilder.buildConflicts(Lane, Lane, ...)} does, but with edges of
+     * the conflict areas that may already be computed. Edges that are not in the maps are computed and added to them.
+     * @param lane1 first lane
+     * @param lane2 second lane
+     * @param simulator simulator
+     * @param widthGenerator width generator for the conflict areas
+     * @param leftEdges left edges of the conflict areas per lane, which must match the width generator
+     * @param rightEdges right edges of the conflict areas per lane, which must match the width generator
+     * @throws OtsGeometryException when a conflict cannot be built
+     * @throws NetworkException when a conflict cannot be built
+     */
+    public static void buildConflicts(final Lane lane1, final Lane lane2, final OtsSimulatorInterface simulator,
+            final WidthGenerator widthGenerator, final Map<Lane, OtsLine2d> leftEdges, final Map<Lane, OtsLine2d> rightEdges)
+            throws OtsGeometryException, NetworkException
+    {
+        try
+        {
+            BUILD_CONFLICTS.invokeExact(lane1, lane1.nextLanes(null), lane1.prevLanes(null), lane2, lane2.nextLanes(null),
+                    lane2.prevLanes(null), false, simulator, widthGenerator, leftEdges, rightEdges, true, (String) null);
+        }
+        catch (OtsGeometryException | NetworkException ex)
+        {
+            throw ex;
+        }
+        catch (Throwable ex)
+        {
+            throw rethrow(ex);
+        }
+    }
+
+    /**
+     * Returns an unchecked exception to throw for an exception of an invoked method.
+     * @param ex exception
+     * @return unchecked exception to throw
+     */
+    private static RuntimeException rethrow(final Throwable ex)
+    {
+        if (ex instanceof Error error)
+        {
+            throw error;
+        }
+        return ex instanceof RuntimeException runtimeException ? runtimeException : new RuntimeException(ex);
+    }
+
+    /**
+     * GTU list that a lane cached for {@code Lane.getGtuList(Time)}.
+     * @param time time for which the GTU list is cached
+     * @param gtus cached GTU list
+     */
+    public record GtuListCache(Time time, List<LaneBasedGtu> gtus)
+    {
+    }
+
+}
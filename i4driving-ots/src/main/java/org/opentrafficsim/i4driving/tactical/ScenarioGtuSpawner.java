@@ -9,10 +9,12 @@ import org.djunits.value.vdouble.scalar.Length;
 import org.djunits.value.vdouble.scalar.Speed;
 import org.djunits.value.vdouble.scalar.Time;
 import org.djutils.exceptions.Throw;
+import org.djutils.exceptions.Try;
 import org.djutils.immutablecollections.ImmutableMap.ImmutableEntry;
 import org.opentrafficsim.base.parameters.ParameterException;
 import org.opentrafficsim.base.parameters.ParameterType;
 import org.opentrafficsim.core.definitions.Defaults;
+import org.opentrafficsim.core.dsol.OtsSimulatorInterface;
 import org.opentrafficsim.core.geometry.OtsGeometryException;
 import org.opentrafficsim.core.gtu.GtuCharacteristics;
 import org.opentrafficsim.core.gtu.GtuException;
@@ -69,7 +71,9 @@ public class ScenarioGtuSpawner
         this.strategicalFactory = strategicalFactory;
         if (generationInfo != null)
         {
-            network.getSimulator().scheduleEventAbsTime(generationInfo.getTime(), this, "generateGtu", new Object[0]);
+            OtsSimulatorInterface simulator = network.getSimulator();
+            simulator.scheduleEventAbs(generationInfo.getTime().minus(simulator.getStartTimeAbs()),
+                    () -> Try.execute(this::generateGtu, "Unable to generate GTU %s.", gtuId));
             Throw.whenNull(strategicalFactory, "Strategical factory may not be null when generation info is provided.");
         }
     }
@@ -87,7 +91,7 @@ public class ScenarioGtuSpawner
      * @throws IllegalAccessException
      * @throws IllegalArgumentException
      */
-    @SuppressWarnings({"unused", "unchecked"}) // scheduled
+    @SuppressWarnings("unchecked")
     private void generateGtu()
             throws GtuException, SimRuntimeException, NetworkException, OtsGeometryException, ClassNotFoundException,
             NoSuchFieldException, SecurityException, ParameterException, IllegalArgumentException, IllegalAccessException
@@ -96,7 +100,12 @@ public class ScenarioGtuSpawner
         GtuType gtuType = Defaults.getByName(GtuType.class, "NL." + this.generationInfo.getGtuType());
         StreamInterface randomStream = this.network.getSimulator().getModel().getStream("generation");
         // TODO: characteristics in generationInfo (length, width, max speed, front, max accel, max decel)
-        GtuCharacteristics gtuCharacteristics = GtuType.defaultCharacteristics(gtuType, this.network, randomStream);
+        GtuCharacteristics gtuCharacteristics;
+        synchronized (GtuType.class)
+        {
+            // templates are stored statically, shared by all co-simulation sessions in the JVM
+            gtuCharacteristics = GtuType.defaultCharacteristics(gtuType, this.network, randomStream);
+        }
         this.gtu = new LaneBasedGtu(this.gtuId, gtuType, gtuCharacteristics.getLength(), gtuCharacteristics.getWidth(),
                 gtuCharacteristics.getMaximumSpeed(), gtuCharacteristics.getFront(), this.network);
         this.gtu.setMaximumAcceleration(gtuCharacteristics.getMaximumAcceleration());
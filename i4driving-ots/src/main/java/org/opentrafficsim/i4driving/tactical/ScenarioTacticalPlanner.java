@@ -1,8 +1,6 @@
 package org.opentrafficsim.i4driving.tactical;
 
 import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 
 import org.djunits.value.vdouble.scalar.Acceleration;
 import org.djunits.value.vdouble.scalar.Duration;
@@ -19,7 +17,6 @@ import org.opentrafficsim.base.parameters.ParameterTypes;
 import org.opentrafficsim.base.parameters.Parameters;
 import org.opentrafficsim.core.geometry.OtsLine2d;
 import org.opentrafficsim.core.geometry.OtsLine2d.FractionalFallback;
-import org.opentrafficsim.core.gtu.Gtu;
 import org.opentrafficsim.core.gtu.GtuException;
 import org.opentrafficsim.core.gtu.TurnIndicatorIntent;
 import org.opentrafficsim.core.gtu.perception.EgoPerception;
@@ -28,6 +25,7 @@ import org.opentrafficsim.core.gtu.plan.operational.OperationalPlanException;
 import org.opentrafficsim.core.gtu.plan.operational.Segments;
 import org.opentrafficsim.core.network.LateralDirectionality;
 import org.opentrafficsim.core.network.NetworkException;
+import org.opentrafficsim.i4driving.tactical.perception.ParallelLanePerception;
 import org.opentrafficsim.road.gtu.lane.LaneBasedGtu;
 import org.opentrafficsim.road.gtu.lane.perception.LanePerception;
 import org.opentrafficsim.road.gtu.lane.perception.RelativeLane;
@@ -57,8 +55,6 @@ import org.opentrafficsim.road.network.lane.Lane;
 import org.opentrafficsim.road.network.speed.SpeedLimitInfo;
 import org.opentrafficsim.road.network.speed.SpeedLimitProspect;
 
-import nl.tudelft.simulation.dsol.formalisms.eventscheduling.SimEvent;
-
 /**
  * Tactical planner that uses the LMRS, but overrides actions based on {@code Commands} typically invoked by a
  * {@code CommandsHandler}. This class is similar to the {@code Lmrs} tactical planner.
@@ -121,6 +117,15 @@ public class ScenarioTacticalPlanner extends AbstractIncentivesTacticalPlanner i
     /** Synchronization state. */
     private Synchronizable.State syncState = Synchronizable.State.NONE;
 
+    /** Number of nested command transactions that are open, a replan is deferred while this is larger than 0. */
+    private int commandTransactions;
+
+    /** Whether a replan was requested during the open command transaction. */
+    private boolean replanPending;
+
+    /** Number of replans that were avoided by command transactions. */
+    private long avoidedReplans;
+
     /**
      * Constructor setting the car-following model.
      * @param carFollowingModel Car-following model.
@@ -210,16 +215,7 @@ public class ScenarioTacticalPlanner extends AbstractIncentivesTacticalPlanner i
             }
             if (!this.laneChangesEnabledCommand)
             {
-                try
-                {
-                    Field field = SimpleOperationalPlan.class.getDeclaredField("indicatorIntent");
-                    field.setAccessible(true);
-                    field.set(simplePlan, TurnIndicatorIntent.NONE);
-                }
-                catch (NoSuchFieldException | SecurityException | IllegalArgumentException | IllegalAccessException e)
-                {
-                    throw new RuntimeException(e);
-                }
+                OtsInternals.setIndicatorIntent(simplePlan, TurnIndicatorIntent.NONE);
             }
             if (this.indicatorCommand != null && !this.indicatorCommand.isNone())
             {
@@ -234,29 +230,11 @@ public class ScenarioTacticalPlanner extends AbstractIncentivesTacticalPlanner i
             }
             if (!this.laneChangesEnabledCommand && simplePlan.isLaneChange() && !this.laneChange.isChangingLane())
             {
-                try
-                {
-                    Field field = SimpleOperationalPlan.class.getDeclaredField("laneChangeDirection");
-                    field.setAccessible(true);
-                    field.set(simplePlan, LateralDirectionality.NONE);
-                }
-                catch (NoSuchFieldException | SecurityException | IllegalArgumentException | IllegalAccessException e)
-                {
-                    throw new RuntimeException(e);
-                }
+                OtsInternals.setLaneChangeDirection(simplePlan, LateralDirectionality.NONE);
             }
             if (this.laneChangeCommand != null) // this overrules 'this.laneChangesEnabled == false'
             {
-                try
-                {
-                    Field field = SimpleOperationalPlan.class.getDeclaredField("laneChangeDirection");
-                    field.setAccessible(true);
-                    field.set(simplePlan, this.laneChangeCommand);
-                }
-                catch (NoSuchFieldException | SecurityException | IllegalArgumentException | IllegalAccessException e)
-                {
-                    throw new RuntimeException(e);
-                }
+                OtsInternals.setLaneChangeDirection(simplePlan, this.laneChangeCommand);
                 this.laneChangeCommand = null; // trigger, not a state
                 this.laneChange.setDesiredLaneChangeDuration(getGtu().getParameters().getParameter(ParameterTypes.LCDUR));
             }
@@ -343,16 +321,7 @@ public class ScenarioTacticalPlanner extends AbstractIncentivesTacticalPlanner i
         {
             getGtu().changeLaneInstantaneously(lc);
             // set referenceLaneIndex to null to finalize any ongoing lane change
-            try
-            {
-                Field referenceLaneIndexField = LaneBasedGtu.class.getDeclaredField("referenceLaneIndex");
-                referenceLaneIndexField.setAccessible(true);
-                referenceLaneIndexField.set(getGtu(), 0);
-            }
-            catch (NoSuchFieldException | SecurityException | IllegalArgumentException | IllegalAccessException e)
-            {
-                // ignore
-            }
+            OtsInternals.setReferenceLaneIndex(getGtu(), 0);
         }
     }
 
@@ -404,7 +373,7 @@ public class ScenarioTacticalPlanner extends AbstractIncentivesTacticalPlanner i
     public void setAcceleration(final Acceleration acceleration)
     {
         this.accelerationCommand = acceleration;
-        interruptMove(getGtu().getLocation());
+        replan();
     }
 
     /**
@@ -413,7 +382,7 @@ public class ScenarioTacticalPlanner extends AbstractIncentivesTacticalPlanner i
     public void resetAcceleration()
     {
         this.accelerationCommand = null;
-        interruptMove(getGtu().getLocation());
+        replan();
     }
 
     /**
@@ -424,18 +393,17 @@ public class ScenarioTacticalPlanner extends AbstractIncentivesTacticalPlanner i
     public void setIndicator(final LateralDirectionality indicator, final Duration duration)
     {
         this.indicatorCommand = indicator;
-        getGtu().getSimulator().scheduleEventRel(duration, this, "resetIndicator", new Object[0]);
-        interruptMove(getGtu().getLocation());
+        getGtu().getSimulator().scheduleEventRel(duration, this::resetIndicator);
+        replan();
     }
 
     /**
      * Resets the indicator.
      */
-    @SuppressWarnings("unused") // scheduled
     private void resetIndicator()
     {
         this.indicatorCommand = null;
-        interruptMove(getGtu().getLocation());
+        replan();
     }
 
     /**
@@ -444,7 +412,7 @@ public class ScenarioTacticalPlanner extends AbstractIncentivesTacticalPlanner i
     public void disableLaneChanges()
     {
         this.laneChangesEnabledCommand = false;
-        interruptMove(getGtu().getLocation());
+        replan();
     }
 
     /**
@@ -453,7 +421,7 @@ public class ScenarioTacticalPlanner extends AbstractIncentivesTacticalPlanner i
     public void enableLaneChanges()
     {
         this.laneChangesEnabledCommand = true;
-        interruptMove(getGtu().getLocation());
+        replan();
     }
 
     /**
@@ -469,16 +437,7 @@ public class ScenarioTacticalPlanner extends AbstractIncentivesTacticalPlanner i
         }
         else
         {
-            try
-            {
-                Field modelField = AbstractCarFollowingModel.class.getDeclaredField("desiredSpeedModel");
-                modelField.setAccessible(true);
-                this.desiredSpeedModel = (DesiredSpeedModel) modelField.get(getCarFollowingModel());
-            }
-            catch (NoSuchFieldException | SecurityException | IllegalArgumentException | IllegalAccessException e)
-            {
-                throw new RuntimeException(e);
-            }
+            this.desiredSpeedModel = OtsInternals.getDesiredSpeedModel((AbstractCarFollowingModel) getCarFollowingModel());
             setDesiredSpeedModel(new DesiredSpeedModel()
             {
                 /** {@inheritDoc} */
@@ -489,7 +448,7 @@ public class ScenarioTacticalPlanner extends AbstractIncentivesTacticalPlanner i
                 }
             });
         }
-        interruptMove(getGtu().getLocation());
+        replan();
     }
 
     /**
@@ -508,7 +467,7 @@ public class ScenarioTacticalPlanner extends AbstractIncentivesTacticalPlanner i
                     "Attempting to reset desired speed, but no desired speed was ever set.");
             setDesiredSpeedModel(this.desiredSpeedModel);
         }
-        interruptMove(getGtu().getLocation());
+        replan();
     }
 
     /**
@@ -517,39 +476,16 @@ public class ScenarioTacticalPlanner extends AbstractIncentivesTacticalPlanner i
      */
     private void clearCache()
     {
-        try
-        {
-            // clear time of cached desired speed, so a new value will be calculated
-            Field speedCacheField = LaneBasedGtu.class.getDeclaredField("desiredSpeedTime");
-            speedCacheField.setAccessible(true);
-            speedCacheField.set(getGtu(), null);
-            // clear time of cached acceleration, so a new value will be calculated
-            Field accelerationCacheField = LaneBasedGtu.class.getDeclaredField("carFollowingAccelerationTime");
-            accelerationCacheField.setAccessible(true);
-            accelerationCacheField.set(getGtu(), null);
-        }
-        catch (NoSuchFieldException | SecurityException | IllegalArgumentException | IllegalAccessException e)
-        {
-            throw new RuntimeException(e);
-        }
+        OtsInternals.clearCachedDesiredSpeedAndAcceleration(getGtu());
     }
 
     /**
-     * Sets the desired speed model in the car-following mode using reflection.
+     * Sets the desired speed model in the car-following mode.
      * @param desiredSpeedModel desired speed model.
      */
     private void setDesiredSpeedModel(final DesiredSpeedModel desiredSpeedModel)
     {
-        try
-        {
-            Field field = AbstractCarFollowingModel.class.getDeclaredField("desiredSpeedModel");
-            field.setAccessible(true);
-            field.set(getCarFollowingModel(), desiredSpeedModel);
-        }
-        catch (NoSuchFieldException | SecurityException | IllegalArgumentException | IllegalAccessException e)
-        {
-            throw new RuntimeException(e);
-        }
+        OtsInternals.setDesiredSpeedModel((AbstractCarFollowingModel) getCarFollowingModel(), desiredSpeedModel);
     }
 
     /**
@@ -601,6 +537,7 @@ public class ScenarioTacticalPlanner extends AbstractIncentivesTacticalPlanner i
         {
             throw new RuntimeException("Setting parameter of type " + parameterType.getValueClass() + " is not supported.");
         }
+        discardPrefetch();
     }
 
     /**
@@ -610,7 +547,7 @@ public class ScenarioTacticalPlanner extends AbstractIncentivesTacticalPlanner i
     public void changeLane(final LateralDirectionality direction)
     {
         this.laneChangeCommand = direction;
-        interruptMove(getGtu().getLocation());
+        replan();
     }
 
     /**
@@ -626,29 +563,92 @@ public class ScenarioTacticalPlanner extends AbstractIncentivesTacticalPlanner i
     }
 
     /**
-     * Invokes {@code interruptMove} on the GTU through reflection. This will cancel the scheduled move event, and trigger a new
+     * Starts a command transaction. Commands that are given until the matching {@code endCommands()} only change the state of
+     * the planner, and trigger at most one replan when the transaction ends. Transactions may be nested, in which case the
+     * outermost transaction determines when the replan is performed.
+     */
+    public void beginCommands()
+    {
+        this.commandTransactions++;
+    }
+
+    /**
+     * Ends a command transaction. When this ends the outermost transaction, and any command requested a replan, a single replan
+     * is performed now.
+     * @throws IllegalStateException when no command transaction is open
+     */
+    public void endCommands()
+    {
+        Throw.when(this.commandTransactions == 0, IllegalStateException.class, "No command transaction to end.");
+        this.commandTransactions--;
+        if (this.commandTransactions == 0 && this.replanPending)
+        {
+            this.replanPending = false;
+            if (!getGtu().isDestroyed())
+            {
+                interruptMove(getGtu().getLocation());
+            }
+        }
+    }
+
+    /**
+     * Returns the number of replans that were avoided by command transactions, i.e. the number of commands that requested a
+     * replan while another command in the same transaction had already done so.
+     * @return number of replans that were avoided by command transactions
+     */
+    public long getAvoidedReplans()
+    {
+        return this.avoidedReplans;
+    }
+
+    /**
+     * Replans from the current location because a command changed the state of the planner. During a command transaction the
+     * replan is deferred until the transaction ends.
+     */
+    private void replan()
+    {
+        if (this.commandTransactions == 0)
+        {
+            interruptMove(getGtu().getLocation());
+        }
+        else if (this.replanPending)
+        {
+            this.avoidedReplans++;
+        }
+        else
+        {
+            this.replanPending = true;
+        }
+    }
+
+    /**
+     * Performs the contents of {@code interruptMove} on the GTU. This will cancel the scheduled move event, and trigger a new
      * move now.
      * @param location location
      */
     private void interruptMove(final OrientedPoint2d location)
     {
-        try
+        if (this.replanPending)
         {
-            // there's a bug in interruptMove(), so need to perform its contents indirectly
-            Field field = Gtu.class.getDeclaredField("nextMoveEvent");
-            field.setAccessible(true);
-            @SuppressWarnings("unchecked")
-            SimEvent<Duration> event = (SimEvent<Duration>) field.get(getGtu());
-            getGtu().getSimulator().cancelEvent(event);
-
-            Method move = Gtu.class.getDeclaredMethod("move", OrientedPoint2d.class);
-            move.setAccessible(true);
-            move.invoke(getGtu(), location);
+            // a deferred replan is satisfied by this one
+            this.replanPending = false;
+            this.avoidedReplans++;
         }
-        catch (NoSuchMethodException | SecurityException | IllegalAccessException | IllegalArgumentException
-                | InvocationTargetException | NoSuchFieldException e)
+        discardPrefetch();
+        // there's a bug in interruptMove(), so need to perform its contents indirectly
+        getGtu().getSimulator().cancelEvent(getGtu().getNextMoveEvent());
+        OtsInternals.move(getGtu(), location);
+    }
+
+    /**
+     * Discards the mental model result that parallel perception staged for the current instant, as the state of the GTU or
+     * planner that it was based on has changed.
+     */
+    private void discardPrefetch()
+    {
+        if (getPerception() instanceof ParallelLanePerception parallelPerception)
         {
-            throw new RuntimeException(e);
+            parallelPerception.discardPrefetch();
         }
     }
 
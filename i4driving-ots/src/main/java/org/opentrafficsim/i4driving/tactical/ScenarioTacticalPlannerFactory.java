@@ -1,7 +1,6 @@
 package org.opentrafficsim.i4driving.tactical;
 
 import java.lang.reflect.Field;
-import java.lang.reflect.Method;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.Map;
@@ -16,6 +15,7 @@ import org.opentrafficsim.base.parameters.ParameterException;
 import org.opentrafficsim.base.parameters.ParameterSet;
 import org.opentrafficsim.base.parameters.ParameterTypes;
 import org.opentrafficsim.base.parameters.Parameters;
+import org.opentrafficsim.core.dsol.OtsSimulatorInterface;
 import org.opentrafficsim.core.gtu.Gtu;
 import org.opentrafficsim.core.gtu.GtuErrorHandler;
 import org.opentrafficsim.core.gtu.GtuException;
@@ -31,6 +31,8 @@ import org.opentrafficsim.i4driving.tactical.perception.ConflictAnticipation;
 import org.opentrafficsim.i4driving.tactical.perception.IntersectionPerceptionChannel;
 import org.opentrafficsim.i4driving.tactical.perception.LocalDistractionPerception;
 import org.opentrafficsim.i4driving.tactical.perception.NeighborsPerceptionChannel;
+import org.opentrafficsim.i4driving.tactical.perception.ParallelLanePerception;
+import org.opentrafficsim.i4driving.tactical.perception.ParallelPerception;
 import org.opentrafficsim.i4driving.tactical.perception.SaturationEstimation;
 import org.opentrafficsim.i4driving.tactical.perception.mental.CarFollowingTask;
 import org.opentrafficsim.i4driving.tactical.perception.mental.LaneChangeTask;
@@ -249,6 +251,17 @@ public class ScenarioTacticalPlannerFactory implements LaneBasedTacticalPlannerF
     @Option(names = {"--localDistraction"}, description = "Enables local distraction.", defaultValue = "true", negatable = true)
     private boolean localDistraction = true;
 
+    // Execution
+
+    /** Number of threads for parallel perception of GTUs that move at the same instant, 0 for serial perception. */
+    @Option(names = {"--parallelPerception"},
+            description = "Number of threads for parallel perception of GTUs moving at the same instant, 0 for serial.",
+            defaultValue = "0")
+    private int parallelPerception = 0;
+
+    /** Coordinator of parallel perception, {@code null} if no GTU with parallel perception was generated. */
+    private ParallelPerception parallelCoordinator;
+
     /** GTU error handler for collisions. */
     private final GtuErrorHandler errorHandler = new GtuErrorHandler()
     {
@@ -258,10 +271,8 @@ public class ScenarioTacticalPlannerFactory implements LaneBasedTacticalPlannerF
         {
             if (ex.getCause() instanceof CollisionException)
             {
-                Method method = Gtu.class.getMethod("setOperationalPlan", OperationalPlan.class);
-                method.setAccessible(true);
-                method.invoke(gtu, OperationalPlan.standStill(gtu, gtu.getLocation(), gtu.getSimulator().getSimulatorAbsTime(),
-                        Duration.POSITIVE_INFINITY));
+                OtsInternals.setOperationalPlan(gtu, OperationalPlan.standStill(gtu, gtu.getLocation(),
+                        gtu.getSimulator().getSimulatorAbsTime(), Duration.POSITIVE_INFINITY));
             }
             else
             {
@@ -282,6 +293,31 @@ public class ScenarioTacticalPlannerFactory implements LaneBasedTacticalPlannerF
         this.fSpeedDist = new DistNormalTrunc(stream, 123.7 / 120.0, 0.1, 0.8, 50.0);
     }
 
+    /**
+     * Returns a new factory with the same settings, e.g. for another simulation in the same JVM. The random number stream is
+     * not copied, and should be set on the new factory.
+     * @return new factory with the same settings
+     */
+    public ScenarioTacticalPlannerFactory copy()
+    {
+        ScenarioTacticalPlannerFactory copy = new ScenarioTacticalPlannerFactory();
+        try
+        {
+            for (Field field : ScenarioTacticalPlannerFactory.class.getDeclaredFields())
+            {
+                if (field.isAnnotationPresent(Option.class))
+                {
+                    field.set(copy, field.get(this));
+                }
+            }
+        }
+        catch (IllegalAccessException ex)
+        {
+            throw new RuntimeException(ex);
+        }
+        return copy;
+    }
+
     /**
      * The current state will be reverted after the next tactical planner has been generated. Any changes to the settings after
      * a call to this method, and before the next tactical planner has been generated, are only applied to said tactical
@@ -598,7 +634,15 @@ public class ScenarioTacticalPlannerFactory implements LaneBasedTacticalPlannerF
             anticipationConflicts = new ConflictAnticipation();
         }
 
-        LanePerception perception = new CategoricalLanePerception(gtu, mental);
+        LanePerception perception;
+        if (this.parallelPerception > 0 && mental instanceof ChannelFuller channelFuller)
+        {
+            perception = new ParallelLanePerception(gtu, channelFuller, getParallelCoordinator(gtu.getSimulator()));
+        }
+        else
+        {
+            perception = new CategoricalLanePerception(gtu, mental);
+        }
         perception.addPerceptionCategory(new DirectEgoPerception<>(perception));
         perception.addPerceptionCategory(new DirectInfrastructurePerception(perception));
         perception.addPerceptionCategory(new AnticipationTrafficPerception(perception));
@@ -867,6 +911,48 @@ public class ScenarioTacticalPlannerFactory implements LaneBasedTacticalPlannerF
         this.localDistraction = localDistraction;
     }
 
+    /**
+     * Sets the number of threads for parallel perception of GTUs that move at the same instant
+     * ({@code FullerImplementation.ATTENTION_MATRIX} only).
+     * @param parallelPerception number of threads, 0 for serial perception
+     */
+    public void setParallelPerception(final int parallelPerception)
+    {
+        Throw.when(parallelPerception < 0, IllegalArgumentException.class,
+                "Parallel perception should be above or equal to 0");
+        saveState("parallelPerception");
+        this.parallelPerception = parallelPerception;
+    }
+
+    /**
+     * Returns the coordinator of parallel perception, e.g. to obtain statistics on the groups of GTUs.
+     * @return coordinator of parallel perception, {@code null} if no GTU with parallel perception was generated
+     */
+    public ParallelPerception getParallelPerception()
+    {
+        return this.parallelCoordinator;
+    }
+
+    /**
+     * Returns the coordinator of parallel perception for the simulator, creating it when required.
+     * @param simulator simulator
+     * @return coordinator of parallel perception for the simulator
+     */
+    private ParallelPerception getParallelCoordinator(final OtsSimulatorInterface simulator)
+    {
+        if (this.parallelCoordinator == null || this.parallelCoordinator.getSimulator() != simulator
+                || this.parallelCoordinator.getParallelism() != this.parallelPerception
+                || this.parallelCoordinator.isShutdown())
+        {
+            if (this.parallelCoordinator != null)
+            {
+                this.parallelCoordinator.shutdown();
+            }
+            this.parallelCoordinator = new ParallelPerception(simulator, this.parallelPerception);
+        }
+        return this.parallelCoordinator;
+    }
+
     /**
      * Type of management of different tasks.
      */
@@ -63,6 +63,26 @@ public class ChannelPerceptionFactory implements PerceptionFactory
     /** Anticipation instance for conflicts. */
     private static final Anticipation ANTICIPATION_CONFLICTS = new ConflictAnticipation();
 
+    /** Coordinator of parallel perception, {@code null} for serial perception. */
+    private final ParallelPerception parallelPerception;
+
+    /**
+     * Constructor for serial perception.
+     */
+    public ChannelPerceptionFactory()
+    {
+        this(null);
+    }
+
+    /**
+     * Constructor.
+     * @param parallelPerception coordinator of parallel perception, {@code null} for serial perception
+     */
+    public ChannelPerceptionFactory(final ParallelPerception parallelPerception)
+    {
+        this.parallelPerception = parallelPerception;
+    }
+
     /** {@inheritDoc} */
     @Override
     public LanePerception generatePerception(final LaneBasedGtu gtu)
@@ -71,7 +91,8 @@ public class ChannelPerceptionFactory implements PerceptionFactory
         behavioralAdapatations.add(new AdaptationHeadway());
         behavioralAdapatations.add(new AdaptationSpeedChannel());
         ChannelFuller mental = new ChannelFuller(TASK_SUPPLIERS, behavioralAdapatations);
-        LanePerception perception = new CategoricalLanePerception(gtu, mental);
+        LanePerception perception = this.parallelPerception == null ? new CategoricalLanePerception(gtu, mental)
+                : new ParallelLanePerception(gtu, mental, this.parallelPerception);
         perception.addPerceptionCategory(new DirectEgoPerception<>(perception));
         perception.addPerceptionCategory(new DirectInfrastructurePerception(perception));
         perception.addPerceptionCategory(
@@ -0,0 +1,300 @@
+package org.opentrafficsim.i4driving.tactical.perception;
+
+import org.djunits.value.vdouble.scalar.Acceleration;
+import org.djunits.value.vdouble.scalar.Length;
+import org.djunits.value.vdouble.scalar.Speed;
+import org.opentrafficsim.base.parameters.Parameters;
+import org.opentrafficsim.core.gtu.GtuException;
+import org.opentrafficsim.core.gtu.GtuType;
+import org.opentrafficsim.core.network.route.Route;
+import org.opentrafficsim.road.gtu.lane.LaneBasedGtu;
+import org.opentrafficsim.road.gtu.lane.perception.headway.HeadwayGtu;
+import org.opentrafficsim.road.gtu.lane.perception.headway.HeadwayGtuPerceived;
+import org.opentrafficsim.road.gtu.lane.tactical.following.CarFollowingModel;
+import org.opentrafficsim.road.network.speed.SpeedLimitInfo;
+
+/**
+ * Perceived GTU that is created in the first phase of a {@code ParallelPerception}. The headway gives the distance, speed and
+ * acceleration, which are derived from the operational plans of both GTUs and are therefore as in the serial mode, unless the
+ * perceived GTU moves earlier in the same instant. This is checked when the perceiving GTU moves. Other current state of the
+ * perceived GTU, such as its parameters, desired speed and indicators, is not given in the first phase, as it is not derived
+ * from the operational plan and may be cached in the perceived GTU when it is requested. Any use of such state taints the first
+ * phase of the perceiving GTU, which then applies its mental model again when it moves. Otherwise, the perceived GTU is
+ * resolved when the perceiving GTU moves, i.e. when it would have been perceived in the serial mode, after which it is a
+ * {@code HeadwayGtuPerceived} as in the serial mode.
+ * @author wjschakel
+ */
+final class HeadwayGtuProvisional implements HeadwayGtu
+{
+
+    /** Perception of the perceiving GTU. */
+    private final ParallelLanePerception perception;
+
+    /** Perceived GTU. */
+    private final LaneBasedGtu gtu;
+
+    /** Headway of which only the distance, speed and acceleration are used in the first phase. */
+    private final HeadwayGtu headway;
+
+    /** Resolved headway, {@code null} in the first phase. */
+    private HeadwayGtu resolved;
+
+    /**
+     * Constructor.
+     * @param perception perception of the perceiving GTU
+     * @param gtu perceived GTU
+     * @param headway headway of which only the distance, speed and acceleration are used in the first phase
+     */
+    HeadwayGtuProvisional(final ParallelLanePerception perception, final LaneBasedGtu gtu, final HeadwayGtu headway)
+    {
+        this.perception = perception;
+        this.gtu = gtu;
+        this.headway = headway;
+    }
+
+    /**
+     * Resolves the perceived GTU with the same distance, speed and acceleration, as it would have been perceived at this time
+     * in the serial mode. This copies current state of the perceived GTU.
+     * @throws GtuException when the headway cannot be created
+     */
+    void resolve() throws GtuException
+    {
+        this.resolved = this.headway.isParallel()
+                ? new HeadwayGtuPerceived(this.gtu, this.headway.getOverlapFront(), this.headway.getOverlap(),
+                        this.headway.getOverlapRear(), this.headway.getSpeed(), this.headway.getAcceleration())
+                : new HeadwayGtuPerceived(this.gtu, this.headway.getDistance(), this.headway.getSpeed(),
+                        this.headway.getAcceleration());
+    }
+
+    /**
+     * Returns the resolved headway, or the headway of the first phase if the perceived GTU is not resolved.
+     * @return resolved headway, or the headway of the first phase if the perceived GTU is not resolved
+     */
+    private HeadwayGtu get()
+    {
+        return this.resolved == null ? this.headway : this.resolved;
+    }
+
+    /**
+     * Returns the headway for current state of the perceived GTU, tainting the first phase if the perceived GTU is not
+     * resolved.
+     * @return headway for current state of the perceived GTU
+     */
+    private HeadwayGtu currentState()
+    {
+        if (this.resolved == null)
+        {
+            this.perception.taint();
+            return this.headway;
+        }
+        return this.resolved;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String getId()
+    {
+        return get().getId();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Length getLength()
+    {
+        return get().getLength();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Length getWidth()
+    {
+        return get().getWidth();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public GtuType getGtuType()
+    {
+        return get().getGtuType();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public ObjectType getObjectType()
+    {
+        return get().getObjectType();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean isFacingSameDirection()
+    {
+        return get().isFacingSameDirection();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Speed getSpeed()
+    {
+        return get().getSpeed();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Acceleration getAcceleration()
+    {
+        return get().getAcceleration();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Length getDistance()
+    {
+        return get().getDistance();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Length getOverlapFront()
+    {
+        return get().getOverlapFront();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Length getOverlap()
+    {
+        return get().getOverlap();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Length getOverlapRear()
+    {
+        return get().getOverlapRear();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean isAhead()
+    {
+        return get().isAhead();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean isBehind()
+    {
+        return get().isBehind();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean isParallel()
+    {
+        return get().isParallel();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean isBrakingLightsOn()
+    {
+        return currentState().isBrakingLightsOn();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean isLeftTurnIndicatorOn()
+    {
+        return currentState().isLeftTurnIndicatorOn();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean isRightTurnIndicatorOn()
+    {
+        return currentState().isRightTurnIndicatorOn();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean isEmergencyLightsOn()
+    {
+        return currentState().isEmergencyLightsOn();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean isHonking()
+    {
+        return currentState().isHonking();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public CarFollowingModel getCarFollowingModel()
+    {
+        return currentState().getCarFollowingModel();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Parameters getParameters()
+    {
+        return currentState().getParameters();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public SpeedLimitInfo getSpeedLimitInfo()
+    {
+        return currentState().getSpeedLimitInfo();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Route getRoute()
+    {
+        return currentState().getRoute();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Speed getDesiredSpeed()
+    {
+        return currentState().getDesiredSpeed();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public HeadwayGtu moved(final Length headway, final Speed speed, final Acceleration acceleration)
+    {
+        return currentState().moved(headway, speed, acceleration);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int hashCode()
+    {
+        return get().hashCode();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean equals(final Object obj)
+    {
+        if (this == obj)
+        {
+            return true;
+        }
+        return get().equals(obj instanceof HeadwayGtuProvisional provisional ? provisional.get() : obj);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString()
+    {
+        return "HeadwayGtuProvisional [headway=" + get() + "]";
+    }
+
+}
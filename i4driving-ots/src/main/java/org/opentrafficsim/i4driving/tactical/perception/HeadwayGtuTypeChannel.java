@@ -14,6 +14,7 @@ import org.opentrafficsim.road.gtu.lane.perception.categories.neighbors.HeadwayG
 import org.opentrafficsim.road.gtu.lane.perception.categories.neighbors.NeighborTriplet;
 import org.opentrafficsim.road.gtu.lane.perception.headway.HeadwayGtu;
 import org.opentrafficsim.road.gtu.lane.perception.headway.HeadwayGtuPerceived;
+import org.opentrafficsim.road.gtu.lane.perception.headway.HeadwayGtuSimple;
 
 /**
  * This class is highly similar to PerceivedHeadwayGtuType, but uses an external perception delay supplier, rather than the Tr
@@ -62,8 +63,22 @@ public class HeadwayGtuTypeChannel implements HeadwayGtuType
     {
         Time now = perceivedGtu.getSimulator().getSimulatorAbsTime();
         Duration tr = this.perceptionDelay.get();
+        ParallelLanePerception parallel = getPrefetchingPerception(perceivingGtu);
         if (this.updateTime == null || now.si > this.updateTime.si)
         {
+            if (parallel != null)
+            {
+                // the first phase may be undone, after which the GTU perceives as in the serial mode
+                Time prevUpdateTime = this.updateTime;
+                Time prevWhen = this.when;
+                Length prevTraveledDistance = this.traveledDistance;
+                parallel.onUndo(() ->
+                {
+                    this.updateTime = prevUpdateTime;
+                    this.when = prevWhen;
+                    this.traveledDistance = prevTraveledDistance;
+                });
+            }
             this.updateTime = now;
             Time whenTemp = now.minus(tr);
             if (this.when == null || whenTemp.si > this.when.si)
@@ -77,6 +92,12 @@ public class HeadwayGtuTypeChannel implements HeadwayGtuType
         triplet = this.anticipation.anticipate(triplet, tr, this.traveledDistance, downstream);
         // GTU is estimated to not be downstream/upstream, but it actually is. This is required to prevent exceptions.
         Length headway = Length.max(triplet.headway(), Length.instantiateSI(0.001));
+        if (parallel != null)
+        {
+            return parallel.provisional(perceivedGtu, new HeadwayGtuSimple(perceivedGtu.getId(), perceivedGtu.getType(),
+                    headway, perceivedGtu.getLength(), perceivedGtu.getWidth(), triplet.speed(), triplet.acceleration(),
+                    triplet.speed()));
+        }
         return new HeadwayGtuPerceived(perceivedGtu, headway, triplet.speed(), triplet.acceleration());
     }
 
@@ -101,8 +122,32 @@ public class HeadwayGtuTypeChannel implements HeadwayGtuType
     public HeadwayGtu createParallelGtu(final LaneBasedGtu perceivingGtu, final LaneBasedGtu perceivedGtu,
             final Length overlapFront, final Length overlap, final Length overlapRear) throws GtuException
     {
+        ParallelLanePerception parallel = getPrefetchingPerception(perceivingGtu);
+        if (parallel != null)
+        {
+            return parallel.provisional(perceivedGtu,
+                    new HeadwayGtuSimple(perceivedGtu.getId(), perceivedGtu.getType(), overlapFront, overlap, overlapRear,
+                            perceivedGtu.getLength(), perceivedGtu.getWidth(), perceivedGtu.getSpeed(),
+                            perceivedGtu.getAcceleration(), perceivedGtu.getSpeed()));
+        }
         return new HeadwayGtuPerceived(perceivedGtu, overlapFront, overlap, overlapRear, perceivedGtu.getSpeed(),
                 perceivedGtu.getAcceleration());
     }
 
+    /**
+     * Returns the perception of the perceiving GTU if it is in the first phase of a {@code ParallelPerception}. Headways are
+     * then provisional, as the current state of the perceived GTU may still change in the same instant.
+     * @param perceivingGtu perceiving GTU
+     * @return perception of the perceiving GTU if it is in the first phase, {@code null} otherwise
+     */
+    private static ParallelLanePerception getPrefetchingPerception(final LaneBasedGtu perceivingGtu)
+    {
+        if (perceivingGtu.getTacticalPlanner().getPerception() instanceof ParallelLanePerception parallel
+                && parallel.isPrefetching())
+        {
+            return parallel;
+        }
+        return null;
+    }
+
 }
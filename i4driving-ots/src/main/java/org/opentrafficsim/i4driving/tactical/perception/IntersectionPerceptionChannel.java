@@ -1,6 +1,8 @@
 package org.opentrafficsim.i4driving.tactical.perception;
 
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.function.Supplier;
 
 import org.djunits.value.vdouble.scalar.Length;
 import org.djunits.value.vdouble.scalar.Speed;
@@ -235,10 +237,20 @@ public class IntersectionPerceptionChannel extends AbstractPerceptionCategory<La
                     HeadwayGtuType headwayGtuType = new HeadwayGtuTypeChannel(IntersectionPerceptionChannel.this.estimation,
                             IntersectionPerceptionChannel.this.anticipation,
                             () -> IntersectionPerceptionChannel.this.mental.getPerceptionDelay(conflict));
-                    PerceptionCollectable<HeadwayGtu, LaneBasedGtu> upstreamConflictingGTUs =
-                            otherConflict.getUpstreamGtus(getGtu(), headwayGtuType, conflictingVisibility);
-                    PerceptionCollectable<HeadwayGtu, LaneBasedGtu> downstreamConflictingGTUs =
-                            otherConflict.getDownstreamGtus(getGtu(), headwayGtuType, conflictingVisibility);
+                    PerceptionCollectable<HeadwayGtu, LaneBasedGtu> upstreamConflictingGTUs;
+                    PerceptionCollectable<HeadwayGtu, LaneBasedGtu> downstreamConflictingGTUs;
+                    if (getPerception() instanceof ParallelLanePerception parallel && parallel.isPrefetching())
+                    {
+                        upstreamConflictingGTUs = new UnavailableGtus(parallel);
+                        downstreamConflictingGTUs = upstreamConflictingGTUs;
+                    }
+                    else
+                    {
+                        upstreamConflictingGTUs =
+                                otherConflict.getUpstreamGtus(getGtu(), headwayGtuType, conflictingVisibility);
+                        downstreamConflictingGTUs =
+                                otherConflict.getDownstreamGtus(getGtu(), headwayGtuType, conflictingVisibility);
+                    }
                     // TODO stop lines (current models happen not to use this, but should be possible)
                     HeadwayStopLine stopLine = new HeadwayStopLine("stopLineId", Length.ZERO, conflict.getLane());
                     HeadwayStopLine conflictingStopLine =
@@ -264,8 +276,12 @@ public class IntersectionPerceptionChannel extends AbstractPerceptionCategory<La
                             conflictingVisibility, conflictingSpeedLimit, conflictingLink,
                             HeadwayConflict.Width.linear(startWidth, endWidth), stopLine, conflictingStopLine, thisLane);
 
-                    Length trafficLightDistance = conflict.getOtherConflict()
-                            .getTrafficLightDistance(perceivingGtu.getParameters().getParameter(ParameterTypes.LOOKAHEAD));
+                    Length lookAheadTrafficLight = perceivingGtu.getParameters().getParameter(ParameterTypes.LOOKAHEAD);
+                    Length trafficLightDistance;
+                    synchronized (otherConflict.getLane().getNetwork())
+                    {
+                        trafficLightDistance = otherConflict.getTrafficLightDistance(lookAheadTrafficLight);
+                    }
                     if (trafficLightDistance != null && trafficLightDistance.le(lookAhead))
                     {
                         headwayConflict.setConflictingTrafficLight(trafficLightDistance, conflict.isPermitted());
@@ -317,4 +333,75 @@ public class IntersectionPerceptionChannel extends AbstractPerceptionCategory<La
         return "DirectIntersectionPerception " + cacheAsString();
     }
 
+    /**
+     * GTUs near a conflict in the first phase of a {@code ParallelPerception}. Conflicts lazily cache the GTUs near them, and
+     * share this with GTUs that perceive later in the same instant. These GTUs are therefore not obtained in the first phase.
+     * Any use taints the first phase, after which the GTUs are perceived when the GTU perceives, as in the serial mode.
+     */
+    private static final class UnavailableGtus implements PerceptionCollectable<HeadwayGtu, LaneBasedGtu>
+    {
+
+        /** Perception of the perceiving GTU. */
+        private final ParallelLanePerception perception;
+
+        /**
+         * Constructor.
+         * @param perception perception of the perceiving GTU
+         */
+        UnavailableGtus(final ParallelLanePerception perception)
+        {
+            this.perception = perception;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public Iterator<HeadwayGtu> iterator()
+        {
+            this.perception.taint();
+            return Collections.emptyIterator();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public HeadwayGtu first()
+        {
+            this.perception.taint();
+            return null;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean isEmpty()
+        {
+            this.perception.taint();
+            return true;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public <C, I> C collect(final Supplier<I> identity, final PerceptionAccumulator<? super LaneBasedGtu, I> accumulator,
+                final PerceptionFinalizer<C, I> finalizer)
+        {
+            this.perception.taint();
+            return finalizer.collect(identity.get());
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public Iterator<LaneBasedGtu> underlying()
+        {
+            this.perception.taint();
+            return Collections.emptyIterator();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public Iterator<UnderlyingDistance<LaneBasedGtu>> underlyingWithDistance()
+        {
+            this.perception.taint();
+            return Collections.emptyIterator();
+        }
+
+    }
+
 }
@@ -96,7 +96,7 @@ public class NeighborsPerceptionChannel extends AbstractPerceptionCategory<LaneB
             for (Entry<LaneBasedGtu> entry : getPerception().getLaneStructure().getFirstDownstreamGtus(new RelativeLane(lat, 1),
                     RelativePosition.FRONT, RelativePosition.REAR, RelativePosition.FRONT, RelativePosition.REAR))
             {
-                set.add(headwayGtuType.createDownstreamGtu(getGtu(), entry.object(), entry.distance()));
+                set.add(headwayGtuType.createDownstreamGtu(getGtu(), read(entry).object(), entry.distance()));
             }
             return set;
         }
@@ -129,7 +129,7 @@ public class NeighborsPerceptionChannel extends AbstractPerceptionCategory<LaneB
             for (Entry<LaneBasedGtu> entry : getPerception().getLaneStructure().getFirstUpstreamGtus(new RelativeLane(lat, 1),
                     RelativePosition.REAR, RelativePosition.FRONT, RelativePosition.REAR, RelativePosition.FRONT))
             {
-                set.add(headwayGtuType.createUpstreamGtu(getGtu(), entry.object(), entry.distance()));
+                set.add(headwayGtuType.createUpstreamGtu(getGtu(), read(entry).object(), entry.distance()));
             }
             return set;
         }
@@ -161,7 +161,7 @@ public class NeighborsPerceptionChannel extends AbstractPerceptionCategory<LaneB
             for (Entry<LaneBasedGtu> entry : getPerception().getLaneStructure().getFirstDownstreamGtus(new RelativeLane(lat, 1),
                     RelativePosition.REAR, RelativePosition.FRONT, RelativePosition.FRONT, RelativePosition.REAR))
             {
-                if (entry.distance().le0())
+                if (read(entry).distance().le0())
                 {
                     return true;
                 }
@@ -171,7 +171,7 @@ public class NeighborsPerceptionChannel extends AbstractPerceptionCategory<LaneB
             for (Entry<LaneBasedGtu> entry : getPerception().getLaneStructure().getFirstUpstreamGtus(new RelativeLane(lat, 1),
                     RelativePosition.FRONT, RelativePosition.REAR, RelativePosition.REAR, RelativePosition.FRONT))
             {
-                if (entry.distance().le0())
+                if (read(entry).distance().le0())
                 {
                     return true;
                 }
@@ -224,7 +224,7 @@ public class NeighborsPerceptionChannel extends AbstractPerceptionCategory<LaneB
                     @Override
                     public AbstractPerceptionReiterable<HeadwayGtu, LaneBasedGtu>.PrimaryIteratorEntry next()
                     {
-                        Entry<LaneBasedGtu> entry = iterator.next();
+                        Entry<LaneBasedGtu> entry = read(iterator.next());
                         return new PrimaryIteratorEntry(entry.object(), entry.distance());
                     }
                 };
@@ -279,7 +279,7 @@ public class NeighborsPerceptionChannel extends AbstractPerceptionCategory<LaneB
                     @Override
                     public AbstractPerceptionReiterable<HeadwayGtu, LaneBasedGtu>.PrimaryIteratorEntry next()
                     {
-                        Entry<LaneBasedGtu> entry = iterator.next();
+                        Entry<LaneBasedGtu> entry = read(iterator.next());
                         return new PrimaryIteratorEntry(entry.object(), entry.distance());
                     }
                 };
@@ -295,6 +295,20 @@ public class NeighborsPerceptionChannel extends AbstractPerceptionCategory<LaneB
         };
     }
 
+    /**
+     * Registers that the state of the GTU of an entry is read, when this is the first phase of a {@code ParallelPerception}.
+     * @param entry entry of a GTU in the lane structure
+     * @return the entry
+     */
+    private Entry<LaneBasedGtu> read(final Entry<LaneBasedGtu> entry)
+    {
+        if (getPerception() instanceof ParallelLanePerception parallel && parallel.isPrefetching())
+        {
+            parallel.read(entry.object());
+        }
+        return entry;
+    }
+
     /**
      * Checks that lateral directionality is either left or right and an existing lane.
      * @param lat LEFT or RIGHT
@@ -0,0 +1,394 @@
+package org.opentrafficsim.i4driving.tactical.perception;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.djunits.value.vdouble.scalar.Time;
+import org.djutils.exceptions.Throw;
+import org.djutils.exceptions.Try;
+import org.opentrafficsim.base.parameters.ParameterException;
+import org.opentrafficsim.base.parameters.ParameterType;
+import org.opentrafficsim.base.parameters.Parameters;
+import org.opentrafficsim.core.gtu.GtuException;
+import org.opentrafficsim.core.gtu.plan.operational.OperationalPlan;
+import org.opentrafficsim.core.network.NetworkException;
+import org.opentrafficsim.i4driving.tactical.OtsInternals;
+import org.opentrafficsim.i4driving.tactical.perception.mental.channel.ChannelFuller;
+import org.opentrafficsim.road.gtu.lane.LaneBasedGtu;
+import org.opentrafficsim.road.gtu.lane.perception.CategoricalLanePerception;
+import org.opentrafficsim.road.gtu.lane.perception.LanePerception;
+import org.opentrafficsim.road.gtu.lane.perception.headway.HeadwayGtu;
+import org.opentrafficsim.road.gtu.lane.perception.structure.LaneStructure;
+
+/**
+ * Lane perception that applies its mental model in the first phase of a {@code ParallelPerception}, possibly in parallel with
+ * other GTUs that move at the same instant. The parameter changes of the mental model are staged, and set in the parameters of
+ * the GTU when the GTU perceives as part of its own move. Perceived GTUs are then resolved, copying their current state as in
+ * the serial mode at that time. When there is no staged result, e.g. because the GTU was not part of a group, when the mental
+ * model used current state of a perceived GTU in the first phase, or when a GTU of which state was read in the first phase
+ * moved, or any GTU entered or left a lane, earlier in the same instant, the first phase is undone, including what the
+ * perception categories perceived and state of the mental model and lane structure, and the mental model is applied as in
+ * {@code CategoricalLanePerception}. The result is therefore equal to the serial mode.
+ * @author wjschakel
+ */
+public class ParallelLanePerception extends CategoricalLanePerception
+{
+
+    /** */
+    private static final long serialVersionUID = 20261017L;
+
+    /** Mental model. */
+    private final ChannelFuller mental;
+
+    /** Coordinator. */
+    private final ParallelPerception coordinator;
+
+    /** Staged parameters from the first phase, {@code null} if there is no staged result. */
+    private StagedParameters staged;
+
+    /** Time of the last first phase [s]. */
+    private double prefetchTime = Double.NaN;
+
+    /** Whether the first phase is being performed. */
+    private boolean prefetching = false;
+
+    /** Whether the first phase used current state of a perceived GTU. */
+    private boolean tainted = false;
+
+    /** Number of GTUs added to or removed from lanes at the last first phase. */
+    private long laneChanges;
+
+    /** GTUs of which state was read in the first phase, with their operational plan at that time. */
+    private final Map<LaneBasedGtu, OperationalPlan> reads = new IdentityHashMap<>();
+
+    /** Perceived GTUs created in the first phase, in order of creation. */
+    private final List<HeadwayGtuProvisional> provisionals = new ArrayList<>();
+
+    /** Actions that undo state changes of the first phase, in order of the changes. */
+    private final List<Runnable> undos = new ArrayList<>();
+
+    /**
+     * Constructor.
+     * @param gtu GTU
+     * @param mental mental model
+     * @param coordinator coordinator of GTUs that perceive at the same instant
+     */
+    public ParallelLanePerception(final LaneBasedGtu gtu, final ChannelFuller mental, final ParallelPerception coordinator)
+    {
+        super(gtu, mental);
+        Throw.whenNull(mental, "mental");
+        Throw.whenNull(coordinator, "coordinator");
+        this.mental = mental;
+        this.coordinator = coordinator;
+        coordinator.register(this);
+    }
+
+    /**
+     * Returns the coordinator of GTUs that perceive at the same instant.
+     * @return coordinator of GTUs that perceive at the same instant
+     */
+    public ParallelPerception getCoordinator()
+    {
+        return this.coordinator;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void perceive() throws GtuException, NetworkException, ParameterException
+    {
+        if (this.staged != null && this.prefetchTime == getGtu().getSimulator().getSimulatorTime().si && !this.tainted
+                && this.laneChanges == this.coordinator.getLaneChanges() && !isReadGtuMoved())
+        {
+            StagedParameters parameters = this.staged;
+            this.staged = null;
+            this.prefetchTime = Double.NaN;
+            this.reads.clear();
+            this.undos.clear();
+            this.coordinator.countFirstPhase(true);
+            parameters.commit();
+            // in the serial mode GTUs are perceived from here on, which may cache state in perceived GTUs
+            for (HeadwayGtuProvisional provisional : this.provisionals)
+            {
+                provisional.resolve();
+            }
+            this.provisionals.clear();
+            return;
+        }
+        undo();
+        super.perceive();
+    }
+
+    /**
+     * Applies the mental model, staging the resulting parameter changes. This is the first phase, which may run in parallel
+     * with other GTUs. When it fails, nothing is staged and the mental model is applied again when the GTU perceives.
+     */
+    void prefetch()
+    {
+        undo();
+        StagedParameters parameters = new StagedParameters(getGtu().getParameters());
+        this.prefetchTime = getGtu().getSimulator().getSimulatorTime().si;
+        this.prefetching = true;
+        this.tainted = false;
+        this.laneChanges = this.coordinator.getLaneChanges();
+        ChannelFuller.State state = this.mental.getState();
+        onUndo(() -> this.mental.setState(state));
+        try
+        {
+            // the GTU may enter or leave lanes in its own move before it perceives in the serial mode
+            LaneStructure laneStructure = getLaneStructure();
+            Time updateTime = OtsInternals.getLaneStructureUpdateTime(laneStructure);
+            onUndo(() -> OtsInternals.setLaneStructureUpdateTime(laneStructure, updateTime));
+            this.mental.apply(this, parameters);
+            this.staged = parameters;
+        }
+        catch (ParameterException | GtuException | RuntimeException ex)
+        {
+            this.staged = null; // applied serially when the GTU perceives, which reproduces any error in order
+        }
+        finally
+        {
+            this.prefetching = false;
+        }
+    }
+
+    /**
+     * Returns whether the first phase is being performed.
+     * @return whether the first phase is being performed
+     */
+    boolean isPrefetching()
+    {
+        return this.prefetching;
+    }
+
+    /**
+     * Registers that state of a GTU, e.g. its position, is read in the first phase.
+     * @param gtu GTU of which state is read
+     */
+    void read(final LaneBasedGtu gtu)
+    {
+        this.reads.putIfAbsent(gtu, gtu.getOperationalPlan());
+    }
+
+    /**
+     * Returns a perceived GTU for the first phase, which is resolved when the GTU perceives. State of the perceived GTU is
+     * registered as read.
+     * @param gtu perceived GTU
+     * @param headway headway of which only the distance, speed and acceleration are used in the first phase
+     * @return perceived GTU for the first phase
+     */
+    HeadwayGtu provisional(final LaneBasedGtu gtu, final HeadwayGtu headway)
+    {
+        read(gtu);
+        HeadwayGtuProvisional provisional = new HeadwayGtuProvisional(this, gtu, headway);
+        this.provisionals.add(provisional);
+        return provisional;
+    }
+
+    /**
+     * Registers an action that undoes a state change in the first phase, e.g. of a perception category.
+     * @param undo action that undoes a state change in the first phase
+     */
+    void onUndo(final Runnable undo)
+    {
+        this.undos.add(undo);
+    }
+
+    /**
+     * Returns whether a GTU of which state was read in the first phase has moved since, i.e. has a new operational plan. Its
+     * state, e.g. position, is then derived from the new operational plan, which may differ from what the first phase read.
+     * @return whether a GTU of which state was read in the first phase has moved since
+     */
+    private boolean isReadGtuMoved()
+    {
+        for (Map.Entry<LaneBasedGtu, OperationalPlan> entry : this.reads.entrySet())
+        {
+            if (entry.getKey().getOperationalPlan() != entry.getValue())
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Marks that the first phase used current state of a perceived GTU, which may change before the GTU perceives. The staged
+     * result is then not used.
+     */
+    void taint()
+    {
+        this.tainted = true;
+    }
+
+    /**
+     * Returns whether the perception is in the first phase of a {@code ParallelPerception}, in which case the first phase is
+     * tainted. This is used to skip state that is unsafe to obtain in the first phase, e.g. state lazily cached in the network.
+     * @param perception perception
+     * @return whether the perception is in the first phase, which is then tainted
+     */
+    public static boolean taintIfPrefetching(final LanePerception perception)
+    {
+        if (perception instanceof ParallelLanePerception parallel && parallel.isPrefetching())
+        {
+            parallel.taint();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Discards the result of the first phase, including what the perception categories perceived in it. This should be called
+     * when the GTU, or its parameters, are changed after the first phase but before the GTU perceives, e.g. by a command or an
+     * interrupted move.
+     */
+    public void discardPrefetch()
+    {
+        undo();
+    }
+
+    /**
+     * Undoes the first phase, if any, such that the GTU perceives as in the serial mode.
+     */
+    private void undo()
+    {
+        this.staged = null;
+        if (!Double.isNaN(this.prefetchTime))
+        {
+            this.coordinator.countFirstPhase(false);
+            this.prefetchTime = Double.NaN;
+            this.reads.clear();
+            this.provisionals.clear();
+            for (int i = this.undos.size() - 1; i >= 0; i--)
+            {
+                this.undos.get(i).run();
+            }
+            this.undos.clear();
+            OtsInternals.clearPerceptionCaches(this);
+        }
+    }
+
+    /**
+     * Parameters that stage values that are set, while giving those values when they are requested. Other values are obtained
+     * from the underlying parameters. Staged values are set in the underlying parameters in the order in which they were set.
+     */
+    private static final class StagedParameters implements Parameters
+    {
+
+        /** Underlying parameters. */
+        private final Parameters parameters;
+
+        /** Staged values. */
+        private final Map<ParameterType<?>, Object> values = new HashMap<>();
+
+        /** Staged values in the order in which they were set. */
+        private final List<StagedValue<?>> order = new ArrayList<>();
+
+        /**
+         * Constructor.
+         * @param parameters underlying parameters
+         */
+        StagedParameters(final Parameters parameters)
+        {
+            this.parameters = parameters;
+        }
+
+        /**
+         * Sets the staged values in the underlying parameters.
+         * @throws ParameterException if a value is not valid for the underlying parameters
+         */
+        void commit() throws ParameterException
+        {
+            for (StagedValue<?> value : this.order)
+            {
+                value.setIn(this.parameters);
+            }
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public <T> void setParameter(final ParameterType<T> parameterType, final T value) throws ParameterException
+        {
+            this.values.put(parameterType, value);
+            this.order.add(new StagedValue<>(parameterType, value));
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public <T> void setParameterResettable(final ParameterType<T> parameterType, final T value)
+        {
+            throw new UnsupportedOperationException("Resettable parameters cannot be staged.");
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void resetParameter(final ParameterType<?> parameterType)
+        {
+            throw new UnsupportedOperationException("Resettable parameters cannot be staged.");
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T getParameter(final ParameterType<T> parameterType) throws ParameterException
+        {
+            if (this.values.containsKey(parameterType))
+            {
+                return (T) this.values.get(parameterType);
+            }
+            return this.parameters.getParameter(parameterType);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T getParameterOrNull(final ParameterType<T> parameterType)
+        {
+            if (this.values.containsKey(parameterType))
+            {
+                return (T) this.values.get(parameterType);
+            }
+            return this.parameters.getParameterOrNull(parameterType);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean contains(final ParameterType<?> parameterType)
+        {
+            return this.values.containsKey(parameterType) || this.parameters.contains(parameterType);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void setAllIn(final Parameters params)
+        {
+            this.parameters.setAllIn(params);
+            for (StagedValue<?> value : this.order)
+            {
+                Try.execute(() -> value.setIn(params), "Staged value of %s could not be set.", value.parameterType().getId());
+            }
+        }
+
+    }
+
+    /**
+     * Staged value of a parameter.
+     * @param parameterType parameter type
+     * @param value value
+     * @param <T> value type
+     */
+    private record StagedValue<T>(ParameterType<T> parameterType, T value)
+    {
+        /**
+         * Sets the value in the given parameters.
+         * @param params parameters
+         * @throws ParameterException if the value is not valid for the parameters
+         */
+        void setIn(final Parameters params) throws ParameterException
+        {
+            params.setParameter(this.parameterType, this.value);
+        }
+    }
+
+}
@@ -0,0 +1,406 @@
+package org.opentrafficsim.i4driving.tactical.perception;
+
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.djunits.value.vdouble.scalar.Duration;
+import org.djunits.value.vdouble.scalar.Time;
+import org.djutils.event.Event;
+import org.djutils.event.EventListener;
+import org.djutils.exceptions.Throw;
+import org.djutils.exceptions.Try;
+import org.opentrafficsim.core.dsol.OtsSimulatorInterface;
+import org.opentrafficsim.core.gtu.GtuType;
+import org.opentrafficsim.core.network.LateralDirectionality;
+import org.opentrafficsim.core.network.Link;
+import org.opentrafficsim.core.network.NetworkException;
+import org.opentrafficsim.i4driving.tactical.OtsInternals;
+import org.opentrafficsim.i4driving.tactical.OtsInternals.GtuListCache;
+import org.opentrafficsim.road.gtu.lane.LaneBasedGtu;
+import org.opentrafficsim.road.network.RoadNetwork;
+import org.opentrafficsim.road.network.lane.CrossSectionLink;
+import org.opentrafficsim.road.network.lane.Lane;
+
+import nl.tudelft.simulation.dsol.experiment.Replication;
+import nl.tudelft.simulation.dsol.formalisms.eventscheduling.SimEventInterface;
+
+/**
+ * Coordinator of two-phase perception of GTUs with a {@code ParallelLanePerception}. At each instant at which such a GTU is due
+ * to move, an event with maximum priority forms a group of the GTUs of which the move events are next in the event list. In
+ * the first phase, the mental model of all GTUs in the group is applied in parallel, staging the resulting changes to their
+ * parameters. In the second phase each GTU commits its staged parameters and determines its operational plan when its own
+ * move event is executed, i.e. sequentially and in the deterministic order of the event list, as in the serial mode. The
+ * first phase is performed before any GTU in the group moves, as a moving GTU holds its own lock which other GTUs require
+ * to obtain its position.
+ * <p>
+ * In the first phase all GTUs in the group perceive the state at the start of the instant. In the serial mode a GTU perceives
+ * GTUs that moved earlier in the same instant after they moved, at a position derived from their new operational plan. The
+ * staged result is therefore only used when no GTU of which the first phase read state moved, and no GTU entered or left a
+ * lane, before the GTU moves. Current state of perceived GTUs that is not derived from their operational plan, e.g. their
+ * parameters, desired speed or indicators, is obtained when the GTU moves, as perceived GTUs are resolved then. When the
+ * mental model uses such state in the first phase, the staged result is not used. Otherwise the first phase is undone and the
+ * GTU perceives as in the serial mode. Results are therefore equal to the serial mode, for any number of threads. Events in
+ * between the move events, e.g. generation or commands, end the group.
+ * </p>
+ * <p>
+ * Lazily cached state that is shared between GTUs is determined before the first phase, such that the first phase does not
+ * write in shared caches. These are the GTUs on lanes, speed limits and lane adjacency. The cached GTUs on lanes are restored
+ * after the first phase, as in the serial mode these are cached by the first GTU that perceives. GTUs near conflicts are not
+ * obtained in the first phase, as conflicts lazily cache them; the staged result is not used when they are needed. The lanes
+ * are those in the network at the first group, and the coordinator should be replaced when links are added or removed. The
+ * threads are shut down when the replication ends, or using {@code shutdown()}.
+ * </p>
+ * @author wjschakel
+ */
+public class ParallelPerception implements EventListener
+{
+
+    /** */
+    private static final long serialVersionUID = 20261017L;
+
+    /** Lateral directions for lane adjacency. */
+    private static final LateralDirectionality[] LATERAL_DIRECTIONS =
+            new LateralDirectionality[] {LateralDirectionality.LEFT, LateralDirectionality.RIGHT};
+
+    /** Simulator. */
+    private final OtsSimulatorInterface simulator;
+
+    /** Number of threads in the first phase. */
+    private final int parallelism;
+
+    /** Pool for the first phase, {@code null} when the first phase is performed on the simulator thread. */
+    private final transient ForkJoinPool pool;
+
+    /** Registered perceptions by GTU id, in order of registration. */
+    private final Map<String, ParallelLanePerception> perceptions = new LinkedHashMap<>();
+
+    /** Instants at which a group will be formed [s]. */
+    private final Set<Double> scheduled = new HashSet<>();
+
+    /** Lanes in the network, determined at the first group. */
+    private List<Lane> lanes;
+
+    /** GTU types for which lane caches have been determined. */
+    private final Set<GtuType> gtuTypes = new LinkedHashSet<>();
+
+    /** Number of GTUs added to or removed from lanes since the first group. */
+    private long laneChanges = 0;
+
+    /** Number of groups. */
+    private long groups = 0;
+
+    /** Number of GTUs in all groups. */
+    private long groupedGtus = 0;
+
+    /** Number of first phases of which the staged result was used. */
+    private final LongAdder committed = new LongAdder();
+
+    /** Number of first phases of which the staged result was not used, such that the mental model was applied again. */
+    private final LongAdder discarded = new LongAdder();
+
+    /**
+     * Constructor.
+     * @param simulator simulator
+     * @param parallelism number of threads in the first phase, with 1 the first phase is performed on the simulator thread
+     * @throws IllegalArgumentException when parallelism is below 1
+     */
+    public ParallelPerception(final OtsSimulatorInterface simulator, final int parallelism)
+    {
+        Throw.whenNull(simulator, "simulator");
+        Throw.when(parallelism < 1, IllegalArgumentException.class, "Parallelism should be at least 1, got %d.", parallelism);
+        this.simulator = simulator;
+        this.parallelism = parallelism;
+        this.pool = parallelism == 1 ? null : new ForkJoinPool(parallelism);
+        Try.execute(() -> simulator.addListener(this, Replication.END_REPLICATION_EVENT),
+                "Unable to listen to the end of the replication.");
+    }
+
+    /**
+     * Returns the simulator.
+     * @return simulator
+     */
+    public OtsSimulatorInterface getSimulator()
+    {
+        return this.simulator;
+    }
+
+    /**
+     * Returns the number of threads in the first phase.
+     * @return number of threads in the first phase
+     */
+    public int getParallelism()
+    {
+        return this.parallelism;
+    }
+
+    /**
+     * Returns the number of groups, i.e. instants at which at least two GTUs were due to move.
+     * @return number of groups
+     */
+    public long getGroups()
+    {
+        return this.groups;
+    }
+
+    /**
+     * Returns the mean number of GTUs in a group.
+     * @return mean number of GTUs in a group, {@code NaN} if there were no groups
+     */
+    public double getMeanGroupSize()
+    {
+        return this.groups == 0 ? Double.NaN : (double) this.groupedGtus / this.groups;
+    }
+
+    /**
+     * Returns the number of first phases of which the staged result was used when the GTU perceived.
+     * @return number of first phases of which the staged result was used
+     */
+    public long getCommitted()
+    {
+        return this.committed.sum();
+    }
+
+    /**
+     * Returns the number of first phases of which the staged result was not used, such that the GTU applied the mental model
+     * again when it perceived. The first phase of these GTUs is additional work compared to the serial mode.
+     * @return number of first phases of which the staged result was not used
+     */
+    public long getDiscarded()
+    {
+        return this.discarded.sum();
+    }
+
+    /**
+     * Returns the fraction of first phases of which the staged result was not used.
+     * @return fraction of first phases of which the staged result was not used, {@code NaN} if there were none
+     */
+    public double getDiscardRatio()
+    {
+        long used = getCommitted();
+        long unused = getDiscarded();
+        return used + unused == 0 ? Double.NaN : (double) unused / (used + unused);
+    }
+
+    /**
+     * Shuts down the threads of the first phase. This is done when the replication ends, and should be done when the
+     * coordinator is replaced or the simulation is stopped otherwise. Registered GTUs that still move perform the first phase
+     * on the simulator thread.
+     */
+    public void shutdown()
+    {
+        if (this.pool != null)
+        {
+            this.pool.shutdown();
+        }
+    }
+
+    /**
+     * Returns whether the threads of the first phase are shut down.
+     * @return whether the threads of the first phase are shut down, always {@code false} with a parallelism of 1
+     */
+    public boolean isShutdown()
+    {
+        return this.pool != null && this.pool.isShutdown();
+    }
+
+    /**
+     * Returns the number of GTUs added to or removed from lanes since the first group. A staged result is not used when this
+     * changed after the first phase, as GTUs on lanes are then perceived differently in the serial mode.
+     * @return number of GTUs added to or removed from lanes since the first group
+     */
+    long getLaneChanges()
+    {
+        return this.laneChanges;
+    }
+
+    /**
+     * Counts a first phase of which the staged result was used or not. This may be called from the threads of the first phase.
+     * @param used whether the staged result was used
+     */
+    void countFirstPhase(final boolean used)
+    {
+        if (used)
+        {
+            this.committed.increment();
+        }
+        else
+        {
+            this.discarded.increment();
+        }
+    }
+
+    /**
+     * Registers a perception. The coordinator listens to the moves of its GTU, to form a group at the instant of the next move.
+     * @param perception perception
+     * @throws IllegalArgumentException when the GTU of the perception is in another simulator
+     */
+    void register(final ParallelLanePerception perception)
+    {
+        Throw.when(perception.getGtu().getSimulator() != this.simulator, IllegalArgumentException.class,
+                "GTU %s is not in the simulator of the parallel perception.", perception.getGtu().getId());
+        this.perceptions.put(perception.getGtu().getId(), perception);
+        perception.getGtu().addListener(this, LaneBasedGtu.LANEBASED_MOVE_EVENT);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void notify(final Event event) throws RemoteException
+    {
+        if (event.getType().equals(Replication.END_REPLICATION_EVENT))
+        {
+            shutdown();
+        }
+        else if (event.getType().equals(Lane.GTU_ADD_EVENT) || event.getType().equals(Lane.GTU_REMOVE_EVENT))
+        {
+            this.laneChanges++;
+        }
+        else if (event.getType().equals(LaneBasedGtu.LANEBASED_MOVE_EVENT))
+        {
+            ParallelLanePerception perception = this.perceptions.get((String) ((Object[]) event.getContent())[0]);
+            SimEventInterface<Duration> moveEvent = perception == null ? null : perception.getGtu().getNextMoveEvent();
+            if (moveEvent != null && this.scheduled.add(moveEvent.getAbsoluteExecutionTime().si))
+            {
+                this.simulator.scheduleEventAbs(moveEvent.getAbsoluteExecutionTime(), SimEventInterface.MAX_PRIORITY,
+                        () -> prepare());
+            }
+        }
+    }
+
+    /**
+     * Forms a group of GTUs of which the move events are next in the event list at the current instant, and performs the
+     * first phase for the group.
+     */
+    private void prepare()
+    {
+        double now = this.simulator.getSimulatorTime().si;
+        this.scheduled.remove(now);
+
+        Map<SimEventInterface<Duration>, ParallelLanePerception> moveEvents = new IdentityHashMap<>();
+        Iterator<ParallelLanePerception> iterator = this.perceptions.values().iterator();
+        while (iterator.hasNext())
+        {
+            ParallelLanePerception perception = iterator.next();
+            LaneBasedGtu gtu = perception.getGtu();
+            if (gtu.isDestroyed())
+            {
+                iterator.remove();
+            }
+            else if (gtu.getNextMoveEvent() != null)
+            {
+                moveEvents.put(gtu.getNextMoveEvent(), perception);
+            }
+        }
+
+        // other events in between, e.g. generation or commands, may change what GTUs perceive
+        List<ParallelLanePerception> group = new ArrayList<>();
+        for (SimEventInterface<Duration> event : this.simulator.getEventList())
+        {
+            ParallelLanePerception perception = moveEvents.get(event);
+            if (perception == null || event.getAbsoluteExecutionTime().si != now)
+            {
+                break;
+            }
+            group.add(perception);
+        }
+        if (group.size() < 2)
+        {
+            return; // nothing to gain, the GTU perceives serially
+        }
+        this.groups++;
+        this.groupedGtus += group.size();
+
+        List<GtuListCache> gtuListCaches = cacheSharedState(group, this.simulator.getSimulatorAbsTime());
+        if (this.pool == null || this.pool.isShutdown())
+        {
+            group.forEach(ParallelLanePerception::prefetch);
+        }
+        else
+        {
+            this.pool.submit(() -> group.parallelStream().forEach(ParallelLanePerception::prefetch)).join();
+        }
+        // in the serial mode, GTU lists are cached by the first GTU that perceives, possibly after GTUs entered or left lanes
+        for (int i = 0; i < this.lanes.size(); i++)
+        {
+            OtsInternals.setGtuListCache(this.lanes.get(i), gtuListCaches.get(i));
+        }
+    }
+
+    /**
+     * Determines lazily cached state that is shared between GTUs, such that it is only read during the first phase.
+     * @param group GTUs in the group
+     * @param now current time
+     * @return GTU lists that the lanes cached before, in order of the lanes, to restore after the first phase
+     */
+    private List<GtuListCache> cacheSharedState(final List<ParallelLanePerception> group, final Time now)
+    {
+        if (this.lanes == null)
+        {
+            this.lanes = new ArrayList<>();
+            RoadNetwork network = group.get(0).getGtu().getNetwork();
+            for (Link link : network.getLinkMap().values())
+            {
+                if (link instanceof CrossSectionLink roadLink)
+                {
+                    this.lanes.addAll(roadLink.getLanes());
+                }
+            }
+            this.lanes.forEach(Lane::hashCode);
+            for (Lane lane : this.lanes)
+            {
+                lane.addListener(this, Lane.GTU_ADD_EVENT);
+                lane.addListener(this, Lane.GTU_REMOVE_EVENT);
+            }
+        }
+        List<GtuListCache> gtuListCaches = new ArrayList<>(this.lanes.size());
+        for (Lane lane : this.lanes)
+        {
+            gtuListCaches.add(OtsInternals.getGtuListCache(lane));
+            for (LaneBasedGtu gtu : lane.getGtuList(now))
+            {
+                cacheLaneState(gtu.getType());
+            }
+        }
+        return gtuListCaches;
+    }
+
+    /**
+     * Determines the lazily cached speed limits and lane adjacency of all lanes for a GTU type, if not yet done.
+     * @param gtuType GTU type
+     */
+    private void cacheLaneState(final GtuType gtuType)
+    {
+        if (!this.gtuTypes.add(gtuType))
+        {
+            return;
+        }
+        for (Lane lane : this.lanes)
+        {
+            lane.nextLanes(gtuType);
+            lane.prevLanes(gtuType);
+            for (LateralDirectionality lat : LATERAL_DIRECTIONS)
+            {
+                lane.accessibleAdjacentLanesPhysical(lat, gtuType);
+                lane.accessibleAdjacentLanesLegal(lat, gtuType);
+            }
+            try
+            {
+                lane.getSpeedLimit(gtuType);
+            }
+            catch (NetworkException ex)
+            {
+                // no speed limit for the GTU type on this lane, nothing is cached
+            }
+        }
+    }
+
+}
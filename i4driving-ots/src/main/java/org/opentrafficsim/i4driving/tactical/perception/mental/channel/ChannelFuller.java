@@ -1,10 +1,10 @@
 package org.opentrafficsim.i4driving.tactical.perception.mental.channel;
 
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.LinkedHashMap;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashSet;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
 import java.util.function.Function;
 
@@ -87,13 +87,25 @@ public class ChannelFuller implements ChannelMental
     private Set<BehavioralAdaptation> behavioralAdapatations = new LinkedHashSet<>();
 
     /** Mappings from object to channel. */
-    private Map<Object, Object> channelMapping = new LinkedHashMap<>();
+    private Map<Object, Object> channelMapping = new IdentityHashMap<>();
 
-    /** Stored perception delay per channel. */
-    private Map<Object, Duration> perceptionDelay = new LinkedHashMap<>();
+    /** Index of each channel in the arrays below. Channel keys are constants or network objects, so identity is used. */
+    private Map<Object, Integer> channelIndex = new IdentityHashMap<>();
+
+    /** Channels in order of their index. */
+    private Object[] channels = new Object[8];
+
+    /** Number of current channels. */
+    private int numChannels;
+
+    /** Maximum task demand per channel. */
+    private double[] demand = new double[8];
 
     /** Stored level of attention per channel. */
-    private Map<Object, Double> attention = new LinkedHashMap<>();
+    private double[] attention = new double[8];
+
+    /** Stored perception delay per channel, reused when the value does not change. */
+    private Duration[] perceptionDelay = new Duration[8];
 
     /**
      * Constructor.
@@ -110,12 +122,27 @@ public class ChannelFuller implements ChannelMental
     /** {@inheritDoc} */
     @Override
     public void apply(final LanePerception perception) throws ParameterException, GtuException
+    {
+        apply(perception, perception.getGtu().getParameters());
+    }
+
+    /**
+     * Applies the mental model with the given parameters. The resulting task saturation, attention and behavioral adaptations
+     * are set in the given parameters, which need not be the parameters of the GTU itself. This allows the outcome to be
+     * staged, and set in the parameters of the GTU later.
+     * @param perception perception
+     * @param parameters parameters of the GTU, or parameters that stage changes to them
+     * @throws ParameterException if a parameter is missing or out of bounds
+     * @throws GtuException exception
+     */
+    public void apply(final LanePerception perception, final Parameters parameters) throws ParameterException, GtuException
     {
         // Clear mappings
         this.channelMapping.clear();
+        this.channelIndex.clear();
+        this.numChannels = 0;
 
         // Gather all channels and their maximum task demand
-        Map<Object, Double> channelTaskDemand = new LinkedHashMap<>();
         for (Function<LanePerception, Set<ChannelTask>> taskFunction : this.taskSuppliers)
         {
             for (ChannelTask task : taskFunction.apply(perception)) // if applicable will (re)map objects to channel keys
@@ -123,41 +150,44 @@ public class ChannelFuller implements ChannelMental
                 double td = task.getDemand(perception);
                 Throw.when(td >= 1.0, GtuException.class,
                         "Task %s produced task demand that is greater than, or equal to, 1.0.", task.getId());
-                channelTaskDemand.merge(task.getChannel(), td, Math::max); // map to max value
+                Object channel = task.getChannel();
+                Integer index = this.channelIndex.get(channel);
+                if (index == null)
+                {
+                    index = addChannel(channel);
+                    this.demand[index] = td;
+                }
+                else
+                {
+                    this.demand[index] = Math.max(this.demand[index], td); // map to max value
+                }
             }
         }
 
-        // Apply attention matrix and couple channel to indices
-        double[] tdArray = new double[channelTaskDemand.size()];
-        int index = 0;
         double sumTaskDemand = 0.0;
-        Map<Object, Integer> channelIndex = new LinkedHashMap<>();
-        for (Entry<Object, Double> entry : channelTaskDemand.entrySet())
+        for (int index = 0; index < this.numChannels; index++)
         {
-            channelIndex.put(entry.getKey(), index);
-            double td = entry.getValue();
-            tdArray[index] = td;
-            sumTaskDemand += td;
-            index++;
+            sumTaskDemand += this.demand[index];
         }
-        AttentionMatrix matrix = new AttentionMatrix(tdArray);
 
         // Determine attention and perception delay per channel
+        AttentionMatrix.steadyState(this.demand, this.numChannels, this.attention);
         double maxAttention = 0.0;
-        this.perceptionDelay.clear();
-        this.attention.clear();
-        Parameters parameters = perception.getGtu().getParameters();
-        Duration tauMin = parameters.getParameter(TAU_MIN);
-        Duration tauMax = parameters.getParameter(TAU_MAX);
+        double tauMin = parameters.getParameter(TAU_MIN).si;
+        double tauMax = parameters.getParameter(TAU_MAX).si;
         double tc = parameters.getParameter(TC);
-        for (Entry<Object, Integer> entry : channelIndex.entrySet())
+        for (int index = 0; index < this.numChannels; index++)
         {
-            index = entry.getValue();
-            this.perceptionDelay.put(entry.getKey(),
-                    Duration.interpolate(tauMin, tauMax, matrix.getDeterioration(index)).divide(tc));
-            double att = matrix.getAttention(index);
+            double td = this.demand[index];
+            double att = this.attention[index];
+            // deterioration is anticipation reliance (td - att) divided by demand
+            double deterioration = td == 0.0 ? 1.0 : (td - att) / td;
+            double delay = (tauMin + deterioration * (tauMax - tauMin)) / tc;
+            if (this.perceptionDelay[index] == null || this.perceptionDelay[index].si != delay)
+            {
+                this.perceptionDelay[index] = Duration.instantiateSI(delay);
+            }
             maxAttention = Double.max(maxAttention, att);
-            this.attention.put(entry.getKey(), att);
         }
 
         // Calculate task saturation, perception errors, and apply behavioral adaptations
@@ -171,18 +201,40 @@ public class ChannelFuller implements ChannelMental
         }
     }
 
+    /**
+     * Adds a channel, growing the arrays when required.
+     * @param channel channel key
+     * @return index of the channel
+     */
+    private int addChannel(final Object channel)
+    {
+        int index = this.numChannels++;
+        if (index == this.channels.length)
+        {
+            int length = 2 * index;
+            this.channels = Arrays.copyOf(this.channels, length);
+            this.demand = Arrays.copyOf(this.demand, length);
+            this.attention = Arrays.copyOf(this.attention, length);
+            this.perceptionDelay = Arrays.copyOf(this.perceptionDelay, length);
+        }
+        this.channels[index] = channel;
+        this.channelIndex.put(channel, index);
+        return index;
+    }
+
     /** {@inheritDoc} */
     @Override
     public Duration getPerceptionDelay(final Object obj)
     {
-        return this.perceptionDelay.get(getChannel(obj));
+        Integer index = this.channelIndex.get(getChannel(obj));
+        return index == null ? null : this.perceptionDelay[index];
     }
 
     /** {@inheritDoc} */
     @Override
     public double getAttention(final Object obj)
     {
-        return this.attention.get(getChannel(obj));
+        return this.attention[this.channelIndex.get(getChannel(obj))];
     }
 
     /** {@inheritDoc} */
@@ -204,7 +256,7 @@ public class ChannelFuller implements ChannelMental
         {
             return this.channelMapping.get(obj);
         }
-        Throw.when(!this.perceptionDelay.containsKey(obj), IllegalArgumentException.class, "Channel %s is not present.", obj);
+        Throw.when(!this.channelIndex.containsKey(obj), IllegalArgumentException.class, "Channel %s is not present.", obj);
         return obj;
     }
 
@@ -214,7 +266,75 @@ public class ChannelFuller implements ChannelMental
      */
     public Set<Object> getChannels()
     {
-        return new LinkedHashSet<>(this.attention.keySet());
+        return new LinkedHashSet<>(Arrays.asList(this.channels).subList(0, this.numChannels));
+    }
+
+    /**
+     * Returns a copy of the state that is changed by {@code apply()}. Perception in {@code apply()} may use the state of the
+     * previous application, e.g. the perception delay of a channel, so the state can be restored to undo an application.
+     * @return copy of the state that is changed by {@code apply()}
+     */
+    public State getState()
+    {
+        return new State(this);
+    }
+
+    /**
+     * Restores the state that is changed by {@code apply()}.
+     * @param state state as obtained from {@code getState()}
+     */
+    public void setState(final State state)
+    {
+        Throw.whenNull(state, "state");
+        this.channelMapping = new IdentityHashMap<>(state.channelMapping);
+        this.channelIndex = new IdentityHashMap<>(state.channelIndex);
+        this.channels = state.channels.clone();
+        this.numChannels = state.numChannels;
+        this.demand = state.demand.clone();
+        this.attention = state.attention.clone();
+        this.perceptionDelay = state.perceptionDelay.clone();
+    }
+
+    /**
+     * Copy of the state of a {@code ChannelFuller} that is changed by {@code apply()}.
+     */
+    public static final class State
+    {
+        /** Mappings from object to channel. */
+        private final Map<Object, Object> channelMapping;
+
+        /** Index of each channel. */
+        private final Map<Object, Integer> channelIndex;
+
+        /** Channels in order of their index. */
+        private final Object[] channels;
+
+        /** Number of channels. */
+        private final int numChannels;
+
+        /** Maximum task demand per channel. */
+        private final double[] demand;
+
+        /** Level of attention per channel. */
+        private final double[] attention;
+
+        /** Perception delay per channel. */
+        private final Duration[] perceptionDelay;
+
+        /**
+         * Constructor.
+         * @param fuller mental model
+         */
+        private State(final ChannelFuller fuller)
+        {
+            this.channelMapping = new IdentityHashMap<>(fuller.channelMapping);
+            this.channelIndex = new IdentityHashMap<>(fuller.channelIndex);
+            this.channels = fuller.channels.clone();
+            this.numChannels = fuller.numChannels;
+            this.demand = fuller.demand.clone();
+            this.attention = fuller.attention.clone();
+            this.perceptionDelay = fuller.perceptionDelay.clone();
+        }
     }
 
 }
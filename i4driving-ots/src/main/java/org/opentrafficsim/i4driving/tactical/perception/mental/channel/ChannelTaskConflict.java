@@ -1,14 +1,19 @@
 package org.opentrafficsim.i4driving.tactical.perception.mental.channel;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.WeakHashMap;
 import java.util.function.Function;
 
 import org.djunits.value.vdouble.scalar.Duration;
@@ -23,6 +28,7 @@ import org.opentrafficsim.core.gtu.perception.EgoPerception;
 import org.opentrafficsim.core.network.Link;
 import org.opentrafficsim.core.network.Node;
 import org.opentrafficsim.i4driving.Stateless;
+import org.opentrafficsim.i4driving.tactical.perception.ParallelLanePerception;
 import org.opentrafficsim.road.gtu.lane.LaneBasedGtu;
 import org.opentrafficsim.road.gtu.lane.perception.LanePerception;
 import org.opentrafficsim.road.gtu.lane.perception.PerceptionCollectable;
@@ -55,6 +61,15 @@ public final class ChannelTaskConflict implements ChannelTask
             new ParameterTypeDuration("h_conf", "Exponential decay of conflict task by conflicting approaching time.",
                     Duration.instantiateSI(2.49), NumericConstraint.POSITIVEZERO);
 
+    /** Step in which the horizon of cached upstream nodes is rounded up, to prevent recalculations for small increases. */
+    private static final double HORIZON_STEP = 50.0;
+
+    /**
+     * Cached upstream nodes per conflict. Weak keys remove the entries when the network is no longer used. Node ids are used
+     * rather than nodes, as nodes would refer back to the network and its conflicts.
+     */
+    private static final Map<Conflict, UpstreamNodes> UPSTREAM_NODES = Collections.synchronizedMap(new WeakHashMap<>());
+
     /** Comparator for underlying objects. */
     // TODO: remove this and its use once UnderlyingDistance implements Comparable
     private static final Comparator<UnderlyingDistance<Conflict>> COMPARATOR = new Comparator<>()
@@ -133,6 +148,10 @@ public final class ChannelTaskConflict implements ChannelTask
         Duration conflictHeadway = Duration.POSITIVE_INFINITY;
         LaneBasedGtu gtu = Try.assign(() -> perception.getGtu(), "Gtu not initialized.");
         Length x0 = Try.assign(() -> perception.getGtu().getParameters().getParameter(LOOKAHEAD), "No x0 parameter.");
+        if (ParallelLanePerception.taintIfPrefetching(perception))
+        {
+            return 0.0; // conflicts lazily cache GTUs near them, shared with GTUs that perceive later in the same instant
+        }
         for (UnderlyingDistance<Conflict> conflict : this.conflicts)
         {
             PerceptionCollectable<HeadwayGtu, LaneBasedGtu> conflictingGtus =
@@ -159,87 +178,143 @@ public final class ChannelTaskConflict implements ChannelTask
     }
 
     /**
-     * Returns conflict groups, which are grouped based on overlap in the upstream nodes of the conflicting lanes.
+     * Returns conflict groups, which are grouped based on overlap in the upstream nodes of the conflicting lanes. Conflicts are
+     * in the same group when they share an upstream node, directly or through other conflicts in the group. Groups are in
+     * order of their first conflict in the perceived conflicts.
      * @param perception perception
      * @return conflict groups
      */
-    private static Set<SortedSet<UnderlyingDistance<Conflict>>> findConflictGroups(final LanePerception perception)
+    private static List<SortedSet<UnderlyingDistance<Conflict>>> findConflictGroups(final LanePerception perception)
     {
         IntersectionPerception intersection =
                 Try.assign(() -> perception.getPerceptionCategory(IntersectionPerception.class), "No intersection perception.");
         Iterator<UnderlyingDistance<Conflict>> conflicts =
                 intersection.getConflicts(RelativeLane.CURRENT).underlyingWithDistance();
-
-        // Find groups of conflicts when their upstream nodes are intersecting sets
-        Map<SortedSet<UnderlyingDistance<Conflict>>, Set<Node>> groups = new LinkedHashMap<>();
         Length x0 = Try.assign(() -> perception.getGtu().getParameters().getParameter(LOOKAHEAD), "No x0 parameter.");
+
+        // Union conflicts that share an upstream node, each group is represented by its first conflict
+        List<UnderlyingDistance<Conflict>> conflictList = new ArrayList<>();
+        List<Integer> parents = new ArrayList<>();
+        Map<String, Integer> nodeConflicts = new HashMap<>();
         while (conflicts.hasNext())
         {
             UnderlyingDistance<Conflict> conflict = conflicts.next();
-            Set<Node> nodes = getUpstreamNodes(conflict.getObject().getOtherConflict(), x0);
-            // find overlap
-            Entry<SortedSet<UnderlyingDistance<Conflict>>, Set<Node>> group = null;
-            Iterator<Entry<SortedSet<UnderlyingDistance<Conflict>>, Set<Node>>> groupIterator = groups.entrySet().iterator();
-            while (groupIterator.hasNext())
+            int index = conflictList.size();
+            conflictList.add(conflict);
+            parents.add(index);
+            UpstreamNodes nodes = getUpstreamNodes(conflict.getObject().getOtherConflict(), x0);
+            for (int i = 0; i < nodes.nodeIds().length && nodes.distances()[i] <= x0.si; i++)
             {
-                Entry<SortedSet<UnderlyingDistance<Conflict>>, Set<Node>> entry = groupIterator.next();
-                if (entry.getValue().stream().anyMatch(nodes::contains))
+                Integer other = nodeConflicts.putIfAbsent(nodes.nodeIds()[i], index);
+                if (other != null)
                 {
-                    // overlap with this entry
-                    if (group == null)
-                    {
-                        entry.getKey().add(conflict);
-                        entry.getValue().addAll(nodes);
-                        group = entry;
-                        // keep looping to also merge other groups if they overlap with the upstream nodes of this conflict
-                    }
-                    else
-                    {
-                        // the nodes overlap with multiple groups that did so far not yet overlap, merge the other group too
-                        group.getKey().addAll(entry.getKey());
-                        group.getValue().addAll(entry.getValue());
-                        groupIterator.remove();
-                    }
+                    int root = findRoot(parents, index);
+                    int otherRoot = findRoot(parents, other);
+                    // the root with the lowest index, i.e. the first conflict, represents the group
+                    parents.set(Math.max(root, otherRoot), Math.min(root, otherRoot));
                 }
             }
-            if (group == null)
+        }
+
+        // Gather groups
+        List<SortedSet<UnderlyingDistance<Conflict>>> groups = new ArrayList<>();
+        Map<Integer, SortedSet<UnderlyingDistance<Conflict>>> rootGroups = new HashMap<>();
+        for (int index = 0; index < conflictList.size(); index++)
+        {
+            SortedSet<UnderlyingDistance<Conflict>> group = rootGroups.computeIfAbsent(findRoot(parents, index), (root) ->
             {
-                // no overlap found, make new group
                 // TODO: remove COMPARATOR argument once UnderlyingDistance implements Comparable
-                SortedSet<UnderlyingDistance<Conflict>> key = new TreeSet<>(COMPARATOR);
-                key.add(conflict);
-                groups.put(key, nodes);
-            }
+                SortedSet<UnderlyingDistance<Conflict>> newGroup = new TreeSet<>(COMPARATOR);
+                groups.add(newGroup);
+                return newGroup;
+            });
+            group.add(conflictList.get(index));
+        }
+        return groups;
+    }
+
+    /**
+     * Returns the root of a conflict in the union of conflicts, compressing the path to the root.
+     * @param parents parent index per conflict index
+     * @param index conflict index
+     * @return index of the root conflict
+     */
+    private static int findRoot(final List<Integer> parents, final int index)
+    {
+        int root = index;
+        while (parents.get(root) != root)
+        {
+            root = parents.get(root);
+        }
+        int i = index;
+        while (i != root)
+        {
+            int next = parents.get(i);
+            parents.set(i, root);
+            i = next;
         }
-        return groups.keySet();
+        return root;
     }
 
     /**
-     * Finds all nodes within a given distance upstream of a conflict, stopping at any diverge, branging at merges.
+     * Returns the upstream nodes of a conflict, sorted by the distance within which they are found. These are cached per
+     * conflict, as the network is static. The nodes are found up to a horizon beyond the given distance, such that other GTUs
+     * with a somewhat larger look-ahead distance can use the same nodes. Only nodes with a distance up to the look-ahead
+     * distance should be used.
      * @param conflict conflict.
      * @param x0 distance to loop upstream.
-     * @return set of all upstream nodes within distance.
+     * @return upstream nodes of the conflict, at least up to the given distance.
      */
-    private static Set<Node> getUpstreamNodes(final Conflict conflict, final Length x0)
+    private static UpstreamNodes getUpstreamNodes(final Conflict conflict, final Length x0)
     {
-        Set<Node> nodes = new LinkedHashSet<>();
-        Link link = conflict.getLane().getLink();
-        Length distance = link.getLength().times(conflict.getLane().fraction(conflict.getLongitudinalPosition()) - 1.0);
-        appendUpstreamNodes(link, distance, x0, nodes);
+        UpstreamNodes nodes = UPSTREAM_NODES.get(conflict);
+        if (nodes == null || nodes.horizon() < x0.si)
+        {
+            double horizon = Math.ceil(x0.si / HORIZON_STEP) * HORIZON_STEP;
+            Map<String, Double> nodeDistances = new LinkedHashMap<>();
+            Link link = conflict.getLane().getLink();
+            double distance = link.getLength().si * (conflict.getLane().fraction(conflict.getLongitudinalPosition()) - 1.0);
+            appendUpstreamNodes(link, distance, horizon, nodeDistances);
+            String[] nodeIds = new String[nodeDistances.size()];
+            double[] distances = new double[nodeDistances.size()];
+            int i = 0;
+            for (Entry<String, Double> entry : sorted(nodeDistances))
+            {
+                nodeIds[i] = entry.getKey();
+                distances[i] = entry.getValue();
+                i++;
+            }
+            nodes = new UpstreamNodes(nodeIds, distances, horizon);
+            UPSTREAM_NODES.put(conflict, nodes);
+        }
         return nodes;
     }
 
     /**
-     * Append upstream nodes, branging upstream at merges, stopping at any diverge.
+     * Returns the entries sorted by their value.
+     * @param nodeDistances distance per node id
+     * @return entries sorted by their value
+     */
+    private static List<Entry<String, Double>> sorted(final Map<String, Double> nodeDistances)
+    {
+        List<Entry<String, Double>> entries = new ArrayList<>(nodeDistances.entrySet());
+        entries.sort(Entry.comparingByValue());
+        return entries;
+    }
+
+    /**
+     * Append upstream nodes, branging upstream at merges, stopping at any diverge. Each node is stored with the smallest
+     * distance within which it is found, i.e. the distance to the upstream end of the link it is the start node of.
      * @param link next link to move along.
      * @param distance distance between end of link and conflict, upstream of conflict.
      * @param x0 search distance.
-     * @param nodes collected nodes.
+     * @param nodes collected nodes with their distance.
      */
-    private static void appendUpstreamNodes(final Link link, final Length distance, final Length x0, final Set<Node> nodes)
+    private static void appendUpstreamNodes(final Link link, final double distance, final double x0,
+            final Map<String, Double> nodes)
     {
-        Length nextDistance = distance.plus(link.getLength());
-        if (nextDistance.le(x0))
+        double nextDistance = distance + link.getLength().si;
+        if (nextDistance <= x0)
         {
             Node start = link.getStartNode();
             ImmutableSet<Link> links = start.getLinks();
@@ -256,7 +331,7 @@ public final class ChannelTaskConflict implements ChannelTask
                     upstreamLinks.add(next);
                 }
             }
-            nodes.add(start);
+            nodes.merge(start.getId(), nextDistance, Math::min);
             for (Link upstreamLink : upstreamLinks)
             {
                 appendUpstreamNodes(upstreamLink, nextDistance, x0, nodes);
@@ -264,6 +339,16 @@ public final class ChannelTaskConflict implements ChannelTask
         }
     }
 
+    /**
+     * Upstream nodes of a conflict.
+     * @param nodeIds node ids, sorted by distance
+     * @param distances distance upstream of the conflict within which each node is found
+     * @param horizon distance up to which nodes were searched
+     */
+    private record UpstreamNodes(String[] nodeIds, double[] distances, double horizon)
+    {
+    }
+
     /**
      * Apply car-following task on each split in the group, and remove it from the group.
      * @param tasks tasks to add any split related task to
@@ -283,6 +368,10 @@ public final class ChannelTaskConflict implements ChannelTask
                 tasks.add(new ChannelTaskCarFollowing((p) ->
                 {
                     // this provides the first leader on the other split conflict with distance towards perceiving GTU
+                    if (ParallelLanePerception.taintIfPrefetching(p))
+                    {
+                        return null;
+                    }
                     Conflict otherconflict = conflict.getObject().getOtherConflict();
                     PerceptionCollectable<HeadwayGtu, LaneBasedGtu> conflictingGtus =
                             otherconflict.getDownstreamGtus(p.getGtu(), HeadwayGtuType.WRAP, otherconflict.getLength());
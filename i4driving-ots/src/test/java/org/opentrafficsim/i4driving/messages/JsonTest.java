@@ -1,28 +1,78 @@
-package org.opentrafficsim.i4driving.messages;
-
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.util.Locale;
-
-import org.junit.Test;
-
-import com.google.gson.Gson;
-import com.google.gson.JsonSyntaxException;
-
-public class JsonTest
-{
-
-    @Test
-    public void testGson() throws JsonSyntaxException, IOException
-    {
-        Locale.setDefault(Locale.US);
-
-        Gson gson = DefaultGson.GSON;
-        Commands commands =
-                gson.fromJson(Files.readString(Path.of("./src/main/resources/vehicle1.json")), DefaultGson.COMMANDS);
-        System.out.println(gson.toJson(commands));
-
-    }
-
-}
+package org.opentrafficsim.i4driving.messages;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.Test;
+import org.opentrafficsim.i4driving.messages.Commands.Command;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+
+public class JsonTest
+{
+
+    @Test
+    public void testGson() throws JsonSyntaxException, IOException
+    {
+        Locale.setDefault(Locale.US);
+
+        Gson gson = DefaultGson.GSON;
+        Commands commands =
+                gson.fromJson(Files.readString(Path.of("./src/main/resources/vehicle1.json")), DefaultGson.COMMANDS);
+        System.out.println(gson.toJson(commands));
+
+    }
+
+    @Test
+    public void testCommandsReader() throws IOException
+    {
+        Locale.setDefault(Locale.US);
+
+        String json = Files.readString(Path.of("./src/main/resources/vehicle1.json"));
+        Commands commands = DefaultGson.GSON.fromJson(json, DefaultGson.COMMANDS);
+        try (CommandsReader reader = new CommandsReader(new StringReader(json)))
+        {
+            assertEquals(commands.getGtuId(), reader.getGtuId());
+            assertEquals(commands.getGenerationInfo().toString(), reader.getGenerationInfo().toString());
+            List<Command> streamed = new ArrayList<>();
+            reader.forEachRemaining(streamed::add);
+            assertEquals(commands.getCommands().toList(), streamed);
+        }
+    }
+
+    @Test
+    public void testCommandsReaderValidate() throws IOException
+    {
+        Locale.setDefault(Locale.US);
+
+        String json = Files.readString(Path.of("./src/main/resources/vehicle1.json"));
+        CommandsReader.validate(new StringReader(json));
+        String unsorted = "{\"gtuId\": \"1\", \"commands\": [{\"time\": \"2.0 s\", \"type\": \"disableLaneChanges\"}, "
+                + "{\"time\": \"1.0 s\", \"type\": \"enableLaneChanges\"}]}";
+        assertThrows(IOException.class, () -> CommandsReader.validate(new StringReader(unsorted)));
+        String idAfterCommands = "{\"commands\": [{\"time\": \"1.0 s\", \"type\": \"disableLaneChanges\"}], "
+                + "\"gtuId\": \"1\"}";
+        assertThrows(IOException.class, () -> CommandsReader.validate(new StringReader(idAfterCommands)));
+        String badSpeed = "{\"gtuId\": \"1\", \"commands\": [{\"time\": \"1.0 s\", \"type\": \"setDesiredSpeed\", "
+                + "\"data\": {\"speed\": \"fast\"}}]}";
+        assertThrows(IOException.class, () -> CommandsReader.validate(new StringReader(badSpeed)));
+        String badDirection = "{\"gtuId\": \"1\", \"commands\": [{\"time\": \"1.0 s\", \"type\": \"changeLane\", "
+                + "\"data\": {\"direction\": \"UP\"}}]}";
+        assertThrows(IOException.class, () -> CommandsReader.validate(new StringReader(badDirection)));
+        String missingField = "{\"gtuId\": \"1\", \"commands\": [{\"time\": \"1.0 s\", \"type\": \"setAcceleration\"}]}";
+        assertThrows(IOException.class, () -> CommandsReader.validate(new StringReader(missingField)));
+        String valid = "{\"gtuId\": \"1\", \"commands\": [{\"time\": \"1.0 s\", \"type\": \"changeLane\", "
+                + "\"data\": {\"direction\": \"LEFT\"}}]}";
+        CommandsReader.validate(new StringReader(valid));
+    }
+
+}
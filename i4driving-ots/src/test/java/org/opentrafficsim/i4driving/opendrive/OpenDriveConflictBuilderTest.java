@@ -0,0 +1,157 @@
+package org.opentrafficsim.i4driving.opendrive;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.naming.NamingException;
+import javax.xml.bind.JAXBException;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.djunits.value.vdouble.scalar.Duration;
+import org.djunits.value.vdouble.scalar.Time;
+import org.djutils.draw.DrawRuntimeException;
+import org.junit.Test;
+import org.opentrafficsim.core.dsol.OtsSimulator;
+import org.opentrafficsim.core.geometry.OtsGeometryException;
+import org.opentrafficsim.core.network.Link;
+import org.opentrafficsim.road.network.RoadNetwork;
+import org.opentrafficsim.road.network.lane.CrossSectionLink;
+import org.opentrafficsim.road.network.lane.Lane;
+import org.opentrafficsim.road.network.lane.conflict.Conflict;
+import org.opentrafficsim.road.network.lane.conflict.ConflictBuilder;
+import org.opentrafficsim.road.network.lane.conflict.ConflictBuilder.RelativeWidthGenerator;
+import org.opentrafficsim.road.network.lane.object.LaneBasedObject;
+import org.xml.sax.SAXException;
+
+import nl.tudelft.simulation.dsol.SimRuntimeException;
+
+/**
+ * Tests that {@code OpenDriveConflictBuilder} builds the same conflicts as building conflicts for every pair of lanes of which
+ * the contours intersect, for all conflicts with a lane on a connecting road of a junction. Other conflicts are not built, as
+ * elevation is not considered. In the example network these are the crossings of a road on a bridge over the motorway.
+ * @author wjschakel
+ */
+public class OpenDriveConflictBuilderTest
+{
+
+    /** Example network with junctions. */
+    private static final String NETWORK = "/opendrive/examples/UC_Motorway-Exit-Entry.xodr";
+
+    /**
+     * Compares the conflicts built by the parser with conflicts built for all pairs of lanes.
+     * @throws SimRuntimeException exception
+     * @throws NamingException exception
+     * @throws OtsGeometryException exception
+     * @throws IOException exception
+     * @throws JAXBException exception
+     * @throws SAXException exception
+     * @throws ParserConfigurationException exception
+     */
+    @Test
+    public void testExhaustive() throws SimRuntimeException, NamingException, OtsGeometryException, IOException, JAXBException,
+            SAXException, ParserConfigurationException
+    {
+        Set<String> junctionRoads = new LinkedHashSet<>();
+        try (InputStream stream = OpenDriveConflictBuilderTest.class.getResourceAsStream(NETWORK))
+        {
+            OpenDriveParser.parseStream(stream).getOpenDrive().getRoad().stream()
+                    .filter((road) -> !"-1".equals(road.getJunction())).forEach((road) -> junctionRoads.add(road.getId()));
+        }
+        assertFalse("No junctions in " + NETWORK, junctionRoads.isEmpty());
+        OtsSimulator simulator = new OtsSimulator("exhaustive");
+        RoadNetwork network = build(simulator, false);
+        List<Lane> lanes = new ArrayList<>();
+        for (Link link : network.getLinkMap().values())
+        {
+            lanes.addAll(((CrossSectionLink) link).getLanes());
+        }
+        for (int i = 0; i < lanes.size() - 1; i++)
+        {
+            for (int j = i + 1; j < lanes.size(); j++)
+            {
+                if (lanes.get(i).getContour().intersects(lanes.get(j).getContour()))
+                {
+                    try
+                    {
+                        ConflictBuilder.buildConflicts(lanes.get(i), lanes.get(j), simulator, new RelativeWidthGenerator(0.7));
+                    }
+                    catch (DrawRuntimeException ex)
+                    {
+                        // degenerate conflict geometry, skipped by the parser as well
+                    }
+                }
+            }
+        }
+        Set<String> expected = getConflicts(network, junctionRoads);
+        assertFalse("No conflicts in " + NETWORK, expected.isEmpty());
+        assertTrue("No conflicts outside junctions in " + NETWORK, getConflicts(network, null).size() > expected.size());
+        assertEquals(expected, getConflicts(build(new OtsSimulator("parser"), true), null));
+    }
+
+    /**
+     * Builds the example network.
+     * @param simulator simulator
+     * @param buildConflicts whether the parser builds conflicts
+     * @return network
+     * @throws SimRuntimeException exception
+     * @throws NamingException exception
+     */
+    private static RoadNetwork build(final OtsSimulator simulator, final boolean buildConflicts)
+            throws SimRuntimeException, NamingException
+    {
+        OpenDriveModel model = new OpenDriveModel(simulator, NETWORK, buildConflicts);
+        simulator.initialize(Time.ZERO, Duration.ZERO, Duration.instantiateSI(3600.0), model);
+        return (RoadNetwork) model.getNetwork();
+    }
+
+    /**
+     * Returns a description of the conflicts in the network, by lane, other lane, type, position and length.
+     * @param network network
+     * @param junctionRoads ids of connecting roads on junctions, when not {@code null} only conflicts where either lane is on
+     *            one of these roads are returned
+     * @return description of the conflicts in the network
+     */
+    private static Set<String> getConflicts(final RoadNetwork network, final Set<String> junctionRoads)
+    {
+        Set<String> conflicts = new TreeSet<>();
+        for (Link link : network.getLinkMap().values())
+        {
+            for (Lane lane : ((CrossSectionLink) link).getLanes())
+            {
+                for (LaneBasedObject object : lane.getLaneBasedObjects())
+                {
+                    if (object instanceof Conflict conflict && (junctionRoads == null || junctionRoads.contains(getRoadId(lane))
+                            || junctionRoads.contains(getRoadId(conflict.getOtherConflict().getLane()))))
+                    {
+                        conflicts.add(String.format("%s %s %s %.6f %.6f", lane.getFullId(),
+                                conflict.getOtherConflict().getLane().getFullId(), conflict.getConflictType(),
+                                conflict.getLongitudinalPosition().si, conflict.getLength().si));
+                    }
+                }
+            }
+        }
+        return conflicts;
+    }
+
+    /**
+     * Returns the id of the road of a lane, from the id of its link, which is the road id or the road id with a suffix.
+     * @param lane lane
+     * @return id of the road of the lane
+     */
+    private static String getRoadId(final Lane lane)
+    {
+        String linkId = lane.getLink().getId();
+        int index = linkId.indexOf('_');
+        return index < 0 ? linkId : linkId.substring(0, index);
+    }
+
+}
@@ -0,0 +1,141 @@
+package org.opentrafficsim.i4driving.opendrive;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.bind.JAXBException;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.opentrafficsim.i4driving.opendrive.OpenDriveParser.RoadGeometry;
+import org.xml.sax.SAXException;
+
+/**
+ * Tests the selection of roads by {@code OpenDriveCorridor} on the UC_Motorway-Exit-Entry example. On this network road 4
+ * continues on the main carriageway as road 3 through connecting road 2 of junction 2, or as exit road 21 through connecting
+ * road 13. Road 3 continues as road 5 through connecting road 1 of junction 1, where road 42 merges through connecting road
+ * 43.
+ * @author wjschakel
+ */
+public class OpenDriveCorridorTest
+{
+
+    /** Geometry of all roads in the example network. */
+    private static List<RoadGeometry> roads;
+
+    /** Geometry of all roads by id. */
+    private static Map<String, RoadGeometry> roadMap = new LinkedHashMap<>();
+
+    /**
+     * Derives the road geometry of the example network.
+     * @throws IOException exception
+     * @throws JAXBException exception
+     * @throws SAXException exception
+     * @throws ParserConfigurationException exception
+     */
+    @BeforeClass
+    public static void deriveRoads() throws IOException, JAXBException, SAXException, ParserConfigurationException
+    {
+        try (InputStream stream =
+                OpenDriveCorridorTest.class.getResourceAsStream("/opendrive/examples/UC_Motorway-Exit-Entry.xodr"))
+        {
+            roads = OpenDriveParser.parseStream(stream).getRoadGeometries();
+        }
+        roads.forEach((road) -> roadMap.put(road.id(), road));
+    }
+
+    /**
+     * Tests that the seed roads, and only those, are selected without depth, and that they are cut at both ends.
+     */
+    @Test
+    public void testSeedRoads()
+    {
+        OpenDriveCorridor corridor = corridor(Set.of("3"), null, 0);
+        assertSelected(corridor, "3");
+        assertTrue(corridor.isCut(roadMap.get("3"), true));
+        assertTrue(corridor.isCut(roadMap.get("3"), false));
+    }
+
+    /**
+     * Tests that links are followed up to the depth, including the connecting roads between selected roads, and that roads are
+     * cut at the corridor boundary.
+     */
+    @Test
+    public void testDepth()
+    {
+        OpenDriveCorridor corridor = corridor(Set.of("3"), null, 1);
+        assertSelected(corridor, "3", "4", "5", "1", "2");
+        // connecting roads to roads that are not selected are not selected
+        assertFalse(corridor.contains(roadMap.get("13")));
+        assertFalse(corridor.contains(roadMap.get("43")));
+        assertFalse(corridor.isCut(roadMap.get("3"), true));
+        assertFalse(corridor.isCut(roadMap.get("3"), false));
+        assertFalse(corridor.isCut(roadMap.get("4"), false));
+        assertTrue(corridor.isCut(roadMap.get("4"), true));
+        assertTrue(corridor.isCut(roadMap.get("5"), false));
+
+        // one link further, road 4 links to road 36, and junctions 2 and 1 to exit road 21 and entry road 42
+        corridor = corridor(Set.of("3"), null, 2);
+        assertSelected(corridor, "3", "4", "5", "1", "2", "36", "21", "42", "13", "43", "40", "8");
+        assertFalse(corridor.isCut(roadMap.get("4"), true));
+    }
+
+    /**
+     * Tests that a connecting road on a junction seeds the roads it connects.
+     */
+    @Test
+    public void testJunctionSeed()
+    {
+        assertSelected(corridor(Set.of("2"), null, 0), "3", "4", "2");
+    }
+
+    /**
+     * Tests that a shortest route seeds the roads on the shortest path between its first and last road.
+     */
+    @Test
+    public void testShortestRoute()
+    {
+        // along the main carriageway, not through exit road 21
+        assertSelected(corridor(null, List.of(List.of("4", "5")), 0), "4", "3", "5", "2", "1");
+        // via exit road 21 and connecting road 35 of junction 3 onto road 18, which continues as road 6
+        assertSelected(corridor(null, List.of(List.of("4", "6")), 0), "4", "21", "18", "6", "13", "35");
+        // no path against the driving direction
+        assertSelected(corridor(null, List.of(List.of("5", "4")), 0));
+    }
+
+    /**
+     * Returns the corridor.
+     * @param roadIds ids of seed roads, may be {@code null}
+     * @param routes shortest routes, may be {@code null}
+     * @param depth depth
+     * @return corridor
+     */
+    private static OpenDriveCorridor corridor(final Set<String> roadIds, final List<List<String>> routes, final int depth)
+    {
+        return new OpenDriveCorridor(roads, roadIds, routes, null, depth, RoadGeometry::id);
+    }
+
+    /**
+     * Asserts that exactly the given roads are selected.
+     * @param corridor corridor
+     * @param ids ids of the roads that should be selected
+     */
+    private static void assertSelected(final OpenDriveCorridor corridor, final String... ids)
+    {
+        Set<String> selected = new LinkedHashSet<>();
+        roads.stream().filter(corridor::contains).forEach((road) -> selected.add(road.id()));
+        assertEquals(Set.of(ids), selected);
+        assertEquals(ids.length, corridor.size());
+    }
+
+}
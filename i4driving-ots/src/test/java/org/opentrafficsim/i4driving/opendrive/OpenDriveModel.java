@@ -37,6 +37,12 @@ public class OpenDriveModel extends AbstractOtsModel
     /** File. */
     private final String file;
 
+    /** Whether to build conflicts. */
+    private final boolean buildConflicts;
+
+    /** Number of threads with which the parser derives the network. */
+    private final int parallelism;
+
     /** Network. */
     private RoadNetwork network;
 
@@ -46,9 +52,35 @@ public class OpenDriveModel extends AbstractOtsModel
      * @param file file
      */
     public OpenDriveModel(final OtsSimulatorInterface simulator, final String file)
+    {
+        this(simulator, file, false);
+    }
+
+    /**
+     * Constructor.
+     * @param simulator simulator
+     * @param file file
+     * @param buildConflicts whether to build conflicts
+     */
+    public OpenDriveModel(final OtsSimulatorInterface simulator, final String file, final boolean buildConflicts)
+    {
+        this(simulator, file, buildConflicts, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor.
+     * @param simulator simulator
+     * @param file file
+     * @param buildConflicts whether to build conflicts
+     * @param parallelism number of threads with which the parser derives the network
+     */
+    public OpenDriveModel(final OtsSimulatorInterface simulator, final String file, final boolean buildConflicts,
+            final int parallelism)
     {
         super(simulator);
         this.file = file;
+        this.buildConflicts = buildConflicts;
+        this.parallelism = parallelism;
     }
 
     @Override
@@ -71,7 +103,8 @@ public class OpenDriveModel extends AbstractOtsModel
             {
                 stream = new FileInputStream(this.file);
             }
-            OpenDriveParser parser = OpenDriveParser.parseStream(stream);
+            OpenDriveParser parser = OpenDriveParser.parseStream(stream).setBuildConflicts(this.buildConflicts)
+                    .setParallelism(this.parallelism);
             this.network = new RoadNetwork("roadNetwork", getSimulator());
             parser.build(this.network);
             if (getSimulator() instanceof OtsAnimator)
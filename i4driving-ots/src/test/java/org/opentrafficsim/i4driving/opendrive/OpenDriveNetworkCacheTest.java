@@ -0,0 +1,311 @@
+package org.opentrafficsim.i4driving.opendrive;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.naming.NamingException;
+import javax.xml.stream.XMLStreamException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.djunits.value.vdouble.scalar.Duration;
+import org.djunits.value.vdouble.scalar.Time;
+import org.junit.rules.TemporaryFolder;
+import org.opentrafficsim.core.definitions.DefaultsNl;
+import org.opentrafficsim.core.dsol.AbstractOtsModel;
+import org.opentrafficsim.core.dsol.OtsSimulator;
+import org.opentrafficsim.core.dsol.OtsSimulatorInterface;
+import org.opentrafficsim.core.geometry.OtsGeometryException;
+import org.opentrafficsim.core.network.Link;
+import org.opentrafficsim.core.network.NetworkException;
+import org.opentrafficsim.i4driving.opendrive.OpenDriveParser.ElementGeometry;
+import org.opentrafficsim.i4driving.opendrive.OpenDriveParser.LinkGeometry;
+import org.opentrafficsim.i4driving.opendrive.OpenDriveParser.RoadGeometry;
+import org.opentrafficsim.i4driving.opendrive.OpenDriveParser.SectionGeometry;
+import org.opentrafficsim.road.network.RoadNetwork;
+import org.opentrafficsim.road.network.lane.CrossSectionElement;
+import org.opentrafficsim.road.network.lane.CrossSectionLink;
+import org.opentrafficsim.road.network.lane.CrossSectionSlice;
+import org.opentrafficsim.road.network.lane.Lane;
+import org.opentrafficsim.road.network.lane.Shoulder;
+import org.opentrafficsim.road.network.lane.Stripe;
+
+import nl.tudelft.simulation.dsol.SimRuntimeException;
+
+/**
+ * Tests that the offset tolerance is part of the key of the {@code OpenDriveNetworkCache}, that a parser obtained from the
+ * cache does not accept another tolerance, and that networks stored in a cache directory are read back identically.
+ * @author wjschakel
+ */
+public class OpenDriveNetworkCacheTest
+{
+
+    /** Network file. */
+    private static final String NETWORK = "/opendrive/examples/UC_Motorway-Exit-Entry.xodr";
+
+    /** Network file with speed limits. */
+    private static final String SPEED_NETWORK = "/opendrive/examples/i4Driving_scenario30_curved.xodr";
+
+    /** Temporary cache directory. */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Test offset tolerance in cache key.
+     * @throws IOException exception
+     * @throws XMLStreamException exception
+     */
+    @Test
+    public void testOffsetTolerance() throws IOException, XMLStreamException
+    {
+        String openDrive = readNetwork(NETWORK);
+        OpenDriveNetworkCache cache = new OpenDriveNetworkCache();
+
+        OpenDriveParser coarse = cache.getParser(openDrive, 1);
+        assertSame(coarse.getRoadGeometries(),
+                cache.getParser(openDrive, 1, OffsetData.DEFAULT_TOLERANCE).getRoadGeometries());
+        OpenDriveParser fine = cache.getParser(openDrive, 1, 0.001);
+        assertNotSame(coarse.getRoadGeometries(), fine.getRoadGeometries());
+        assertSame(fine.getRoadGeometries(), cache.getParser(openDrive, 1, 0.001).getRoadGeometries());
+
+        coarse.setOffsetTolerance(OffsetData.DEFAULT_TOLERANCE);
+        assertThrows(IllegalStateException.class, () -> coarse.setOffsetTolerance(0.001));
+        assertThrows(IllegalStateException.class, () -> fine.setOffsetTolerance(OffsetData.DEFAULT_TOLERANCE));
+    }
+
+    /**
+     * Test that a network stored in the cache directory is read by another cache on the same directory, and that the network
+     * built from it is identical. A file of another format version is ignored, and replaced.
+     * @throws IOException exception
+     * @throws XMLStreamException exception
+     * @throws SimRuntimeException exception
+     * @throws NamingException exception
+     */
+    @Test
+    public void testDirectory() throws IOException, XMLStreamException, SimRuntimeException, NamingException
+    {
+        String openDrive = readNetwork(SPEED_NETWORK);
+        Path directory = this.folder.getRoot().toPath();
+
+        OpenDriveParser derived = new OpenDriveNetworkCache(directory).getParser(openDrive, 1);
+        Path file = getCacheFile(directory);
+        int version = ByteBuffer.wrap(Files.readAllBytes(file)).getInt(Integer.BYTES);
+        FileTime old = FileTime.fromMillis(0L);
+        Files.setLastModifiedTime(file, old);
+
+        OpenDriveParser read = new OpenDriveNetworkCache(directory).getParser(openDrive, 1);
+        assertEquals("Cache file was written again rather than read.", old, Files.getLastModifiedTime(file));
+        assertNotSame(derived.getRoadGeometries(), read.getRoadGeometries());
+        assertEquals(describe(derived.getRoadGeometries()), describe(read.getRoadGeometries()));
+        List<String> network = describe(build(derived));
+        assertEquals(network, describe(build(read)));
+
+        // a file of another version is ignored, the network is derived again and stored in the current version
+        byte[] bytes = Files.readAllBytes(file);
+        ByteBuffer.wrap(bytes).putInt(Integer.BYTES, version + 1);
+        Files.write(file, bytes);
+        Files.setLastModifiedTime(file, old);
+        OpenDriveParser other = new OpenDriveNetworkCache(directory).getParser(openDrive, 1);
+        assertNotEquals("Cache file of other version was not replaced.", old, Files.getLastModifiedTime(file));
+        assertEquals(version, ByteBuffer.wrap(Files.readAllBytes(file)).getInt(Integer.BYTES));
+        assertEquals(network, describe(build(other)));
+    }
+
+    /**
+     * Reads a network file.
+     * @param network network file
+     * @return OpenDRIVE string
+     * @throws IOException exception
+     */
+    private static String readNetwork(final String network) throws IOException
+    {
+        try (InputStream stream = OpenDriveNetworkCacheTest.class.getResourceAsStream(network))
+        {
+            return new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Returns the only cache file in the directory.
+     * @param directory cache directory
+     * @return only cache file in the directory
+     * @throws IOException exception
+     */
+    private static Path getCacheFile(final Path directory) throws IOException
+    {
+        try (Stream<Path> files = Files.list(directory))
+        {
+            List<Path> list = files.toList();
+            assertEquals("Expected a single cache file in " + list, 1, list.size());
+            return list.get(0);
+        }
+    }
+
+    /**
+     * Builds a network from the parser, without conflicts.
+     * @param parser parser
+     * @return network
+     * @throws SimRuntimeException exception
+     * @throws NamingException exception
+     */
+    private static RoadNetwork build(final OpenDriveParser parser) throws SimRuntimeException, NamingException
+    {
+        OtsSimulator simulator = new OtsSimulator("cache test");
+        ParserModel model = new ParserModel(simulator, parser.setBuildConflicts(false));
+        simulator.initialize(Time.ZERO, Duration.ZERO, Duration.instantiateSI(3600.0), model);
+        return model.getNetwork();
+    }
+
+    /**
+     * Returns a description of the geometry of all roads, including the slices of all elements. Speeds are described in SI
+     * units, as the cache stores them.
+     * @param roads geometry of all roads
+     * @return description of the geometry of all roads
+     */
+    private static List<String> describe(final List<RoadGeometry> roads)
+    {
+        List<String> description = new ArrayList<>();
+        for (RoadGeometry road : roads)
+        {
+            description.add(String.format("road %s %s %s %s %s %b %b %b %s", road.id(), road.name(), road.junction(),
+                    road.predecessor(), road.successor(), road.forward(), road.backward(), road.multipleLinks(),
+                    road.startPoint()));
+            for (SectionGeometry section : road.sections())
+            {
+                description.add(String.format("section %s %s %b", section.roadTypeId(), section.endPoint(), section.last()));
+                for (LinkGeometry link : new LinkGeometry[] {section.forwardLink(), section.backwardLink()})
+                {
+                    if (link != null)
+                    {
+                        description.add(String.format("link %s %s", link.designLine(), link.laneKeeping()));
+                        for (ElementGeometry element : link.elements())
+                        {
+                            description.add(String.format("element %s %s %s %s %s %s", element.kind(), element.id(),
+                                    element.stripeType(), element.centerLine(), element.contour(),
+                                    element.speed() == null ? null : element.speed().si));
+                            for (CrossSectionSlice slice : element.slices())
+                            {
+                                description.add(String.format("slice %s %s %s", slice.getRelativeLength().si,
+                                        slice.getOffset().si, slice.getWidth().si));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return description;
+    }
+
+    /**
+     * Returns a description of the links, lanes and other cross-section elements in the network, with their geometry and the
+     * speed limits of lanes. Stripes are described without their id, which is random.
+     * @param network network
+     * @return description of the network
+     */
+    private static List<String> describe(final RoadNetwork network)
+    {
+        List<String> description = new ArrayList<>();
+        for (Link link : network.getLinkMap().values())
+        {
+            description.add(String.format("link %s %s %s %s", link.getId(), link.getStartNode().getId(),
+                    link.getEndNode().getId(), ((CrossSectionLink) link).getDesignLine()));
+            for (CrossSectionElement element : ((CrossSectionLink) link).getCrossSectionElementList())
+            {
+                description.add(String.format("%s %s %s %s %s %s %s %s", element.getClass().getSimpleName(),
+                        element instanceof Stripe ? link.getId() : element.getFullId(), element.getCenterLine(),
+                        element.getContour(), element.getOffsetAtBegin(), element.getOffsetAtEnd(), element.getBeginWidth(),
+                        element.getEndWidth()));
+                if (element instanceof Lane lane && !(element instanceof Shoulder)) // shoulders take the speed of a lane
+                {
+                    description.add(String.format("speed %s %s", lane.getFullId(), getSpeedLimit(lane)));
+                }
+            }
+        }
+        assertFalse("No links in network.", description.isEmpty());
+        assertTrue("No speed limits in network.",
+                description.stream().anyMatch((line) -> line.startsWith("speed") && !line.endsWith("null")));
+        return description;
+    }
+
+    /**
+     * Returns the speed limit of a lane for vehicles.
+     * @param lane lane
+     * @return speed limit of the lane for vehicles [m/s], {@code null} if the lane has none
+     */
+    private static Double getSpeedLimit(final Lane lane)
+    {
+        try
+        {
+            return lane.getSpeedLimit(DefaultsNl.VEHICLE).si;
+        }
+        catch (NetworkException ex)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Model that builds the network of a parser.
+     */
+    private static class ParserModel extends AbstractOtsModel
+    {
+        /** */
+        private static final long serialVersionUID = 20261017L;
+
+        /** Parser. */
+        private final OpenDriveParser parser;
+
+        /** Network. */
+        private RoadNetwork network;
+
+        /**
+         * Constructor.
+         * @param simulator simulator
+         * @param parser parser
+         */
+        ParserModel(final OtsSimulatorInterface simulator, final OpenDriveParser parser)
+        {
+            super(simulator);
+            this.parser = parser;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void constructModel() throws SimRuntimeException
+        {
+            this.network = new RoadNetwork("cache test", getSimulator());
+            try
+            {
+                this.parser.build(this.network);
+            }
+            catch (NetworkException | OtsGeometryException ex)
+            {
+                throw new SimRuntimeException(ex);
+            }
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public RoadNetwork getNetwork()
+        {
+            return this.network;
+        }
+    }
+
+}
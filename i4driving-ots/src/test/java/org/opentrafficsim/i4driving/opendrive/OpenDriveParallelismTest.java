@@ -0,0 +1,105 @@
+package org.opentrafficsim.i4driving.opendrive;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.naming.NamingException;
+
+import org.djunits.value.vdouble.scalar.Duration;
+import org.djunits.value.vdouble.scalar.Time;
+import org.junit.Test;
+import org.opentrafficsim.core.dsol.OtsSimulator;
+import org.opentrafficsim.core.network.Link;
+import org.opentrafficsim.core.network.Node;
+import org.opentrafficsim.road.network.RoadNetwork;
+import org.opentrafficsim.road.network.lane.CrossSectionLink;
+import org.opentrafficsim.road.network.lane.Lane;
+import org.opentrafficsim.road.network.lane.conflict.Conflict;
+import org.opentrafficsim.road.network.lane.object.LaneBasedObject;
+
+import nl.tudelft.simulation.dsol.SimRuntimeException;
+
+/**
+ * Tests that the network derived by the parser does not depend on the number of threads with which the road geometry is
+ * derived and the conflicts are built.
+ * @author wjschakel
+ */
+public class OpenDriveParallelismTest
+{
+
+    /** Network files. */
+    private static final String[] NETWORKS =
+            {"/opendrive/examples/UC_Motorway-Exit-Entry.xodr", "/opendrive/examples/i4Driving_scenario30_curved.xodr"};
+
+    /**
+     * Compares networks derived with 1 and 4 threads.
+     * @throws SimRuntimeException exception
+     * @throws NamingException exception
+     */
+    @Test
+    public void testParallelism() throws SimRuntimeException, NamingException
+    {
+        for (String network : NETWORKS)
+        {
+            List<String> serial = describe(build(network, 1));
+            assertTrue("No lanes in " + network, serial.stream().anyMatch((line) -> line.startsWith("lane")));
+            assertEquals("Network " + network + " depends on parallelism.", serial, describe(build(network, 4)));
+        }
+    }
+
+    /**
+     * Builds a network, including conflicts.
+     * @param network network file
+     * @param parallelism number of threads with which the parser derives the network
+     * @return network
+     * @throws SimRuntimeException exception
+     * @throws NamingException exception
+     */
+    private static RoadNetwork build(final String network, final int parallelism) throws SimRuntimeException, NamingException
+    {
+        OtsSimulator simulator = new OtsSimulator("parallelism " + parallelism);
+        OpenDriveModel model = new OpenDriveModel(simulator, network, true, parallelism);
+        simulator.initialize(Time.ZERO, Duration.ZERO, Duration.instantiateSI(3600.0), model);
+        return (RoadNetwork) model.getNetwork();
+    }
+
+    /**
+     * Returns a description of the nodes, links and lanes in the network, in the order in which they were created, with the
+     * geometry of the lanes and their conflicts. Conflicts are described without their id, which is random.
+     * @param network network
+     * @return description of the network
+     */
+    private static List<String> describe(final RoadNetwork network)
+    {
+        List<String> description = new ArrayList<>();
+        for (Node node : network.getNodeMap().values())
+        {
+            description.add(String.format("node %s %s", node.getId(), node.getPoint()));
+        }
+        for (Link link : network.getLinkMap().values())
+        {
+            description.add(String.format("link %s %s %s %s", link.getId(), link.getStartNode().getId(),
+                    link.getEndNode().getId(), ((CrossSectionLink) link).getDesignLine()));
+            for (Lane lane : ((CrossSectionLink) link).getLanes())
+            {
+                description.add(String.format("lane %s %s %s %s %s %s %s", lane.getFullId(), lane.getCenterLine(),
+                        lane.getContour(), lane.getOffsetAtBegin(), lane.getOffsetAtEnd(), lane.getBeginWidth(),
+                        lane.getEndWidth()));
+                for (LaneBasedObject object : lane.getLaneBasedObjects())
+                {
+                    if (object instanceof Conflict conflict)
+                    {
+                        description.add(String.format("conflict %s %s %s %s",
+                                conflict.getOtherConflict().getLane().getFullId(), conflict.getConflictType(),
+                                conflict.getLongitudinalPosition(), conflict.getLength()));
+                    }
+                }
+            }
+        }
+        return description;
+    }
+
+}
@@ -0,0 +1,170 @@
+package org.opentrafficsim.i4driving.opendrive;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.URISyntaxException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+import javax.xml.bind.JAXBException;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamException;
+
+import org.junit.Test;
+import org.opentrafficsim.i4driving.opendrive.generated.OpenDRIVE;
+import org.xml.sax.SAXException;
+
+/**
+ * Tests that the streaming reader reads the same network information as JAXB from all example OpenDRIVE files. The roads,
+ * with their type, plan view, links, lane offsets and lane sections including lane widths, borders and links, and the
+ * junctions with their connections and lane links are compared property by property.
+ * @author wjschakel
+ */
+public class OpenDriveReaderTest
+{
+
+    /** Package of the generated OpenDRIVE classes. */
+    private static final String GENERATED = OpenDRIVE.class.getPackageName();
+
+    /** Properties that the streaming reader skips, as they are not needed to build the network. */
+    private static final Set<String> SKIPPED = Set.of("GAdditionalData", "Include", "UserData", "DataQuality",
+            "ElevationProfile", "LateralProfile", "Objects", "Signals", "Surface", "Railroad", "Priority", "Controller",
+            "Material", "Height", "TRoadLanesLaneSectionLrLane.Rule", "TRoadLanesLaneSectionLcrLaneRoadMark.Sway",
+            "TRoadLanesLaneSectionLcrLaneRoadMark.Type", "TRoadLanesLaneSectionLcrLaneRoadMark.Explicit",
+            "TRoadLanesLaneSectionLcrLaneRoadMark.Weight", "TRoadLanesLaneSectionLcrLaneRoadMark.Color",
+            "TRoadLanesLaneSectionLcrLaneRoadMark.Height", "TRoadLanesLaneSectionLcrLaneRoadMark.LaneChange");
+
+    /**
+     * Compares the roads and junctions of all example files read by JAXB and by the streaming reader.
+     * @throws IOException exception
+     * @throws JAXBException exception
+     * @throws SAXException exception
+     * @throws ParserConfigurationException exception
+     * @throws XMLStreamException exception
+     * @throws URISyntaxException exception
+     * @throws ReflectiveOperationException exception
+     */
+    @Test
+    public void testReaders() throws IOException, JAXBException, SAXException, ParserConfigurationException,
+            XMLStreamException, URISyntaxException, ReflectiveOperationException
+    {
+        File[] files = new File(OpenDriveReaderTest.class.getResource("/opendrive/examples").toURI()).listFiles();
+        assertNotNull(files);
+        Arrays.sort(files, Comparator.comparing(File::getName));
+        int n = 0;
+        for (File file : files)
+        {
+            if (!file.getName().endsWith(".xodr"))
+            {
+                continue;
+            }
+            OpenDRIVE jaxb;
+            try (InputStream stream = file.toURI().toURL().openStream())
+            {
+                jaxb = OpenDriveParser.parseStream(stream).getOpenDrive();
+            }
+            OpenDRIVE streamed;
+            try (InputStream stream = file.toURI().toURL().openStream())
+            {
+                streamed = OpenDriveParser.readStream(stream).getOpenDrive();
+            }
+            assertFalse(file.getName() + " has no roads", jaxb.getRoad().isEmpty());
+            compare(file.getName() + ":road", jaxb.getRoad(), streamed.getRoad());
+            compare(file.getName() + ":junction", jaxb.getJunction(), streamed.getJunction());
+            n++;
+        }
+        assertTrue("No example files found", n > 0);
+    }
+
+    /**
+     * Compares two values. Lists are compared element by element, and objects of generated classes property by property.
+     * @param path path of the value, for failure messages
+     * @param expected value read by JAXB
+     * @param actual value read by the streaming reader
+     * @throws ReflectiveOperationException when a property cannot be obtained
+     */
+    private static void compare(final String path, final Object expected, final Object actual)
+            throws ReflectiveOperationException
+    {
+        if (expected == null || actual == null)
+        {
+            assertEquals(path, expected, actual);
+        }
+        else if (expected instanceof List<?> expectedList)
+        {
+            List<?> actualList = (List<?>) actual;
+            assertEquals(path + " size", expectedList.size(), actualList.size());
+            for (int i = 0; i < expectedList.size(); i++)
+            {
+                compare(path + "[" + i + "]", expectedList.get(i), actualList.get(i));
+            }
+        }
+        else if (expected.getClass().getPackageName().equals(GENERATED) && !expected.getClass().isEnum())
+        {
+            assertEquals(path, expected.getClass(), actual.getClass());
+            for (Method getter : expected.getClass().getMethods())
+            {
+                String property = property(getter);
+                if (property != null && !SKIPPED.contains(property)
+                        && !SKIPPED.contains(getter.getDeclaringClass().getSimpleName() + "." + property))
+                {
+                    compare(path + "." + property, invoke(getter, expected), invoke(getter, actual));
+                }
+            }
+        }
+        else
+        {
+            assertEquals(path, expected, actual);
+        }
+    }
+
+    /**
+     * Returns the property of a getter.
+     * @param method method
+     * @return property of a getter, {@code null} if the method is not a getter
+     */
+    private static String property(final Method method)
+    {
+        if (method.getParameterCount() > 0 || Modifier.isStatic(method.getModifiers())
+                || method.getDeclaringClass().equals(Object.class))
+        {
+            return null;
+        }
+        String name = method.getName();
+        if (name.startsWith("get") && name.length() > 3)
+        {
+            return name.substring(3);
+        }
+        if (name.startsWith("is") && name.length() > 2)
+        {
+            return name.substring(2);
+        }
+        return null;
+    }
+
+    /**
+     * Invokes a getter.
+     * @param getter getter
+     * @param object object
+     * @return property value
+     * @throws IllegalAccessException when the getter is not accessible
+     * @throws InvocationTargetException when the getter throws an exception
+     */
+    private static Object invoke(final Method getter, final Object object)
+            throws IllegalAccessException, InvocationTargetException
+    {
+        return getter.invoke(object);
+    }
+
+}
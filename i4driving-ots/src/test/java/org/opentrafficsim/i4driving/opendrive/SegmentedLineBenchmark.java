@@ -0,0 +1,319 @@
+package org.opentrafficsim.i4driving.opendrive;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map.Entry;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.djutils.draw.line.PolyLine2d;
+import org.djutils.draw.line.Ray2d;
+import org.djutils.draw.point.OrientedPoint2d;
+import org.djutils.draw.point.Point2d;
+import org.opentrafficsim.core.geometry.ContinuousClothoid;
+import org.opentrafficsim.core.geometry.ContinuousLine;
+import org.opentrafficsim.core.geometry.ContinuousStraight;
+import org.opentrafficsim.core.geometry.FlattableLine;
+import org.opentrafficsim.core.geometry.Flattener;
+import org.opentrafficsim.core.geometry.Flattener.MaxDeviation;
+import org.opentrafficsim.core.geometry.FractionalLengthData;
+import org.opentrafficsim.i4driving.opendrive.generated.OpenDRIVE;
+import org.opentrafficsim.i4driving.opendrive.generated.TRoad;
+import org.opentrafficsim.i4driving.opendrive.generated.TRoadPlanViewGeometry;
+
+/**
+ * Benchmark of flattening the design line of roads with {@code SegmentedLine}, against the previous implementation that looked
+ * up the segment in a {@code TreeMap} and flattened the segment for every point. Both {@code flatten()} and
+ * {@code flattenOffset()} are measured, the latter with a varying offset as for lane edges. The benchmark reports the mean
+ * time per road for each example file, the total number of points of both results, and the largest distance of a point of
+ * either result to the other result. Roads with a &lt;paramPoly3&gt; are excluded, as it was evaluated in closed form before.
+ * Roads on which the previous implementation fails to offset a very short straight are excluded from {@code flattenOffset()}.
+ * @author wjschakel
+ */
+public final class SegmentedLineBenchmark
+{
+
+    /** Example files. */
+    private static final String[] FILES = {"UC_Motorway-Exit-Entry", "CoreScenario1_PedestrianCrossing",
+            "CoreScenario2_FollowLeadVehicle", "CoreScenario3_MotorwayCut-in", "i4Driving_scenario01_urban-straight",
+            "i4Driving_scenario28_motorway", "i4Driving_scenario30_curved", "i4Driving_scenario33_t-junction"};
+
+    /** Flattener, as used by the parser. */
+    private static final Flattener FLATTENER = new MaxDeviation(0.01);
+
+    /** Offsets for {@code flattenOffset()}, a lane edge that widens and narrows again. */
+    private static final FractionalLengthData OFFSETS = new FractionalLengthData(0.0, -3.5, 0.5, -4.5, 1.0, -3.5);
+
+    /** Number of repetitions over all roads for timing. */
+    private static final int REPETITIONS = 200;
+
+    /** Sink to prevent dead-code elimination. */
+    private static double sink;
+
+    /**
+     * Constructor.
+     */
+    private SegmentedLineBenchmark()
+    {
+        //
+    }
+
+    /**
+     * Runs the benchmark.
+     * @param args not used
+     * @throws XMLStreamException when an example file cannot be read
+     * @throws IOException when an example file cannot be opened
+     */
+    public static void main(final String[] args) throws XMLStreamException, IOException
+    {
+        Locale.setDefault(Locale.US);
+        System.out.println("                                                 time [us/road]             points");
+        System.out.println("file                                line   roads before  after speed-up  before  after  max diff");
+        for (String file : FILES)
+        {
+            OpenDRIVE openDrive;
+            try (InputStream stream = SegmentedLineBenchmark.class.getResourceAsStream("/opendrive/examples/" + file + ".xodr"))
+            {
+                openDrive = OpenDriveStreamReader.read(stream);
+            }
+            List<TRoad> roads = openDrive.getRoad().stream().filter((road) -> road.getPlanView().getGeometry().stream()
+                    .allMatch((geom) -> geom.getParamPoly3() == null && geom.getPoly3() == null)).toList();
+            if (roads.isEmpty())
+            {
+                continue;
+            }
+            for (boolean offset : new boolean[] {false, true})
+            {
+                List<TRoad> measured = new ArrayList<>();
+                int pointsBefore = 0;
+                int pointsAfter = 0;
+                double maxDifference = 0.0;
+                for (TRoad road : roads)
+                {
+                    PolyLine2d before;
+                    try
+                    {
+                        before = flatten(road, true, offset);
+                    }
+                    catch (RuntimeException ex)
+                    {
+                        continue;
+                    }
+                    PolyLine2d after = flatten(road, false, offset);
+                    measured.add(road);
+                    pointsBefore += before.size();
+                    pointsAfter += after.size();
+                    maxDifference = Math.max(maxDifference, Math.max(distance(before, after), distance(after, before)));
+                }
+                if (measured.isEmpty())
+                {
+                    continue;
+                }
+                // warm-up and measurement
+                time(measured, true, offset);
+                time(measured, false, offset);
+                double before = time(measured, true, offset);
+                double after = time(measured, false, offset);
+                System.out.println(String.format("%-35s %-6s %5d %6.1f %6.1f %8.1f %7d %6d %9.2e", file,
+                        offset ? "offset" : "design", measured.size(), before, after, before / after, pointsBefore,
+                        pointsAfter, maxDifference));
+            }
+        }
+        System.out.println(sink > 0.0 ? "" : " ");
+    }
+
+    /**
+     * Returns the largest distance of a point of one line to the other line.
+     * @param from line of which the points are considered
+     * @param to line to which the distance is determined
+     * @return largest distance of a point of one line to the other line
+     */
+    private static double distance(final PolyLine2d from, final PolyLine2d to)
+    {
+        double max = 0.0;
+        for (int i = 0; i < from.size(); i++)
+        {
+            max = Math.max(max, from.get(i).distance(to.closestPointOnPolyLine(from.get(i))));
+        }
+        return max;
+    }
+
+    /**
+     * Returns the mean time to flatten the design line of a road, including creating the line from the geometry tags.
+     * @param roads roads
+     * @param before whether to use the previous implementation, or {@code SegmentedLine}
+     * @param offset whether to flatten with {@code OFFSETS}
+     * @return mean time to flatten the design line of a road in us
+     */
+    private static double time(final List<TRoad> roads, final boolean before, final boolean offset)
+    {
+        long t0 = System.nanoTime();
+        for (int r = 0; r < REPETITIONS; r++)
+        {
+            for (TRoad road : roads)
+            {
+                sink += flatten(road, before, offset).size();
+            }
+        }
+        return (System.nanoTime() - t0) / 1000.0 / REPETITIONS / roads.size();
+    }
+
+    /**
+     * Flattens the design line of a road, including creating the line from the geometry tags.
+     * @param road road
+     * @param before whether to use the previous implementation, or {@code SegmentedLine}
+     * @param offset whether to flatten with {@code OFFSETS}
+     * @return flattened line
+     */
+    private static PolyLine2d flatten(final TRoad road, final boolean before, final boolean offset)
+    {
+        if (before)
+        {
+            PreviousSegmentedLine line = new PreviousSegmentedLine(road);
+            return offset ? line.flattenOffset(OFFSETS) : line.flatten();
+        }
+        SegmentedLine line = new SegmentedLine(road.getPlanView().getGeometry(), road.getLength());
+        return offset ? line.flattenOffset(OFFSETS, FLATTENER) : line.flatten(FLATTENER);
+    }
+
+    /**
+     * Previous implementation of {@code SegmentedLine.flatten()}, for roads of straights, arcs and spirals.
+     */
+    private static final class PreviousSegmentedLine
+    {
+        /** Design line segments, where each is a continuous line. */
+        private final NavigableMap<Double, ContinuousLine> segments = new TreeMap<>();
+
+        /**
+         * Constructor.
+         * @param road road
+         */
+        private PreviousSegmentedLine(final TRoad road)
+        {
+            for (TRoadPlanViewGeometry geom : road.getPlanView().getGeometry())
+            {
+                ContinuousLine line;
+                OrientedPoint2d start = new OrientedPoint2d(geom.getX(), geom.getY(), geom.getHdg());
+                if (geom.getLine() != null)
+                {
+                    line = new ContinuousStraight(start, geom.getLength().si);
+                }
+                else if (geom.getArc() != null)
+                {
+                    double curvature = geom.getArc().getCurvature();
+                    line = new ContinuousArc2(start, 1.0 / Math.abs(curvature), curvature > 0.0, geom.getLength().si);
+                }
+                else
+                {
+                    line = ContinuousClothoid.withLength(start, geom.getLength().si, geom.getSpiral().getCurvStart(),
+                            geom.getSpiral().getCurvEnd());
+                }
+                this.segments.put(geom.getS() / road.getLength().si, line);
+            }
+        }
+
+        /**
+         * Flattens the line as {@code SegmentedLine} did before.
+         * @return flattened line
+         */
+        private PolyLine2d flatten()
+        {
+            return FLATTENER.flatten(new FlattableLine()
+            {
+                @Override
+                public Point2d get(final double fraction)
+                {
+                    Entry<Double, ContinuousLine> entry = PreviousSegmentedLine.this.segments.floorEntry(fraction);
+                    Double next = PreviousSegmentedLine.this.segments.higherKey(entry.getKey());
+                    if (next == null)
+                    {
+                        next = 1.0;
+                    }
+                    double f = (fraction - entry.getKey()) / (next - entry.getKey());
+                    if (entry.getValue() instanceof ContinuousStraight)
+                    {
+                        Ray2d ray = entry.getValue().flatten(null).getLocationFraction(f);
+                        return new Point2d(ray.x, ray.y);
+                    }
+                    Point2d[] point = new Point2d[1];
+                    entry.getValue().flatten(new Flattener()
+                    {
+                        @Override
+                        public PolyLine2d flatten(final FlattableLine line)
+                        {
+                            point[0] = line.get(f);
+                            line.getDirection(f);
+                            return null;
+                        }
+                    });
+                    return point[0];
+                }
+
+                @Override
+                public double getDirection(final double fraction)
+                {
+                    throw new UnsupportedOperationException("Not used by MaxDeviation flattener.");
+                }
+            });
+        }
+
+        /**
+         * Flattens the line with offsets as {@code SegmentedLine} did before.
+         * @param offsets offsets
+         * @return flattened line
+         */
+        private PolyLine2d flattenOffset(final FractionalLengthData offsets)
+        {
+            NavigableMap<Double, FractionalLengthData> partialOffsets = new TreeMap<>();
+            for (double from : this.segments.keySet())
+            {
+                Double next = this.segments.higherKey(from);
+                partialOffsets.put(from, OffsetData.sub(offsets, from, next == null ? 1.0 : next));
+            }
+            return FLATTENER.flatten(new FlattableLine()
+            {
+                @Override
+                public Point2d get(final double fraction)
+                {
+                    Entry<Double, ContinuousLine> entry = PreviousSegmentedLine.this.segments.floorEntry(fraction);
+                    Double next = PreviousSegmentedLine.this.segments.higherKey(entry.getKey());
+                    if (next == null)
+                    {
+                        next = 1.0;
+                    }
+                    FractionalLengthData partialOffset = partialOffsets.floorEntry(fraction).getValue();
+                    double f = (fraction - entry.getKey()) / (next - entry.getKey());
+                    if (entry.getValue() instanceof ContinuousStraight)
+                    {
+                        Ray2d ray = entry.getValue().flattenOffset(partialOffset, null).getLocationFraction(f);
+                        return new Point2d(ray.x, ray.y);
+                    }
+                    Point2d[] point = new Point2d[1];
+                    entry.getValue().flattenOffset(partialOffset, new Flattener()
+                    {
+                        @Override
+                        public PolyLine2d flatten(final FlattableLine line)
+                        {
+                            point[0] = line.get(f);
+                            line.getDirection(f);
+                            return null;
+                        }
+                    });
+                    return point[0];
+                }
+
+                @Override
+                public double getDirection(final double fraction)
+                {
+                    throw new UnsupportedOperationException("Not used by MaxDeviation flattener.");
+                }
+            });
+        }
+    }
+
+}
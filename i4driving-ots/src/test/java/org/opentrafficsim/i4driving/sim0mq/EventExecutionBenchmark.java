@@ -0,0 +1,129 @@
+package org.opentrafficsim.i4driving.sim0mq;
+
+import java.util.Locale;
+import java.util.function.IntFunction;
+
+import org.djunits.value.vdouble.scalar.Acceleration;
+import org.djunits.value.vdouble.scalar.Duration;
+import org.djunits.value.vdouble.scalar.Speed;
+import org.djutils.draw.point.OrientedPoint2d;
+
+import nl.tudelft.simulation.dsol.formalisms.eventscheduling.LambdaSimEvent;
+import nl.tudelft.simulation.dsol.formalisms.eventscheduling.SimEvent;
+import nl.tudelft.simulation.dsol.formalisms.eventscheduling.SimEventInterface;
+
+/**
+ * Benchmark of the cost to create and execute a simulator event, as the transceiver does for each EXTERNAL message. The event
+ * is either a {@code SimEvent} with a method name and an {@code Object[]} of arguments, which DSOL resolves by reflection when
+ * the event is executed, or a {@code LambdaSimEvent} with the arguments bound in a lambda. The benchmark reports the mean time
+ * per event, and the resulting maximum event rate.
+ * @author wjschakel
+ */
+public final class EventExecutionBenchmark
+{
+
+    /** Number of events for warm-up. */
+    private static final int WARM_UP = 200000;
+
+    /** Number of events for timing. */
+    private static final int EVENTS = 1000000;
+
+    /** Number of timed repetitions, of which the fastest is reported. */
+    private static final int REPETITIONS = 5;
+
+    /**
+     * Constructor.
+     */
+    private EventExecutionBenchmark()
+    {
+        //
+    }
+
+    /**
+     * Runs the benchmark.
+     * @param args not used
+     */
+    public static void main(final String[] args)
+    {
+        Locale.setDefault(Locale.US);
+        Target target = new Target();
+        String[] ids = new String[64];
+        OrientedPoint2d[] locations = new OrientedPoint2d[ids.length];
+        for (int i = 0; i < ids.length; i++)
+        {
+            ids[i] = "GTU" + i;
+            locations[i] = new OrientedPoint2d(i, 2.0 * i, 0.01 * i);
+        }
+        Speed speed = Speed.instantiateSI(20.0);
+        Acceleration acceleration = Acceleration.instantiateSI(0.5);
+
+        System.out.println(String.format("%d events, fastest of %d repetitions", EVENTS, REPETITIONS));
+        System.out.println("event               mean [ns]  rate [1/s]");
+        report("reflective SimEvent", run((i) -> new SimEvent<>(Duration.ZERO, target, "scheduledDeadReckoning",
+                new Object[] {ids[i & 63], locations[i & 63], speed, acceleration})));
+        report("LambdaSimEvent", run((i) ->
+        {
+            String id = ids[i & 63];
+            OrientedPoint2d location = locations[i & 63];
+            return new LambdaSimEvent<>(Duration.ZERO, () -> target.scheduledDeadReckoning(id, location, speed, acceleration));
+        }));
+        System.out.println("checksum " + target.checksum);
+    }
+
+    /**
+     * Creates and executes events.
+     * @param factory creates the i'th event
+     * @return fastest mean time per event [ns]
+     */
+    private static double run(final IntFunction<SimEventInterface<Duration>> factory)
+    {
+        for (int i = 0; i < WARM_UP; i++)
+        {
+            factory.apply(i).execute();
+        }
+        long fastest = Long.MAX_VALUE;
+        for (int r = 0; r < REPETITIONS; r++)
+        {
+            long t0 = System.nanoTime();
+            for (int i = 0; i < EVENTS; i++)
+            {
+                factory.apply(i).execute();
+            }
+            fastest = Math.min(fastest, System.nanoTime() - t0);
+        }
+        return (double) fastest / EVENTS;
+    }
+
+    /**
+     * Prints the mean time per event, and the resulting event rate.
+     * @param event name of the type of event
+     * @param mean mean time per event [ns]
+     */
+    private static void report(final String event, final double mean)
+    {
+        System.out.println(String.format("%-19s %10.1f %11.0f", event, mean, 1.0e9 / mean));
+    }
+
+    /**
+     * Target of the events, with a private method that has the signature of the one scheduled for EXTERNAL messages.
+     */
+    private static final class Target
+    {
+        /** Checksum, such that the work cannot be optimized away. */
+        private double checksum;
+
+        /**
+         * Processes an EXTERNAL message.
+         * @param id GTU id
+         * @param loc location
+         * @param speed speed
+         * @param acceleration acceleration
+         */
+        private void scheduledDeadReckoning(final String id, final OrientedPoint2d loc, final Speed speed,
+                final Acceleration acceleration)
+        {
+            this.checksum += id.length() + loc.x + loc.y + loc.dirZ + speed.si + acceleration.si;
+        }
+    }
+
+}
@@ -0,0 +1,155 @@
+package org.opentrafficsim.i4driving.sim0mq;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.naming.NamingException;
+
+import org.djunits.value.vdouble.scalar.Duration;
+import org.djunits.value.vdouble.scalar.Time;
+import org.djutils.event.Event;
+import org.djutils.event.EventListener;
+import org.junit.Test;
+import org.opentrafficsim.core.dsol.AbstractOtsModel;
+import org.opentrafficsim.core.dsol.OtsSimulatorInterface;
+import org.opentrafficsim.core.network.Network;
+import org.opentrafficsim.road.network.RoadNetwork;
+
+import nl.tudelft.simulation.dsol.SimRuntimeException;
+import nl.tudelft.simulation.dsol.experiment.Replication;
+
+/**
+ * Tests that a {@code LockStepSimulator} executes all events up to and including the end time, and then ends the replication,
+ * and that it can advance further after an event failed.
+ * @author wjschakel
+ */
+public class LockStepSimulatorTest
+{
+
+    /** End time of the replication. */
+    private static final Duration END = Duration.instantiateSI(10.0);
+
+    /**
+     * Advances a headless lock-step simulator before, and then past, the end time of the replication.
+     * @throws SimRuntimeException on exception in the simulation
+     * @throws NamingException when the simulator cannot be initialized
+     */
+    @Test
+    public void testAdvancePastEnd() throws SimRuntimeException, NamingException
+    {
+        LockStepSimulator.Headless simulator = new LockStepSimulator.Headless("lock-step test");
+        EventModel model = new EventModel(simulator, false);
+        simulator.initialize(Time.ZERO, Duration.ZERO, END, model);
+
+        simulator.advanceTo(Duration.instantiateSI(5.0));
+        assertEquals(List.of("1.0"), model.executed);
+        assertEquals(0, model.ended);
+        assertFalse(simulator.isReplicationEnded());
+
+        simulator.advanceTo(Duration.instantiateSI(20.0));
+        assertEquals(List.of("1.0", "10.0 a", "10.0 b"), model.executed);
+        assertEquals(1, model.ended);
+        assertTrue(simulator.isReplicationEnded());
+    }
+
+    /**
+     * Advances a headless lock-step simulator past an event that throws an exception. The exception is propagated to the
+     * caller, and the simulator can advance further.
+     * @throws SimRuntimeException on exception in the simulation
+     * @throws NamingException when the simulator cannot be initialized
+     */
+    @Test
+    public void testFailingEvent() throws SimRuntimeException, NamingException
+    {
+        LockStepSimulator.Headless simulator = new LockStepSimulator.Headless("lock-step test");
+        EventModel model = new EventModel(simulator, true);
+        simulator.initialize(Time.ZERO, Duration.ZERO, END, model);
+
+        assertThrows(RuntimeException.class, () -> simulator.advanceTo(Duration.instantiateSI(5.0)));
+        assertEquals(List.of("1.0"), model.executed);
+        assertFalse(simulator.isReplicationEnded());
+
+        simulator.advanceTo(Duration.instantiateSI(20.0));
+        assertEquals(List.of("1.0", "10.0 a", "10.0 b"), model.executed);
+        assertEquals(1, model.ended);
+        assertTrue(simulator.isReplicationEnded());
+    }
+
+    /**
+     * Model with one event before the end time, optionally an event that fails after it, and two events at the end time.
+     */
+    private static class EventModel extends AbstractOtsModel implements EventListener
+    {
+        /** */
+        private static final long serialVersionUID = 20261017L;
+
+        /** Network. */
+        private RoadNetwork network;
+
+        /** Executed events. */
+        private final List<String> executed = new ArrayList<>();
+
+        /** Number of times the end of the replication was fired. */
+        private int ended = 0;
+
+        /** Whether an event fails at 2.0s. */
+        private final boolean failing;
+
+        /**
+         * Constructor.
+         * @param simulator simulator
+         * @param failing whether an event fails at 2.0s
+         */
+        EventModel(final OtsSimulatorInterface simulator, final boolean failing)
+        {
+            super(simulator);
+            this.failing = failing;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void constructModel() throws SimRuntimeException
+        {
+            this.network = new RoadNetwork("lock-step test", getSimulator());
+            getSimulator().scheduleEventAbs(Duration.instantiateSI(1.0), () -> this.executed.add("1.0"));
+            if (this.failing)
+            {
+                getSimulator().scheduleEventAbs(Duration.instantiateSI(2.0), () ->
+                {
+                    throw new IllegalStateException("failing event");
+                });
+            }
+            getSimulator().scheduleEventAbs(END, () -> this.executed.add("10.0 a"));
+            getSimulator().scheduleEventAbs(END, () -> this.executed.add("10.0 b"));
+            try
+            {
+                getSimulator().addListener(this, Replication.END_REPLICATION_EVENT);
+            }
+            catch (RemoteException ex)
+            {
+                throw new SimRuntimeException(ex);
+            }
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public Network getNetwork()
+        {
+            return this.network;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void notify(final Event event) throws RemoteException
+        {
+            this.ended++;
+        }
+    }
+
+}
@@ -0,0 +1,130 @@
+package org.opentrafficsim.i4driving.sim0mq;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.zeromq.SocketType;
+import org.zeromq.ZContext;
+import org.zeromq.ZMQ;
+
+/**
+ * Benchmark of the round-trip time of a PROGRESS message and its READY message, between two threads that are connected
+ * through a ZeroMQ {@code tcp} PAIR socket, as used by the transceiver by default, or through a {@code SharedMemoryChannel}.
+ * The threads are in the same process, but neither transport makes use of that. The benchmark reports the mean and
+ * percentiles of the round-trip time.
+ * @author wjschakel
+ */
+public final class SharedMemoryChannelBenchmark
+{
+
+    /** Number of round trips for warm-up. */
+    private static final int WARM_UP = 5000;
+
+    /** Number of round trips for timing. */
+    private static final int ROUND_TRIPS = 20000;
+
+    /** Port for the ZeroMQ sockets. */
+    private static final int PORT = 5599;
+
+    /**
+     * Constructor.
+     */
+    private SharedMemoryChannelBenchmark()
+    {
+        //
+    }
+
+    /**
+     * Runs the benchmark.
+     * @param args not used
+     * @throws IOException when the shared memory file cannot be created
+     * @throws InterruptedException when interrupted
+     */
+    public static void main(final String[] args) throws IOException, InterruptedException
+    {
+        Locale.setDefault(Locale.US);
+        Sim0mqCodec client = new Sim0mqCodec(false, "Ots_ExternalSim", "ExternalSim", "Ots");
+        byte[] progress = client.start("PROGRESS", 1).writeScalar(Sim0mqCodec.Quantity.DURATION, 0.001).finishToArray();
+        Sim0mqCodec server = new Sim0mqCodec(false, "Ots_ExternalSim", "Ots", "ExternalSim");
+        byte[] ready = server.start("READY", 1).writeInt(1).finishToArray();
+        System.out.println(String.format("PROGRESS %d bytes, READY %d bytes, %d round trips", progress.length, ready.length,
+                ROUND_TRIPS));
+        System.out.println("transport          mean [us]  p50 [us]  p90 [us]  p99 [us]");
+
+        try (ZContext context = new ZContext(1))
+        {
+            ZMQ.Socket serverSocket = context.createSocket(SocketType.PAIR);
+            serverSocket.bind("tcp://*:" + PORT);
+            ZMQ.Socket clientSocket = context.createSocket(SocketType.PAIR);
+            clientSocket.connect("tcp://localhost:" + PORT);
+            report("ZeroMQ tcp PAIR", run(() -> serverSocket.recv(0), (m) -> serverSocket.send(m, 0),
+                    () -> clientSocket.recv(0), (m) -> clientSocket.send(m, 0), progress, ready));
+        }
+
+        Path file = Files.createTempFile("ots", ".shm");
+        try (SharedMemoryChannel serverChannel = SharedMemoryChannel.create(file, SharedMemoryChannel.DEFAULT_CAPACITY);
+                SharedMemoryChannel clientChannel = SharedMemoryChannel.open(file, 1000))
+        {
+            report("shared memory", run(() -> serverChannel.receive(() -> false), serverChannel::send,
+                    () -> clientChannel.receive(() -> false), clientChannel::send, progress, ready));
+        }
+    }
+
+    /**
+     * Runs round trips, where a server thread answers each PROGRESS message with a READY message.
+     * @param serverReceive receives a message on the server side
+     * @param serverSend sends a message on the server side
+     * @param clientReceive receives a message on the client side
+     * @param clientSend sends a message on the client side
+     * @param progress PROGRESS message
+     * @param ready READY message
+     * @return sorted round-trip times of the timed round trips [ns]
+     * @throws InterruptedException when interrupted
+     */
+    private static long[] run(final Supplier<byte[]> serverReceive, final Consumer<byte[]> serverSend,
+            final Supplier<byte[]> clientReceive, final Consumer<byte[]> clientSend, final byte[] progress,
+            final byte[] ready) throws InterruptedException
+    {
+        Thread serverThread = new Thread(() ->
+        {
+            for (int i = 0; i < WARM_UP + ROUND_TRIPS; i++)
+            {
+                serverReceive.get();
+                serverSend.accept(ready);
+            }
+        });
+        serverThread.start();
+        long[] times = new long[ROUND_TRIPS];
+        for (int i = 0; i < WARM_UP + ROUND_TRIPS; i++)
+        {
+            long t0 = System.nanoTime();
+            clientSend.accept(progress);
+            clientReceive.get();
+            if (i >= WARM_UP)
+            {
+                times[i - WARM_UP] = System.nanoTime() - t0;
+            }
+        }
+        serverThread.join();
+        Arrays.sort(times);
+        return times;
+    }
+
+    /**
+     * Prints the mean and percentiles of round-trip times.
+     * @param transport name of the transport
+     * @param times sorted round-trip times [ns]
+     */
+    private static void report(final String transport, final long[] times)
+    {
+        System.out.println(String.format("%-17s %10.1f %9.1f %9.1f %9.1f", transport,
+                Arrays.stream(times).average().getAsDouble() / 1000.0, times[times.length / 2] / 1000.0,
+                times[times.length * 9 / 10] / 1000.0, times[times.length * 99 / 100] / 1000.0));
+    }
+
+}
@@ -0,0 +1,86 @@
+package org.opentrafficsim.i4driving.sim0mq;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests that frames are transferred unaltered in both directions of a {@code SharedMemoryChannel}, including frames that wrap
+ * around the end of the ring buffer, and frames that are larger than the ring buffer.
+ * @author wjschakel
+ */
+public class SharedMemoryChannelTest
+{
+
+    /**
+     * Test transfer of frames.
+     * @throws IOException exception
+     * @throws InterruptedException exception
+     */
+    @Test
+    public void testTransfer() throws IOException, InterruptedException
+    {
+        Path file = Files.createTempFile("ots", ".shm");
+        Random random = new Random(1L);
+        byte[][] frames = new byte[200][];
+        for (int i = 0; i < frames.length; i++)
+        {
+            frames[i] = new byte[i % 50 == 49 ? 5000 : random.nextInt(300)];
+            random.nextBytes(frames[i]);
+        }
+        try (SharedMemoryChannel server = SharedMemoryChannel.create(file, 1024))
+        {
+            // the client is not a resource of the try statement, as it is closed before the server checks for that
+            SharedMemoryChannel client = SharedMemoryChannel.open(file, 1000);
+            try
+            {
+                assertNull(server.poll());
+                transfer(frames, client, server);
+                transfer(frames, server, client);
+                assertNull(server.poll());
+                assertNull(client.poll());
+                assertFalse(server.isPeerClosed());
+            }
+            finally
+            {
+                client.close();
+            }
+            assertTrue(server.isPeerClosed());
+        }
+        assertFalse(Files.exists(file));
+    }
+
+    /**
+     * Sends frames from a separate thread, and checks that they are received in order.
+     * @param frames frames
+     * @param from side that sends
+     * @param to side that receives
+     * @throws InterruptedException exception
+     */
+    private static void transfer(final byte[][] frames, final SharedMemoryChannel from, final SharedMemoryChannel to)
+            throws InterruptedException
+    {
+        Thread sender = new Thread(() ->
+        {
+            for (byte[] frame : frames)
+            {
+                from.send(frame);
+            }
+        });
+        sender.start();
+        for (byte[] frame : frames)
+        {
+            assertArrayEquals(frame, to.receive(() -> false));
+        }
+        sender.join();
+    }
+
+}
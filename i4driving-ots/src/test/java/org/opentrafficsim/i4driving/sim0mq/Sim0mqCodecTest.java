@@ -0,0 +1,119 @@
+package org.opentrafficsim.i4driving.sim0mq;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.djunits.value.vdouble.scalar.Duration;
+import org.djunits.value.vdouble.scalar.Length;
+import org.djunits.value.vdouble.scalar.Speed;
+import org.djunits.value.vfloat.vector.FloatLengthVector;
+import org.djutils.serialization.SerializationException;
+import org.junit.Test;
+import org.opentrafficsim.i4driving.sim0mq.Sim0mqCodec.Quantity;
+import org.sim0mq.Sim0MQException;
+import org.sim0mq.message.Sim0MQMessage;
+
+/**
+ * Tests that messages of {@code Sim0mqCodec} are identical to those of {@code Sim0MQMessage}.
+ * @author wjschakel
+ */
+public class Sim0mqCodecTest
+{
+
+    /**
+     * Test encoding and decoding in both byte orders.
+     * @throws Sim0MQException exception
+     * @throws SerializationException exception
+     */
+    @Test
+    public void testWireCompatibility() throws Sim0MQException, SerializationException
+    {
+        for (boolean bigEndian : new boolean[] {false, true})
+        {
+            Sim0mqCodec codec = new Sim0mqCodec(bigEndian, "Ots_ExternalSim", "Ots", "ExternalSim");
+            String id = "gtué€😀";
+            float[] x = new float[] {1.0f, 2.5f, -3.25f};
+
+            // codec encodes the same bytes
+            byte[] expected = Sim0MQMessage.encodeUTF8(bigEndian, "Ots_ExternalSim", "Ots", "ExternalSim", "PLAN", 7,
+                    new Object[] {id, Speed.instantiateSI(12.5), new FloatLengthVector(x), new int[] {0, 3}, 42});
+            byte[] actual = codec.start("PLAN", 7).writeString(id).writeScalar(Quantity.SPEED, 12.5)
+                    .writeFloatVector(Quantity.LENGTH, x, x.length).writeIntArray(new int[] {0, 3}, 2).writeInt(42)
+                    .finishToArray();
+            assertArrayEquals(expected, actual);
+
+            // codec decodes messages of Sim0MQMessage
+            byte[] message = Sim0MQMessage.encodeUTF8(bigEndian, "Ots_ExternalSim", "ExternalSim", "Ots", "EXTERNAL", 3,
+                    new Object[] {id, Length.instantiateSI(4.0), Duration.instantiateSI(0.5), new FloatLengthVector(x)});
+            assertEquals("EXTERNAL", codec.decode(message));
+            assertEquals(3, codec.getMessageId());
+            assertEquals(4, codec.getFieldCount());
+            assertEquals(id, codec.readString());
+            assertEquals(4.0, codec.readScalar(), 0.0);
+            assertEquals(0.5, codec.readScalar(), 0.0);
+            assertArrayEquals(x, codec.readFloatVector(), 0.0f);
+        }
+    }
+
+    /**
+     * Test an EXTERNAL_BATCH message as sent by the emulator, and as written by the codec, through a decode in both byte
+     * orders.
+     * @throws Sim0MQException exception
+     * @throws SerializationException exception
+     */
+    @Test
+    public void testExternalBatchRoundTrip() throws Sim0MQException, SerializationException
+    {
+        Map<String, float[]> updates = new LinkedHashMap<>();
+        updates.put("Ego 1", new float[] {40.0f, 5.25f, 0.0f, 13.9f, 0.5f});
+        updates.put("Ego 2", new float[] {30.0f, 5.5f, 0.01f, 12.0f, -0.5f});
+        updates.put("Pedestrian", new float[] {20.0f, -1.0f, (float) (Math.PI / 2.0), 1.0f, 0.0f});
+        String[] ids = updates.keySet().toArray(new String[0]);
+        float[][] values = new float[5][ids.length];
+        for (int i = 0; i < ids.length; i++)
+        {
+            for (int j = 0; j < 5; j++)
+            {
+                values[j][i] = updates.get(ids[i])[j];
+            }
+        }
+        Quantity[] quantities = {Quantity.LENGTH, Quantity.LENGTH, Quantity.DIRECTION, Quantity.SPEED, Quantity.ACCELERATION};
+
+        for (boolean bigEndian : new boolean[] {false, true})
+        {
+            Sim0mqCodec codec = new Sim0mqCodec(bigEndian, "Ots_ExternalSim", "ExternalSim", "Ots");
+
+            // codec encodes the same bytes as the emulator
+            byte[] expected = Sim0MQMessage.encodeUTF8(bigEndian, "Ots_ExternalSim", "ExternalSim", "Ots", "EXTERNAL_BATCH",
+                    11, ExternalSimEmulator.batchPayload(updates));
+            codec.start("EXTERNAL_BATCH", 11).writeInt(ids.length);
+            for (String id : ids)
+            {
+                codec.writeString(id);
+            }
+            for (int j = 0; j < 5; j++)
+            {
+                codec.writeFloatVector(quantities[j], values[j], ids.length);
+            }
+            assertArrayEquals(expected, codec.finishToArray());
+
+            // codec decodes the message as the transceiver does
+            assertEquals("EXTERNAL_BATCH", codec.decode(expected));
+            assertEquals(11, codec.getMessageId());
+            assertEquals(ids.length + 6, codec.getFieldCount());
+            assertEquals(ids.length, codec.readInt());
+            for (String id : ids)
+            {
+                assertEquals(id, codec.readString());
+            }
+            for (int j = 0; j < 5; j++)
+            {
+                assertArrayEquals(values[j], codec.readFloatVector(), 0.0f);
+            }
+        }
+    }
+
+}
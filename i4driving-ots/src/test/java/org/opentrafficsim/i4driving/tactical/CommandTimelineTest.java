@@ -0,0 +1,169 @@
+package org.opentrafficsim.i4driving.tactical;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.naming.NamingException;
+
+import org.djunits.value.vdouble.scalar.Duration;
+import org.djunits.value.vdouble.scalar.Time;
+import org.junit.Before;
+import org.junit.Test;
+import org.opentrafficsim.base.parameters.ParameterException;
+import org.opentrafficsim.base.parameters.ParameterTypes;
+import org.opentrafficsim.core.dsol.OtsSimulator;
+import org.opentrafficsim.i4driving.messages.Commands.Command;
+import org.opentrafficsim.i4driving.messages.Commands.CommandType;
+import org.opentrafficsim.road.gtu.lane.LaneBasedGtu;
+
+import nl.tudelft.simulation.dsol.SimRuntimeException;
+
+/**
+ * Tests the order in which {@code CommandTimeline} executes commands from its source and inserted commands. Each command sets a
+ * parameter to a unique value, from which the executed command is derived.
+ * @author wjschakel
+ */
+public class CommandTimelineTest
+{
+
+    /** Parameter that commands set. */
+    private static final String PARAMETER = "org.opentrafficsim.base.parameters.ParameterTypes.FSPEED";
+
+    /** Tactical planner to execute commands on. */
+    private ScenarioTacticalPlanner planner;
+
+    /**
+     * Creates a tactical planner to execute commands on.
+     * @throws SimRuntimeException on exception in the simulation
+     * @throws NamingException when the simulator cannot be initialized
+     */
+    @Before
+    public void setUp() throws SimRuntimeException, NamingException
+    {
+        RingModel model = new RingModel(new OtsSimulator("command timeline"), 0);
+        model.run(Duration.instantiateSI(1.0));
+        LaneBasedGtu gtu = (LaneBasedGtu) model.getNetwork().getGTUs().iterator().next();
+        this.planner = (ScenarioTacticalPlanner) gtu.getTacticalPlanner();
+    }
+
+    /**
+     * Inserts commands after the cursor, before, in between and after commands with the same time.
+     * @throws ParameterException when the parameter is not present
+     */
+    @Test
+    public void testInsertAfterCursor() throws ParameterException
+    {
+        CommandTimeline timeline = new CommandTimeline(List.of(command(1.0, 1), command(2.0, 2), command(3.0, 3)).iterator());
+        assertEquals(1, executeNext(timeline));
+        timeline.insert(Time.instantiateSI(2.0), command(2.0, 20));
+        timeline.insert(Time.instantiateSI(1.5), command(1.5, 15));
+        timeline.insert(Time.instantiateSI(1.0), command(1.0, 10)); // equal to the executed command
+        assertEquals(List.of(10, 15, 2, 20, 3), executeAll(timeline));
+        assertThrows(IllegalArgumentException.class, () -> timeline.insert(Time.instantiateSI(2.5), command(2.5, 25)));
+    }
+
+    /**
+     * Inserts commands in the first chunk, at the first and last command of the second chunk that is not loaded yet, and in a
+     * later chunk. The source commands are interleaved by the inserted commands in order of time.
+     * @throws ParameterException when the parameter is not present
+     */
+    @Test
+    public void testInsertAcrossChunks() throws ParameterException
+    {
+        int n = 3000;
+        List<Command> source = new ArrayList<>();
+        for (int i = 0; i < n; i++)
+        {
+            source.add(command(i, i + 1));
+        }
+        CommandTimeline timeline = new CommandTimeline(source.iterator());
+        List<Integer> executed = new ArrayList<>();
+        for (int i = 0; i < 1000; i++)
+        {
+            executed.add(executeNext(timeline));
+        }
+        timeline.insert(Time.instantiateSI(1023.5), command(1023.5, 10001));
+        timeline.insert(Time.instantiateSI(1024.0), command(1024.0, 10002));
+        timeline.insert(Time.instantiateSI(2047.0), command(2047.0, 10003));
+        timeline.insert(Time.instantiateSI(2500.5), command(2500.5, 10004));
+        executed.addAll(executeAll(timeline));
+
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < n; i++)
+        {
+            expected.add(i + 1);
+            switch (i)
+            {
+                case 1023 -> expected.add(10001);
+                case 1024 -> expected.add(10002);
+                case 2047 -> expected.add(10003);
+                case 2500 -> expected.add(10004);
+                default ->
+                {
+                    // no inserted command
+                }
+            }
+        }
+        assertEquals(expected, executed);
+    }
+
+    /**
+     * Tests that a source that gives commands out of order of time is rejected.
+     */
+    @Test
+    public void testSourceOutOfOrder()
+    {
+        CommandTimeline timeline = new CommandTimeline(List.of(command(2.0, 2), command(1.0, 1)).iterator());
+        assertThrows(IllegalArgumentException.class, () -> timeline.hasNext());
+    }
+
+    /**
+     * Executes the next command, and returns the value it set.
+     * @param timeline timeline
+     * @return value set by the command
+     * @throws ParameterException when the parameter is not present
+     */
+    private int executeNext(final CommandTimeline timeline) throws ParameterException
+    {
+        timeline.executeNext(this.planner);
+        return (int) Math.round(this.planner.getGtu().getParameters().getParameter(ParameterTypes.FSPEED));
+    }
+
+    /**
+     * Executes all remaining commands, checking that their times do not decrease.
+     * @param timeline timeline
+     * @return values set by the commands, in order of execution
+     * @throws ParameterException when the parameter is not present
+     */
+    private List<Integer> executeAll(final CommandTimeline timeline) throws ParameterException
+    {
+        List<Integer> executed = new ArrayList<>();
+        Time previous = Time.instantiateSI(Double.NEGATIVE_INFINITY);
+        while (timeline.hasNext())
+        {
+            Time time = timeline.nextTime();
+            assertFalse("Commands are not executed in order of time.", time.lt(previous));
+            previous = time;
+            executed.add(executeNext(timeline));
+        }
+        return executed;
+    }
+
+    /**
+     * Returns a command that sets the parameter to a value.
+     * @param time time [s]
+     * @param value positive value, which is unique for the command
+     * @return command that sets the parameter to the value
+     */
+    private static Command command(final double time, final int value)
+    {
+        return new Command(Time.instantiateSI(time), CommandType.SET_PARAMETER,
+                Map.of("parameter", PARAMETER, "value", Integer.toString(value)));
+    }
+
+}
@@ -0,0 +1,71 @@
+package org.opentrafficsim.i4driving.tactical;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.Map;
+
+import javax.naming.NamingException;
+
+import org.djunits.value.vdouble.scalar.Duration;
+import org.djunits.value.vdouble.scalar.Time;
+import org.junit.Test;
+import org.opentrafficsim.core.dsol.OtsSimulator;
+import org.opentrafficsim.core.gtu.plan.operational.OperationalPlan;
+import org.opentrafficsim.i4driving.messages.Commands;
+import org.opentrafficsim.i4driving.messages.Commands.Command;
+import org.opentrafficsim.i4driving.messages.Commands.CommandType;
+import org.opentrafficsim.road.gtu.lane.LaneBasedGtu;
+
+import nl.tudelft.simulation.dsol.SimRuntimeException;
+
+/**
+ * Tests that {@code CommandsHandler} executes commands at the same time in a single event, such that they trigger a single
+ * replan.
+ * @author wjschakel
+ */
+public class CommandsHandlerTest
+{
+
+    /**
+     * Schedules several commands now and several commands at a later time, and checks that each group of commands is executed
+     * in a single event at its time, with a single replan.
+     * @throws SimRuntimeException on exception in the simulation
+     * @throws NamingException when the simulator cannot be initialized
+     */
+    @Test
+    public void testSingleReplan() throws SimRuntimeException, NamingException
+    {
+        RingModel model = new RingModel(new OtsSimulator("commands"), 0);
+        model.run(Duration.instantiateSI(10.0));
+        LaneBasedGtu gtu = (LaneBasedGtu) model.getNetwork().getGTUs().iterator().next();
+        ScenarioTacticalPlanner planner = (ScenarioTacticalPlanner) gtu.getTacticalPlanner();
+        CommandsHandler handler = new CommandsHandler(model.getNetwork(), new Commands(gtu.getId(), null), null);
+
+        // commands due now are executed in an event after the current event, not synchronously
+        Time now = model.getSimulator().getSimulatorAbsTime();
+        OperationalPlan plan = gtu.getOperationalPlan();
+        long avoidedReplans = planner.getAvoidedReplans();
+        handler.scheduleCommand(new Command(now, CommandType.SET_ACCELERATION, Map.of("acceleration", "-1.0 m/s2")));
+        handler.scheduleCommand(new Command(now, CommandType.DISABLE_LANE_CHANGES, Map.of()));
+        handler.scheduleCommand(new Command(now.minus(Duration.instantiateSI(1.0)), CommandType.SET_DESIRED_SPEED,
+                Map.of("speed", "50.0 km/h")));
+        assertSame("Commands due now were executed synchronously.", plan, gtu.getOperationalPlan());
+        model.runUntil(now);
+        assertNotSame("Commands due now did not replan.", plan, gtu.getOperationalPlan());
+        assertEquals(now, gtu.getOperationalPlan().getStartTime());
+        assertEquals("Commands due now did not trigger a single replan.", avoidedReplans + 2, planner.getAvoidedReplans());
+
+        // commands at a later time, in between moves of the GTU
+        Time later = gtu.getOperationalPlan().getStartTime().plus(Duration.instantiateSI(0.25));
+        avoidedReplans = planner.getAvoidedReplans();
+        handler.scheduleCommand(new Command(later, CommandType.RESET_ACCELERATION, Map.of()));
+        handler.scheduleCommand(new Command(later, CommandType.ENABLE_LANE_CHANGES, Map.of()));
+        model.runUntil(later);
+        assertEquals(later, gtu.getOperationalPlan().getStartTime());
+        assertEquals("Commands at a later time did not trigger a single replan.", avoidedReplans + 1,
+                planner.getAvoidedReplans());
+    }
+
+}
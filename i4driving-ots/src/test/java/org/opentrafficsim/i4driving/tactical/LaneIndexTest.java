@@ -0,0 +1,134 @@
+package org.opentrafficsim.i4driving.tactical;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.awt.geom.Rectangle2D;
+import java.util.Random;
+
+import javax.naming.NamingException;
+
+import org.djunits.value.vdouble.scalar.Duration;
+import org.djunits.value.vdouble.scalar.Time;
+import org.djutils.draw.point.Point2d;
+import org.junit.Test;
+import org.opentrafficsim.core.dsol.OtsSimulator;
+import org.opentrafficsim.core.geometry.OtsGeometryException;
+import org.opentrafficsim.core.geometry.OtsLine2d.FractionalFallback;
+import org.opentrafficsim.core.network.Link;
+import org.opentrafficsim.i4driving.opendrive.OpenDriveModel;
+import org.opentrafficsim.road.network.RoadNetwork;
+import org.opentrafficsim.road.network.lane.CrossSectionLink;
+import org.opentrafficsim.road.network.lane.Lane;
+import org.opentrafficsim.road.network.lane.LanePosition;
+
+import nl.tudelft.simulation.dsol.SimRuntimeException;
+
+/**
+ * Tests that {@code LaneIndex} finds the same lane positions as a scan over all lanes.
+ * @author wjschakel
+ */
+public class LaneIndexTest
+{
+
+    /** Example networks. */
+    private static final String[] NETWORKS =
+            {"/opendrive/examples/UC_Motorway-Exit-Entry.xodr", "/opendrive/examples/i4Driving_scenario30_curved.xodr",
+                    "/opendrive/examples/i4Driving_scenario01_urban-straight.xodr",
+                    "/opendrive/examples/CoreScenario3_MotorwayCut-in.xodr"};
+
+    /** Number of random locations per network. */
+    private static final int LOCATIONS = 1000;
+
+    /**
+     * Compares the index with a scan over all lanes, for locations near lanes, for random locations around the network, and for
+     * locations far from the network.
+     * @throws SimRuntimeException exception
+     * @throws NamingException exception
+     * @throws OtsGeometryException exception
+     */
+    @Test
+    public void testLinearScan() throws SimRuntimeException, NamingException, OtsGeometryException
+    {
+        for (String file : NETWORKS)
+        {
+            OtsSimulator simulator = new OtsSimulator(file);
+            OpenDriveModel model = new OpenDriveModel(simulator, file);
+            simulator.initialize(Time.ZERO, Duration.ZERO, Duration.instantiateSI(3600.0), model);
+            RoadNetwork network = (RoadNetwork) model.getNetwork();
+            LaneIndex index = new LaneIndex(network);
+            Random random = new Random(42L);
+            Rectangle2D bounds = network.getExtent();
+            for (int i = 0; i < LOCATIONS; i++)
+            {
+                Point2d location;
+                if (i % 10 == 0)
+                {
+                    // far from the network, where only the extensions of the center lines may be close
+                    double size = 10.0 * Math.max(bounds.getWidth(), bounds.getHeight());
+                    location = new Point2d(bounds.getCenterX() + (random.nextDouble() - 0.5) * size,
+                            bounds.getCenterY() + (random.nextDouble() - 0.5) * size);
+                }
+                else if (i % 2 == 0)
+                {
+                    location = new Point2d(bounds.getMinX() - 50.0 + random.nextDouble() * (bounds.getWidth() + 100.0),
+                            bounds.getMinY() - 50.0 + random.nextDouble() * (bounds.getHeight() + 100.0));
+                }
+                else
+                {
+                    Lane lane = getLanePosition(network, location(bounds, random)).lane();
+                    Point2d onLane = lane.getCenterLine().getLocationFraction(random.nextDouble());
+                    location = new Point2d(onLane.x + random.nextGaussian(), onLane.y + random.nextGaussian());
+                }
+                LanePosition expected = getLanePosition(network, location);
+                LanePosition actual = index.getLanePosition(location);
+                assertSame(file + " at " + location, expected.lane(), actual.lane());
+                assertEquals(file + " at " + location, expected.position().si, actual.position().si, 0.0);
+            }
+        }
+    }
+
+    /**
+     * Returns a random location within bounds.
+     * @param bounds bounds
+     * @param random random number generator
+     * @return random location within bounds
+     */
+    private static Point2d location(final Rectangle2D bounds, final Random random)
+    {
+        return new Point2d(bounds.getMinX() + random.nextDouble() * bounds.getWidth(),
+                bounds.getMinY() + random.nextDouble() * bounds.getHeight());
+    }
+
+    /**
+     * Returns the lane position closest to the given location, by projecting it on all lanes in the network.
+     * @param network network
+     * @param position position
+     * @return lane position closest to the given location
+     */
+    private static LanePosition getLanePosition(final RoadNetwork network, final Point2d position)
+    {
+        double minDistance = Double.POSITIVE_INFINITY;
+        LanePosition lanePosition = null;
+        for (Link link : network.getLinkMap().values())
+        {
+            if (link instanceof CrossSectionLink roadLink)
+            {
+                for (Lane lane : roadLink.getLanesAndShoulders())
+                {
+                    double fraction = lane.getCenterLine().projectFractional(link.getStartNode().getHeading(),
+                            link.getEndNode().getHeading(), position.x, position.y, FractionalFallback.ENDPOINT);
+                    Point2d pointOnLane = lane.getCenterLine().getLocationFractionExtended(fraction);
+                    double distance = pointOnLane.distance(position);
+                    if (distance < minDistance)
+                    {
+                        minDistance = distance;
+                        lanePosition = new LanePosition(lane, lane.getCenterLine().getLength().times(fraction));
+                    }
+                }
+            }
+        }
+        return lanePosition;
+    }
+
+}
@@ -0,0 +1,154 @@
+package org.opentrafficsim.i4driving.tactical;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.naming.NamingException;
+
+import org.djunits.value.vdouble.scalar.Duration;
+import org.djunits.value.vdouble.scalar.Time;
+import org.djutils.cli.CliUtil;
+import org.djutils.event.Event;
+import org.djutils.event.EventListener;
+import org.opentrafficsim.core.dsol.AbstractOtsModel;
+import org.opentrafficsim.core.dsol.OtsSimulatorInterface;
+import org.opentrafficsim.core.network.Network;
+import org.opentrafficsim.i4driving.summerschool.ScenarioRing;
+import org.opentrafficsim.road.network.RoadNetwork;
+
+import nl.tudelft.simulation.dsol.SimRuntimeException;
+import nl.tudelft.simulation.jstats.streams.MersenneTwister;
+
+/**
+ * Test model of the ring scenario with fixed seeds. It gives GTUs a key by the order in which they are generated, as generated
+ * ids continue between runs.
+ * @author wjschakel
+ */
+public class RingModel extends AbstractOtsModel implements EventListener
+{
+
+    /** */
+    private static final long serialVersionUID = 20261017L;
+
+    /** Seed. */
+    private static final long SEED = 1L;
+
+    /** Ring scenario. */
+    private final Ring ring;
+
+    /** Network. */
+    private RoadNetwork network;
+
+    /** Key of generated GTUs by GTU id. */
+    private final Map<String, String> keys = new HashMap<>();
+
+    /**
+     * Constructor.
+     * @param simulator simulator
+     * @param parallelism number of threads for parallel perception, 0 for serial perception
+     */
+    public RingModel(final OtsSimulatorInterface simulator, final int parallelism)
+    {
+        super(simulator);
+        this.ring = new Ring(parallelism);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void constructModel() throws SimRuntimeException
+    {
+        getStreams().put("generation", new MersenneTwister(SEED));
+        getStreams().put("default", new MersenneTwister(SEED + 1));
+        try
+        {
+            this.network = this.ring.setup(getSimulator());
+            this.network.addListener(this, Network.GTU_ADD_EVENT);
+        }
+        catch (Exception ex)
+        {
+            throw new SimRuntimeException(ex);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public RoadNetwork getNetwork()
+    {
+        return this.network;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void notify(final Event event)
+    {
+        this.keys.put((String) event.getContent(), "#" + this.keys.size());
+    }
+
+    /**
+     * Returns the key of a GTU, which is its id for GTUs that were created when the network was set up.
+     * @param id GTU id
+     * @return key of the GTU
+     */
+    public String getKey(final String id)
+    {
+        return this.keys.getOrDefault(id, id);
+    }
+
+    /**
+     * Initializes the simulator with this model and simulates up to and including the given time. The replication is longer,
+     * such that all events at the given time are executed.
+     * @param duration simulation time
+     * @throws SimRuntimeException on exception in the simulation
+     * @throws NamingException when the simulator cannot be initialized
+     */
+    public void run(final Duration duration) throws SimRuntimeException, NamingException
+    {
+        getSimulator().initialize(Time.ZERO, Duration.ZERO, duration.times(2.0), this);
+        runUntil(Time.ZERO.plus(duration));
+    }
+
+    /**
+     * Simulates up to and including the given time, event by event.
+     * @param time time until which to simulate
+     * @throws SimRuntimeException on exception in the simulation
+     */
+    public void runUntil(final Time time) throws SimRuntimeException
+    {
+        Duration until = time.minus(getSimulator().getStartTimeAbs());
+        while (!getSimulator().getEventList().isEmpty()
+                && getSimulator().getEventList().first().getAbsoluteExecutionTime().le(until))
+        {
+            getSimulator().step();
+        }
+    }
+
+    /**
+     * Ring scenario of which the network can be set up outside of a simulation script.
+     */
+    private static final class Ring extends ScenarioRing
+    {
+        /** */
+        private static final long serialVersionUID = 20261017L;
+
+        /**
+         * Constructor.
+         * @param parallelism number of threads, 0 for serial perception
+         */
+        Ring(final int parallelism)
+        {
+            CliUtil.execute(this, new String[] {"--parallelPerception=" + parallelism});
+        }
+
+        /**
+         * Sets up the network.
+         * @param simulator simulator
+         * @return network
+         * @throws Exception on any exception
+         */
+        RoadNetwork setup(final OtsSimulatorInterface simulator) throws Exception
+        {
+            return setupSimulation(simulator);
+        }
+    }
+
+}
@@ -0,0 +1,351 @@
+package org.opentrafficsim.i4driving.tactical.perception;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+import org.djunits.value.vdouble.scalar.Duration;
+import org.djunits.value.vdouble.scalar.Time;
+import org.djutils.cli.CliUtil;
+import org.djutils.draw.point.OrientedPoint2d;
+import org.djutils.event.Event;
+import org.djutils.event.EventListener;
+import org.opentrafficsim.core.dsol.AbstractOtsModel;
+import org.opentrafficsim.core.dsol.OtsSimulator;
+import org.opentrafficsim.core.dsol.OtsSimulatorInterface;
+import org.opentrafficsim.core.gtu.Gtu;
+import org.opentrafficsim.core.network.Network;
+import org.opentrafficsim.i4driving.demo.AttentionDemoUrban;
+import org.opentrafficsim.i4driving.summerschool.ScenarioRing;
+import org.opentrafficsim.road.gtu.lane.LaneBasedGtu;
+import org.opentrafficsim.road.network.RoadNetwork;
+
+import nl.tudelft.simulation.dsol.SimRuntimeException;
+import nl.tudelft.simulation.jstats.streams.MersenneTwister;
+
+/**
+ * Benchmark of parallel perception on the ring and urban demos. Each demo is simulated with serial perception, and with
+ * parallel perception on 1, 2 and 4 threads. The benchmark reports the run time, the number of groups of GTUs that perceive
+ * at the same instant and their mean size, the number of first phases of which the staged result was used (committed) or
+ * not (discarded), whether the final position and speed of all GTUs are identical to the run on 1 thread, and the largest
+ * difference in final position with the serial run for GTUs in both runs. GTUs are compared by the order in which they were
+ * generated, as generated ids continue between runs. Scaling requires that the machine has the number of processors that are
+ * used.
+ * <p>
+ * A discarded first phase is additional work, as the GTU applies the mental model again when it moves. With a discard ratio
+ * <i>d</i> and <i>N</i> threads, the mental model of a group takes at least 1/<i>N</i> + <i>d</i> of the time of the serial
+ * mode. The benchmark reports the resulting upper bound of the speed-up of the mental model, which does not depend on the
+ * number of processors of the machine. Parallel perception can only save work when this is above 1.
+ * </p>
+ * @author wjschakel
+ */
+public final class ParallelPerceptionBenchmark
+{
+
+    /** Seed. */
+    private static final long SEED = 1L;
+
+    /** Simulation time of the ring demo. */
+    private static final Duration RING_TIME = Duration.instantiateSI(600.0);
+
+    /** Simulation time of the urban demo. */
+    private static final Duration URBAN_TIME = Duration.instantiateSI(600.0);
+
+    /** Number of threads, where 0 is serial perception. */
+    private static final int[] PARALLELISM = {0, 1, 2, 4};
+
+    /** Number of timed rounds over all parallelism values, of which the fastest run time is reported. */
+    private static final int ROUNDS = 3;
+
+    /**
+     * Constructor.
+     */
+    private ParallelPerceptionBenchmark()
+    {
+        //
+    }
+
+    /**
+     * Runs the benchmark.
+     * @param args not used
+     * @throws Exception on any exception
+     */
+    public static void main(final String[] args) throws Exception
+    {
+        Locale.setDefault(Locale.US);
+        System.out.println(String.format("%d available processors", Runtime.getRuntime().availableProcessors()));
+        benchmark("ring", (p) -> new Ring(p), RING_TIME);
+        benchmark("urban", (p) -> new Urban(p), URBAN_TIME);
+        System.exit(0); // simulator threads are not daemon threads
+    }
+
+    /**
+     * Runs a demo with serial perception and all parallelism values, after a warm-up run of each. The timed runs are repeated in
+     * rounds over all parallelism values, such that just-in-time compilation and garbage collection do not favour values that
+     * run later, and the fastest run time is reported.
+     * @param name name of the demo
+     * @param demo creates the demo for a number of threads
+     * @param duration simulation time
+     * @throws Exception on any exception
+     */
+    private static void benchmark(final String name, final IntFunction<Demo> demo, final Duration duration)
+            throws Exception
+    {
+        System.out.println();
+        System.out.println(String.format("%s demo, %.0fs", name, duration.si));
+        System.out.println("threads  time [s]  speed-up  groups  mean group  committed  discarded  discard ratio  "
+                + "mental bound  identical  serial diff [m]");
+        for (int parallelism : PARALLELISM)
+        {
+            run(demo.apply(parallelism), duration); // warm-up
+        }
+        Result[] results = new Result[PARALLELISM.length];
+        for (int round = 0; round < ROUNDS; round++)
+        {
+            for (int i = 0; i < PARALLELISM.length; i++)
+            {
+                Result result = run(demo.apply(PARALLELISM[i]), duration);
+                results[i] = results[i] == null || result.time() < results[i].time() ? result : results[i];
+            }
+        }
+        Result serial = null;
+        Result single = null;
+        for (int i = 0; i < PARALLELISM.length; i++)
+        {
+            int parallelism = PARALLELISM[i];
+            Result result = results[i];
+            double discardRatio = (double) result.discarded() / (result.committed() + result.discarded());
+            if (serial == null)
+            {
+                serial = result;
+            }
+            else if (single == null)
+            {
+                single = result;
+            }
+            System.out.println(String.format("%7s %9.2f %9.2f %7d %11.2f %10d %10d %14.3f %13.2f %10s %16.3f",
+                    parallelism == 0 ? "serial" : Integer.toString(parallelism), result.time(), serial.time() / result.time(),
+                    result.groups(), result.meanGroupSize(), result.committed(), result.discarded(), discardRatio,
+                    parallelism == 0 ? Double.NaN : 1.0 / (1.0 / parallelism + discardRatio),
+                    single == null ? "-" : (result.states().equals(single.states()) ? "yes" : "no"),
+                    maxDistance(result, serial)));
+        }
+    }
+
+    /**
+     * Returns the largest distance between the final positions of GTUs that are in both results.
+     * @param result result
+     * @param other other result
+     * @return largest distance between the final positions of GTUs that are in both results [m]
+     */
+    private static double maxDistance(final Result result, final Result other)
+    {
+        double max = 0.0;
+        for (Map.Entry<String, GtuState> entry : result.states().entrySet())
+        {
+            GtuState state = other.states().get(entry.getKey());
+            if (state != null)
+            {
+                max = Math.max(max, entry.getValue().location().distance(state.location()));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Simulates a demo.
+     * @param demo demo
+     * @param duration simulation time
+     * @return result
+     * @throws Exception on any exception
+     */
+    private static Result run(final Demo demo, final Duration duration) throws Exception
+    {
+        OtsSimulator simulator = new OtsSimulator("parallel perception benchmark");
+        BenchmarkModel model = new BenchmarkModel(simulator, demo);
+        long t0 = System.nanoTime();
+        simulator.initialize(Time.ZERO, Duration.ZERO, duration, model);
+        Time end = Time.ZERO.plus(duration);
+        while (simulator.getSimulatorAbsTime().lt(end))
+        {
+            simulator.step();
+        }
+        double time = (System.nanoTime() - t0) / 1.0e9;
+
+        Map<String, GtuState> states = new LinkedHashMap<>();
+        ParallelPerception coordinator = null;
+        for (Gtu gtu : model.getNetwork().getGTUs())
+        {
+            states.put(model.getKey(gtu.getId()), new GtuState(gtu.getLocation(), gtu.getSpeed().si));
+            if (((LaneBasedGtu) gtu).getTacticalPlanner().getPerception() instanceof ParallelLanePerception perception)
+            {
+                coordinator = perception.getCoordinator();
+            }
+        }
+        return new Result(time, coordinator == null ? 0 : coordinator.getGroups(),
+                coordinator == null ? Double.NaN : coordinator.getMeanGroupSize(),
+                coordinator == null ? 0 : coordinator.getCommitted(), coordinator == null ? 0 : coordinator.getDiscarded(),
+                states);
+    }
+
+    /**
+     * Result of a run.
+     * @param time run time [s]
+     * @param groups number of groups of GTUs that perceive at the same instant
+     * @param meanGroupSize mean number of GTUs in a group
+     * @param committed number of first phases of which the staged result was used
+     * @param discarded number of first phases of which the staged result was not used
+     * @param states state of all GTUs at the end, by GTU key
+     */
+    private record Result(double time, long groups, double meanGroupSize, long committed, long discarded,
+            Map<String, GtuState> states)
+    {
+    }
+
+    /**
+     * State of a GTU at the end of a run.
+     * @param location location
+     * @param speed speed [m/s]
+     */
+    private record GtuState(OrientedPoint2d location, double speed)
+    {
+    }
+
+    /**
+     * Demo of which the network can be set up outside of a simulation script.
+     */
+    private interface Demo
+    {
+        /**
+         * Sets up the network.
+         * @param simulator simulator
+         * @return network
+         * @throws Exception on any exception
+         */
+        RoadNetwork setup(OtsSimulatorInterface simulator) throws Exception;
+    }
+
+    /**
+     * Ring demo.
+     */
+    private static final class Ring extends ScenarioRing implements Demo
+    {
+        /** */
+        private static final long serialVersionUID = 20261017L;
+
+        /**
+         * Constructor.
+         * @param parallelism number of threads, 0 for serial perception
+         */
+        Ring(final int parallelism)
+        {
+            CliUtil.execute(this, new String[] {"--parallelPerception=" + parallelism});
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public RoadNetwork setup(final OtsSimulatorInterface simulator) throws Exception
+        {
+            return setupSimulation(simulator);
+        }
+    }
+
+    /**
+     * Urban demo.
+     */
+    private static final class Urban extends AttentionDemoUrban implements Demo
+    {
+        /** */
+        private static final long serialVersionUID = 20261017L;
+
+        /**
+         * Constructor.
+         * @param parallelism number of threads, 0 for serial perception
+         */
+        Urban(final int parallelism)
+        {
+            CliUtil.execute(this, new String[] {"--parallelPerception=" + parallelism});
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public RoadNetwork setup(final OtsSimulatorInterface simulator) throws Exception
+        {
+            return setupSimulation(simulator);
+        }
+    }
+
+    /**
+     * Model that sets up the network of a demo, with the random streams of a simulation script. It gives GTUs a key by the
+     * order in which they are generated.
+     */
+    private static final class BenchmarkModel extends AbstractOtsModel implements EventListener
+    {
+        /** */
+        private static final long serialVersionUID = 20261017L;
+
+        /** Demo. */
+        private final Demo demo;
+
+        /** Network. */
+        private RoadNetwork network;
+
+        /** Key of generated GTUs by GTU id. */
+        private final Map<String, String> keys = new HashMap<>();
+
+        /**
+         * Constructor.
+         * @param simulator simulator
+         * @param demo demo
+         */
+        BenchmarkModel(final OtsSimulatorInterface simulator, final Demo demo)
+        {
+            super(simulator);
+            this.demo = demo;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void constructModel() throws SimRuntimeException
+        {
+            getStreams().put("generation", new MersenneTwister(SEED));
+            getStreams().put("default", new MersenneTwister(SEED + 1));
+            try
+            {
+                this.network = this.demo.setup(getSimulator());
+                this.network.addListener(this, Network.GTU_ADD_EVENT);
+            }
+            catch (Exception ex)
+            {
+                throw new SimRuntimeException(ex);
+            }
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public RoadNetwork getNetwork()
+        {
+            return this.network;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void notify(final Event event)
+        {
+            this.keys.put((String) event.getContent(), "#" + this.keys.size());
+        }
+
+        /**
+         * Returns the key of a GTU, which is its id for GTUs that were created when the network was set up.
+         * @param id GTU id
+         * @return key of the GTU
+         */
+        String getKey(final String id)
+        {
+            return this.keys.getOrDefault(id, id);
+        }
+    }
+
+}
@@ -0,0 +1,105 @@
+package org.opentrafficsim.i4driving.tactical.perception;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.naming.NamingException;
+
+import org.djunits.value.vdouble.scalar.Duration;
+import org.junit.Test;
+import org.opentrafficsim.core.dsol.OtsSimulator;
+import org.opentrafficsim.core.gtu.Gtu;
+import org.opentrafficsim.i4driving.tactical.RingModel;
+import org.opentrafficsim.road.gtu.lane.LaneBasedGtu;
+
+import nl.tudelft.simulation.dsol.SimRuntimeException;
+
+/**
+ * Tests that parallel perception gives the same results as serial perception on the ring scenario.
+ * @author wjschakel
+ */
+public class ParallelPerceptionTest
+{
+
+    /** Simulation time. */
+    private static final Duration DURATION = Duration.instantiateSI(60.0);
+
+    /**
+     * Compares the final state of all GTUs between serial perception and parallel perception on 1 and 2 threads.
+     * @throws SimRuntimeException on exception in the simulation
+     * @throws NamingException when the simulator cannot be initialized
+     */
+    @Test
+    public void testSerialEquality() throws SimRuntimeException, NamingException
+    {
+        Map<String, String> serial = run(0);
+        assertFalse("No GTUs in the ring scenario.", serial.isEmpty());
+        assertEquals(serial, run(1));
+        assertEquals(serial, run(2));
+    }
+
+    /**
+     * Tests that the threads of the first phase are shut down when the replication ends.
+     * @throws SimRuntimeException on exception in the simulation
+     * @throws NamingException when the simulator cannot be initialized
+     */
+    @Test
+    public void testShutdown() throws SimRuntimeException, NamingException
+    {
+        RingModel model = new RingModel(new OtsSimulator("parallel perception shutdown"), 2);
+        model.run(Duration.instantiateSI(5.0));
+        ParallelPerception coordinator = getCoordinator(model);
+        assertFalse(coordinator.isShutdown());
+        model.getSimulator().endReplication();
+        assertTrue(coordinator.isShutdown());
+    }
+
+    /**
+     * Simulates the ring scenario.
+     * @param parallelism number of threads for parallel perception, 0 for serial perception
+     * @return location and speed of all GTUs at the end, by GTU key
+     * @throws SimRuntimeException on exception in the simulation
+     * @throws NamingException when the simulator cannot be initialized
+     */
+    private static Map<String, String> run(final int parallelism) throws SimRuntimeException, NamingException
+    {
+        RingModel model = new RingModel(new OtsSimulator("parallel perception " + parallelism), parallelism);
+        model.run(DURATION);
+        Map<String, String> states = new LinkedHashMap<>();
+        for (Gtu gtu : model.getNetwork().getGTUs())
+        {
+            states.put(model.getKey(gtu.getId()), gtu.getLocation() + " " + gtu.getSpeed().si);
+        }
+        if (parallelism > 0)
+        {
+            ParallelPerception coordinator = getCoordinator(model);
+            assertTrue("No groups of GTUs perceived in parallel.", coordinator.getGroups() > 0);
+            assertTrue("No staged result of a first phase was used.", coordinator.getCommitted() > 0);
+            assertEquals(coordinator.getDiscarded() / (double) (coordinator.getCommitted() + coordinator.getDiscarded()),
+                    coordinator.getDiscardRatio(), 1e-12);
+        }
+        return states;
+    }
+
+    /**
+     * Returns the coordinator of parallel perception of the GTUs in the model.
+     * @param model model
+     * @return coordinator of parallel perception of the GTUs in the model
+     */
+    private static ParallelPerception getCoordinator(final RingModel model)
+    {
+        for (Gtu gtu : model.getNetwork().getGTUs())
+        {
+            if (((LaneBasedGtu) gtu).getTacticalPlanner().getPerception() instanceof ParallelLanePerception perception)
+            {
+                return perception.getCoordinator();
+            }
+        }
+        throw new AssertionError("No GTU with parallel perception.");
+    }
+
+}
@@ -0,0 +1,123 @@
+package org.opentrafficsim.i4driving.tactical.perception.mental.channel;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.opentrafficsim.base.parameters.ParameterException;
+import org.opentrafficsim.base.parameters.ParameterSet;
+import org.opentrafficsim.core.gtu.GtuException;
+import org.opentrafficsim.road.gtu.lane.perception.LanePerception;
+import org.opentrafficsim.road.gtu.lane.perception.categories.neighbors.Estimation;
+
+/**
+ * Allocation-rate benchmark of {@code ChannelFuller.apply()}. Task suppliers return pre-built tasks with fixed demand for the
+ * four standard channels and a number of conflict channels, such that only the allocation of {@code ChannelFuller} itself is
+ * measured. The parameters are set as for a GTU. The benchmark reports the allocated bytes and time per call.
+ * @author wjschakel
+ */
+public final class ChannelFullerBenchmark
+{
+
+    /** Number of calls per measurement. */
+    private static final int CALLS = 1_000_000;
+
+    /**
+     * Constructor.
+     */
+    private ChannelFullerBenchmark()
+    {
+        //
+    }
+
+    /**
+     * Runs the benchmark.
+     * @param args not used
+     * @throws ParameterException on missing parameter
+     * @throws GtuException on too high task demand
+     */
+    public static void main(final String[] args) throws ParameterException, GtuException
+    {
+        Locale.setDefault(Locale.US);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        System.out.println("conflicts   bytes/call   ns/call");
+        for (int conflicts : new int[] {0, 2, 8})
+        {
+            ChannelFuller fuller = new ChannelFuller(List.of(tasks(conflicts)), Set.of());
+            ParameterSet parameters = new ParameterSet().setDefaultParameters(ChannelFuller.class)
+                    .setDefaultParameter(Estimation.OVER_EST);
+            for (int i = 0; i < CALLS; i++)
+            {
+                fuller.apply(null, parameters); // warm-up
+            }
+            long bytes = threads.getThreadAllocatedBytes(threadId);
+            long t0 = System.nanoTime();
+            for (int i = 0; i < CALLS; i++)
+            {
+                fuller.apply(null, parameters);
+            }
+            long time = System.nanoTime() - t0;
+            bytes = threads.getThreadAllocatedBytes(threadId) - bytes;
+            System.out.println(String.format("%9d %12.1f %9.1f", conflicts, (double) bytes / CALLS, (double) time / CALLS));
+        }
+    }
+
+    /**
+     * Returns a task supplier with tasks in the four standard channels and the given number of conflict channels. Channels
+     * have two tasks each and total demand is above 1.
+     * @param conflicts number of conflict channels
+     * @return task supplier
+     */
+    private static Function<LanePerception, Set<ChannelTask>> tasks(final int conflicts)
+    {
+        Random random = new Random(1L);
+        Set<ChannelTask> tasks = new LinkedHashSet<>();
+        for (Object channel : new Object[] {ChannelTask.FRONT, ChannelTask.REAR, ChannelTask.LEFT, ChannelTask.RIGHT})
+        {
+            tasks.add(new FixedTask(channel, 0.1 + 0.3 * random.nextDouble()));
+            tasks.add(new FixedTask(channel, 0.1 + 0.3 * random.nextDouble()));
+        }
+        for (int i = 0; i < conflicts; i++)
+        {
+            Object channel = new Object();
+            tasks.add(new FixedTask(channel, 0.1 + 0.3 * random.nextDouble()));
+            tasks.add(new FixedTask(channel, 0.1 + 0.3 * random.nextDouble()));
+        }
+        return (perception) -> tasks;
+    }
+
+    /**
+     * Task with fixed demand.
+     * @param channel channel
+     * @param demand task demand
+     */
+    private record FixedTask(Object channel, double demand) implements ChannelTask
+    {
+        /** {@inheritDoc} */
+        @Override
+        public String getId()
+        {
+            return "fixed";
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public Object getChannel()
+        {
+            return this.channel;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public double getDemand(final LanePerception perception)
+        {
+            return this.demand;
+        }
+    }
+
+}
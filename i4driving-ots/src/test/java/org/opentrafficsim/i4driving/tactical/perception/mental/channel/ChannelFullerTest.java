@@ -0,0 +1,314 @@
+package org.opentrafficsim.i4driving.tactical.perception.mental.channel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.Set;
+
+import org.djunits.value.vdouble.scalar.Duration;
+import org.junit.Test;
+import org.opentrafficsim.base.parameters.ParameterException;
+import org.opentrafficsim.base.parameters.ParameterSet;
+import org.opentrafficsim.base.parameters.Parameters;
+import org.opentrafficsim.core.gtu.GtuException;
+import org.opentrafficsim.road.gtu.lane.perception.LanePerception;
+import org.opentrafficsim.road.gtu.lane.perception.categories.neighbors.Estimation;
+
+import Jama.Matrix;
+
+/**
+ * Tests that {@code ChannelFuller.apply()} gives the same task saturation, attention and perception delay as the previous
+ * implementation, which gathered the channels in maps and solved the eigen decomposition of the attention matrix, over a
+ * changing set of channels in which channels are removed and added again.
+ * @author wjschakel
+ */
+public class ChannelFullerTest
+{
+
+    /** Number of applications of the mental model. */
+    private static final int STEPS = 500;
+
+    /** Tolerance on attention and perception delay, as the eigen decomposition is not exact. */
+    private static final double TOLERANCE = 1e-9;
+
+    /**
+     * Compares the mental model with the previous implementation.
+     * @throws ParameterException on missing parameter
+     * @throws GtuException on too high task demand
+     */
+    @Test
+    public void testPreviousImplementation() throws ParameterException, GtuException
+    {
+        Random random = new Random(3L);
+        List<Object> pool = new ArrayList<>(List.of(ChannelTask.FRONT, ChannelTask.REAR, ChannelTask.LEFT, ChannelTask.RIGHT));
+        List<Object> conflicts = new ArrayList<>();
+        for (int i = 0; i < 8; i++)
+        {
+            pool.add("Conflicts " + i);
+            conflicts.add("Conflict " + i);
+        }
+        Set<ChannelTask> tasks = new LinkedHashSet<>();
+        ChannelFuller fuller = new ChannelFuller(List.of((perception) -> tasks), Set.of());
+        PreviousChannelFuller previous = new PreviousChannelFuller();
+        Parameters parameters = new ParameterSet().setDefaultParameters(ChannelFuller.class)
+                .setDefaultParameter(Estimation.OVER_EST);
+        parameters.setParameter(ChannelFuller.TC, 0.8);
+        Parameters previousParameters = new ParameterSet().setDefaultParameters(ChannelFuller.class)
+                .setDefaultParameter(Estimation.OVER_EST);
+        previousParameters.setParameter(ChannelFuller.TC, 0.8);
+        int removed = 0;
+        Set<Object> before = Set.of();
+        for (int step = 0; step < STEPS; step++)
+        {
+            // random channels in random order, with one or two tasks each, of which some without demand
+            tasks.clear();
+            List<Object> channels = new ArrayList<>(pool);
+            channels.removeIf((channel) -> random.nextDouble() < 0.4);
+            Collections.shuffle(channels, random);
+            for (Object channel : channels)
+            {
+                for (int i = random.nextInt(2); i < 2; i++)
+                {
+                    tasks.add(new FixedTask(channel, random.nextDouble() < 0.1 ? 0.0 : 0.6 * random.nextDouble()));
+                }
+            }
+            fuller.apply(null, parameters);
+            previous.apply(tasks, previousParameters);
+            for (int i = 0; i < conflicts.size(); i++)
+            {
+                if (channels.contains(pool.get(4 + i)))
+                {
+                    fuller.mapToChannel(conflicts.get(i), pool.get(4 + i));
+                    previous.mapToChannel(conflicts.get(i), pool.get(4 + i));
+                }
+            }
+            Set<Object> current = new LinkedHashSet<>(previous.perceptionDelay.keySet());
+            assertEquals(current, fuller.getChannels());
+            removed += before.stream().filter((channel) -> !current.contains(channel)).count();
+            before = current;
+
+            assertEquals(previousParameters.getParameter(ChannelFuller.TS), parameters.getParameter(ChannelFuller.TS), 0.0);
+            assertEquals(previousParameters.getParameter(ChannelFuller.EST_FACTOR),
+                    parameters.getParameter(ChannelFuller.EST_FACTOR), 0.0);
+            assertEquals(previousParameters.getParameter(ChannelFuller.ATT), parameters.getParameter(ChannelFuller.ATT),
+                    TOLERANCE);
+            List<Object> objects = new ArrayList<>(pool);
+            objects.addAll(conflicts);
+            for (Object object : objects)
+            {
+                if (previous.contains(object))
+                {
+                    assertEquals(previous.getAttention(object), fuller.getAttention(object), TOLERANCE);
+                    assertEquals(previous.getPerceptionDelay(object).si, fuller.getPerceptionDelay(object).si, TOLERANCE);
+                }
+                else
+                {
+                    assertThrows(IllegalArgumentException.class, () -> fuller.getAttention(object));
+                    assertThrows(IllegalArgumentException.class, () -> fuller.getPerceptionDelay(object));
+                }
+            }
+        }
+        assertTrue("No channels were removed and added again.", removed > STEPS);
+    }
+
+    /**
+     * Previous implementation of {@code ChannelFuller.apply()}, and of the attention matrix it used.
+     */
+    private static class PreviousChannelFuller
+    {
+        /** Mappings from object to channel. */
+        private final Map<Object, Object> channelMapping = new LinkedHashMap<>();
+
+        /** Stored perception delay per channel. */
+        private final Map<Object, Duration> perceptionDelay = new LinkedHashMap<>();
+
+        /** Stored level of attention per channel. */
+        private final Map<Object, Double> attention = new LinkedHashMap<>();
+
+        /**
+         * Applies the mental model.
+         * @param tasks tasks
+         * @param parameters parameters
+         * @throws ParameterException on missing parameter
+         */
+        void apply(final Set<ChannelTask> tasks, final Parameters parameters) throws ParameterException
+        {
+            this.channelMapping.clear();
+            Map<Object, Double> channelTaskDemand = new LinkedHashMap<>();
+            for (ChannelTask task : tasks)
+            {
+                channelTaskDemand.merge(task.getChannel(), task.getDemand(null), Math::max);
+            }
+            double[] tdArray = new double[channelTaskDemand.size()];
+            int index = 0;
+            double sumTaskDemand = 0.0;
+            Map<Object, Integer> channelIndex = new LinkedHashMap<>();
+            for (Entry<Object, Double> entry : channelTaskDemand.entrySet())
+            {
+                channelIndex.put(entry.getKey(), index);
+                tdArray[index] = entry.getValue();
+                sumTaskDemand += entry.getValue();
+                index++;
+            }
+            double[] att = steadyState(tdArray);
+            double maxAttention = 0.0;
+            this.perceptionDelay.clear();
+            this.attention.clear();
+            Duration tauMin = parameters.getParameter(ChannelFuller.TAU_MIN);
+            Duration tauMax = parameters.getParameter(ChannelFuller.TAU_MAX);
+            double tc = parameters.getParameter(ChannelFuller.TC);
+            for (Entry<Object, Integer> entry : channelIndex.entrySet())
+            {
+                index = entry.getValue();
+                double deterioration = tdArray[index] == 0.0 ? 1.0 : (tdArray[index] - att[index]) / tdArray[index];
+                this.perceptionDelay.put(entry.getKey(), Duration.interpolate(tauMin, tauMax, deterioration).divide(tc));
+                maxAttention = Double.max(maxAttention, att[index]);
+                this.attention.put(entry.getKey(), att[index]);
+            }
+            double ts = sumTaskDemand / tc;
+            parameters.setParameter(ChannelFuller.TS, ts);
+            parameters.setParameter(ChannelFuller.EST_FACTOR,
+                    Math.pow(Math.max(ts, 1.0), parameters.getParameter(Estimation.OVER_EST)));
+            parameters.setParameter(ChannelFuller.ATT, maxAttention);
+        }
+
+        /**
+         * Returns the steady state of the attention matrix, from its eigen decomposition.
+         * @param demand task demand per channel
+         * @return attention per channel
+         */
+        private static double[] steadyState(final double[] demand)
+        {
+            int n = demand.length;
+            double demandSum = 0.0;
+            for (double td : demand)
+            {
+                demandSum += td;
+            }
+            if (demandSum <= 1.0)
+            {
+                return demand.clone();
+            }
+            Matrix matrix = new Matrix(n, n);
+            for (int i = 0; i < n; i++)
+            {
+                for (int j = 0; j < n; j++)
+                {
+                    if (i == j)
+                    {
+                        matrix.set(j, i, demand[i]);
+                    }
+                    else if (demandSum > demand[i])
+                    {
+                        matrix.set(j, i, (1 - demand[i]) * demand[j] / (demandSum - demand[i]));
+                    }
+                }
+            }
+            var ed = matrix.eig();
+            double[] eigenValues = ed.getRealEigenvalues();
+            int eigenIndex = 0;
+            double dMin = 1.0;
+            for (int i = 0; i < n; i++)
+            {
+                double di = Math.abs(eigenValues[i] - 1.0);
+                if (di < dMin)
+                {
+                    dMin = di;
+                    eigenIndex = i;
+                }
+            }
+            double[][] v = ed.getV().getArray();
+            double[] attention = new double[n];
+            double sumEigenVector = 0.0;
+            for (int i = 0; i < n; i++)
+            {
+                attention[i] = v[i][eigenIndex];
+                sumEigenVector += attention[i];
+            }
+            for (int i = 0; i < n; i++)
+            {
+                attention[i] = attention[i] / sumEigenVector;
+            }
+            return attention;
+        }
+
+        /**
+         * Maps an object to a channel.
+         * @param obj object
+         * @param channel channel
+         */
+        void mapToChannel(final Object obj, final Object channel)
+        {
+            this.channelMapping.put(obj, channel);
+        }
+
+        /**
+         * Returns whether the object is a current channel, or mapped to one.
+         * @param obj object
+         * @return whether the object is a current channel, or mapped to one
+         */
+        boolean contains(final Object obj)
+        {
+            return this.channelMapping.containsKey(obj) || this.perceptionDelay.containsKey(obj);
+        }
+
+        /**
+         * Returns the perception delay of the channel of an object.
+         * @param obj object
+         * @return perception delay of the channel of an object
+         */
+        Duration getPerceptionDelay(final Object obj)
+        {
+            return this.perceptionDelay.get(this.channelMapping.getOrDefault(obj, obj));
+        }
+
+        /**
+         * Returns the attention of the channel of an object.
+         * @param obj object
+         * @return attention of the channel of an object
+         */
+        double getAttention(final Object obj)
+        {
+            return this.attention.get(this.channelMapping.getOrDefault(obj, obj));
+        }
+    }
+
+    /**
+     * Task with fixed demand.
+     * @param channel channel
+     * @param demand task demand
+     */
+    private record FixedTask(Object channel, double demand) implements ChannelTask
+    {
+        /** {@inheritDoc} */
+        @Override
+        public String getId()
+        {
+            return "fixed";
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public Object getChannel()
+        {
+            return this.channel;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public double getDemand(final LanePerception perception)
+        {
+            return this.demand;
+        }
+    }
+
+}
@@ -0,0 +1,173 @@
+package org.opentrafficsim.i4driving.test;
+
+import java.util.Locale;
+import java.util.Random;
+
+import org.opentrafficsim.i4driving.tactical.perception.mental.channel.AttentionMatrix;
+
+import Jama.Matrix;
+
+/**
+ * Benchmark of the steady state in {@code AttentionMatrix} against the eigen decomposition of the transition matrix with Jama,
+ * for n = 2..20 channels. Only saturated demand is used, i.e. a sum of demand above 1, as otherwise no steady state is derived.
+ * This also reports the largest difference between both results.
+ * @author wjschakel
+ */
+public final class AttentionMatrixBenchmark
+{
+
+    /** Number of random demand vectors per n. */
+    private static final int SAMPLES = 1000;
+
+    /** Number of repetitions over all samples for timing. */
+    private static final int REPETITIONS = 50;
+
+    /** Sink to prevent dead-code elimination. */
+    private static double sink;
+
+    /**
+     * Constructor.
+     */
+    private AttentionMatrixBenchmark()
+    {
+        //
+    }
+
+    /**
+     * Runs the benchmark.
+     * @param args not used
+     */
+    public static void main(final String[] args)
+    {
+        Locale.setDefault(Locale.US);
+        Random random = new Random(1L);
+        System.out.println(" n   Jama [us]   AttentionMatrix [us]   speed-up   max difference");
+        for (int n = 2; n <= 20; n++)
+        {
+            double[][] demands = new double[SAMPLES][];
+            for (int k = 0; k < SAMPLES; k++)
+            {
+                demands[k] = saturatedDemand(random, n);
+            }
+            double maxDifference = 0.0;
+            for (double[] demand : demands)
+            {
+                double[] reference = jamaAttention(demand);
+                AttentionMatrix matrix = new AttentionMatrix(demand);
+                for (int i = 0; i < n; i++)
+                {
+                    maxDifference = Math.max(maxDifference, Math.abs(reference[i] - matrix.getAttention(i)));
+                }
+            }
+            // warm-up and measurement
+            time(demands, true);
+            time(demands, false);
+            double jama = time(demands, true);
+            double closedForm = time(demands, false);
+            System.out.println(String.format("%2d %11.3f %22.3f %10.1f %16.3e", n, jama, closedForm, jama / closedForm,
+                    maxDifference));
+        }
+        System.out.println(sink > 0.0 ? "" : " ");
+    }
+
+    /**
+     * Returns the mean time per steady-state calculation.
+     * @param demands demand vectors
+     * @param jama whether to use Jama, or {@code AttentionMatrix}
+     * @return mean time per steady-state calculation in us
+     */
+    private static double time(final double[][] demands, final boolean jama)
+    {
+        long t0 = System.nanoTime();
+        for (int r = 0; r < REPETITIONS; r++)
+        {
+            for (double[] demand : demands)
+            {
+                sink += jama ? jamaAttention(demand)[0] : new AttentionMatrix(demand).getAttention(0);
+            }
+        }
+        return (System.nanoTime() - t0) / 1000.0 / REPETITIONS / demands.length;
+    }
+
+    /**
+     * Returns random demand with a sum above 1, and each value in the range [0, 1).
+     * @param random random number generator
+     * @param n number of channels
+     * @return random demand with a sum above 1
+     */
+    static double[] saturatedDemand(final Random random, final int n)
+    {
+        double[] demand = new double[n];
+        double sum;
+        do
+        {
+            sum = 0.0;
+            for (int i = 0; i < n; i++)
+            {
+                // some channels without demand
+                demand[i] = random.nextDouble() < 0.1 ? 0.0 : random.nextDouble() * 0.999;
+                sum += demand[i];
+            }
+        }
+        while (sum <= 1.0);
+        return demand;
+    }
+
+    /**
+     * Returns the steady state of the transition matrix by eigen decomposition, as {@code AttentionMatrix} used to do.
+     * @param demand demand per channel, with a sum above 1
+     * @return attention per channel
+     */
+    static double[] jamaAttention(final double[] demand)
+    {
+        int n = demand.length;
+        double demandSum = 0.0;
+        for (int i = 0; i < n; i++)
+        {
+            demandSum += demand[i];
+        }
+        // transposed transition matrix, as we need the left-eigenvector
+        Matrix matrix = new Matrix(n, n);
+        for (int i = 0; i < n; i++)
+        {
+            for (int j = 0; j < n; j++)
+            {
+                if (i == j)
+                {
+                    matrix.set(j, i, demand[i]);
+                }
+                else if (demandSum > demand[i])
+                {
+                    matrix.set(j, i, (1 - demand[i]) * demand[j] / (demandSum - demand[i]));
+                }
+            }
+        }
+        var ed = matrix.eig();
+        double[] eigenValues = ed.getRealEigenvalues();
+        int eigenIndex = 0;
+        double dMin = 1.0;
+        for (int i = 0; i < n; i++)
+        {
+            double di = Math.abs(eigenValues[i] - 1.0);
+            if (di < dMin)
+            {
+                dMin = di;
+                eigenIndex = i;
+            }
+        }
+        double[][] v = ed.getV().getArray();
+        double[] attention = new double[n];
+        double sumEigenVector = 0.0;
+        for (int i = 0; i < n; i++)
+        {
+            attention[i] = v[i][eigenIndex];
+            sumEigenVector += attention[i];
+        }
+        for (int i = 0; i < n; i++)
+        {
+            attention[i] = attention[i] / sumEigenVector;
+        }
+        return attention;
+    }
+
+}
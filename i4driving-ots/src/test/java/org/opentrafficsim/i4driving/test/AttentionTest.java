@@ -3,6 +3,7 @@ package org.opentrafficsim.i4driving.test;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Random;
 import java.util.concurrent.ThreadLocalRandom;
 
 import org.junit.Test;
@@ -72,4 +73,27 @@ public class AttentionTest
         }
     }
 
+    /**
+     * This tests that the steady state of AttentionMatrix equals the eigenvector of the transition matrix.
+     */
+    @Test
+    public void testSteadyState()
+    {
+        Random random = new Random(1L);
+        for (int n = 2; n <= 20; n++)
+        {
+            for (int k = 0; k < 100; k++)
+            {
+                double[] demand = AttentionMatrixBenchmark.saturatedDemand(random, n);
+                double[] reference = AttentionMatrixBenchmark.jamaAttention(demand);
+                AttentionMatrix m = new AttentionMatrix(demand);
+                for (int i = 0; i < n; i++)
+                {
+                    assertEquals("Attention differs from eigenvector of transition matrix.", reference[i], m.getAttention(i),
+                            1e-9);
+                }
+            }
+        }
+    }
+
 }